@@ -22,7 +22,6 @@
 
 package com.microsoft.azuretools.azureexplorer.forms.createvm;
 
-import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
@@ -30,9 +29,12 @@ import java.util.stream.Collectors;
 
 import org.eclipse.jface.wizard.WizardPage;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.ModifyEvent;
+import org.eclipse.swt.events.ModifyListener;
 import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.events.SelectionListener;
+import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Button;
@@ -43,10 +45,9 @@ import org.eclipse.swt.widgets.Label;
 import com.microsoft.azure.management.compute.KnownLinuxVirtualMachineImage;
 import com.microsoft.azure.management.compute.KnownWindowsVirtualMachineImage;
 import com.microsoft.azure.management.compute.VirtualMachineImage;
-import com.microsoft.azure.management.compute.VirtualMachineOffer;
-import com.microsoft.azure.management.compute.VirtualMachinePublisher;
-import com.microsoft.azure.management.compute.VirtualMachineSku;
 import com.microsoft.azure.management.resources.Location;
+import com.microsoft.azuretools.core.mvp.model.vm.VirtualMachineImageCatalog;
+import com.microsoft.azuretools.core.mvp.model.vm.VirtualMachineImageSource;
 import com.microsoft.azuretools.authmanage.models.SubscriptionDetail;
 import com.microsoft.azuretools.core.Activator;
 import com.microsoft.azuretools.core.utils.Messages;
@@ -57,6 +58,8 @@ import com.microsoft.tooling.msservices.components.DefaultLoader;
 
 public class SelectImageStep extends WizardPage {
     private static final String LOADING = "<Loading...>";
+    private static final int MAX_SEARCH_RESULTS = 50;
+    private static final String URN_SEPARATOR = ":";
 
     private CreateVMWizard wizard;
 
@@ -65,6 +68,8 @@ public class SelectImageStep extends WizardPage {
     private Combo knownImageComboBox;
     private Label regionLabel;
     private Combo regionComboBox;
+    private Label searchLabel;
+    private Combo imageSearchComboBox;
     private Label publisherLabel;
     private Combo publisherComboBox;
     private Label offerLabel;
@@ -73,6 +78,9 @@ public class SelectImageStep extends WizardPage {
     private Combo skuComboBox;
     private Label versionLabel;
     private org.eclipse.swt.widgets.List imageLabelList;
+    // publisher, offer and sku of the searched image, selected level by level as the combo boxes are filled
+    private String[] pendingImagePath;
+    private boolean isUpdatingSearch = false;
 
     public SelectImageStep(final CreateVMWizard wizard) {
         super("Select a Virtual Machine Image", "Select a Virtual Machine Image", Activator.getImageDescriptor("icons/large/Azure.png"));
@@ -120,6 +128,24 @@ public class SelectImageStep extends WizardPage {
         knownImageBtn.setSelection(true);
         setMachineImage();
 
+        imageSearchComboBox.addModifyListener(new ModifyListener() {
+            @Override
+            public void modifyText(ModifyEvent event) {
+                if (!isUpdatingSearch) {
+                    searchImages();
+                }
+            }
+        });
+        imageSearchComboBox.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent event) {
+                final int index = imageSearchComboBox.getSelectionIndex();
+                if (index >= 0) {
+                    selectImageUrn(imageSearchComboBox.getItem(index));
+                }
+            }
+        });
+
         publisherComboBox.addSelectionListener(new SelectionAdapter() {
             @Override
             public void widgetSelected(SelectionEvent event) {
@@ -194,6 +220,12 @@ public class SelectImageStep extends WizardPage {
         customImageBtn.setText("Custom image:");
         customImageBtn.setLayoutData(getGridData(2));
 
+        searchLabel = new Label(composite, SWT.LEFT);
+        searchLabel.setText("Search:");
+        imageSearchComboBox = new Combo(composite, SWT.DROP_DOWN);
+        imageSearchComboBox.setLayoutData(getGridData(1));
+        imageSearchComboBox.setToolTipText("Search the listed publishers, offers and skus of the location, e.g. ubuntu");
+
         publisherLabel = new Label(composite, SWT.LEFT);
         publisherLabel.setText("Publisher:");
         publisherComboBox = new Combo(composite, SWT.READ_ONLY);
@@ -298,6 +330,8 @@ public class SelectImageStep extends WizardPage {
 //        setPageComplete(!customImage && regionComboBox.getText() != null);
 //        model.getCurrentNavigationState().NEXT.setEnabled(!customImage || !imageLabelList.isSelectionEmpty());
         imageLabelList.setEnabled(customImage);
+        searchLabel.setEnabled(customImage);
+        imageSearchComboBox.setEnabled(customImage);
         publisherComboBox.setEnabled(customImage);
         offerComboBox.setEnabled(customImage);
         skuComboBox.setEnabled(customImage);
@@ -326,18 +360,14 @@ public class SelectImageStep extends WizardPage {
         DefaultLoader.getIdeHelper().runInBackground(null, "Loading image publishers...", false, true, "", new Runnable() {
             @Override
                     public void run() {
-                        final java.util.List<VirtualMachinePublisher> publishers = wizard.getAzure()
-                                .virtualMachineImages().publishers().listByRegion(region);
+                        final java.util.List<String> publishers = getCatalog().getPublishers(getImageSource(), region);
                         DefaultLoader.getIdeHelper().invokeLater(new Runnable() {
                             @Override
                             public void run() {
-                                for (VirtualMachinePublisher publisher : publishers) {
-                                    publisherComboBox.add(publisher.name());
-                                    publisherComboBox.setData(publisher.name(), publisher);
-                                }
-                                if (publishers.size() > 0) {
-                                    publisherComboBox.select(0);
+                                for (String publisher : publishers) {
+                                    publisherComboBox.add(publisher);
                                 }
+                                selectLevel(publisherComboBox, 0);
                                 fillOffers();
                             }
                         });
@@ -352,24 +382,22 @@ public class SelectImageStep extends WizardPage {
         imageLabelList.removeAll();
         skuComboBox.setEnabled(false);
         imageLabelList.setEnabled(false);
-        VirtualMachinePublisher publisher = (VirtualMachinePublisher) publisherComboBox.getData(publisherComboBox.getText());
+        final String region = getRegionName();
+        final String publisher = publisherComboBox.getText();
 
         DefaultLoader.getIdeHelper().runInBackground(null, "Loading image offers...", false, true, "", new Runnable() {
             @Override
             public void run() {
                 try {
-                    final java.util.List<VirtualMachineOffer> offers = publisher.offers().list();
+                    final java.util.List<String> offers = getCatalog().getOffers(getImageSource(), region, publisher);
                     DefaultLoader.getIdeHelper().invokeLater(new Runnable() {
                         @Override
                         public void run() {
-                            for (VirtualMachineOffer offer : offers) {
-                                offerComboBox.add(offer.name());
-                                offerComboBox.setData(offer.name(), offer);
+                            for (String offer : offers) {
+                                offerComboBox.add(offer);
                             }
                             offerComboBox.setEnabled(true);
-                            if (offers.size() > 0) {
-                                offerComboBox.select(0);
-                            }
+                            selectLevel(offerComboBox, 1);
                             fillSkus();
                         }
                     });
@@ -385,24 +413,23 @@ public class SelectImageStep extends WizardPage {
         setPageComplete(false);
         imageLabelList.setEnabled(false);
         imageLabelList.removeAll();
-        VirtualMachineOffer offer = (VirtualMachineOffer) offerComboBox.getData(offerComboBox.getText());
+        final String region = getRegionName();
+        final String publisher = publisherComboBox.getText();
+        final String offer = offerComboBox.getText();
         if (offerComboBox.getItemCount() > 0) {
             DefaultLoader.getIdeHelper().runInBackground(null, "Loading skus...", false, true, "", new Runnable() {
                 @Override
                 public void run() {
                     try {
-                        final java.util.List<VirtualMachineSku> skus = offer.skus().list();
+                        final java.util.List<String> skus = getCatalog().getSkus(getImageSource(), region, publisher, offer);
                         DefaultLoader.getIdeHelper().invokeLater(new Runnable() {
                             @Override
                             public void run() {
-                                for (VirtualMachineSku sku : skus) {
-                                    skuComboBox.add(sku.name());
-                                    skuComboBox.setData(sku.name(), sku);
+                                for (String sku : skus) {
+                                    skuComboBox.add(sku);
                                 }
                                 skuComboBox.setEnabled(true);
-                                if (skus.size() > 0) {
-                                    skuComboBox.select(0);
-                                }
+                                selectLevel(skuComboBox, 2);
                                 fillImages();
                             }
                         });
@@ -420,20 +447,20 @@ public class SelectImageStep extends WizardPage {
     private void fillImages() {
         setPageComplete(false);
         imageLabelList.removeAll();
-        VirtualMachineSku sku = (VirtualMachineSku) skuComboBox.getData(skuComboBox.getText());
+        final String region = getRegionName();
+        final String publisher = publisherComboBox.getText();
+        final String offer = offerComboBox.getText();
+        final String sku = skuComboBox.getText();
         DefaultLoader.getIdeHelper().runInBackground(null, "Loading images...", false, true, "", new Runnable() {
             @Override
             public void run() {
-                final java.util.List<VirtualMachineImage> images = new ArrayList<VirtualMachineImage>();
                 try {
-                    java.util.List<VirtualMachineImage> skuImages = sku.images().list();
-                    images.addAll(skuImages);
+                    final java.util.List<String> versions = getCatalog().getVersions(getImageSource(), region, publisher, offer, sku);
                     DefaultLoader.getIdeHelper().invokeLater(new Runnable() {
                         @Override
                         public void run() {
-                            for (VirtualMachineImage image : images) {
-                                imageLabelList.add(image.version());
-                                imageLabelList.setData(image.version(), image);
+                            for (String version : versions) {
+                                imageLabelList.add(version);
                             }
                             imageLabelList.setEnabled(true);
                         }
@@ -447,17 +474,102 @@ public class SelectImageStep extends WizardPage {
     }
 
     private void imageLabelSelected() {
-        VirtualMachineImage virtualMachineImage = (VirtualMachineImage) imageLabelList.getData(imageLabelList.getItem(imageLabelList.getSelectionIndex()));
-        wizard.setVirtualMachineImage(virtualMachineImage);
+        wizard.setVirtualMachineImage(null);
+        setPageComplete(false);
+        final String region = getRegionName();
+        final String publisher = publisherComboBox.getText();
+        final String offer = offerComboBox.getText();
+        final String sku = skuComboBox.getText();
+        final String version = imageLabelList.getItem(imageLabelList.getSelectionIndex());
+        // the catalog only keeps names, the wizard needs the image details of the selected version
+        DefaultLoader.getIdeHelper().runInBackground(null, "Loading image...", false, true, "", new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final VirtualMachineImage virtualMachineImage = wizard.getAzure().virtualMachineImages()
+                            .getImage(region, publisher, offer, sku, version);
+                    DefaultLoader.getIdeHelper().invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (imageLabelList.isDisposed() || imageLabelList.getSelectionIndex() < 0
+                                    || !version.equals(imageLabelList.getItem(imageLabelList.getSelectionIndex()))) {
+                                return;
+                            }
+                            wizard.setVirtualMachineImage(virtualMachineImage);
+                            if (virtualMachineImage != null) {
+                                setPageComplete(true);
+
+                                wizard.setSize(null);
+                            }
+                        }
+                    });
+                } catch (Exception e) {
+                    String msg = "An error occurred while attempting to retrieve images list." + "\n" + e.getMessage();
+                    PluginUtil.displayErrorDialogWithAzureMsg(PluginUtil.getParentShell(), Messages.err, msg, e);
+                }
+            }
+        });
+    }
 
-        if (virtualMachineImage != null) {
-//            imageDescription.setText(wizard.getHtmlFromVMImage(virtualMachineImage));
-            setPageComplete(true);
+    private void searchImages() {
+        final Location location = (Location) regionComboBox.getData(regionComboBox.getText());
+        if (location == null) {
+            return;
+        }
+        final String text = imageSearchComboBox.getText();
+        // only the levels already listed are searched, so it never waits for Azure
+        final java.util.List<String> results = getCatalog().search(location.name(), text, MAX_SEARCH_RESULTS);
+        isUpdatingSearch = true;
+        try {
+            imageSearchComboBox.setItems(results.toArray(new String[0]));
+            // keep the typed text rather than the first result
+            imageSearchComboBox.setText(text);
+            imageSearchComboBox.setSelection(new Point(text.length(), text.length()));
+            imageSearchComboBox.setListVisible(!results.isEmpty() && !results.contains(text));
+        } finally {
+            isUpdatingSearch = false;
+        }
+    }
+
+    private void selectImageUrn(String urn) {
+        pendingImagePath = urn.split(URN_SEPARATOR);
+        final int index = publisherComboBox.indexOf(pendingImagePath[0]);
+        if (index < 0) {
+            pendingImagePath = null;
+            return;
+        }
+        publisherComboBox.select(index);
+        fillOffers();
+    }
 
-            wizard.setSize(null);
+    /**
+     * Selects the searched item of a level if it's listed, otherwise the first one
+     */
+    private void selectLevel(Combo comboBox, int level) {
+        final int index = pendingImagePath != null && level < pendingImagePath.length
+                ? comboBox.indexOf(pendingImagePath[level]) : -1;
+        if (index >= 0) {
+            comboBox.select(index);
+        } else if (comboBox.getItemCount() > 0) {
+            comboBox.select(0);
+        }
+        if (pendingImagePath != null && (index < 0 || level >= pendingImagePath.length - 1)) {
+            pendingImagePath = null;
         }
     }
 
+    private String getRegionName() {
+        return ((Location) regionComboBox.getData(regionComboBox.getText())).name();
+    }
+
+    private VirtualMachineImageSource getImageSource() {
+        return VirtualMachineImageSource.of(wizard.getAzure());
+    }
+
+    private static VirtualMachineImageCatalog getCatalog() {
+        return VirtualMachineImageCatalog.getInstance();
+    }
+
     private void setMachineImage() {
         boolean customImage = customImageBtn.getSelection();
         wizard.setKnownMachineImage(!customImage);
@@ -28,6 +28,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.action.IMenuListener;
@@ -201,6 +202,12 @@ public class ServiceExplorerView extends ViewPart implements PropertyChangeListe
 
     private TreeNode createTreeNode(Node node) {
         TreeNode treeNode = new TreeNode(node);
+        bindTreeNode(treeNode, node);
+        return treeNode;
+    }
+
+    private void bindTreeNode(TreeNode treeNode, Node node) {
+        treeNode.node = node;
 
         // associate the TreeNode with the Node via it's "viewData"
         // property; this allows us to quickly retrieve the DefaultMutableTreeNode
@@ -220,7 +227,6 @@ public class ServiceExplorerView extends ViewPart implements PropertyChangeListe
                 treeNode.add(createTreeNode(childNode));
             }
         }
-        return treeNode;
     }
 
     private void removeEventHandlers(Node node) {
@@ -281,6 +287,31 @@ public class ServiceExplorerView extends ViewPart implements PropertyChangeListe
                         treeNode.remove((TreeNode) childNode.getViewData());
                     }
                     break;
+                case batch:
+                    for (Node childNode : (Collection<Node>) e.getOldItems()) {
+                        removeEventHandlers(childNode);
+                        treeNode.remove((TreeNode) childNode.getViewData());
+                    }
+                    // replaced nodes keep their tree node so the viewer preserves its expansion state
+                    final List<Node> addedNodes = new ArrayList<>((Collection<Node>) e.getNewItems());
+                    for (Map.Entry<Node, Node> replaced : ((Map<Node, Node>) e.getReplacedItems()).entrySet()) {
+                        final TreeNode childTreeNode = (TreeNode) replaced.getKey().getViewData();
+                        removeEventHandlers(replaced.getKey());
+                        if (childTreeNode == null) {
+                            // never added to the tree, e.g. skipped as unsupported, so it's added like a new node
+                            addedNodes.add(replaced.getValue());
+                            continue;
+                        }
+                        childTreeNode.getChildNodes().clear();
+                        bindTreeNode(childTreeNode, replaced.getValue());
+                    }
+                    for (Node childNode : addedNodes) {
+                        if (UNSUPPORTED_NODE_LIST.contains(childNode.getClass().getName())) {
+                            continue;
+                        }
+                        treeNode.add(createTreeNode(childNode));
+                    }
+                    break;
                 default:
                     break;
             }
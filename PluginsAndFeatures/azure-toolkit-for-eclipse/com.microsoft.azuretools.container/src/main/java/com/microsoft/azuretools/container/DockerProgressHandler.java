@@ -5,18 +5,14 @@
 
 package com.microsoft.azuretools.container;
 
-import java.util.Map;
-import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-
+import com.microsoft.azuretools.core.mvp.model.container.DockerProgressAggregator;
 import com.spotify.docker.client.ProgressHandler;
 import com.spotify.docker.client.exceptions.DockerException;
+import com.spotify.docker.client.messages.ProgressDetail;
 import com.spotify.docker.client.messages.ProgressMessage;
 
 public class DockerProgressHandler implements ProgressHandler {
-    private final Map<String, String> layerMap = new ConcurrentHashMap<>();
+    private final DockerProgressAggregator aggregator = new DockerProgressAggregator(ConsoleLogger::info);
 
     @Override
     public void progress(ProgressMessage message) throws DockerException {
@@ -24,22 +20,19 @@ public class DockerProgressHandler implements ProgressHandler {
             return;
         }
         if (message.error() != null) {
+            aggregator.flush();
             ConsoleLogger.info(message.error());
             throw new DockerException(message.error());
-
         }
-        String id = message.id();
-        if (id != null) {
-            if (layerMap.containsKey(id) && layerMap.get(id).equals(message.toString())) {
-                return; // ignore duplicate message
+        ProgressDetail detail = message.progressDetail();
+        aggregator.update(message.id(), message.status(), message.stream(),
+                detail == null ? null : detail.current(), detail == null ? null : detail.total());
+    }
 
-            }
-            layerMap.put(id, message.toString());
-        } else {
-            layerMap.clear();
-        }
-        String out = Stream.of(id, message.status(), message.stream(), message.progress()).filter(Objects::nonNull)
-                .map(Object::toString).collect(Collectors.joining("\t")).trim();
-        ConsoleLogger.info(out);
+    /**
+     * Render the progress not rendered yet, call it when the build or push completes.
+     */
+    public void flush() {
+        aggregator.flush();
     }
 }
@@ -21,6 +21,7 @@ import com.microsoft.azure.common.exceptions.AzureExecutionException;
 import com.microsoft.azuretools.azurecommons.helpers.NotNull;
 import com.microsoft.azuretools.azurecommons.util.Utils;
 import com.microsoft.azuretools.container.Constant;
+import com.microsoft.azuretools.container.DockerProgressHandler;
 import com.microsoft.tooling.msservices.components.DefaultLoader;
 import com.spotify.docker.client.DefaultDockerClient;
 import com.spotify.docker.client.DockerCertificates;
@@ -77,7 +78,12 @@ public class DockerUtil {
     public static String buildImage(@NotNull DockerClient docker, @NotNull String imageNameWithTag,
             @NotNull Path dockerDirectory, @NotNull String dockerFile, ProgressHandler progressHandler)
                     throws DockerException, InterruptedException, IOException {
-        String imageId = docker.build(dockerDirectory, imageNameWithTag, dockerFile, progressHandler);
+        final String imageId;
+        try {
+            imageId = docker.build(dockerDirectory, imageNameWithTag, dockerFile, progressHandler);
+        } finally {
+            flushProgress(progressHandler);
+        }
         return imageId == null ? null : imageNameWithTag;
     }
 
@@ -90,7 +96,11 @@ public class DockerUtil {
         final RegistryAuth registryAuth = RegistryAuth.builder().username(registryUsername).password(registryPassword)
                 .build();
         if (targetImageName.startsWith(registryUrl)) {
-            dockerClient.push(targetImageName, handler, registryAuth);
+            try {
+                dockerClient.push(targetImageName, handler, registryAuth);
+            } finally {
+                flushProgress(handler);
+            }
         } else {
             throw new DockerException("serverUrl and imageName mismatch.");
         }
@@ -183,4 +193,10 @@ public class DockerUtil {
             throw new AzureExecutionException(String.format("Failed to connect docker host: %s", docker.getHost()));
         }
     }
+
+    private static void flushProgress(ProgressHandler handler) {
+        if (handler instanceof DockerProgressHandler) {
+            ((DockerProgressHandler) handler).flush();
+        }
+    }
 }
@@ -13,6 +13,7 @@ import org.osgi.framework.BundleContext;
 
 import com.microsoft.tooling.msservices.components.DefaultLoader;
 import com.microsoft.azure.hdinsight.common.HDInsightLoader;
+import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.SessionPool;
 import com.microsoft.azuretools.azurecommons.helpers.StringHelper;
 import com.microsoft.azuretools.telemetry.AppInsightsClient;
 import com.microsoft.azuretools.hdinsight.util.HDInsightJobViewUtils;
@@ -61,6 +62,7 @@ public class Activator extends AbstractUIPlugin {
         plugin = null;
         super.stop(context);
         HDInsightJobViewUtils.closeJobViewHttpServer();
+        SessionPool.closeAll();
     }
 
     /**
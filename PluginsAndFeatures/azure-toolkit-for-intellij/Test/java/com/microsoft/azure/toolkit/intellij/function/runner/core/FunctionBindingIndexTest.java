@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.intellij.function.runner.core;
+
+import com.google.gson.JsonParser;
+import com.microsoft.azure.common.function.bindings.Binding;
+import com.microsoft.azure.common.function.bindings.BindingEnum;
+import com.microsoft.azure.common.function.configurations.FunctionConfiguration;
+import com.microsoft.azure.toolkit.intellij.function.runner.core.FunctionBindingIndex.FunctionEntry;
+import com.microsoft.azuretools.utils.JsonUtils;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class FunctionBindingIndexTest {
+    private static Binding createBinding(BindingEnum bindingEnum, String name, String direction, String type) {
+        return new Binding(bindingEnum) {
+            public String getName() {
+                return name;
+            }
+
+            public String getDirection() {
+                return direction;
+            }
+
+            public String getType() {
+                return type;
+            }
+        };
+    }
+
+    // Persist the function as the index does, then read it back
+    private static Binding roundTrip(Binding binding) {
+        final FunctionEntry function = new FunctionEntry();
+        function.name = "func";
+        function.entryPoint = "com.example.Function.run";
+        function.bindings = Collections.singletonList(FunctionBindingIndex.toBindingEntry(binding));
+        final FunctionEntry loaded = JsonUtils.fromJson(JsonUtils.getGson().toJson(function), FunctionEntry.class);
+        final FunctionConfiguration config = FunctionBindingIndex.toConfiguration(loaded);
+
+        assertEquals("com.example.Function.run", config.getEntryPoint());
+        assertEquals(1, config.getBindings().size());
+        return config.getBindings().get(0);
+    }
+
+    @Test
+    public void testBindingPropertiesKeptOverAttributes() {
+        final Binding binding = createBinding(BindingEnum.HttpTrigger, "req", "in", "httpTrigger");
+        // The properties of the loaded binding come from the entry rather than the binding enum or the attributes
+        binding.setAttribute("name", "attributeName");
+
+        final Binding loaded = roundTrip(binding);
+
+        assertEquals(BindingEnum.HttpTrigger, loaded.getBindingEnum());
+        assertEquals("req", loaded.getName());
+        assertEquals("in", loaded.getDirection());
+        assertEquals("httpTrigger", loaded.getType());
+        assertEquals("attributeName", loaded.getBindingAttributes().get("name"));
+    }
+
+    @Test
+    public void testBindingWithoutAttributes() {
+        final Binding loaded = roundTrip(createBinding(BindingEnum.HttpOutput, "$return", "out", "http"));
+
+        assertEquals("$return", loaded.getName());
+        assertEquals("out", loaded.getDirection());
+        assertEquals("http", loaded.getType());
+        assertTrue(loaded.getBindingAttributes().isEmpty());
+    }
+
+    @Test
+    public void testAttributeValuesRoundTrip() {
+        final Binding binding = createBinding(BindingEnum.HttpTrigger, "req", "in", "httpTrigger");
+        binding.setAttribute("authLevel", "ANONYMOUS");
+        binding.setAttribute("methods", new String[] {"GET", "POST"});
+        binding.setAttribute("isSessionsEnabled", true);
+        binding.setAttribute("maxItems", 100);
+        binding.setAttribute("ratio", 0.5);
+        final Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("path", "items/{id}");
+        nested.put("priority", 2);
+        binding.setAttribute("nested", nested);
+
+        final Map<String, Object> attributes = roundTrip(binding).getBindingAttributes();
+
+        assertEquals("ANONYMOUS", attributes.get("authLevel"));
+        assertArrayEquals(new Object[] {"GET", "POST"}, (Object[]) attributes.get("methods"));
+        assertEquals(Boolean.TRUE, attributes.get("isSessionsEnabled"));
+        // The integers are kept integral, so function.json is written the same as from the annotations
+        assertEquals(100, attributes.get("maxItems"));
+        assertEquals(0.5, attributes.get("ratio"));
+        assertEquals(nested, attributes.get("nested"));
+    }
+
+    @Test
+    public void testFunctionJsonUnchangedAfterRoundTrip() {
+        final Binding binding = createBinding(BindingEnum.HttpTrigger, "req", "in", "httpTrigger");
+        binding.setAttribute("methods", new String[] {"GET"});
+        binding.setAttribute("maxItems", 100);
+        binding.setAttribute("route", "items/{id}");
+
+        assertEquals(JsonUtils.getGson().toJsonTree(binding.getBindingAttributes()),
+                     JsonUtils.getGson().toJsonTree(roundTrip(binding).getBindingAttributes()));
+    }
+
+    @Test
+    public void testToValue() {
+        assertNull(FunctionBindingIndex.toValue(null));
+        assertNull(FunctionBindingIndex.toValue(JsonParser.parseString("null")));
+        assertEquals(3, FunctionBindingIndex.toValue(JsonParser.parseString("3.0")));
+        assertEquals(3000000000.0, FunctionBindingIndex.toValue(JsonParser.parseString("3000000000")));
+        assertEquals("3", FunctionBindingIndex.toValue(JsonParser.parseString("\"3\"")));
+
+        final Map<String, Object> expected = new HashMap<>();
+        expected.put("a", 1);
+        expected.put("b", null);
+        assertEquals(expected, FunctionBindingIndex.toValue(JsonParser.parseString("{\"a\":1,\"b\":null}")));
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.intellij.function.runner.core;
+
+import com.microsoft.azure.common.exceptions.AzureExecutionException;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long {@link IncrementalStager} takes to stage a module with 500 classes and 150 MB of random
+ * libraries. {@code fullCopy} packs the jar and copies every library as the staging did before, {@code coldStaging}
+ * stages into an empty folder, which also hashes every library, and {@code warmStaging} stages the unchanged module
+ * again, which should only compare the file sizes and times with the manifest.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IncrementalStagerBenchmark {
+    private static final int LIBRARY_SIZE_MB = 2;
+    private static final int CLASS_COUNT = 500;
+
+    @Param({ "150" })
+    public int librariesSizeMB;
+
+    private File root;
+    private File outputFolder;
+    private File stagingFolder;
+    private List<File> libraries;
+
+    @Setup(Level.Trial)
+    public void generateModule() throws IOException {
+        root = Files.createTempDirectory("function-staging-benchmark").toFile();
+        outputFolder = new File(root, "classes");
+        stagingFolder = new File(root, "staging");
+        final Random random = new Random(42);
+
+        final byte[] classBytes = new byte[4 * 1024];
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            random.nextBytes(classBytes);
+            FileUtils.writeByteArrayToFile(new File(outputFolder, "com/example/functions/Function" + i + ".class"),
+                                           classBytes);
+        }
+
+        libraries = new ArrayList<>();
+        final byte[] libraryBytes = new byte[LIBRARY_SIZE_MB * 1024 * 1024];
+        for (int i = 0; i < librariesSizeMB / LIBRARY_SIZE_MB; i++) {
+            random.nextBytes(libraryBytes);
+            final File library = new File(root, "repository/library-" + i + ".jar");
+            FileUtils.writeByteArrayToFile(library, libraryBytes);
+            libraries.add(library);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteModule() throws IOException {
+        FileUtils.deleteDirectory(root);
+    }
+
+    @State(Scope.Benchmark)
+    public static class ColdStaging {
+        @Setup(Level.Invocation)
+        public void clean(IncrementalStagerBenchmark benchmark) throws IOException {
+            FileUtils.deleteDirectory(benchmark.stagingFolder);
+            FileUtils.deleteQuietly(IncrementalStager.getManifestFile(benchmark.stagingFolder));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class WarmStaging {
+        @Setup(Level.Trial)
+        public void stage(IncrementalStagerBenchmark benchmark) throws IOException, AzureExecutionException {
+            FileUtils.deleteDirectory(benchmark.stagingFolder);
+            benchmark.stage();
+        }
+    }
+
+    // Clean the staging folder, pack the jar and copy every library, as the staging before the incremental one
+    @Benchmark
+    public void fullCopy(ColdStaging cold) throws IOException, AzureExecutionException {
+        final File libFolder = new File(stagingFolder, "lib");
+        FileUtils.forceMkdir(stagingFolder);
+        JarUtils.buildJarFile(outputFolder, new File(stagingFolder, "function.jar").toPath());
+        for (final File library : libraries) {
+            FileUtils.copyFileToDirectory(library, libFolder);
+        }
+    }
+
+    @Benchmark
+    public void coldStaging(ColdStaging cold) throws IOException, AzureExecutionException {
+        stage();
+    }
+
+    @Benchmark
+    public void warmStaging(WarmStaging warm) throws IOException, AzureExecutionException {
+        stage();
+    }
+
+    private void stage() throws IOException, AzureExecutionException {
+        FileUtils.forceMkdir(stagingFolder);
+        final Path jarFile = new File(stagingFolder, "function.jar").toPath();
+        final IncrementalStager stager = new IncrementalStager(stagingFolder);
+        stager.stageJar(outputFolder, jarFile);
+        stager.syncLibraries(libraries);
+        stager.save();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(IncrementalStagerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
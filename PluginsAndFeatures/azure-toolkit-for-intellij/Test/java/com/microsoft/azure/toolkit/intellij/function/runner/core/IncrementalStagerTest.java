@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.intellij.function.runner.core;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class IncrementalStagerTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File outputFolder;
+    private File repository;
+    private File stagingFolder;
+    private Path jarFile;
+
+    @Before
+    public void setUp() throws IOException {
+        outputFolder = temporaryFolder.newFolder("classes");
+        repository = temporaryFolder.newFolder("repository");
+        stagingFolder = temporaryFolder.newFolder("staging");
+        jarFile = new File(stagingFolder, "function.jar").toPath();
+        writeFile(new File(outputFolder, "com/example/Function.class"), "class");
+    }
+
+    private static File writeFile(File file, String content) throws IOException {
+        FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private File library(String name, String content) throws IOException {
+        return writeFile(new File(repository, name), content);
+    }
+
+    private File staged(String name) {
+        return new File(stagingFolder, "lib/" + name);
+    }
+
+    @Test
+    public void testSyncLibrariesCopiesOnlyChangedOnes() throws Exception {
+        final File libA = library("a.jar", "a");
+        final File libB = library("b.jar", "b");
+        IncrementalStager stager = new IncrementalStager(stagingFolder);
+        assertEquals(2, stager.syncLibraries(Arrays.asList(libA, libB)));
+        stager.save();
+
+        stager = new IncrementalStager(stagingFolder);
+        assertEquals(0, stager.syncLibraries(Arrays.asList(libA, libB)));
+        stager.save();
+
+        // The same size but different content, with the last modified time changed
+        writeFile(libB, "c");
+        assertTrue(libB.setLastModified(libB.lastModified() + 2000));
+        stager = new IncrementalStager(stagingFolder);
+        assertEquals(1, stager.syncLibraries(Arrays.asList(libA, libB)));
+        assertEquals("c", FileUtils.readFileToString(staged("b.jar"), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testSyncLibrariesSkipsTouchedButUnchangedOnes() throws Exception {
+        final File libA = library("a.jar", "a");
+        IncrementalStager stager = new IncrementalStager(stagingFolder);
+        stager.syncLibraries(Collections.singletonList(libA));
+        stager.save();
+
+        // Hashed again for the changed last modified time, but not copied for the same content
+        assertTrue(libA.setLastModified(libA.lastModified() + 2000));
+        stager = new IncrementalStager(stagingFolder);
+        assertEquals(0, stager.syncLibraries(Collections.singletonList(libA)));
+    }
+
+    @Test
+    public void testSyncLibrariesRestoresDeletedOnes() throws Exception {
+        final File libA = library("a.jar", "a");
+        IncrementalStager stager = new IncrementalStager(stagingFolder);
+        stager.syncLibraries(Collections.singletonList(libA));
+        stager.save();
+
+        assertTrue(staged("a.jar").delete());
+        stager = new IncrementalStager(stagingFolder);
+        assertEquals(1, stager.syncLibraries(Collections.singletonList(libA)));
+        assertTrue(staged("a.jar").isFile());
+    }
+
+    @Test
+    public void testSyncLibrariesRemovesStaleOnes() throws Exception {
+        final File libA = library("a.jar", "a");
+        final File libB = library("b.jar", "b");
+        IncrementalStager stager = new IncrementalStager(stagingFolder);
+        stager.syncLibraries(Arrays.asList(libA, libB));
+        stager.save();
+        // Not staged by the stager, such as left by a failed staging
+        writeFile(staged("unknown.jar"), "unknown");
+
+        stager = new IncrementalStager(stagingFolder);
+        assertEquals(0, stager.syncLibraries(Collections.singletonList(libA)));
+        assertTrue(staged("a.jar").isFile());
+        assertFalse(staged("b.jar").exists());
+        assertFalse(staged("unknown.jar").exists());
+    }
+
+    @Test
+    public void testSyncLibrariesCopiesRatherThanLinks() throws Exception {
+        final File libA = library("a.jar", "a");
+        final IncrementalStager stager = new IncrementalStager(stagingFolder);
+        stager.syncLibraries(Collections.singletonList(libA));
+
+        // Rewriting the library in the repository must not change the staged one
+        writeFile(libA, "b");
+        assertEquals("a", FileUtils.readFileToString(staged("a.jar"), StandardCharsets.UTF_8));
+        assertFalse(Files.isSameFile(libA.toPath(), staged("a.jar").toPath()));
+    }
+
+    @Test
+    public void testStageJarOnlyWhenOutputsChange() throws Exception {
+        IncrementalStager stager = new IncrementalStager(stagingFolder);
+        assertTrue(stager.stageJar(outputFolder, jarFile));
+        stager.save();
+
+        stager = new IncrementalStager(stagingFolder);
+        assertFalse(stager.stageJar(outputFolder, jarFile));
+        stager.save();
+
+        writeFile(new File(outputFolder, "com/example/Another.class"), "another");
+        stager = new IncrementalStager(stagingFolder);
+        assertTrue(stager.stageJar(outputFolder, jarFile));
+        stager.save();
+
+        final File changed = writeFile(new File(outputFolder, "com/example/Function.class"), "changed");
+        assertTrue(changed.setLastModified(changed.lastModified() + 2000));
+        stager = new IncrementalStager(stagingFolder);
+        assertTrue(stager.stageJar(outputFolder, jarFile));
+    }
+
+    @Test
+    public void testStageJarWhenJarDeleted() throws Exception {
+        final IncrementalStager stager = new IncrementalStager(stagingFolder);
+        stager.stageJar(outputFolder, jarFile);
+        stager.save();
+
+        Files.delete(jarFile);
+        assertTrue(new IncrementalStager(stagingFolder).stageJar(outputFolder, jarFile));
+        assertTrue(Files.isRegularFile(jarFile));
+    }
+
+    @Test
+    public void testBrokenManifestStagesFromScratch() throws Exception {
+        final File libA = library("a.jar", "a");
+        final IncrementalStager stager = new IncrementalStager(stagingFolder);
+        stager.stageJar(outputFolder, jarFile);
+        stager.syncLibraries(Collections.singletonList(libA));
+        stager.save();
+
+        writeFile(IncrementalStager.getManifestFile(stagingFolder), "{broken");
+        final IncrementalStager restaged = new IncrementalStager(stagingFolder);
+        assertTrue(restaged.stageJar(outputFolder, jarFile));
+        assertEquals(1, restaged.syncLibraries(Collections.singletonList(libA)));
+    }
+
+    @Test
+    public void testManifestKeptOutOfStagingFolder() {
+        final File manifest = IncrementalStager.getManifestFile(stagingFolder);
+
+        assertEquals(stagingFolder.getParentFile(), manifest.getParentFile());
+        assertNotEquals(stagingFolder, manifest);
+    }
+}
@@ -24,6 +24,7 @@ package com.microsoft.azure.hdinsight.jobs
 
 import com.intellij.ide.AppLifecycleListener
 import com.intellij.openapi.project.Project
+import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.SessionPool
 import com.microsoft.azure.hdinsight.spark.jobs.JobViewHttpServer
 
 class JobViewApplicationListener: AppLifecycleListener {
@@ -33,5 +34,7 @@ class JobViewApplicationListener: AppLifecycleListener {
 
     override fun appWillBeClosed(isRestart: Boolean) {
         JobViewHttpServer.close()
+        // Kill the idle Livy sessions kept for the consoles and uploads, they would hold cluster resources until TTL
+        SessionPool.closeAll()
     }
 }
\ No newline at end of file
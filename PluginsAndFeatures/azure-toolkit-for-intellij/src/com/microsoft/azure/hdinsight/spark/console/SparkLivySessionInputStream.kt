@@ -24,66 +24,54 @@ package com.microsoft.azure.hdinsight.spark.console
 
 import com.microsoft.azure.hdinsight.common.logger.ILogger
 import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.Session
-import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.Statement
 import com.microsoft.azure.hdinsight.sdk.rest.livy.interactive.StatementOutput
+import rx.Subscription
 import java.io.InputStream
 import java.nio.charset.StandardCharsets.UTF_8
-import java.util.*
+import java.util.concurrent.LinkedBlockingDeque
+import java.util.concurrent.TimeUnit
 
 abstract class SparkLivySessionInputStream(val session: Session) : InputStream(), ILogger {
+    @Volatile
     private var isClosed: Boolean = false
-    private var nextStatementId = 0
-    private var statementOutputQueue: ArrayDeque<Byte>? = null
+    private val statementOutputQueue = LinkedBlockingDeque<Byte>()
+
+    // Statement results are streamed from the session's statement pipeline as soon as each one is done
+    private val doneStatementsSubscription: Subscription = session.statementPipeline.doneStatements
+            .subscribe(
+                    { statement ->
+                        statement.output?.let { createStatementBytesQueue(it) }?.let {
+                            log().debug("Statement ${statement.id} result $it")
+                            "$it\n".toByteArray(UTF_8).forEach { byte -> statementOutputQueue.offerLast(byte) }
+                        }
+                    },
+                    { err -> log().debug("Can't get the statement output", err) })
 
     override fun read(): Int {
         if (isClosed) {
             return -1
         }
 
-        return statementOutputQueue?.pollFirst()?.toInt() ?: -1
+        return statementOutputQueue.pollFirst()?.toInt()?.and(0xFF) ?: -1
     }
 
     override fun close() {
         this.isClosed = true
+        doneStatementsSubscription.unsubscribe()
     }
 
     override fun available(): Int {
         if (this.isClosed || session.isStop) {
-            return 0;
+            return 0
         }
 
-        if (isOutputEmpty()) {
-            fetchNextStatementOutput()
-
-            if (isOutputEmpty()) {
-                Thread.sleep(1000)
-            }
+        if (statementOutputQueue.isEmpty()) {
+            // Wait a while for the next statement output, instead of a busy reading loop
+            statementOutputQueue.pollFirst(1, TimeUnit.SECONDS)?.let { statementOutputQueue.offerFirst(it) }
         }
 
-        return statementOutputQueue?.size ?: 0
+        return statementOutputQueue.size
     }
 
     abstract fun createStatementBytesQueue(output: StatementOutput): String?
-
-    private fun fetchNextStatementOutput() {
-        val statement = Statement(session, nextStatementId)
-
-        try {
-            statementOutputQueue = statement.get()
-                    .map { stm ->
-                        createStatementBytesQueue(stm.output)?.let {
-                            log().debug("Statement $nextStatementId result $it")
-                            ArrayDeque("$it\n".toByteArray(UTF_8).toList())
-                        }
-                    }
-                    .toBlocking()
-                    .singleOrDefault(null)
-
-            nextStatementId++
-        } catch (err: Exception) {
-            log().debug("Can't get the $nextStatementId output", err)
-        }
-    }
-
-    private fun isOutputEmpty(): Boolean = (statementOutputQueue?.isEmpty() ?: true)
-}
\ No newline at end of file
+}
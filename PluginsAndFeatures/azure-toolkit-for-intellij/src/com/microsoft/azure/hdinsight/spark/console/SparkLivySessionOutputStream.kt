@@ -25,34 +25,47 @@ package com.microsoft.azure.hdinsight.spark.console
 import com.fasterxml.jackson.databind.ObjectMapper
 import com.microsoft.azure.hdinsight.common.logger.ILogger
 import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.Session
+import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.exceptions.StatementCancelledException
 import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.exceptions.StatementExecutionError
 import org.apache.commons.io.output.ByteArrayOutputStream
 import java.nio.charset.Charset
+import java.util.concurrent.atomic.AtomicReference
 
 class SparkLivySessionOutputStream(val session: Session) : ByteArrayOutputStream(), ILogger {
+    // Codes are run in background, so an error other than the statement's own one is raised by the next flush
+    private val pendingError = AtomicReference<Throwable?>()
+
     override fun flush() {
+        pendingError.getAndSet(null)?.let { throw it }
+
         // Send the buffered statements into Livy services
         if (!session.isStarted) {
             throw SparkConsoleExceptions.LivyNotConnected("The Livy session to ${session.name} is not connected")
         }
 
         val codes = toString(Charset.defaultCharset())
+        reset()
+
+        if (codes.isBlank()) {
+            return
+        }
+
         log().debug("Send those codes to Livy: $codes")
 
-        session.runCodes(codes)
-                .doOnEach { reset() }
-                .toBlocking()
+        // Queue the codes without waiting for the previous ones, results are streamed to stdout and stderr streams
+        session.statementPipeline.submit(codes)
                 .subscribe(
-                        { result ->
-                            log().debug("Livy running results: ${ObjectMapper().writeValueAsString(result)}")
+                        { statement ->
+                            log().debug("Livy running results: ${ObjectMapper().writeValueAsString(statement.output)}")
                         },
-                        { err -> when (err.cause) {
-                            is StatementExecutionError -> log().debug(err.message)
-                            else -> throw SparkConsoleExceptions.LivySessionExecuteError(
-                                    "Got the code `${codes.split(
-                                            "\n").first()}` execution error:",
-                                    err.cause ?: err)
+                        { err -> when (err) {
+                            is StatementExecutionError, is StatementCancelledException -> log().debug(err.message)
+                            else -> {
+                                log().warn("Got the code `${codes.split("\n").first()}` execution error", err)
+                                pendingError.compareAndSet(null, SparkConsoleExceptions.LivySessionExecuteError(
+                                        "Got the code `${codes.split("\n").first()}` execution error:", err))
+                            }
                         }}
                 )
     }
-}
\ No newline at end of file
+}
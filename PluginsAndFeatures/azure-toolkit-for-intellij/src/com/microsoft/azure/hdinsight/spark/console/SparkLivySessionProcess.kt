@@ -27,13 +27,17 @@ import com.intellij.remote.RemoteProcess
 import com.microsoft.azure.hdinsight.common.logger.ILogger
 import com.microsoft.azure.hdinsight.common.mvc.IdeSchedulers
 import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.Session
+import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.SessionPool
 import rx.Observable
 import java.io.InputStream
 import java.io.OutputStream
+import java.util.concurrent.atomic.AtomicBoolean
 
 class SparkLivySessionProcess(
         private val rxSchedulers: IdeSchedulers,
-        val session: Session
+        val session: Session,
+        // Creates a session with the same options, to pre-warm the pool for the next console
+        private val sessionFactory: (() -> Session)? = null
 ) : RemoteProcess(), ILogger {
     override fun isDisconnected(): Boolean = session.isStop
 
@@ -45,10 +49,23 @@ class SparkLivySessionProcess(
     private val stdErrStream: InputStream = SparkLivySessionStdErrStream(session)
     private val stdInStream: OutputStream = SparkLivySessionOutputStream(session)
 
+    // Console restarts on the same cluster reuse the warm session given back by the previous console
+    private val sessionPool: SessionPool = SessionPool.forCluster(session.baseUrl)
+
     override fun waitFor(): Int = 0
 
+    // Given back to the pool only once, a session failed to start is killed instead
+    private val isSessionReturned = AtomicBoolean(false)
+
     override fun destroy() {
-        session.close()
+        if (isSessionReturned.compareAndSet(false, true)) {
+            sessionPool.release(session)
+        }
+
+        closeStreams()
+    }
+
+    private fun closeStreams() {
         outputStream.close()
         errorStream.close()
         inputStream.close()
@@ -65,13 +82,23 @@ class SparkLivySessionProcess(
 
     override fun getInputStream(): InputStream = stdOutStream
 
-    fun start(): Observable<Session> = session.deploy()
+    fun start(): Observable<Session> = sessionPool
+            .checkout(session) { candidate -> candidate.deploy()
+                    .observeOn(rxSchedulers.processBarVisibleAsync(
+                            "Create Spark Livy interactive console session..."))
+                    .flatMap { it.create() }
+                    .flatMap { it.awaitReady(rxSchedulers.processBarVisibleAsync(
+                            "The Spark Livy interactive console session is starting..." )) }
+            }
             .subscribeOn(rxSchedulers.processBarVisibleAsync(
-                    "Deploy Livy interactive console artifacts dependencies..."))
-            .observeOn(rxSchedulers.processBarVisibleAsync(
-                    "Create Spark Livy interactive console session..."))
-            .flatMap { it.create() }
-            .flatMap { it.awaitReady(rxSchedulers.processBarVisibleAsync(
-                    "The Spark Livy interactive console session is starting..." )) }
-            .doOnError { destroy() }
+                    "Get Spark Livy interactive console session and deploy artifacts dependencies..."))
+            .doOnNext { sessionFactory?.let { factory -> sessionPool.prewarm { factory() } } }
+            .doOnError {
+                if (isSessionReturned.compareAndSet(false, true)) {
+                    // The session state is unknown after the failure, don't give it to the next console
+                    sessionPool.invalidate(session)
+                }
+
+                closeStreams()
+            }
 }
\ No newline at end of file
@@ -106,7 +106,9 @@ open class SparkScalaLivyConsoleRunConfiguration(project: Project,
                 applyRunConfiguration(sparkCluster, this, artifactDeploy)
             }
 
-            return SparkScalaLivyConsoleRunProfileState(consoleBuilder, sparkSession)
+            return SparkScalaLivyConsoleRunProfileState(consoleBuilder, sparkSession) {
+                createSession(sparkCluster).apply { applySessionParameters(this, artifactDeploy) }
+            }
         } catch (err: Throwable) {
             throw ExecutionException(err)
         }
@@ -132,6 +134,16 @@ open class SparkScalaLivyConsoleRunConfiguration(project: Project,
                     ?: throw RuntimeConfigurationError("Can't find Spark batch job configuration to inherit")
 
     open fun applyRunConfiguration(sparkCluster: IClusterDetail, session: SparkSession, deploy: Deployable) {
+        applySessionParameters(session, deploy)
+
+        if (!batchSubmitModel.isLocalArtifact) {
+            ArtifactUtil.getArtifactWithOutputPaths(project)
+                    .first { artifact -> artifact.name == batchSubmitModel.artifactName }
+                    ?.let { setBuildArtifactBeforeRun(project, this, it) }
+        }
+    }
+
+    private fun applySessionParameters(session: SparkSession, deploy: Deployable) {
         session.createParameters
                 .referJars(*batchSubmitModel.referenceJars.toTypedArray())
                 .referFiles(*batchSubmitModel.referenceFiles.toTypedArray())
@@ -144,12 +156,6 @@ open class SparkScalaLivyConsoleRunConfiguration(project: Project,
                 session.artifactsToDeploy.add(it)
             }
         }
-
-        if (!batchSubmitModel.isLocalArtifact) {
-            ArtifactUtil.getArtifactWithOutputPaths(project)
-                    .first { artifact -> artifact.name == batchSubmitModel.artifactName }
-                    ?.let { setBuildArtifactBeforeRun(project, this, it) }
-        }
     }
 
     override fun checkRunnerSettings(runner: ProgramRunner<*>,
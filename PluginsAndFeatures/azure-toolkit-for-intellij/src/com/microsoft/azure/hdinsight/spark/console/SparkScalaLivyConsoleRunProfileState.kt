@@ -35,7 +35,8 @@ import org.jetbrains.plugins.scala.console.ScalaLanguageConsole
 
 class SparkScalaLivyConsoleRunProfileState(
         private val consoleBuilder: SparkScalaConsoleBuilder,
-        private val session: SparkSession): RunProfileState {
+        private val session: SparkSession,
+        private val sessionFactory: (() -> SparkSession)? = null): RunProfileState {
     private val postStartCodes = """
         val __welcome = List(
             "Spark context available as 'sc' (master = " + sc.master + ", app id = " + sc.getConf.getAppId + ").",
@@ -50,7 +51,7 @@ class SparkScalaLivyConsoleRunProfileState(
     override fun execute(executor: Executor, runner: ProgramRunner<*>): ExecutionResult? {
         val console = consoleBuilder.console
         val progressBarScheduler = IdeaSchedulers(consoleBuilder.project)
-        val livySessionProcess = SparkLivySessionProcess(progressBarScheduler, session)
+        val livySessionProcess = SparkLivySessionProcess(progressBarScheduler, session, sessionFactory)
         val livySessionProcessHandler = SparkLivySessionProcessHandler(livySessionProcess)
 
         console.attachToProcess(livySessionProcessHandler)
@@ -24,44 +24,84 @@ package com.microsoft.azure.hdinsight.spark.run
 
 import com.intellij.execution.process.ProcessHandler
 import com.intellij.execution.process.ProcessOutputTypes.SYSTEM
+import com.intellij.execution.ui.ConsoleViewContentType
 import com.intellij.util.concurrency.AppExecutorUtil
 import com.intellij.util.io.BaseOutputReader
-import com.microsoft.azure.hdinsight.common.ConsoleViewLogLine
+import com.microsoft.azure.hdinsight.common.ConsoleViewLogLine.Companion.messageInfoTypeToConsoleViewContentType
 import com.microsoft.azure.hdinsight.common.ConsoleViewTypeRegistrationListener.Companion.contentTypeKeyMap
 import com.microsoft.azure.hdinsight.common.MessageInfoType
-import com.microsoft.azure.hdinsight.spark.common.log.SparkLogLine
 import com.microsoft.azure.hdinsight.spark.common.log.SparkLogUtils
 import java.io.InputStream
 import java.nio.charset.Charset
 import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
 
 class SparkDriverLogStreamReader(val processHandler: ProcessHandler,
                                  inputStream: InputStream,
                                  private val logSource: String)
     : BaseOutputReader(inputStream, Charset.forName("UTF-8")) {
+    companion object {
+        // The lines of the same type are sent to console together, at most the size or the delay
+        const val BATCH_MAX_CHARS = 64 * 1024
+        const val BATCH_FLUSH_INTERVAL_MS = 100L
+    }
+
     private val defaultMessageInfoType = MessageInfoType.Log
-    private var previousLogLine = SparkLogLine(logSource, defaultMessageInfoType, "")
+    private var previousMessageInfoType = defaultMessageInfoType
+
+    private val batch = StringBuilder()
+    private var batchMessageInfoType: MessageInfoType? = null
+    private val batchFlusher = AppExecutorUtil.getAppScheduledExecutorService().scheduleWithFixedDelay(
+            { flush() }, BATCH_FLUSH_INTERVAL_MS, BATCH_FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS)
 
     init {
         start("Reading Spark Driver log $logSource")
     }
 
     override fun onTextAvailable(s: String) {
-        val currentLogLine = SparkLogLine(logSource, defaultMessageInfoType, s)
-        val typedLogLine = SparkLogUtils.mapTypedMessageByLog4jLevels(previousLogLine, currentLogLine)
-        val consoleViewLogLine = ConsoleViewLogLine(typedLogLine)
-
-        // The second parameter is of Key<Any> type and there are only 3 registered Keys: SYSTEM, STDOUT and STDERR.
-        // To support more log style, we registered more Keys in class ConsoleViewTypeRegistration at application
-        // startup
-        processHandler.notifyTextAvailable(
-                consoleViewLogLine.formatText, contentTypeKeyMap[consoleViewLogLine.contentType] ?: SYSTEM)
-
-        // Update previous log line
-        previousLogLine = typedLogLine
+        val messageInfoType = SparkLogUtils.mapMessageInfoTypeByLog4jLevels(previousMessageInfoType, s)
+
+        synchronized(batch) {
+            if (messageInfoType != batchMessageInfoType || batch.length >= BATCH_MAX_CHARS) {
+                flush()
+                batchMessageInfoType = messageInfoType
+            }
+
+            // The same format as ConsoleViewLogLine, appended to the batch without the line objects
+            batch.append(logSource).append(": ").append(s.trimEnd('\n')).append('\n')
+        }
+
+        // Update previous log line type
+        previousMessageInfoType = messageInfoType
+    }
+
+    private fun flush() {
+        synchronized(batch) {
+            val messageInfoType = batchMessageInfoType ?: return
+
+            if (batch.isEmpty()) {
+                return
+            }
+
+            val contentType = messageInfoTypeToConsoleViewContentType.getOrDefault(
+                    messageInfoType, ConsoleViewContentType.ERROR_OUTPUT)
+
+            // The second parameter is of Key<Any> type and there are only 3 registered Keys: SYSTEM, STDOUT and
+            // STDERR. To support more log style, we registered more Keys in class ConsoleViewTypeRegistration at
+            // application startup
+            processHandler.notifyTextAvailable(batch.toString(), contentTypeKeyMap[contentType] ?: SYSTEM)
+            batch.setLength(0)
+        }
+    }
+
+    override fun close() {
+        batchFlusher.cancel(false)
+        flush()
+
+        super.close()
     }
 
     override fun executeOnPooledThread(runnable: Runnable): Future<*> {
         return AppExecutorUtil.getAppExecutorService().submit(runnable)
     }
-}
\ No newline at end of file
+}
@@ -6,11 +6,20 @@ package com.microsoft.azure.toolkit.intellij.appservice;
 
 import com.intellij.execution.impl.ConsoleViewImpl;
 import com.intellij.execution.ui.ConsoleViewContentType;
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.project.DumbAwareAction;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.microsoft.azuretools.core.mvp.model.webapp.AppServiceLogStreamer;
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
-import rx.Observable;
-import rx.Subscription;
-import rx.schedulers.Schedulers;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static com.intellij.execution.ui.ConsoleViewContentType.NORMAL_OUTPUT;
 import static com.intellij.execution.ui.ConsoleViewContentType.SYSTEM_OUTPUT;
@@ -19,10 +28,14 @@ import static com.microsoft.intellij.ui.messages.AzureBundle.message;
 public class AppServiceStreamingLogConsoleView extends ConsoleViewImpl {
 
     private static final String SEPARATOR = System.getProperty("line.separator");
+    private static final String TERM_SEPARATOR = ";";
 
     private boolean isDisposed;
     private String resourceId;
-    private Subscription subscription;
+    private AppServiceLogStreamer streamer;
+    private AppServiceLogStreamer.Filter filter = AppServiceLogStreamer.Filter.NONE;
+    private String includes = "";
+    private String excludes = "";
 
     public AppServiceStreamingLogConsoleView(@NotNull Project project, String resourceId) {
         super(project, true);
@@ -30,34 +43,88 @@ public class AppServiceStreamingLogConsoleView extends ConsoleViewImpl {
         this.resourceId = resourceId;
     }
 
-    public void startStreamingLog(Observable<String> logStreaming) {
+    @NotNull
+    @Override
+    public AnAction[] createConsoleActions() {
+        return ArrayUtils.add(super.createConsoleActions(), new FilterLinesAction());
+    }
+
+    /**
+     * @return the filter of the lines set in this console, kept when the streaming log is restarted
+     */
+    @NotNull
+    public AppServiceLogStreamer.Filter getFilter() {
+        return filter;
+    }
+
+    public void startStreamingLog(AppServiceLogStreamer logStreamer) {
         if (!isActive()) {
             printlnToConsole(message("appService.logStreaming.hint.connect"), SYSTEM_OUTPUT);
-            subscription = logStreaming.subscribeOn(Schedulers.io())
-                                       .doAfterTerminate(() -> printlnToConsole(message("appService.logStreaming.hint.disconnected"), SYSTEM_OUTPUT))
-                                       .subscribe((log) -> printlnToConsole(log, NORMAL_OUTPUT));
+            streamer = logStreamer;
+            // The lines are printed in batched chunks, rather than one by one
+            streamer.start(chunk -> this.print(chunk, NORMAL_OUTPUT),
+                () -> printlnToConsole(message("appService.logStreaming.hint.disconnected"), SYSTEM_OUTPUT));
         }
     }
 
     public void closeStreamingLog() {
         if (isActive()) {
-            subscription.unsubscribe();
+            streamer.close();
             printlnToConsole(message("appService.logStreaming.hint.disconnected"), SYSTEM_OUTPUT);
         }
     }
 
     public boolean isActive() {
-        return subscription != null && !subscription.isUnsubscribed();
+        return streamer != null && streamer.isStreaming();
     }
 
     public boolean isDisposed() {
         return this.isDisposed;
     }
 
+    private void setFilter(@NotNull String includes, @NotNull String excludes) {
+        this.includes = includes;
+        this.excludes = excludes;
+        // Compiled once here, rather than per line
+        this.filter = AppServiceLogStreamer.Filter.of(splitTerms(includes), splitTerms(excludes));
+        if (isActive()) {
+            streamer.setFilter(filter);
+        }
+        printlnToConsole(filter.isNone() ? message("appService.logStreaming.hint.filterCleared") :
+                         message("appService.logStreaming.hint.filterApplied", includes, excludes), SYSTEM_OUTPUT);
+    }
+
+    private static List<String> splitTerms(@NotNull String terms) {
+        return Arrays.stream(StringUtils.split(terms, TERM_SEPARATOR)).map(String::trim).collect(Collectors.toList());
+    }
+
     private void printlnToConsole(String message, ConsoleViewContentType consoleViewContentType) {
         this.print(message + SEPARATOR, consoleViewContentType);
     }
 
+    private class FilterLinesAction extends DumbAwareAction {
+        FilterLinesAction() {
+            super(message("appService.logStreaming.action.filter"), message("appService.logStreaming.action.filter"),
+                  AllIcons.General.Filter);
+        }
+
+        @Override
+        public void actionPerformed(@NotNull AnActionEvent event) {
+            final String title = message("appService.logStreaming.action.filter");
+            final String newIncludes = Messages.showInputDialog(getProject(),
+                    message("appService.logStreaming.filter.includes"), title, null, includes, null);
+            if (newIncludes == null) {
+                return;
+            }
+            final String newExcludes = Messages.showInputDialog(getProject(),
+                    message("appService.logStreaming.filter.excludes"), title, null, excludes, null);
+            if (newExcludes == null) {
+                return;
+            }
+            setFilter(newIncludes.trim(), newExcludes.trim());
+        }
+    }
+
     @Override
     public void dispose() {
         super.dispose();
@@ -19,6 +19,7 @@ import com.microsoft.azuretools.authmanage.AuthMethodManager;
 import com.microsoft.azuretools.authmanage.models.SubscriptionDetail;
 import com.microsoft.azuretools.core.mvp.model.AzureMvpModel;
 import com.microsoft.azuretools.core.mvp.model.function.AzureFunctionMvpModel;
+import com.microsoft.azuretools.core.mvp.model.webapp.AppServiceLogStreamer;
 import com.microsoft.azuretools.core.mvp.model.webapp.AzureWebAppMvpModel;
 import com.microsoft.azuretools.sdkmanage.AzureManager;
 import com.microsoft.intellij.util.PluginUtil;
@@ -30,7 +31,9 @@ import rx.Observable;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -60,6 +63,10 @@ public enum AppServiceStreamingLogManager {
         showAppServiceStreamingLog(project, webAppId, new WebAppLogStreaming(webAppId));
     }
 
+    public void showWebAppStreamingLogWithSlots(Project project, String webAppId) {
+        showAppServiceStreamingLog(project, webAppId, new WebAppWithSlotsLogStreaming(webAppId));
+    }
+
     public void showFunctionStreamingLog(Project project, String functionId) {
         showAppServiceStreamingLog(project, functionId, new FunctionLogStreaming(functionId));
     }
@@ -100,11 +107,11 @@ public enum AppServiceStreamingLogManager {
                             return;
                         }
                     }
-                    final Observable<String> log = logStreaming.getStreamingLogContent();
-                    if (log == null) {
+                    final Map<String, Observable<String>> logs = logStreaming.getStreamingLogContents();
+                    if (logs == null) {
                         return;
                     }
-                    consoleView.startStreamingLog(log);
+                    consoleView.startStreamingLog(new AppServiceLogStreamer(logs, consoleView.getFilter()));
                 }
                 StreamingLogsToolWindowManager.getInstance().showStreamingLogConsole(
                         project, resourceId, logStreaming.getTitle(), consoleView);
@@ -132,6 +139,14 @@ public enum AppServiceStreamingLogManager {
         String getTitle() throws IOException;
 
         Observable<String> getStreamingLogContent() throws IOException;
+
+        /**
+         * @return the logs by the app or slot name to merge into one console, null if not streamed into the console
+         */
+        default Map<String, Observable<String>> getStreamingLogContents() throws IOException {
+            final Observable<String> log = getStreamingLogContent();
+            return log == null ? null : Collections.singletonMap(getTitle(), log);
+        }
     }
 
     static class FunctionLogStreaming implements ILogStreaming {
@@ -254,6 +269,68 @@ public enum AppServiceStreamingLogManager {
         }
     }
 
+    static class WebAppWithSlotsLogStreaming implements ILogStreaming {
+        private String resourceId;
+        private WebApp webApp;
+
+        public WebAppWithSlotsLogStreaming(String resourceId) {
+            this.resourceId = resourceId;
+        }
+
+        @Override
+        public boolean isLogStreamingEnabled() throws IOException {
+            if (!AzureWebAppMvpModel.isHttpLogEnabled(getWebApp())) {
+                return false;
+            }
+            for (final DeploymentSlot slot : getWebApp().deploymentSlots().list()) {
+                if (!AzureWebAppMvpModel.isHttpLogEnabled(slot)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void enableLogStreaming() throws IOException {
+            if (!AzureWebAppMvpModel.isHttpLogEnabled(getWebApp())) {
+                AzureWebAppMvpModel.enableHttpLog(getWebApp().update());
+            }
+            for (final DeploymentSlot slot : getWebApp().deploymentSlots().list()) {
+                if (!AzureWebAppMvpModel.isHttpLogEnabled(slot)) {
+                    AzureWebAppMvpModel.enableHttpLog(slot.update());
+                }
+            }
+        }
+
+        @Override
+        public String getTitle() {
+            return AzureMvpModel.getSegment(resourceId, SITES);
+        }
+
+        @Override
+        public Observable<String> getStreamingLogContent() throws IOException {
+            return getWebApp().streamAllLogsAsync();
+        }
+
+        @Override
+        public Map<String, Observable<String>> getStreamingLogContents() throws IOException {
+            final Map<String, Observable<String>> logs = new LinkedHashMap<>();
+            logs.put(getTitle(), getWebApp().streamAllLogsAsync());
+            for (final DeploymentSlot slot : getWebApp().deploymentSlots().list()) {
+                logs.put(getTitle() + "/" + slot.name(), slot.streamAllLogsAsync());
+            }
+            return logs;
+        }
+
+        private WebApp getWebApp() throws IOException {
+            if (webApp == null) {
+                webApp = AzureWebAppMvpModel.getInstance().getWebAppById(
+                        AzureMvpModel.getSegment(resourceId, SUBSCRIPTIONS), resourceId);
+            }
+            return webApp;
+        }
+    }
+
     static class WebAppSlotLogStreaming implements ILogStreaming {
         private String resourceId;
         private DeploymentSlot deploymentSlot;
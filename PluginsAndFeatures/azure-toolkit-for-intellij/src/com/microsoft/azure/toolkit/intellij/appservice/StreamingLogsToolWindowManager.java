@@ -6,6 +6,9 @@
 package com.microsoft.azure.toolkit.intellij.appservice;
 
 import com.intellij.execution.ui.ConsoleView;
+import com.intellij.openapi.actionSystem.ActionManager;
+import com.intellij.openapi.actionSystem.ActionToolbar;
+import com.intellij.openapi.actionSystem.DefaultActionGroup;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.wm.ToolWindow;
 import com.intellij.openapi.wm.ToolWindowManager;
@@ -17,6 +20,8 @@ import com.microsoft.azure.toolkit.lib.common.task.AzureTaskManager;
 import org.apache.commons.collections4.BidiMap;
 import org.apache.commons.collections4.bidimap.DualHashBidiMap;
 
+import javax.swing.*;
+import java.awt.*;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -40,7 +45,7 @@ public class StreamingLogsToolWindowManager {
             final String consoleName = getConsoleViewName(resourceId, resourceName);
             Content content = toolWindow.getContentManager().findContent(consoleName);
             if (content == null) {
-                content = contentFactory.createContent(consoleView.getComponent(), consoleName, false);
+                content = contentFactory.createContent(createConsolePanel(consoleView), consoleName, false);
                 content.setDisposer(consoleView);
                 toolWindow.getContentManager().addContent(content);
             }
@@ -48,6 +53,17 @@ public class StreamingLogsToolWindowManager {
         });
     }
 
+    private JComponent createConsolePanel(ConsoleView consoleView) {
+        // Show the console actions, such as filtering the lines, beside the console
+        final ActionToolbar toolbar = ActionManager.getInstance().createActionToolbar("AzureStreamingLogConsole",
+                new DefaultActionGroup(consoleView.createConsoleActions()), false);
+        final JPanel panel = new JPanel(new BorderLayout());
+        panel.add(consoleView.getComponent(), BorderLayout.CENTER);
+        panel.add(toolbar.getComponent(), BorderLayout.WEST);
+        toolbar.setTargetComponent(consoleView.getComponent());
+        return panel;
+    }
+
     public void removeConsoleView(String resourceId) {
         resourceIdToNameMap.remove(resourceId);
     }
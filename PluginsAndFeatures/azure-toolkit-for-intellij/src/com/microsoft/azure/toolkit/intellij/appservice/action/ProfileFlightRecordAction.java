@@ -24,6 +24,7 @@ import com.microsoft.azuretools.core.mvp.model.AzureMvpModel;
 import com.microsoft.azuretools.core.mvp.model.webapp.AzureWebAppMvpModel;
 import com.microsoft.azuretools.telemetry.TelemetryConstants;
 import com.microsoft.azuretools.telemetrywrapper.EventUtil;
+import com.microsoft.intellij.UpdateProgressIndicator;
 import com.microsoft.intellij.util.PluginUtil;
 import com.microsoft.tooling.msservices.helpers.Name;
 import com.microsoft.tooling.msservices.serviceexplorer.Groupable;
@@ -35,6 +36,7 @@ import org.apache.commons.lang.StringUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.Objects;
 import java.util.concurrent.CountDownLatch;
 import java.util.logging.Logger;
@@ -144,15 +146,20 @@ public class ProfileFlightRecordAction extends NodeActionListener {
             progressIndicator.checkCanceled();
             progressIndicator.setText(message("webapp.flightRecord.hint.profileCompletedOnAzure"));
             progressIndicator.setText(message("webapp.flightRecord.hint.downloadingJfr"));
-            byte[] content = starter.downloadJFRFile(file.getName());
-            if (content != null) {
-                FileUtils.writeByteArrayToFile(file, content);
+            try {
+                // Streamed to the file in chunks, the recording never lands on the heap
+                starter.downloadJFRFile(file.getName(), file, new UpdateProgressIndicator(progressIndicator));
                 progressIndicator.setText(message("webapp.flightRecord.hint.downloadingJfrDone"));
                 PluginUtil.showInfoNotificationProject(project,
                                                        message("webapp.flightRecord.hint.profileRecorderComplete"),
                                                        getActionOnJfrFile(file.getAbsolutePath()));
-            } else {
-                notifyUserWithErrorMessage(message("webapp.flightRecord.error.jfrDownload.title"), message("webapp.flightRecord.error.jfrDownload.message"));
+            } catch (InterruptedIOException e) {
+                // canceled by user
+                FileUtils.deleteQuietly(file);
+            } catch (IOException | RuntimeException e) {
+                FileUtils.deleteQuietly(file);
+                notifyUserWithErrorMessage(message("webapp.flightRecord.error.jfrDownload.title"),
+                                           message("webapp.flightRecord.error.jfrDownload.message") + " " + e.getMessage());
             }
 
         } catch (IOException e) {
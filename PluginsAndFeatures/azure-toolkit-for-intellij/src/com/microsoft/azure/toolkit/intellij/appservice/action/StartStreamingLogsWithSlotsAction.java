@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.intellij.appservice.action;
+
+import com.intellij.openapi.project.Project;
+import com.microsoft.azure.management.resources.fluentcore.arm.ResourceUtils;
+import com.microsoft.azure.toolkit.intellij.appservice.AppServiceStreamingLogManager;
+import com.microsoft.azure.toolkit.lib.common.operation.AzureOperationBundle;
+import com.microsoft.azure.toolkit.lib.common.operation.IAzureOperationTitle;
+import com.microsoft.azure.toolkit.lib.common.task.AzureTask;
+import com.microsoft.azure.toolkit.lib.common.task.AzureTaskManager;
+import com.microsoft.azuretools.azurecommons.helpers.AzureCmdException;
+import com.microsoft.azuretools.telemetrywrapper.EventUtil;
+import com.microsoft.tooling.msservices.helpers.Name;
+import com.microsoft.tooling.msservices.serviceexplorer.Groupable;
+import com.microsoft.tooling.msservices.serviceexplorer.NodeActionEvent;
+import com.microsoft.tooling.msservices.serviceexplorer.NodeActionListener;
+import com.microsoft.tooling.msservices.serviceexplorer.azure.webapp.WebAppNode;
+
+import static com.microsoft.azuretools.telemetry.TelemetryConstants.START_STREAMING_LOG_WEBAPP_WITH_SLOTS;
+import static com.microsoft.azuretools.telemetry.TelemetryConstants.WEBAPP;
+
+/**
+ * Stream the logs of the web app and all its deployment slots merged into one console, tagged by the app or slot
+ */
+@Name("Start Streaming Logs with Slots")
+public class StartStreamingLogsWithSlotsAction extends NodeActionListener {
+
+    private Project project;
+    private String resourceId;
+
+    public StartStreamingLogsWithSlotsAction(WebAppNode webAppNode) {
+        super();
+        this.project = (Project) webAppNode.getProject();
+        this.resourceId = webAppNode.getId();
+    }
+
+    @Override
+    protected void actionPerformed(NodeActionEvent nodeActionEvent) throws AzureCmdException {
+        EventUtil.executeWithLog(WEBAPP, START_STREAMING_LOG_WEBAPP_WITH_SLOTS, op -> {
+            final IAzureOperationTitle title = AzureOperationBundle.title("appservice|log_stream.start", ResourceUtils.nameFromResourceId(resourceId));
+            AzureTaskManager.getInstance().runInBackground(new AzureTask(project, title, false, () ->
+                    AppServiceStreamingLogManager.INSTANCE.showWebAppStreamingLogWithSlots(project, resourceId)));
+        });
+    }
+
+    @Override
+    public int getGroup() {
+        return Groupable.DIAGNOSTIC_GROUP;
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.intellij.function.runner.core;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleUtilCore;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.psi.PsiAnnotation;
+import com.intellij.psi.PsiCompiledElement;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiField;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaCodeReferenceElement;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiParameter;
+import com.intellij.psi.PsiReferenceExpression;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.microsoft.azure.common.exceptions.AzureExecutionException;
+import com.microsoft.azure.common.function.bindings.Binding;
+import com.microsoft.azure.common.function.bindings.BindingEnum;
+import com.microsoft.azure.common.function.configurations.FunctionConfiguration;
+import com.microsoft.azuretools.utils.JsonUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.microsoft.intellij.AzurePlugin.log;
+
+/**
+ * The persisted index of the function methods and their resolved bindings, keyed by the source file. A file is parsed
+ * again only if itself or a file it depends on, such as the one declaring a constant used in the binding annotations,
+ * is changed since it was indexed, so listing the functions of a large project doesn't resolve every annotation.
+ */
+public class FunctionBindingIndex {
+    // Bump it when the persisted format changes, the index of a different version is dropped
+    private static final int VERSION = 1;
+    private static final String INDEX_FOLDER = "azure-toolkit/function-bindings";
+    // Unsaved documents have no stable stamp across sessions, so their stamps are bound to this session
+    private static final String SESSION_ID = UUID.randomUUID().toString();
+
+    private final Project project;
+    private Map<String, FileEntry> entries;
+    private boolean isDirty = false;
+
+    private static class IndexData {
+        private int version;
+        private Map<String, FileEntry> entries;
+    }
+
+    private static class FileEntry {
+        private String stamp;
+        // The stamps of the files the bindings of this file are resolved from, keyed by the file url
+        private Map<String, String> dependencies;
+        private List<FunctionEntry> functions;
+    }
+
+    static class FunctionEntry {
+        String name;
+        String entryPoint;
+        List<BindingEntry> bindings;
+    }
+
+    static class BindingEntry {
+        String bindingEnum;
+        String type;
+        String direction;
+        String name;
+        JsonObject attributes;
+    }
+
+    public FunctionBindingIndex(Project project) {
+        this.project = project;
+    }
+
+    public static FunctionBindingIndex getInstance(Project project) {
+        return ServiceManager.getService(project, FunctionBindingIndex.class);
+    }
+
+    /**
+     * Get the configurations of the functions in the module, which must be called in a read action
+     *
+     * @return the function configurations keyed by the function name
+     */
+    public synchronized Map<String, FunctionConfiguration> getFunctionConfigurations(Module module)
+            throws AzureExecutionException {
+        loadIfNeeded();
+        final Map<VirtualFile, List<PsiMethod>> methodsByFile = new LinkedHashMap<>();
+        for (final PsiMethod method : FunctionUtils.findFunctionsByAnnotation(module)) {
+            final PsiFile psiFile = method.getContainingFile();
+            final VirtualFile file = psiFile == null ? null : psiFile.getVirtualFile();
+            if (file != null) {
+                methodsByFile.computeIfAbsent(file, key -> new ArrayList<>()).add(method);
+            }
+        }
+
+        final Map<String, FunctionConfiguration> configMap = new HashMap<>();
+        for (final Map.Entry<VirtualFile, List<PsiMethod>> fileMethods : methodsByFile.entrySet()) {
+            final VirtualFile file = fileMethods.getKey();
+            FileEntry entry = entries.get(file.getUrl());
+            if (entry == null || !isUpToDate(file, entry)) {
+                entry = indexFile(file, fileMethods.getValue());
+                entries.put(file.getUrl(), entry);
+                isDirty = true;
+            }
+            for (final FunctionEntry function : entry.functions) {
+                configMap.put(function.name, toConfiguration(function));
+            }
+        }
+        removeStaleEntries(module, methodsByFile.keySet());
+        saveIfDirty();
+        return configMap;
+    }
+
+    private FileEntry indexFile(VirtualFile file, List<PsiMethod> methods) throws AzureExecutionException {
+        final FileEntry entry = new FileEntry();
+        entry.stamp = getStamp(file);
+        entry.dependencies = new HashMap<>();
+        entry.functions = new ArrayList<>();
+        for (final PsiMethod method : methods) {
+            final FunctionConfiguration config = FunctionUtils.generateConfiguration(method);
+            final FunctionEntry function = new FunctionEntry();
+            function.name = FunctionUtils.getFunctionName(method);
+            function.entryPoint = config.getEntryPoint();
+            function.bindings = new ArrayList<>();
+            for (final Binding binding : config.getBindings()) {
+                function.bindings.add(toBindingEntry(binding));
+            }
+            entry.functions.add(function);
+            collectDependencies(method, file, entry.dependencies);
+        }
+        return entry;
+    }
+
+    private void collectDependencies(PsiMethod method, VirtualFile self, Map<String, String> dependencies) {
+        final List<PsiAnnotation> annotations = new ArrayList<>(Arrays.asList(method.getModifierList().getAnnotations()));
+        for (final PsiParameter parameter : method.getParameterList().getParameters()) {
+            if (parameter.getModifierList() != null) {
+                annotations.addAll(Arrays.asList(parameter.getModifierList().getAnnotations()));
+            }
+        }
+        final Set<PsiElement> visited = new HashSet<>();
+        for (final PsiAnnotation annotation : annotations) {
+            // The custom binding annotations are declared in the project too
+            final PsiJavaCodeReferenceElement reference = annotation.getNameReferenceElement();
+            addDependency(reference == null ? null : reference.resolve(), self, dependencies);
+            collectFieldDependencies(annotation, self, dependencies, visited);
+        }
+    }
+
+    private void collectFieldDependencies(PsiElement element, VirtualFile self, Map<String, String> dependencies,
+                                          Set<PsiElement> visited) {
+        for (final PsiReferenceExpression expression : PsiTreeUtil.findChildrenOfType(element,
+                                                                                      PsiReferenceExpression.class)) {
+            final PsiElement resolved = expression.resolve();
+            if (resolved instanceof PsiField && !(resolved instanceof PsiCompiledElement) && visited.add(resolved)) {
+                addDependency(resolved, self, dependencies);
+                // The constant may be composed of the constants in other files
+                final PsiElement initializer = ((PsiField) resolved).getInitializer();
+                if (initializer != null) {
+                    collectFieldDependencies(initializer, self, dependencies, visited);
+                }
+            }
+        }
+    }
+
+    private void addDependency(PsiElement element, VirtualFile self, Map<String, String> dependencies) {
+        if (element == null || element instanceof PsiCompiledElement) {
+            return;
+        }
+        final PsiFile psiFile = element.getContainingFile();
+        final VirtualFile file = psiFile == null ? null : psiFile.getVirtualFile();
+        if (file != null && !file.equals(self)) {
+            dependencies.put(file.getUrl(), getStamp(file));
+        }
+    }
+
+    private boolean isUpToDate(VirtualFile file, FileEntry entry) {
+        if (!StringUtils.equals(entry.stamp, getStamp(file))) {
+            return false;
+        }
+        for (final Map.Entry<String, String> dependency : entry.dependencies.entrySet()) {
+            final VirtualFile dependencyFile = VirtualFileManager.getInstance().findFileByUrl(dependency.getKey());
+            if (dependencyFile == null || !StringUtils.equals(dependency.getValue(), getStamp(dependencyFile))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String getStamp(VirtualFile file) {
+        final FileDocumentManager documentManager = FileDocumentManager.getInstance();
+        if (documentManager.isFileModified(file)) {
+            final Document document = documentManager.getCachedDocument(file);
+            if (document != null) {
+                return String.format("document:%s:%d", SESSION_ID, document.getModificationStamp());
+            }
+        }
+        return String.format("%d:%d", file.getTimeStamp(), file.getLength());
+    }
+
+    private void removeStaleEntries(Module module, Set<VirtualFile> indexedFiles) {
+        final Set<String> indexedUrls = new HashSet<>();
+        indexedFiles.forEach(file -> indexedUrls.add(file.getUrl()));
+        isDirty |= entries.keySet().removeIf(url -> {
+            if (indexedUrls.contains(url)) {
+                return false;
+            }
+            final VirtualFile file = VirtualFileManager.getInstance().findFileByUrl(url);
+            return file == null || Objects.equals(ModuleUtilCore.findModuleForFile(file, project), module);
+        });
+    }
+
+    static BindingEntry toBindingEntry(Binding binding) {
+        final BindingEntry entry = new BindingEntry();
+        entry.bindingEnum = binding.getBindingEnum().name();
+        entry.type = binding.getType();
+        entry.direction = binding.getDirection();
+        entry.name = binding.getName();
+        entry.attributes = JsonUtils.getGson().toJsonTree(binding.getBindingAttributes()).getAsJsonObject();
+        return entry;
+    }
+
+    static FunctionConfiguration toConfiguration(FunctionEntry function) {
+        final FunctionConfiguration config = new FunctionConfiguration();
+        config.setEntryPoint(function.entryPoint);
+        final List<Binding> bindings = new ArrayList<>();
+        for (final BindingEntry entry : function.bindings) {
+            final Binding binding = new Binding(BindingEnum.valueOf(entry.bindingEnum)) {
+                public String getName() {
+                    return entry.name;
+                }
+
+                public String getDirection() {
+                    return entry.direction;
+                }
+
+                public String getType() {
+                    return entry.type;
+                }
+            };
+            entry.attributes.entrySet().forEach(attribute -> binding.setAttribute(attribute.getKey(),
+                                                                                  toValue(attribute.getValue())));
+            bindings.add(binding);
+        }
+        config.setBindings(bindings);
+        return config;
+    }
+
+    static Object toValue(JsonElement element) {
+        if (element == null || element.isJsonNull()) {
+            return null;
+        }
+        if (element.isJsonArray()) {
+            final JsonArray array = element.getAsJsonArray();
+            final Object[] result = new Object[array.size()];
+            for (int i = 0; i < array.size(); i++) {
+                result[i] = toValue(array.get(i));
+            }
+            return result;
+        }
+        if (element.isJsonObject()) {
+            final Map<String, Object> result = new LinkedHashMap<>();
+            element.getAsJsonObject().entrySet().forEach(entry -> result.put(entry.getKey(), toValue(entry.getValue())));
+            return result;
+        }
+        final JsonPrimitive primitive = element.getAsJsonPrimitive();
+        if (primitive.isBoolean()) {
+            return primitive.getAsBoolean();
+        }
+        if (primitive.isNumber()) {
+            // Keep the integers integral so function.json is written the same as from the annotations
+            final double value = primitive.getAsDouble();
+            return value == Math.rint(value) && Math.abs(value) <= Integer.MAX_VALUE ? (Object) primitive.getAsInt()
+                                                                                      : (Object) value;
+        }
+        return primitive.getAsString();
+    }
+
+    private File getIndexFile() {
+        return Paths.get(PathManager.getSystemPath(), INDEX_FOLDER, project.getLocationHash() + ".json").toFile();
+    }
+
+    private void loadIfNeeded() {
+        if (entries != null) {
+            return;
+        }
+        entries = new HashMap<>();
+        final File indexFile = getIndexFile();
+        if (!indexFile.isFile()) {
+            return;
+        }
+        try {
+            final IndexData data = JsonUtils.fromJson(FileUtils.readFileToString(indexFile, StandardCharsets.UTF_8),
+                                                      IndexData.class);
+            if (data != null && data.version == VERSION && data.entries != null) {
+                entries.putAll(data.entries);
+            }
+        } catch (IOException | JsonParseException e) {
+            log("Drop the broken function binding index " + indexFile, e);
+        }
+    }
+
+    private void saveIfDirty() {
+        if (!isDirty) {
+            return;
+        }
+        final IndexData data = new IndexData();
+        data.version = VERSION;
+        data.entries = entries;
+        final File indexFile = getIndexFile();
+        try {
+            FileUtils.writeStringToFile(indexFile, JsonUtils.getGson().toJson(data), StandardCharsets.UTF_8);
+            isDirty = false;
+        } catch (IOException e) {
+            // The index is rebuilt next time
+            log("Failed to save the function binding index " + indexFile, e);
+        }
+    }
+}
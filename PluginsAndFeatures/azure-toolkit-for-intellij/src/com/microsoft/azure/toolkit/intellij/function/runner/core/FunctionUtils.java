@@ -10,6 +10,7 @@ import com.intellij.codeInsight.AnnotationUtil;
 import com.intellij.codeInsight.MetaAnnotationUtil;
 import com.intellij.lang.jvm.JvmAnnotation;
 import com.intellij.lang.jvm.JvmParameter;
+import com.intellij.openapi.application.PathManager;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleManager;
 import com.intellij.openapi.project.Project;
@@ -50,6 +51,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static com.microsoft.intellij.ui.messages.AzureBundle.message;
 
@@ -58,12 +63,16 @@ public class FunctionUtils {
     private static final String AZURE_FUNCTION_ANNOTATION_CLASS =
             "com.microsoft.azure.functions.annotation.FunctionName";
     private static final String FUNCTION_JSON = "function.json";
+    private static final String LIB_FOLDER = "lib";
     private static final String HTTP_OUTPUT_DEFAULT_NAME = "$return";
     private static final String DEFAULT_HOST_JSON = "{\"version\":\"2.0\",\"extensionBundle\":" +
             "{\"id\":\"Microsoft.Azure.Functions.ExtensionBundle\",\"version\":\"[1.*, 2.0.0)\"}}\n";
     private static final String DEFAULT_LOCAL_SETTINGS_JSON = "{ \"IsEncrypted\": false, \"Values\": " +
             "{ \"FUNCTIONS_WORKER_RUNTIME\": \"java\" } }";
     private static final String AZURE_FUNCTIONS = "azure-functions";
+    private static final String LOCAL_RUN_STAGING_FOLDER = ".azure-functions-local-run";
+    private static final long DEPLOYMENT_STAGING_MAX_AGE_MS = TimeUnit.DAYS.toMillis(7);
+    private static final Map<String, Lock> DEPLOYMENT_STAGING_LOCKS = new ConcurrentHashMap<>();
     private static final String AZURE_FUNCTION_CUSTOM_BINDING_CLASS =
             "com.microsoft.azure.functions.annotation.CustomBinding";
     private static Map<BindingEnum, List<String>> REQUIRED_ATTRIBUTE_MAP = new HashMap<>();
@@ -95,6 +104,66 @@ public class FunctionUtils {
         }
     }
 
+    /**
+     * The folder owned by local run under the configured staging folder, since staging removes all the files of the
+     * staging folder which are not staged
+     */
+    public static File getLocalRunStagingFolder(String configuredStagingFolder) {
+        return new File(configuredStagingFolder, LOCAL_RUN_STAGING_FOLDER);
+    }
+
+    /**
+     * The staging folder of the module kept in the IDE system folder across deployments
+     */
+    public static File getDeploymentStagingFolder(Module module) {
+        return Paths.get(PathManager.getSystemPath(), AZURE_FUNCTIONS, module.getProject().getLocationHash(),
+                         module.getName()).toFile();
+    }
+
+    /**
+     * The lock of the deployment staging folder, which must be held from staging until the folder is deployed, so the
+     * concurrent deployments of the same module don't stage into the folder being deployed
+     */
+    public static Lock getDeploymentStagingLock(File stagingFolder) {
+        return DEPLOYMENT_STAGING_LOCKS.computeIfAbsent(stagingFolder.getAbsolutePath(), path -> new ReentrantLock());
+    }
+
+    /**
+     * Remove the deployment staging folders of all projects which are not deployed in a week, such as the ones of the
+     * removed modules, the folders being deployed are skipped
+     */
+    public static void purgeStaleDeploymentStagingFolders() {
+        final File[] projectFolders = Paths.get(PathManager.getSystemPath(), AZURE_FUNCTIONS).toFile()
+                                           .listFiles(File::isDirectory);
+        if (projectFolders == null) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        for (final File projectFolder : projectFolders) {
+            final File[] stagingFolders = projectFolder.listFiles(File::isDirectory);
+            if (stagingFolders == null) {
+                continue;
+            }
+            for (final File stagingFolder : stagingFolders) {
+                // The manifest is saved on every deployment, while the folder is only touched by the changed files
+                final File manifest = IncrementalStager.getManifestFile(stagingFolder);
+                final long lastDeployed = manifest.isFile() ? manifest.lastModified() : stagingFolder.lastModified();
+                final Lock lock = getDeploymentStagingLock(stagingFolder);
+                if (now - lastDeployed > DEPLOYMENT_STAGING_MAX_AGE_MS && lock.tryLock()) {
+                    try {
+                        cleanUpStagingFolder(stagingFolder);
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+            final String[] remaining = projectFolder.list();
+            if (remaining != null && remaining.length == 0) {
+                FileUtils.deleteQuietly(projectFolder);
+            }
+        }
+    }
+
     @AzureOperation(
         name = "function.clean_staging_folder",
         params = {"$stagingFolder.getName()"},
@@ -104,6 +173,7 @@ public class FunctionUtils {
         try {
             if (stagingFolder != null) {
                 FileUtils.deleteDirectory(stagingFolder);
+                FileUtils.deleteQuietly(IncrementalStager.getManifestFile(stagingFolder));
             }
         } catch (IOException e) {
             // swallow exceptions while clean up
@@ -204,18 +274,26 @@ public class FunctionUtils {
         }
     }
 
+    /**
+     * Prepare the staging folder with the function configurations incrementally, the function.json of the unchanged
+     * functions, the unchanged libraries and the jar packed from the unchanged compiled outputs are kept as they are
+     */
     @AzureOperation(
         name = "function.prepare_staging_folder",
         type = AzureOperation.Type.TASK
     )
-    public static Map<String, FunctionConfiguration> prepareStagingFolder(Path stagingFolder, Path hostJson, Module module, PsiMethod[] methods)
+    public static Map<String, FunctionConfiguration> prepareStagingFolder(Path stagingFolder, Path hostJson, Module module,
+                                                                          Map<String, FunctionConfiguration> configMap)
             throws AzureExecutionException, IOException {
-        final Map<String, FunctionConfiguration> configMap = generateConfigurations(methods);
-        if (stagingFolder.toFile().isDirectory()) {
-            FileUtils.cleanDirectory(stagingFolder.toFile());
-        }
-
-        final Path jarFile = JarUtils.buildJarFileToStagingPath(stagingFolder.toString(), module);
+        final Path jarFile = JarUtils.getStagingJarPath(stagingFolder.toString(), module);
+        final Set<String> stagedFiles = new HashSet<>(configMap.keySet());
+        stagedFiles.add(LIB_FOLDER);
+        stagedFiles.add(jarFile.getFileName().toString());
+        cleanStagingFolder(stagingFolder.toFile(), stagedFiles);
+        FileUtils.forceMkdir(stagingFolder.toFile());
+
+        final IncrementalStager stager = new IncrementalStager(stagingFolder.toFile());
+        stager.stageJar(JarUtils.getModuleOutputFolder(module), jarFile);
         final String scriptFilePath = "../" + jarFile.getFileName().toString();
         configMap.values().forEach(config -> config.setScriptFile(scriptFilePath));
         for (final Map.Entry<String, FunctionConfiguration> config : configMap.entrySet()) {
@@ -245,13 +323,20 @@ public class FunctionUtils {
             }
             return true;
         });
-        final File libFolder = new File(stagingFolder.toFile(), "lib");
-        for (final File file : jarFiles) {
-            FileUtils.copyFileToDirectory(file, libFolder);
-        }
+        stager.syncLibraries(jarFiles);
+        stager.save();
         return configMap;
     }
 
+    /**
+     * Find the configurations of the functions in the module from the function binding index, which must be called in
+     * a read action
+     */
+    public static Map<String, FunctionConfiguration> findFunctionConfigurations(Module module)
+            throws AzureExecutionException {
+        return FunctionBindingIndex.getInstance(module.getProject()).getFunctionConfigurations(module);
+    }
+
     public static String getTargetFolder(Module module) {
         if (module == null) {
             return StringUtils.EMPTY;
@@ -291,29 +376,40 @@ public class FunctionUtils {
             }
             json.put("bindings", lists.toArray());
         }
+        // Keep the function.json of the unchanged function untouched, so the func host doesn't reload it
+        if (file.isFile() && StringUtils.equals(FileUtils.readFileToString(file, Charset.defaultCharset()),
+                                                JsonUtils.getGson().toJson(json))) {
+            return;
+        }
         file.getParentFile().mkdirs();
         JsonUtils.writeJsonToFile(file, json);
     }
 
+    private static void cleanStagingFolder(File stagingFolder, Set<String> stagedFiles) throws IOException {
+        final File[] files = stagingFolder.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (final File file : files) {
+            if (!stagedFiles.contains(file.getName())) {
+                FileUtils.forceDelete(file);
+            }
+        }
+    }
+
     private static String stripExtraCharacters(String fileName) {
         // TODO-dp this is not robust enough (eliminated !/ at the end of the jar)
         return StringUtils.endsWith(fileName, "!/") ?
                fileName.substring(0, fileName.length() - 2) : fileName;
     }
 
-    private static Map<String, FunctionConfiguration> generateConfigurations(final PsiMethod[] methods)
-            throws AzureExecutionException {
-        final Map<String, FunctionConfiguration> configMap = new HashMap<>();
-        for (final PsiMethod method : methods) {
-            final PsiAnnotation annotation = AnnotationUtil.findAnnotation(method,
-                                                                           FunctionUtils.AZURE_FUNCTION_ANNOTATION_CLASS);
-            String functionName = AnnotationUtil.getDeclaredStringAttributeValue(annotation, "value");
-            configMap.put(functionName, generateConfiguration(method));
-        }
-        return configMap;
+    static String getFunctionName(final PsiMethod method) {
+        final PsiAnnotation annotation = AnnotationUtil.findAnnotation(method,
+                                                                       FunctionUtils.AZURE_FUNCTION_ANNOTATION_CLASS);
+        return AnnotationUtil.getDeclaredStringAttributeValue(annotation, "value");
     }
 
-    private static FunctionConfiguration generateConfiguration(PsiMethod method) throws AzureExecutionException {
+    static FunctionConfiguration generateConfiguration(PsiMethod method) throws AzureExecutionException {
         final FunctionConfiguration config = new FunctionConfiguration();
         final List<Binding> bindings = new ArrayList<>();
         processParameterAnnotations(method, bindings);
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.intellij.function.runner.core;
+
+import com.google.gson.JsonParseException;
+import com.microsoft.azure.common.exceptions.AzureExecutionException;
+import com.microsoft.azuretools.utils.JsonUtils;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps a function staging folder in sync with the module incrementally. The manifest next to the staging folder
+ * records the content hash of every staged library and the fingerprint of the compiled outputs the function jar is
+ * packed from, so only the new or changed libraries are copied, the stale ones are removed, and the jar is packed again
+ * only when the compiled outputs change.
+ */
+public class IncrementalStager {
+    // Bump it when the manifest format changes, the staging folder of a different version is staged from scratch
+    private static final int VERSION = 2;
+    private static final String MANIFEST_SUFFIX = ".staging-manifest.json";
+    private static final String LIB_FOLDER = "lib";
+
+    private final File stagingFolder;
+    private final Manifest manifest;
+
+    private static class Manifest {
+        private int version = VERSION;
+        private String jarFingerprint;
+        // The staged libraries keyed by the file name in the lib folder
+        private Map<String, LibraryEntry> libraries = new HashMap<>();
+    }
+
+    private static class LibraryEntry {
+        private String source;
+        private long size;
+        private long lastModified;
+        private String sha256;
+    }
+
+    public IncrementalStager(File stagingFolder) {
+        this.stagingFolder = stagingFolder;
+        this.manifest = loadManifest(getManifestFile(stagingFolder));
+    }
+
+    /**
+     * The manifest is kept out of the staging folder, so it's not deployed with the staging folder
+     */
+    public static File getManifestFile(File stagingFolder) {
+        return new File(stagingFolder.getAbsoluteFile().getParentFile(), stagingFolder.getName() + MANIFEST_SUFFIX);
+    }
+
+    /**
+     * Pack the compiled outputs into the function jar, unless the jar packed from the same outputs is staged
+     *
+     * @return true if the jar is packed again
+     */
+    public boolean stageJar(File outputFolder, Path jarFile) throws IOException, AzureExecutionException {
+        final String fingerprint = getFolderFingerprint(outputFolder);
+        if (Files.isRegularFile(jarFile) && StringUtils.equals(fingerprint, manifest.jarFingerprint)) {
+            return false;
+        }
+        // Clear the fingerprint first, so a failed packing is never taken as up to date
+        manifest.jarFingerprint = null;
+        JarUtils.buildJarFile(outputFolder, jarFile);
+        manifest.jarFingerprint = fingerprint;
+        return true;
+    }
+
+    /**
+     * Sync the lib folder with the libraries, a library is hashed only if its size or last modified time changes
+     *
+     * @return the count of the libraries copied
+     */
+    public int syncLibraries(List<File> libraries) throws IOException {
+        final File libFolder = new File(stagingFolder, LIB_FOLDER);
+        FileUtils.forceMkdir(libFolder);
+        final Map<String, LibraryEntry> synced = new LinkedHashMap<>();
+        int staged = 0;
+        for (final File library : libraries) {
+            final File target = new File(libFolder, library.getName());
+            final LibraryEntry previous = manifest.libraries.get(library.getName());
+            final LibraryEntry current = new LibraryEntry();
+            current.source = library.getAbsolutePath();
+            current.size = library.length();
+            current.lastModified = library.lastModified();
+            if (isStaged(previous, target) && Objects.equals(previous.source, current.source)
+                    && previous.size == current.size && previous.lastModified == current.lastModified) {
+                current.sha256 = previous.sha256;
+            } else {
+                current.sha256 = sha256(library);
+                if (!isStaged(previous, target) || previous.size != current.size
+                        || !StringUtils.equals(previous.sha256, current.sha256)) {
+                    copy(library.toPath(), target.toPath());
+                    staged++;
+                }
+            }
+            synced.put(library.getName(), current);
+        }
+
+        final File[] files = libFolder.listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                if (!synced.containsKey(file.getName())) {
+                    FileUtils.forceDelete(file);
+                }
+            }
+        }
+        manifest.libraries = synced;
+        return staged;
+    }
+
+    public void save() throws IOException {
+        FileUtils.writeStringToFile(getManifestFile(stagingFolder), JsonUtils.getGson().toJson(manifest),
+                                    StandardCharsets.UTF_8);
+    }
+
+    private static boolean isStaged(LibraryEntry entry, File target) {
+        return entry != null && target.isFile() && target.length() == entry.size;
+    }
+
+    private static void copy(Path source, Path target) throws IOException {
+        // Not a hard link, the libraries in the local repository may be rewritten in place, such as the snapshots,
+        // which would change the staged library after it's hashed
+        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+    }
+
+    private static String sha256(File file) throws IOException {
+        try (InputStream input = Files.newInputStream(file.toPath())) {
+            return DigestUtils.sha256Hex(input);
+        }
+    }
+
+    private static String getFolderFingerprint(File folder) {
+        final MessageDigest digest = DigestUtils.getSha256Digest();
+        updateFingerprint(digest, folder, "");
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    private static void updateFingerprint(MessageDigest digest, File folder, String prefix) {
+        final File[] files = folder.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparing(File::getName));
+        for (final File file : files) {
+            final String path = prefix + file.getName();
+            if (file.isDirectory()) {
+                updateFingerprint(digest, file, path + "/");
+            } else {
+                final String record = String.format("%s:%d:%d\n", path, file.length(), file.lastModified());
+                digest.update(record.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private static Manifest loadManifest(File manifestFile) {
+        if (manifestFile.isFile()) {
+            try {
+                final Manifest manifest = JsonUtils.fromJson(
+                        FileUtils.readFileToString(manifestFile, StandardCharsets.UTF_8), Manifest.class);
+                if (manifest != null && manifest.version == VERSION && manifest.libraries != null) {
+                    return manifest;
+                }
+            } catch (IOException | JsonParseException e) {
+                // Stage from scratch with the broken manifest
+            }
+        }
+        return new Manifest();
+    }
+}
@@ -34,14 +34,24 @@ public class JarUtils {
         if (!stagingFolderFile.exists()) {
             stagingFolderFile.mkdirs();
         }
-        final String moduleName = module.getName();
-        final String path = CompilerPaths.getModuleOutputPath(module, false);
-        final Path outputFile = Paths.get(stagingFolder, moduleName + ".jar");
+        final Path outputFile = getStagingJarPath(stagingFolder, module);
+        buildJarFile(getModuleOutputFolder(module), outputFile);
+        return outputFile;
+    }
+
+    public static Path getStagingJarPath(String stagingFolder, Module module) {
+        return Paths.get(stagingFolder, module.getName() + ".jar");
+    }
+
+    public static File getModuleOutputFolder(Module module) {
+        return new File(CompilerPaths.getModuleOutputPath(module, false));
+    }
+
+    public static void buildJarFile(File outputFolder, Path outputFile) throws IOException, AzureExecutionException {
         try (final ZipOutputStream outputZip = getZipOutputStream(outputFile, true)) {
-            zipDirectory(new File(path), "", outputZip);
+            zipDirectory(outputFolder, "", outputZip);
             addManifest(outputZip);
         }
-        return outputFile;
     }
 
     private static void zipDirectory(File folder, String parentFolder, ZipOutputStream zos)
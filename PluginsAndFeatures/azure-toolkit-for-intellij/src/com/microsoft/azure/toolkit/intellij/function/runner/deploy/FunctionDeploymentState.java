@@ -6,8 +6,8 @@
 package com.microsoft.azure.toolkit.intellij.function.runner.deploy;
 
 import com.intellij.openapi.project.Project;
-import com.intellij.psi.PsiMethod;
 import com.microsoft.azure.common.exceptions.AzureExecutionException;
+import com.microsoft.azure.common.function.configurations.FunctionConfiguration;
 import com.microsoft.azure.common.utils.AppServiceUtils;
 import com.microsoft.azure.management.appservice.AppServicePlan;
 import com.microsoft.azure.management.appservice.FunctionApp;
@@ -33,6 +33,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Map;
+import java.util.concurrent.locks.Lock;
 
 import static com.microsoft.intellij.ui.messages.AzureBundle.message;
 
@@ -73,15 +74,23 @@ public class FunctionDeploymentState extends AzureRunProfileState<WebAppBase> {
         functionDeployConfiguration.setOs(appServicePlan.operatingSystem().name());
         functionDeployConfiguration.setPricingTier(appServicePlan.pricingTier().toSkuDescription().size());
         // Deploy function to Azure
-        stagingFolder = FunctionUtils.getTempStagingFolder();
-        deployModel.setDeploymentStagingDirectoryPath(stagingFolder.getPath());
-        prepareStagingFolder(stagingFolder, processHandler);
-        final DeployFunctionHandler deployFunctionHandler = new DeployFunctionHandler(deployModel, message -> {
-            if (processHandler.isProcessRunning()) {
-                processHandler.setText(message);
-            }
-        });
-        return deployFunctionHandler.execute();
+        // The staging folder of the module is kept across deployments, so only the changed files are staged again
+        FunctionUtils.purgeStaleDeploymentStagingFolders();
+        stagingFolder = FunctionUtils.getDeploymentStagingFolder(functionDeployConfiguration.getModule());
+        final Lock stagingLock = FunctionUtils.getDeploymentStagingLock(stagingFolder);
+        stagingLock.lockInterruptibly();
+        try {
+            deployModel.setDeploymentStagingDirectoryPath(stagingFolder.getPath());
+            prepareStagingFolder(stagingFolder, processHandler);
+            final DeployFunctionHandler deployFunctionHandler = new DeployFunctionHandler(deployModel, message -> {
+                if (processHandler.isProcessRunning()) {
+                    processHandler.setText(message);
+                }
+            });
+            return deployFunctionHandler.execute();
+        } finally {
+            stagingLock.unlock();
+        }
     }
 
     private FunctionApp createFunctionApp(RunProcessHandler processHandler) {
@@ -108,10 +117,11 @@ public class FunctionDeploymentState extends AzureRunProfileState<WebAppBase> {
     private void prepareStagingFolder(File stagingFolder, RunProcessHandler processHandler) throws Exception {
         AzureTaskManager.getInstance().read(() -> {
             final Path hostJsonPath = FunctionUtils.getDefaultHostJson(project);
-            final PsiMethod[] methods = FunctionUtils.findFunctionsByAnnotation(functionDeployConfiguration.getModule());
             final Path folder = stagingFolder.toPath();
             try {
-                FunctionUtils.prepareStagingFolder(folder, hostJsonPath, functionDeployConfiguration.getModule(), methods);
+                final Map<String, FunctionConfiguration> configMap =
+                    FunctionUtils.findFunctionConfigurations(functionDeployConfiguration.getModule());
+                FunctionUtils.prepareStagingFolder(folder, hostJsonPath, functionDeployConfiguration.getModule(), configMap);
             } catch (AzureExecutionException | IOException e) {
                 final String error = String.format("failed prepare staging folder[%s]", folder);
                 throw new AzureToolkitRuntimeException(error, e);
@@ -133,7 +143,6 @@ public class FunctionDeploymentState extends AzureRunProfileState<WebAppBase> {
     protected void onSuccess(WebAppBase result, @NotNull RunProcessHandler processHandler) {
         processHandler.setText(message("appService.deploy.hint.succeed"));
         processHandler.notifyComplete();
-        FunctionUtils.cleanUpStagingFolder(stagingFolder);
         if (functionDeployConfiguration.isNewResource() && AzureUIRefreshCore.listeners != null) {
             AzureUIRefreshCore.execute(new AzureUIRefreshEvent(AzureUIRefreshEvent.EventType.REFRESH, result));
         }
@@ -142,7 +151,6 @@ public class FunctionDeploymentState extends AzureRunProfileState<WebAppBase> {
     @Override
     protected void onFail(@NotNull Throwable error, @NotNull RunProcessHandler processHandler) {
         super.onFail(error, processHandler);
-        FunctionUtils.cleanUpStagingFolder(stagingFolder);
     }
 
     @Override
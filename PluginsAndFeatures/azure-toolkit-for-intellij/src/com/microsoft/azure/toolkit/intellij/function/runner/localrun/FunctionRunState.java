@@ -21,7 +21,6 @@ import com.intellij.execution.remote.RemoteConfigurationType;
 import com.intellij.execution.runners.ExecutionUtil;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.wm.ToolWindowId;
-import com.intellij.psi.PsiMethod;
 import com.microsoft.azure.common.exceptions.AzureExecutionException;
 import com.microsoft.azure.common.function.bindings.BindingEnum;
 import com.microsoft.azure.common.function.configurations.FunctionConfiguration;
@@ -79,6 +78,7 @@ public class FunctionRunState extends AzureRunProfileState<FunctionApp> {
                                                                                BindingEnum.HttpTrigger };
     private boolean isDebuggerLaunched;
     private File stagingFolder;
+    private boolean isTempStagingFolder;
     private Process installProcess;
     private Process process;
     private Executor executor;
@@ -120,7 +120,12 @@ public class FunctionRunState extends AzureRunProfileState<FunctionApp> {
         // Prepare staging Folder
         updateTelemetryMap(telemetryMap);
         validateFunctionRuntime(processHandler);
-        stagingFolder = FunctionUtils.getTempStagingFolder();
+        // The local run folder under the configured staging folder is kept across runs, so only the changed functions
+        // are staged again, while the other files of the configured folder are left untouched
+        final String configuredStagingFolder = functionRunConfiguration.getStagingFolder();
+        isTempStagingFolder = StringUtils.isEmpty(configuredStagingFolder);
+        stagingFolder = isTempStagingFolder ? FunctionUtils.getTempStagingFolder() :
+                        FunctionUtils.getLocalRunStagingFolder(configuredStagingFolder);
         addProcessTerminatedListener(processHandler);
         prepareStagingFolder(stagingFolder, processHandler);
         // Run Function Host
@@ -279,11 +284,11 @@ public class FunctionRunState extends AzureRunProfileState<FunctionApp> {
         AzureTaskManager.getInstance().read(() -> {
             final Path hostJsonPath = FunctionUtils.getDefaultHostJson(project);
             final Path localSettingsJson = Paths.get(functionRunConfiguration.getLocalSettingsJsonPath());
-            final PsiMethod[] methods = FunctionUtils.findFunctionsByAnnotation(functionRunConfiguration.getModule());
             final Path folder = stagingFolder.toPath();
             try {
-                Map<String, FunctionConfiguration> configMap =
-                    FunctionUtils.prepareStagingFolder(folder, hostJsonPath, functionRunConfiguration.getModule(), methods);
+                final Map<String, FunctionConfiguration> configMap =
+                    FunctionUtils.findFunctionConfigurations(functionRunConfiguration.getModule());
+                FunctionUtils.prepareStagingFolder(folder, hostJsonPath, functionRunConfiguration.getModule(), configMap);
                 FunctionUtils.copyLocalSettingsToStagingFolder(folder, localSettingsJson, functionRunConfiguration.getAppSettings());
 
                 final Set<BindingEnum> bindingClasses = getFunctionBindingEnums(configMap);
@@ -361,14 +366,18 @@ public class FunctionRunState extends AzureRunProfileState<FunctionApp> {
             processHandler.setText(message("function.run.hint.succeed"));
             processHandler.notifyComplete();
         }
-        FunctionUtils.cleanUpStagingFolder(stagingFolder);
+        if (isTempStagingFolder) {
+            FunctionUtils.cleanUpStagingFolder(stagingFolder);
+        }
     }
 
     @Override
     protected void onFail(@NotNull Throwable error, @NotNull RunProcessHandler processHandler) {
         super.onFail(error, processHandler);
         stopProcessIfAlive(process);
-        FunctionUtils.cleanUpStagingFolder(stagingFolder);
+        if (isTempStagingFolder) {
+            FunctionUtils.cleanUpStagingFolder(stagingFolder);
+        }
     }
 
     private boolean isInstallingExtensionNeeded(Set<BindingEnum> bindingTypes, RunProcessHandler processHandler) {
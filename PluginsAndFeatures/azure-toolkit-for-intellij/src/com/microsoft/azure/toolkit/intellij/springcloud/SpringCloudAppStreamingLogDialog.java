@@ -21,14 +21,20 @@ public class SpringCloudAppStreamingLogDialog extends AzureDialogWrapper {
 
     private DeploymentInstance instance;
 
+    // The option to merge the logs of all instances
+    private static final DeploymentInstance ALL_INSTANCES = new DeploymentInstance();
+
     public SpringCloudAppStreamingLogDialog(@Nullable final Project project, List<DeploymentInstance> instances) {
         super(project, false);
         setTitle("Select instance");
+        if (instances.size() > 1) {
+            cbInstances.addItem(ALL_INSTANCES);
+        }
         instances.forEach(instance -> cbInstances.addItem(instance));
         cbInstances.setRenderer(new ListCellRendererWithRightAlignedComponent<DeploymentInstance>() {
             @Override
             protected void customize(final DeploymentInstance deploymentInstance) {
-                setLeftText(deploymentInstance.name());
+                setLeftText(deploymentInstance == ALL_INSTANCES ? "All instances" : deploymentInstance.name());
             }
         });
 
@@ -39,6 +45,10 @@ public class SpringCloudAppStreamingLogDialog extends AzureDialogWrapper {
         return instance;
     }
 
+    public boolean isAllInstances() {
+        return instance == ALL_INSTANCES;
+    }
+
     @Override
     protected void doOKAction() {
         instance = (DeploymentInstance) cbInstances.getSelectedItem();
@@ -8,31 +8,26 @@ package com.microsoft.azure.toolkit.intellij.springcloud;
 import com.intellij.execution.impl.ConsoleViewImpl;
 import com.intellij.execution.ui.ConsoleViewContentType;
 import com.intellij.openapi.project.Project;
-import com.microsoft.applicationinsights.internal.util.ThreadPoolUtils;
 import com.microsoft.azure.management.resources.fluentcore.arm.ResourceUtils;
 import com.microsoft.azure.toolkit.lib.common.operation.AzureOperationBundle;
 import com.microsoft.azure.toolkit.lib.common.operation.IAzureOperationTitle;
 import com.microsoft.azure.toolkit.lib.common.task.AzureTask;
 import com.microsoft.azure.toolkit.lib.common.task.AzureTaskManager;
+import com.microsoft.azuretools.core.mvp.model.springcloud.SpringCloudLogStreamMerger;
 import com.microsoft.intellij.helpers.ConsoleViewStatus;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.Scanner;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
 import java.util.function.Supplier;
 
 public class SpringCloudStreamingLogConsoleView extends ConsoleViewImpl {
 
     private ConsoleViewStatus status;
-    private ExecutorService executorService;
 
     private String resourceId;
-    private InputStream logInputStream;
+    private SpringCloudLogStreamMerger logStreamMerger;
 
     public SpringCloudStreamingLogConsoleView(@NotNull Project project, String resourceId) {
         super(project, true);
@@ -48,43 +43,40 @@ public class SpringCloudStreamingLogConsoleView extends ConsoleViewImpl {
         this.status = status;
     }
 
-    public void startLog(Supplier<InputStream> inputStreamSupplier) throws IOException {
+    /**
+     * Start streaming the logs, the logs of multiple instances are merged into one time ordered view
+     *
+     * @param inputStreamsSupplier the log streams by the instance name
+     */
+    public void startLog(Supplier<Map<String, InputStream>> inputStreamsSupplier) throws IOException {
         synchronized (this) {
             if (getStatus() != ConsoleViewStatus.STOPPED) {
                 return;
             }
             setStatus(ConsoleViewStatus.STARTING);
         }
-        logInputStream = inputStreamSupplier.get();
-        if (logInputStream == null) {
+        final Map<String, InputStream> logInputStreams = inputStreamsSupplier.get();
+        if (logInputStreams == null || logInputStreams.isEmpty()) {
             shutdown();
             throw new IOException("Failed to get log streaming content");
         }
+        logStreamMerger = new SpringCloudLogStreamMerger(logInputStreams);
         synchronized (this) {
             if (getStatus() != ConsoleViewStatus.STARTING) {
+                logStreamMerger.close();
                 return;
             }
             setStatus(ConsoleViewStatus.ACTIVE);
         }
         this.print("Streaming Log Start.\n", ConsoleViewContentType.SYSTEM_OUTPUT);
-        executorService = Executors.newSingleThreadExecutor();
-        executorService.submit(() -> {
-            try (final Scanner scanner = new Scanner(new InputStreamReader(logInputStream))) {
-                while (getStatus() == ConsoleViewStatus.ACTIVE && scanner.hasNext()) {
-                    final String log = scanner.nextLine();
-                    SpringCloudStreamingLogConsoleView.this.print(log + "\n", ConsoleViewContentType.NORMAL_OUTPUT);
-                    Thread.sleep(50);
-                }
-            } catch (InterruptedException e) {
-                // swallow interrupt exception while shutdown
-                if (!(e instanceof InterruptedException)) {
-                    this.print(String.format("Streaming Log is interrupted due to error : %s.\n", e.getMessage()),
-                               ConsoleViewContentType.SYSTEM_OUTPUT);
-                }
-            } finally {
-                print("Streaming Log stops.\n", ConsoleViewContentType.SYSTEM_OUTPUT);
-                setStatus(ConsoleViewStatus.STOPPED);
+        // The merged lines are appended in batched chunks, rather than line by line
+        logStreamMerger.start(chunk -> {
+            if (getStatus() == ConsoleViewStatus.ACTIVE) {
+                SpringCloudStreamingLogConsoleView.this.print(chunk, ConsoleViewContentType.NORMAL_OUTPUT);
             }
+        }, () -> {
+            print("Streaming Log stops.\n", ConsoleViewContentType.SYSTEM_OUTPUT);
+            setStatus(ConsoleViewStatus.STOPPED);
         });
     }
 
@@ -98,15 +90,9 @@ public class SpringCloudStreamingLogConsoleView extends ConsoleViewImpl {
         final IAzureOperationTitle title = AzureOperationBundle.title("springcloud|log_stream.close", ResourceUtils.nameFromResourceId(resourceId));
         AzureTaskManager.getInstance().runInBackground(new AzureTask(getProject(), title, false, () -> {
             try {
-                if (logInputStream != null) {
-                    try {
-                        logInputStream.close();
-                    } catch (IOException e) {
-                        // swallow io exception when close
-                    }
-                }
-                if (executorService != null) {
-                    ThreadPoolUtils.stop(executorService, 100, TimeUnit.MICROSECONDS);
+                if (logStreamMerger != null) {
+                    logStreamMerger.close();
+                    print("Streaming Log stops.\n", ConsoleViewContentType.SYSTEM_OUTPUT);
                 }
             } finally {
                 setStatus(ConsoleViewStatus.STOPPED);
@@ -6,6 +6,7 @@
 package com.microsoft.azure.toolkit.intellij.springcloud;
 
 import com.intellij.openapi.project.Project;
+import com.microsoft.azure.management.resources.fluentcore.arm.ResourceUtils;
 import com.microsoft.azure.toolkit.lib.common.operation.AzureOperationBundle;
 import com.microsoft.azure.toolkit.lib.common.operation.IAzureOperationTitle;
 import com.microsoft.azure.toolkit.lib.common.task.AzureTask;
@@ -17,8 +18,11 @@ import com.microsoft.intellij.util.PluginUtil;
 import org.apache.http.HttpException;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import static com.microsoft.intellij.helpers.ConsoleViewStatus.ACTIVE;
 import static com.microsoft.intellij.helpers.ConsoleViewStatus.STOPPED;
@@ -32,19 +36,37 @@ public class SpringCloudStreamingLogManager {
     }
 
     public void showStreamingLog(Project project, String appId, String instanceName) {
+        showStreamingLog(project, instanceName, () -> {
+            try {
+                return Collections.singletonMap(
+                        instanceName, AzureSpringCloudMvpModel.getLogStream(appId, instanceName, 0, 10, 0, true));
+            } catch (IOException | HttpException e) {
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Show the merged streaming log of all instances of the app's active deployment
+     */
+    public void showAppStreamingLog(Project project, String appId) {
+        showStreamingLog(project, ResourceUtils.nameFromResourceId(appId), () -> {
+            try {
+                return AzureSpringCloudMvpModel.getLogStreamReaderList(appId);
+            } catch (IOException | HttpException e) {
+                return null;
+            }
+        });
+    }
+
+    private void showStreamingLog(Project project, String name, Supplier<Map<String, InputStream>> logStreamsSupplier) {
         final SpringCloudStreamingLogConsoleView consoleView = consoleViewMap.computeIfAbsent(
-                instanceName, name -> new SpringCloudStreamingLogConsoleView(project, name));
-        final IAzureOperationTitle title = AzureOperationBundle.title("springcloud|log_stream.start", instanceName);
+                name, key -> new SpringCloudStreamingLogConsoleView(project, key));
+        final IAzureOperationTitle title = AzureOperationBundle.title("springcloud|log_stream.start", name);
         AzureTaskManager.getInstance().runInBackground(new AzureTask(project, title, false, () -> {
             try {
-                consoleView.startLog(() -> {
-                    try {
-                        return AzureSpringCloudMvpModel.getLogStream(appId, instanceName, 0, 10, 0, true);
-                    } catch (IOException | HttpException e) {
-                        return null;
-                    }
-                });
-                StreamingLogsToolWindowManager.getInstance().showStreamingLogConsole(project, instanceName, instanceName, consoleView);
+                consoleView.startLog(logStreamsSupplier);
+                StreamingLogsToolWindowManager.getInstance().showStreamingLogConsole(project, name, name, consoleView);
             } catch (Throwable e) {
                 AzureTaskManager.getInstance().runLater(() -> PluginUtil.displayErrorDialog("Failed to start streaming log", e.getMessage()));
                 consoleView.shutdown();
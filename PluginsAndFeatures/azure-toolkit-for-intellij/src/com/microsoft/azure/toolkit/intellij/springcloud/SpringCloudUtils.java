@@ -13,6 +13,7 @@ import com.microsoft.azure.management.appplatform.v2020_07_01.implementation.*;
 import com.microsoft.azure.storage.StorageException;
 import com.microsoft.azuretools.authmanage.AuthMethodManager;
 import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import com.microsoft.azuretools.core.mvp.model.springcloud.SpringCloudArtifactUploader;
 import com.microsoft.azuretools.core.mvp.model.springcloud.SpringCloudIdHelper;
 import com.microsoft.azure.toolkit.intellij.springcloud.runner.SpringCloudConstants;
 import com.microsoft.azure.toolkit.intellij.springcloud.runner.deploy.SpringCloudDeployConfiguration;
@@ -26,8 +27,6 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.*;
 
-import static com.microsoft.azuretools.core.mvp.model.springcloud.AzureSpringCloudMvpModel.uploadFileToStorage;
-
 public class SpringCloudUtils {
     private static final int SCALING_TIME_OUT = 60; // Use same timeout as service
     private static final String FAILED_TO_SCALE_DEPLOYMENT = "Failed to scale deployment %s of spring cloud app %s";
@@ -91,14 +90,19 @@ public class SpringCloudUtils {
         throws IOException, URISyntaxException, StorageException {
         // Upload artifact to correspond url
         final AppPlatformManager appPlatformManager = getAppPlatformManager(configuration.getSubscriptionId());
-        final ResourceUploadDefinitionInner resourceUploadDefinition =
-            appPlatformManager.apps().inner().getResourceUploadUrl(
-                configuration.getResourceGroup(), configuration.getClusterName(), configuration.getAppName());
-        uploadFileToStorage(new File(artifactPath), resourceUploadDefinition.uploadUrl());
+        final String appId = String.format("%s/apps/%s", configuration.getClusterId(), configuration.getAppName());
+        // Resume the interrupted upload, or skip the unchanged artifact uploaded before
+        final String relativePath = SpringCloudArtifactUploader.getInstance().upload(appId, new File(artifactPath), () -> {
+            final ResourceUploadDefinitionInner resourceUploadDefinition =
+                appPlatformManager.apps().inner().getResourceUploadUrl(
+                    configuration.getResourceGroup(), configuration.getClusterName(), configuration.getAppName());
+            return new SpringCloudArtifactUploader.UploadTarget(
+                resourceUploadDefinition.uploadUrl(), resourceUploadDefinition.relativePath());
+        });
         final UserSourceInfo userSourceInfo = new UserSourceInfo();
         // There are some issues with server side resourceUpload logic
         // Use uploadUrl instead of relativePath
-        userSourceInfo.withType(UserSourceType.JAR).withRelativePath(resourceUploadDefinition.relativePath());
+        userSourceInfo.withType(UserSourceType.JAR).withRelativePath(relativePath);
         return userSourceInfo;
     }
 
@@ -86,6 +86,10 @@ public class SpringCloudStreamingLogsAction extends NodeActionListener {
         DefaultLoader.getIdeHelper().invokeLater(() -> {
             final SpringCloudAppStreamingLogDialog dialog = new SpringCloudAppStreamingLogDialog(project, instances);
             if (dialog.showAndGet()) {
+                if (dialog.isAllInstances()) {
+                    SpringCloudStreamingLogManager.getInstance().showAppStreamingLog(project, appId);
+                    return;
+                }
                 final DeploymentInstance target = dialog.getInstance();
                 SpringCloudStreamingLogManager.getInstance().showStreamingLog(project, appId, target.name());
             }
@@ -137,6 +137,8 @@ public class SpringCloudDeploymentState extends AzureRunProfileState<AppResource
         // Waiting until instances start
         DeploymentResourceInner newDeploymentResourceInner = getDeploymentStatus(app.id(), processHandler);
         SpringCloudStateManager.INSTANCE.notifySpringAppUpdate(clusterId, app, newDeploymentResourceInner);
+        // The unchanged artifact is uploaded again unless it's deployed successfully
+        AzureSpringCloudMvpModel.confirmArtifactDeployed(app.id(), newDeploymentResourceInner);
 
         if (app.properties().publicProperty()) {
             getUrl(app.id(), processHandler);
@@ -8,6 +8,7 @@ package com.microsoft.azure.toolkit.intellij.vm.createarmvm;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
+import com.intellij.ui.DocumentAdapter;
 import com.intellij.ui.ListCellRendererWrapper;
 import com.intellij.ui.wizard.WizardNavigationState;
 import com.microsoft.azure.management.Azure;
@@ -19,6 +20,8 @@ import com.microsoft.azure.toolkit.lib.common.task.AzureTask;
 import com.microsoft.azure.toolkit.lib.common.task.AzureTaskManager;
 import com.microsoft.azuretools.authmanage.AuthMethodManager;
 import com.microsoft.azuretools.authmanage.models.SubscriptionDetail;
+import com.microsoft.azuretools.core.mvp.model.vm.VirtualMachineImageCatalog;
+import com.microsoft.azuretools.core.mvp.model.vm.VirtualMachineImageSource;
 import com.microsoft.azuretools.sdkmanage.AzureManager;
 import com.microsoft.azuretools.telemetry.TelemetryProperties;
 import com.microsoft.azuretools.utils.AzureModel;
@@ -34,8 +37,10 @@ import rx.Subscription;
 import rx.schedulers.Schedulers;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
+import javax.swing.text.JTextComponent;
 import java.awt.*;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
@@ -56,6 +61,8 @@ public class SelectImageStep extends AzureWizardStep<VMWizardModel> implements T
             "australiasoutheast", "australiacentral", "brazilsouth", "southindia", "centralindia", "westindia", "canadacentral",
             "canadaeast", "westus2", "westcentralus", "uksouth", "ukwest", "koreacentral", "koreasouth", "francecentral", "southafricanorth",
             "uaenorth", "switzerlandnorth", "germanywestcentral", "norwayeast", "eastus2euap", "centraluseuap");
+    private static final int MAX_SEARCH_RESULTS = 50;
+    private static final String URN_SEPARATOR = ":";
 
     private JPanel rootPanel;
     private JList createVmStepsList;
@@ -68,6 +75,8 @@ public class SelectImageStep extends AzureWizardStep<VMWizardModel> implements T
     private JRadioButton knownImageBtn;
     private JRadioButton customImageBtn;
     private JComboBox knownImageComboBox;
+    private JLabel searchLabel;
+    private JComboBox imageSearchComboBox;
     private JLabel publisherLabel;
     private JLabel offerLabel;
     private JLabel skuLabel;
@@ -81,6 +90,11 @@ public class SelectImageStep extends AzureWizardStep<VMWizardModel> implements T
     private Subscription fillOfferSubscription;
     private Subscription fillSkuSubscription;
     private Subscription fillImagesSubscription;
+    private Subscription selectImageSubscription;
+    private VirtualMachineImageSource imageSource;
+    // publisher, offer and sku of the searched image, selected level by level as the combo boxes are filled
+    private String[] pendingImagePath;
+    private boolean isUpdatingSearch = false;
 
     public SelectImageStep(final VMWizardModel model, Project project) {
         super("Select a Virtual Machine Image", null, null);
@@ -93,6 +107,7 @@ public class SelectImageStep extends AzureWizardStep<VMWizardModel> implements T
         try {
             AzureManager azureManager = AuthMethodManager.getInstance().getAzureManager();
             azure = azureManager.getAzure(model.getSubscription().getSubscriptionId());
+            imageSource = VirtualMachineImageSource.of(azure);
         } catch (Exception ex) {
             DefaultLoader.getUIHelper().logError("An error occurred when trying to authenticate\n\n" + ex.getMessage(), ex);
         }
@@ -110,14 +125,8 @@ public class SelectImageStep extends AzureWizardStep<VMWizardModel> implements T
                 selectRegion();
             }
         });
-        publisherComboBox.setRenderer(new ListCellRendererWrapper<Object>() {
-            @Override
-            public void customize(JList list, Object o, int i, boolean b, boolean b1) {
-                if (o instanceof VirtualMachinePublisher) {
-                    setText(((VirtualMachinePublisher) o).name());
-                }
-            }
-        });
+
+        initImageSearch();
 
         publisherComboBox.addItemListener(new ItemListener() {
             @Override
@@ -128,15 +137,6 @@ public class SelectImageStep extends AzureWizardStep<VMWizardModel> implements T
             }
         });
 
-        offerComboBox.setRenderer(new ListCellRendererWrapper<Object>() {
-            @Override
-            public void customize(JList list, Object o, int i, boolean b, boolean b1) {
-                if (o instanceof VirtualMachineOffer) {
-                    setText(((VirtualMachineOffer) o).name());
-                }
-            }
-        });
-
         offerComboBox.addItemListener(new ItemListener() {
             @Override
             public void itemStateChanged(ItemEvent e) {
@@ -146,15 +146,6 @@ public class SelectImageStep extends AzureWizardStep<VMWizardModel> implements T
             }
         });
 
-        skuComboBox.setRenderer(new ListCellRendererWrapper<Object>() {
-            @Override
-            public void customize(JList list, Object o, int i, boolean b, boolean b1) {
-                if (o instanceof VirtualMachineSku) {
-                    setText(((VirtualMachineSku) o).name());
-                }
-            }
-        });
-
         skuComboBox.addItemListener(new ItemListener() {
             @Override
             public void itemStateChanged(ItemEvent e) {
@@ -167,13 +158,7 @@ public class SelectImageStep extends AzureWizardStep<VMWizardModel> implements T
         imageLabelList.setCellRenderer(new DefaultListCellRenderer() {
             @Override
             public Component getListCellRendererComponent(JList list, Object o, int i, boolean b, boolean b1) {
-                String cellValue = o.toString();
-
-                if (o instanceof VirtualMachineImage) {
-                    VirtualMachineImage virtualMachineImage = (VirtualMachineImage) o;
-                    cellValue = virtualMachineImage.version();
-                }
-
+                final String cellValue = o.toString();
                 this.setToolTipText(cellValue);
                 return super.getListCellRendererComponent(list, cellValue, i, b, b1);
             }
@@ -182,12 +167,7 @@ public class SelectImageStep extends AzureWizardStep<VMWizardModel> implements T
         imageLabelList.addListSelectionListener(new ListSelectionListener() {
             @Override
             public void valueChanged(ListSelectionEvent listSelectionEvent) {
-                VirtualMachineImage virtualMachineImage = (VirtualMachineImage) imageLabelList.getSelectedValue();
-                model.setVirtualMachineImage(virtualMachineImage);
-
-                if (virtualMachineImage != null) {
-                    model.getCurrentNavigationState().NEXT.setEnabled(true);
-                }
+                selectImage();
             }
         });
         final ButtonGroup imageGroup = new ButtonGroup();
@@ -228,6 +208,79 @@ public class SelectImageStep extends AzureWizardStep<VMWizardModel> implements T
         knownImageBtn.setSelected(true);
     }
 
+    private void initImageSearch() {
+        final JTextComponent searchEditor = (JTextComponent) imageSearchComboBox.getEditor().getEditorComponent();
+        // the arrow keys only move in the popup, the image is selected on enter or click
+        imageSearchComboBox.putClientProperty("JComboBox.isTableCellEditor", Boolean.TRUE);
+        searchEditor.getDocument().addDocumentListener(new DocumentAdapter() {
+            @Override
+            protected void textChanged(DocumentEvent e) {
+                if (!isUpdatingSearch) {
+                    // the combo box model can't be changed while its editor is notifying
+                    SwingUtilities.invokeLater(() -> searchImages(searchEditor));
+                }
+            }
+        });
+        imageSearchComboBox.addItemListener(e -> {
+            if (e.getStateChange() == ItemEvent.SELECTED && !isUpdatingSearch
+                    && ((DefaultComboBoxModel) imageSearchComboBox.getModel()).getIndexOf(e.getItem()) >= 0) {
+                selectImageUrn((String) e.getItem());
+            }
+        });
+    }
+
+    private void searchImages(JTextComponent searchEditor) {
+        final String region = getSelectedRegionName();
+        if (region == null || isUpdatingSearch) {
+            return;
+        }
+        final String text = searchEditor.getText();
+        // only the levels already listed are searched, so it never waits for Azure
+        final List<String> results = getCatalog().search(region, text, MAX_SEARCH_RESULTS);
+        isUpdatingSearch = true;
+        try {
+            final DefaultComboBoxModel searchModel = new DefaultComboBoxModel(results.toArray());
+            // keep the typed text rather than the first result
+            searchModel.setSelectedItem(text);
+            imageSearchComboBox.setModel(searchModel);
+            searchEditor.setText(text);
+            searchEditor.setCaretPosition(text.length());
+            // a picked result is put into the editor too, nothing more to offer then
+            imageSearchComboBox.setPopupVisible(!results.isEmpty() && !results.contains(text)
+                    && searchEditor.isFocusOwner());
+        } finally {
+            isUpdatingSearch = false;
+        }
+    }
+
+    private void selectImageUrn(String urn) {
+        pendingImagePath = urn.split(URN_SEPARATOR);
+        final String publisher = pendingImagePath[0];
+        if (publisher.equals(publisherComboBox.getSelectedItem())) {
+            fillOffers();
+        } else {
+            // the offers are filled by the selection listener
+            publisherComboBox.setSelectedItem(publisher);
+        }
+    }
+
+    /**
+     * @return the model of a level, with the searched item selected if it's listed, otherwise the first one
+     */
+    private DefaultComboBoxModel levelModel(List<String> items, int level) {
+        final DefaultComboBoxModel comboModel = new DefaultComboBoxModel(items.toArray());
+        if (pendingImagePath != null) {
+            final boolean isListed = level < pendingImagePath.length && items.contains(pendingImagePath[level]);
+            if (isListed) {
+                comboModel.setSelectedItem(pendingImagePath[level]);
+            }
+            if (!isListed || level >= pendingImagePath.length - 1) {
+                pendingImagePath = null;
+            }
+        }
+        return comboModel;
+    }
+
     @Override
     public JComponent prepare(WizardNavigationState wizardNavigationState) {
         rootPanel.revalidate();
@@ -269,6 +322,8 @@ public class SelectImageStep extends AzureWizardStep<VMWizardModel> implements T
         knownImageComboBox.setEnabled(!customImage);
         model.getCurrentNavigationState().NEXT.setEnabled(!customImage || !imageLabelList.isSelectionEmpty());
         imageLabelList.setEnabled(customImage);
+        searchLabel.setEnabled(customImage);
+        imageSearchComboBox.setEnabled(customImage);
         publisherComboBox.setEnabled(customImage);
         offerComboBox.setEnabled(customImage);
         skuComboBox.setEnabled(customImage);
@@ -312,10 +367,10 @@ public class SelectImageStep extends AzureWizardStep<VMWizardModel> implements T
                 clearSelection(publisherComboBox, offerComboBox, skuComboBox, imageLabelList);
                 RxJavaUtils.unsubscribeSubscription(fillPublisherSubscription);
                 fillPublisherSubscription =
-                    Observable.fromCallable(() -> azure.virtualMachineImages().publishers().listByRegion(location.name()))
+                    Observable.fromCallable(() -> getCatalog().getPublishers(imageSource, location.name()))
                               .subscribeOn(Schedulers.io())
                               .subscribe(publisherList -> DefaultLoader.getIdeHelper().invokeLater(() -> {
-                                             publisherComboBox.setModel(new DefaultComboBoxModel(publisherList.toArray()));
+                                             publisherComboBox.setModel(levelModel(publisherList, 0));
                                              fillOffers();
                                          }),
                                          error -> {
@@ -330,18 +385,22 @@ public class SelectImageStep extends AzureWizardStep<VMWizardModel> implements T
     private void fillOffers() {
         disableNext();
 
-        final VirtualMachinePublisher publisher = (VirtualMachinePublisher) publisherComboBox.getSelectedItem();
-        final IAzureOperationTitle title = AzureOperationBundle.title("vm|offer.list", publisher.name());
+        final String region = getSelectedRegionName();
+        final String publisher = (String) publisherComboBox.getSelectedItem();
+        if (region == null || publisher == null) {
+            return;
+        }
+        final IAzureOperationTitle title = AzureOperationBundle.title("vm|offer.list", publisher);
         AzureTaskManager.getInstance().runInBackground(new AzureTask(project, title, false, () -> {
             final ProgressIndicator progressIndicator = ProgressManager.getInstance().getProgressIndicator();
             progressIndicator.setIndeterminate(true);
             RxJavaUtils.unsubscribeSubscription(fillOfferSubscription);
             clearSelection(offerComboBox, skuComboBox, imageLabelList);
             fillOfferSubscription =
-                Observable.fromCallable(() -> publisher.offers().list())
+                Observable.fromCallable(() -> getCatalog().getOffers(imageSource, region, publisher))
                           .subscribeOn(Schedulers.io())
                           .subscribe(offerList -> DefaultLoader.getIdeHelper().invokeLater(() -> {
-                                         offerComboBox.setModel(new DefaultComboBoxModel(offerList.toArray()));
+                                         offerComboBox.setModel(levelModel(offerList, 1));
                                          fillSkus();
                                      }),
                                      error -> {
@@ -356,18 +415,20 @@ public class SelectImageStep extends AzureWizardStep<VMWizardModel> implements T
         disableNext();
 
         if (offerComboBox.getItemCount() > 0) {
-            final VirtualMachineOffer offer = (VirtualMachineOffer) offerComboBox.getSelectedItem();
-            final IAzureOperationTitle title = AzureOperationBundle.title("vm|sku.list", offer.name());
+            final String region = getSelectedRegionName();
+            final String publisher = (String) publisherComboBox.getSelectedItem();
+            final String offer = (String) offerComboBox.getSelectedItem();
+            final IAzureOperationTitle title = AzureOperationBundle.title("vm|sku.list", offer);
             AzureTaskManager.getInstance().runInBackground(new AzureTask(project, title, false, () -> {
                 final ProgressIndicator progressIndicator = ProgressManager.getInstance().getProgressIndicator();
                 progressIndicator.setIndeterminate(true);
                 RxJavaUtils.unsubscribeSubscription(fillSkuSubscription);
                 clearSelection(skuComboBox, imageLabelList);
                 fillSkuSubscription =
-                    Observable.fromCallable(() -> offer.skus().list())
+                    Observable.fromCallable(() -> getCatalog().getSkus(imageSource, region, publisher, offer))
                               .subscribeOn(Schedulers.io())
                               .subscribe(skuList -> DefaultLoader.getIdeHelper().invokeLater(() -> {
-                                             skuComboBox.setModel(new DefaultComboBoxModel(skuList.toArray()));
+                                             skuComboBox.setModel(levelModel(skuList, 2));
                                              fillImages();
                                          }),
                                          error -> {
@@ -389,12 +450,15 @@ public class SelectImageStep extends AzureWizardStep<VMWizardModel> implements T
         AzureTaskManager.getInstance().runInBackground(new AzureTask(project, title, false, () -> {
             final ProgressIndicator progressIndicator = ProgressManager.getInstance().getProgressIndicator();
             progressIndicator.setIndeterminate(true);
-            VirtualMachineSku sku = (VirtualMachineSku) skuComboBox.getSelectedItem();
-            if (sku != null) {
+            final String region = getSelectedRegionName();
+            final String publisher = (String) publisherComboBox.getSelectedItem();
+            final String offer = (String) offerComboBox.getSelectedItem();
+            final String sku = (String) skuComboBox.getSelectedItem();
+            if (region != null && publisher != null && offer != null && sku != null) {
                 RxJavaUtils.unsubscribeSubscription(fillImagesSubscription);
                 clearSelection(imageLabelList);
                 fillImagesSubscription =
-                    Observable.fromCallable(() -> sku.images().list())
+                    Observable.fromCallable(() -> getCatalog().getVersions(imageSource, region, publisher, offer, sku))
                               .subscribeOn(Schedulers.io())
                               .subscribe(imageList -> DefaultLoader.getIdeHelper().invokeLater(() -> imageLabelList.setListData(imageList.toArray())),
                                          error -> {
@@ -406,6 +470,43 @@ public class SelectImageStep extends AzureWizardStep<VMWizardModel> implements T
         }));
     }
 
+    private void selectImage() {
+        model.setVirtualMachineImage(null);
+        final String version = (String) imageLabelList.getSelectedValue();
+        final String region = getSelectedRegionName();
+        final String publisher = (String) publisherComboBox.getSelectedItem();
+        final String offer = (String) offerComboBox.getSelectedItem();
+        final String sku = (String) skuComboBox.getSelectedItem();
+        RxJavaUtils.unsubscribeSubscription(selectImageSubscription);
+        if (version == null || region == null || publisher == null || offer == null || sku == null) {
+            return;
+        }
+        // the catalog only keeps names, the wizard needs the image details of the selected version
+        selectImageSubscription =
+            Observable.fromCallable(() -> azure.virtualMachineImages().getImage(region, publisher, offer, sku, version))
+                      .subscribeOn(Schedulers.io())
+                      .subscribe(image -> DefaultLoader.getIdeHelper().invokeLater(() -> {
+                                     if (version.equals(imageLabelList.getSelectedValue())) {
+                                         model.setVirtualMachineImage(image);
+                                         model.getCurrentNavigationState().NEXT.setEnabled(image != null);
+                                     }
+                                 }),
+                                 error -> {
+                                     String msg = String.format(ERROR_MESSAGE_LIST_IMAGES,
+                                                                String.format(message("webappExpMsg"), error.getMessage()));
+                                     handleError(msg, error);
+                                 });
+    }
+
+    private String getSelectedRegionName() {
+        final Object selectedItem = regionComboBox.getSelectedItem();
+        return selectedItem instanceof Location ? ((Location) selectedItem).name() : null;
+    }
+
+    private static VirtualMachineImageCatalog getCatalog() {
+        return VirtualMachineImageCatalog.getInstance();
+    }
+
     private void clearSelection(JComponent... components) {
         for (JComponent component : components) {
             if (component instanceof JComboBox) {
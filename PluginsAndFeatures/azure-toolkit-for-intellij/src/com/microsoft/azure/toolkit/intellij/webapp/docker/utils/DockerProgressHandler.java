@@ -5,23 +5,18 @@
 
 package com.microsoft.azure.toolkit.intellij.webapp.docker.utils;
 
+import com.microsoft.azuretools.core.mvp.model.container.DockerProgressAggregator;
 import com.microsoft.intellij.RunProcessHandler;
 import com.spotify.docker.client.ProgressHandler;
 import com.spotify.docker.client.exceptions.DockerException;
+import com.spotify.docker.client.messages.ProgressDetail;
 import com.spotify.docker.client.messages.ProgressMessage;
 
-import java.util.Map;
-import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-
 public class DockerProgressHandler implements ProgressHandler {
-    private final Map<String, String> layerMap = new ConcurrentHashMap<>();
-    private final RunProcessHandler processHandler;
+    private final DockerProgressAggregator aggregator;
 
     public DockerProgressHandler(RunProcessHandler processHandler) {
-        this.processHandler = processHandler;
+        this.aggregator = new DockerProgressAggregator(processHandler::setText);
     }
 
     @Override
@@ -30,22 +25,18 @@ public class DockerProgressHandler implements ProgressHandler {
             return;
         }
         if (message.error() != null) {
+            aggregator.flush();
             throw new DockerException(message.error());
         }
-        String id = message.id();
-        if (id != null) {
-            if (layerMap.containsKey(id) && layerMap.get(id).equals(message.toString())) {
-                return; // ignore duplicate message
-            }
-            layerMap.put(id, message.toString());
-        } else {
-            layerMap.clear();
-        }
-        String out = Stream.of(id, message.status(), message.stream(), message.progress())
-                .filter(Objects::nonNull)
-                .map(Object::toString)
-                .collect(Collectors.joining("\t"))
-                .trim();
-        processHandler.setText(out);
+        final ProgressDetail detail = message.progressDetail();
+        aggregator.update(message.id(), message.status(), message.stream(),
+                          detail == null ? null : detail.current(), detail == null ? null : detail.total());
+    }
+
+    /**
+     * Render the progress not rendered yet, call it when the build or push completes.
+     */
+    public void flush() {
+        aggregator.flush();
     }
 }
@@ -95,7 +95,12 @@ public class DockerUtil {
     public static String buildImage(DockerClient docker, String imageNameWithTag, Path dockerDirectory,
                                     String dockerFile, ProgressHandler progressHandler)
             throws DockerException, InterruptedException, IOException {
-        String imageId = docker.build(dockerDirectory, imageNameWithTag, dockerFile, progressHandler);
+        final String imageId;
+        try {
+            imageId = docker.build(dockerDirectory, imageNameWithTag, dockerFile, progressHandler);
+        } finally {
+            flushProgress(progressHandler);
+        }
         return imageId == null ? null : imageNameWithTag;
     }
 
@@ -114,7 +119,11 @@ public class DockerUtil {
         final RegistryAuth registryAuth = RegistryAuth.builder().username(registryUsername).password(registryPassword)
                 .build();
         if (targetImageName.startsWith(registryUrl)) {
-            dockerClient.push(targetImageName, handler, registryAuth);
+            try {
+                dockerClient.push(targetImageName, handler, registryAuth);
+            } finally {
+                flushProgress(handler);
+            }
         } else {
             throw new DockerException("serverUrl and imageName mismatch.");
         }
@@ -192,4 +201,10 @@ public class DockerUtil {
             throw new AzureExecutionException(String.format("Failed to connect docker host: %s", docker.getHost()));
         }
     }
+
+    private static void flushProgress(ProgressHandler handler) {
+        if (handler instanceof DockerProgressHandler) {
+            ((DockerProgressHandler) handler).flush();
+        }
+    }
 }
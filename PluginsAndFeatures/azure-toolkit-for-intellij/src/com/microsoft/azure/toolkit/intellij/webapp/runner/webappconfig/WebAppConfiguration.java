@@ -170,6 +170,14 @@ public class WebAppConfiguration extends AzureRunConfigurationBase<IntelliJWebAp
         webAppSettingModel.setDeployToRoot(toRoot);
     }
 
+    public boolean isIncrementalDeploy() {
+        return webAppSettingModel.isIncrementalDeploy();
+    }
+
+    public void setIncrementalDeploy(boolean incrementalDeploy) {
+        webAppSettingModel.setIncrementalDeploy(incrementalDeploy);
+    }
+
     public boolean isDeployToSlot() {
         return webAppSettingModel.isDeployToSlot();
     }
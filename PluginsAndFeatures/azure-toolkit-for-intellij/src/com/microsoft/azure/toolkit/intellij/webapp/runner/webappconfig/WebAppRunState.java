@@ -12,6 +12,7 @@ import com.microsoft.azure.common.exceptions.AzureExecutionException;
 import com.microsoft.azure.management.appservice.DeploymentSlot;
 import com.microsoft.azure.management.appservice.WebApp;
 import com.microsoft.azure.management.appservice.WebAppBase;
+import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeException;
 import com.microsoft.azure.toolkit.lib.common.operation.AzureOperation;
 import com.microsoft.azuretools.core.mvp.model.webapp.AzureWebAppMvpModel;
 import com.microsoft.azuretools.telemetry.TelemetryConstants;
@@ -66,8 +67,11 @@ public class WebAppRunState extends AzureRunProfileState<WebAppBase> {
         }
         webAppConfiguration.setTargetName(file.getName());
         WebAppBase deployTarget = getDeployTargetByConfiguration(processHandler);
-        WebAppUtils.deployArtifactsToAppService(deployTarget, file,
-                webAppConfiguration.isDeployToRoot(), processHandler);
+        final boolean deployed = WebAppUtils.deployArtifactsToAppService(deployTarget, file,
+                webAppConfiguration.isDeployToRoot(), webAppSettingModel.getDeployOptions(), processHandler);
+        if (!deployed) {
+            throw new AzureToolkitRuntimeException("deploy the artifact, the deployment is canceled");
+        }
         return deployTarget;
     }
 
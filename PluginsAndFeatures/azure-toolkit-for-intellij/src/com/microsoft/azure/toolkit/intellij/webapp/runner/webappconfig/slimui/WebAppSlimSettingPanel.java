@@ -66,6 +66,7 @@ public class WebAppSlimSettingPanel extends AzureSettingPanel<WebAppConfiguratio
     private JLabel lblSlotName;
     private JLabel lblSlotConfiguration;
     private JCheckBox chkOpenBrowser;
+    private JCheckBox chkIncremental;
     private HyperlinkLabel lblNewSlot;
     private JPanel pnlExistingSlot;
     private JButton btnSlotHover;
@@ -221,6 +222,7 @@ public class WebAppSlimSettingPanel extends AzureSettingPanel<WebAppConfiguratio
         txtNewSlotName.setText(defaultSlotName);
         chkToRoot.setSelected(configuration.isDeployToRoot());
         chkOpenBrowser.setSelected(configuration.isOpenBrowserAfterDeployment());
+        chkIncremental.setSelected(configuration.isIncrementalDeploy());
         slotDecorator.setOn(configuration.isSlotPanelVisible());
     }
 
@@ -253,6 +255,7 @@ public class WebAppSlimSettingPanel extends AzureSettingPanel<WebAppConfiguratio
         }
         configuration.setDeployToRoot(chkToRoot.isVisible() && chkToRoot.isSelected());
         configuration.setOpenBrowserAfterDeployment(chkOpenBrowser.isSelected());
+        configuration.setIncrementalDeploy(chkIncremental.isSelected());
         syncBeforeRunTasks(comboBoxArtifact.getValue(), configuration);
     }
 
@@ -10,6 +10,8 @@ import com.google.common.base.Joiner;
 import com.google.gson.Gson;
 import com.microsoft.azure.management.appservice.WebAppBase;
 import com.microsoft.azure.toolkit.lib.appservice.ProcessInfo;
+import com.microsoft.azuretools.core.mvp.model.webapp.kudu.KuduClient;
+import com.microsoft.azuretools.utils.IProgressIndicator;
 import com.microsoft.azuretools.utils.JsonUtils;
 import com.microsoft.rest.RestClient;
 import lombok.AllArgsConstructor;
@@ -21,19 +23,21 @@ import okhttp3.ResponseBody;
 import okio.BufferedSource;
 import org.apache.commons.lang3.reflect.FieldUtils;
 import retrofit2.http.*;
-import rx.Emitter;
 import rx.Emitter.BackpressureMode;
 import rx.Observable;
-import rx.functions.Action1;
 import rx.functions.Func1;
 
+import java.io.File;
 import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.TimeUnit;
 
 import static com.microsoft.intellij.ui.messages.AzureBundle.message;
 
 public class FlightRecorderKuduClient {
     private KuduService service;
+    private KuduClient vfsClient;
 
     public FlightRecorderKuduClient(WebAppBase webAppBase) {
         if (webAppBase.defaultHostName() == null) {
@@ -57,6 +61,7 @@ public class FlightRecorderKuduClient {
         } catch (IllegalAccessException e) {
             throw new UnsupportedOperationException(message("appService.jfr.error.noKuduService"), e);
         }
+        vfsClient = new KuduClient(webAppBase);
 
     }
 
@@ -84,14 +89,6 @@ public class FlightRecorderKuduClient {
         @GET("AppServiceTunnel/Tunnel.ashx?GetStatus&GetStatusAPIVer=2")
         @Streaming
         Observable<ResponseBody> getAppServiceTunnelStatus();
-
-        @Headers({
-                         "Content-Type: application/json; charset=utf-8",
-                         "x-ms-logging-context: com.microsoft.azure.management.appservice.WebApps getFile"
-                 })
-        @GET("api/vfs/{path}")
-        @Streaming
-        Observable<ResponseBody> getFileContent(@Path("path") String path);
     }
 
     Observable<ProcessInfo[]> listProcess() {
@@ -145,20 +142,13 @@ public class FlightRecorderKuduClient {
         }, BackpressureMode.BUFFER);
     }
 
-    public byte[] getFileContent(final String path) {
-        return service.getFileContent(path).flatMap((Func1<ResponseBody, Observable<byte[]>>) responseBody -> {
-            final BufferedSource source = responseBody.source();
-            return Observable.create((Action1<Emitter<byte[]>>) emitter -> {
-                try {
-                    while (!source.exhausted()) {
-                        emitter.onNext(source.readByteArray());
-                    }
-                    emitter.onCompleted();
-                } catch (final IOException e) {
-                    emitter.onError(e);
-                }
-            }, BackpressureMode.BUFFER);
-        }).toBlocking().first();
+    /**
+     * Download the file straight to disk in resumable range requests, rather than collecting it in memory
+     */
+    public void downloadFile(final String path, final File dest, final IProgressIndicator indicator) throws IOException {
+        // Encoded as a whole, the same as the windows absolute path was requested before
+        final String encodedPath = URLEncoder.encode(path, StandardCharsets.UTF_8.name()).replace("+", "%20");
+        vfsClient.downloadFile(encodedPath, dest, indicator);
     }
 
     @Setter
@@ -7,8 +7,10 @@ package com.microsoft.azure.toolkit.lib.appservice.jfr;
 
 import com.microsoft.azure.management.appservice.WebAppBase;
 import com.microsoft.azure.toolkit.lib.appservice.ProcessInfo;
+import com.microsoft.azuretools.utils.IProgressIndicator;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.List;
 
@@ -32,7 +34,7 @@ public abstract class FlightRecorderStarterBase {
 
     public abstract CommandOutput startFlightRecorder(int pid, int timeInSeconds, String fileName) throws IOException;
 
-    public byte[] downloadJFRFile(String fileName) {
-        return client.getFileContent(getFinalJfrPath(fileName));
+    public void downloadJFRFile(String fileName, File dest, IProgressIndicator indicator) throws IOException {
+        client.downloadFile(getFinalJfrPath(fileName), dest, indicator);
     }
 }
@@ -8,9 +8,11 @@ package com.microsoft.azure.toolkit.lib.appservice.jfr;
 import com.microsoft.azure.management.appservice.WebAppBase;
 import com.microsoft.azure.toolkit.lib.appservice.ProcessInfo;
 import com.microsoft.azure.toolkit.lib.appservice.TunnelProxy;
+import com.microsoft.azuretools.utils.IProgressIndicator;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -80,8 +82,9 @@ public class LinuxFlightRecorderStarter extends FlightRecorderStarterBase {
         return Paths.get(HOME_PATH, filename).toString().replaceAll("\\\\", "/");
     }
 
-    public byte[] downloadJFRFile(String fileName) {
+    @Override
+    public void downloadJFRFile(String fileName, File dest, IProgressIndicator indicator) throws IOException {
         // linux kudu vfs api doesn't support absolute path
-        return client.getFileContent(fileName);
+        client.downloadFile(fileName, dest, indicator);
     }
 }
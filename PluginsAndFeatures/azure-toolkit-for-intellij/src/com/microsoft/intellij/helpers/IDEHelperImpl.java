@@ -32,6 +32,7 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.project.ProjectManager;
 import com.intellij.openapi.ui.Messages;
 import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.vfs.VfsUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.packaging.artifacts.Artifact;
@@ -53,19 +54,21 @@ import com.microsoft.azure.toolkit.lib.common.task.AzureTaskManager;
 import com.microsoft.azuretools.azurecommons.helpers.AzureCmdException;
 import com.microsoft.azuretools.azurecommons.helpers.NotNull;
 import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import com.microsoft.azuretools.core.mvp.model.webapp.kudu.KuduClient;
 import com.microsoft.intellij.ApplicationSettings;
 import com.microsoft.intellij.AzureSettings;
+import com.microsoft.intellij.UpdateProgressIndicator;
 import com.microsoft.intellij.util.PluginUtil;
 import com.microsoft.tooling.msservices.components.DefaultLoader;
 import com.microsoft.tooling.msservices.helpers.IDEHelper;
 import lombok.SneakyThrows;
 import lombok.extern.java.Log;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 
 import javax.swing.*;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
@@ -356,6 +359,7 @@ public class IDEHelperImpl implements IDEHelper {
     private static final String ERROR_DOWNLOADING = "Failed to download file[%s] to [%s].";
     private static final String SUCCESS_DOWNLOADING = "File[%s] is successfully downloaded to [%s].";
     private static final String NOTIFICATION_GROUP_ID = "Azure Plugin";
+    private static final long MAX_EDITOR_FILE_SIZE = 20 * 1024 * 1024;
 
     @AzureOperation(
         name = "appservice|file.open",
@@ -367,7 +371,6 @@ public class IDEHelperImpl implements IDEHelper {
         final AppServiceFileService fileService = AppServiceFileService.forApp(target.getApp());
         final FileEditorManager fileEditorManager = FileEditorManager.getInstance((Project) context);
         final VirtualFile virtualFile = getOrCreateVirtualFile(target, fileEditorManager);
-        final OutputStream output = virtualFile.getOutputStream(null);
         final String failure = String.format("Can not open file (%s). Try downloading it first and open it manually.", virtualFile.getName());
         final IAzureOperationTitle title = AzureOperationBundle.title("appservice|file.open", virtualFile.getName());
         final AzureTask<Void> task = new AzureTask<>(null, title, false, () -> {
@@ -380,24 +383,33 @@ public class IDEHelperImpl implements IDEHelper {
                 UIUtil.invokeLaterIfNeeded(() -> Messages.showWarningDialog(failureFileDeleted, "Open File"));
                 return;
             }
+            // Checked again with the latest size, the listed one may be outdated
+            if (file.getSize() > MAX_EDITOR_FILE_SIZE) {
+                final String failureFileTooLarge = String.format("File (%s) is too large to open in editor, please download it first", target.getName());
+                UIUtil.invokeLaterIfNeeded(() -> Messages.showWarningDialog(failureFileTooLarge, "Open File"));
+                return;
+            }
             indicator.setText2("Loading file content");
-            fileService
-                .getFileContent(file.getPath())
-                .doOnCompleted(() -> AzureTaskManager.getInstance().runLater(() -> {
-                    if (!openFileInEditor(file, virtualFile, fileEditorManager)) {
-                        Messages.showWarningDialog(failure, "Open File");
-                    }
-                }, AzureTask.Modality.NONE))
-                .doOnTerminate(() -> IOUtils.closeQuietly(output, null))
-                .subscribe(bytes -> {
-                    try {
-                        IOUtils.write(bytes, output);
-                    } catch (final IOException e) {
-                        final String error = "failed to load data into editor";
-                        final String action = "try later or downloading it first";
-                        throw new AzureToolkitRuntimeException(error, e, action);
-                    }
-                }, AzureExceptionHandler::onRxException);
+            indicator.setIndeterminate(false);
+            try {
+                // Streamed to disk first, only the complete content is loaded into the editor
+                final File content = FileUtil.createTempFile("appservice-file-", "-" + file.getName(), true);
+                try (final OutputStream out = virtualFile.getOutputStream(null)) {
+                    new KuduClient(file.getApp()).downloadFile(file.getPath(), content, new UpdateProgressIndicator(indicator));
+                    Files.copy(content.toPath(), out);
+                } finally {
+                    FileUtil.delete(content);
+                }
+            } catch (final IOException e) {
+                final String error = "failed to load data into editor";
+                final String action = "try later or downloading it first";
+                throw new AzureToolkitRuntimeException(error, e, action);
+            }
+            AzureTaskManager.getInstance().runLater(() -> {
+                if (!openFileInEditor(file, virtualFile, fileEditorManager)) {
+                    Messages.showWarningDialog(failure, "Open File");
+                }
+            }, AzureTask.Modality.NONE);
         });
         AzureTaskManager.getInstance().runInModal(task);
     }
@@ -480,25 +492,20 @@ public class IDEHelperImpl implements IDEHelper {
         if (Objects.isNull(destFile)) {
             return;
         }
-        final OutputStream output = new FileOutputStream(destFile);
         final Project project = (Project) context;
         final IAzureOperationTitle title = AzureOperationBundle.title("appservice|file.download", file.getName());
         final AzureTask<Void> task = new AzureTask<>(project, title, false, () -> {
-            ProgressManager.getInstance().getProgressIndicator().setIndeterminate(true);
-            AppServiceFileService
-                .forApp(file.getApp())
-                .getFileContent(file.getPath())
-                .doOnCompleted(() -> notifyDownloadSuccess(file, destFile, ((Project) context)))
-                .doOnTerminate(() -> IOUtils.closeQuietly(output, null))
-                .subscribe(bytes -> {
-                    try {
-                        IOUtils.write(bytes, output);
-                    } catch (final IOException e) {
-                        final String error = "failed to write data into local file";
-                        final String action = "try later";
-                        throw new AzureToolkitRuntimeException(error, e, action);
-                    }
-                }, AzureExceptionHandler::onRxException);
+            final ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+            indicator.setIndeterminate(false);
+            try {
+                // Streamed to the file in chunks, an interrupted download is resumed by the next one
+                new KuduClient(file.getApp()).downloadFile(file.getPath(), destFile, new UpdateProgressIndicator(indicator));
+            } catch (final IOException e) {
+                final String error = "failed to write data into local file";
+                final String action = "try later";
+                throw new AzureToolkitRuntimeException(error, e, action);
+            }
+            notifyDownloadSuccess(file, destFile, project);
         });
         AzureTaskManager.getInstance().runInModal(task);
     }
@@ -18,6 +18,7 @@ import com.microsoft.azure.toolkit.intellij.webapp.action.DeployWebAppAction;
 import com.microsoft.azure.toolkit.intellij.appservice.action.ProfileFlightRecordAction;
 import com.microsoft.azure.toolkit.intellij.appservice.action.SSHIntoWebAppAction;
 import com.microsoft.azure.toolkit.intellij.appservice.action.StartStreamingLogsAction;
+import com.microsoft.azure.toolkit.intellij.appservice.action.StartStreamingLogsWithSlotsAction;
 import com.microsoft.azure.toolkit.intellij.appservice.action.StopStreamingLogsAction;
 import com.microsoft.azure.toolkit.intellij.arm.action.CreateDeploymentAction;
 import com.microsoft.azure.toolkit.intellij.arm.action.EditDeploymentAction;
@@ -120,7 +121,8 @@ public class NodeActionsMap {
                 .add(MySQLConnectToServerAction.class).build());
 
         node2Actions.put(WebAppNode.class, new ImmutableList.Builder<Class<? extends NodeActionListener>>()
-                .add(StartStreamingLogsAction.class).add(StopStreamingLogsAction.class).add(SSHIntoWebAppAction.class)
+                .add(StartStreamingLogsAction.class).add(StartStreamingLogsWithSlotsAction.class)
+                .add(StopStreamingLogsAction.class).add(SSHIntoWebAppAction.class)
                 .add(DeployWebAppAction.class)
                 .add(ProfileFlightRecordAction.class).build());
 
@@ -46,6 +46,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 
 import javax.swing.*;
+import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeModel;
 import javax.swing.tree.MutableTreeNode;
 import javax.swing.tree.TreeNode;
@@ -59,7 +60,9 @@ import java.awt.event.MouseEvent;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -71,6 +74,7 @@ public class ServerExplorerToolWindowFactory implements ToolWindowFactory, Prope
     public static final String EXPLORER_WINDOW = "Azure Explorer";
 
     private final Map<Project, DefaultTreeModel> treeModelMap = new HashMap<>();
+    private final Map<Project, JTree> treeMap = new HashMap<>();
 
     @Override
     @AzureOperation(name = "common|explorer.initialize", type = AzureOperation.Type.SERVICE)
@@ -89,6 +93,7 @@ public class ServerExplorerToolWindowFactory implements ToolWindowFactory, Prope
 
         // initialize tree
         final JTree tree = new Tree(treeModel);
+        treeMap.put(project, tree);
         tree.setRootVisible(false);
         tree.setCellRenderer(new NodeTreeCellRenderer());
         tree.getSelectionModel().setSelectionMode(TreeSelectionModel.SINGLE_TREE_SELECTION);
@@ -252,6 +257,12 @@ public class ServerExplorerToolWindowFactory implements ToolWindowFactory, Prope
 
     private SortableTreeNode createTreeNode(Node node, Project project) {
         SortableTreeNode treeNode = new SortableTreeNode(node, true);
+        bindTreeNode(treeNode, node, project);
+        return treeNode;
+    }
+
+    private void bindTreeNode(SortableTreeNode treeNode, Node node, Project project) {
+        treeNode.setUserObject(node);
 
         // associate the DefaultMutableTreeNode with the Node via it's "viewData"
         // property; this allows us to quickly retrieve the DefaultMutableTreeNode
@@ -270,8 +281,6 @@ public class ServerExplorerToolWindowFactory implements ToolWindowFactory, Prope
             .sorted(Comparator.comparing(Node::getPriority).thenComparing(Node::getName))
             .map(childNode -> createTreeNode(childNode, project))
             .forEach(treeNode::add);
-
-        return treeNode;
     }
 
     private void removeEventHandlers(Node node) {
@@ -346,6 +355,9 @@ public class ServerExplorerToolWindowFactory implements ToolWindowFactory, Prope
                         treeNode.remove((MutableTreeNode) childNode.getViewData());
                     }
                     break;
+                case batch:
+                    applyBatch(e);
+                    return;
                 default:
                     break;
             }
@@ -353,6 +365,39 @@ public class ServerExplorerToolWindowFactory implements ToolWindowFactory, Prope
                 treeModelMap.get(project).reload(treeNode);
             }
         }
+
+        private void applyBatch(final ListChangedEvent e) {
+            final DefaultTreeModel treeModel = treeModelMap.get(project);
+            final JTree tree = treeMap.get(project);
+            // remember what is expanded below this node, reload collapses it
+            final Enumeration<TreePath> expanded = tree == null ? null :
+                tree.getExpandedDescendants(new TreePath(treeNode.getPath()));
+            final List<TreePath> expandedPaths = expanded == null ? Collections.emptyList() : Collections.list(expanded);
+
+            for (Node childNode : (Collection<Node>) e.getOldItems()) {
+                removeEventHandlers(childNode);
+                treeNode.remove((MutableTreeNode) childNode.getViewData());
+            }
+            // replaced nodes keep their tree node, so its position and expansion survive the update
+            for (Map.Entry<Node, Node> replaced : ((Map<Node, Node>) e.getReplacedItems()).entrySet()) {
+                final SortableTreeNode childTreeNode = (SortableTreeNode) replaced.getKey().getViewData();
+                removeEventHandlers(replaced.getKey());
+                childTreeNode.removeAllChildren();
+                bindTreeNode(childTreeNode, replaced.getValue(), project);
+            }
+            for (Node childNode : (Collection<Node>) e.getNewItems()) {
+                treeNode.add(createTreeNode(childNode, project));
+            }
+
+            if (treeModel != null) {
+                treeModel.reload(treeNode);
+            }
+            if (tree != null) {
+                expandedPaths.stream()
+                    .filter(path -> treeNode.isNodeDescendant((DefaultMutableTreeNode) path.getLastPathComponent()))
+                    .forEach(tree::expandPath);
+            }
+        }
     }
 
     private class NodeTreeCellRenderer extends NodeRenderer {
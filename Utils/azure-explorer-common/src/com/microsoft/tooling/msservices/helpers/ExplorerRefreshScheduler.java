@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.tooling.msservices.helpers;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Schedules Azure Explorer refreshes on a bounded pool of named daemon threads.
+ * <ul>
+ * <li>refreshes are submitted without waiting, a new refresh of a node cancels the one still running for it</li>
+ * <li>calls for the same subscription are limited to {@link #MAX_CONCURRENT_CALLS_PER_SUBSCRIPTION}</li>
+ * <li>results per subscription are handed back as soon as they arrive so nodes fill in progressively</li>
+ * <li>the latency of the latest refresh of every module is recorded</li>
+ * </ul>
+ */
+public final class ExplorerRefreshScheduler {
+    private static final Logger LOGGER = Logger.getLogger(ExplorerRefreshScheduler.class.getName());
+    private static final int POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors());
+    private static final int MAX_QUEUED_TASKS = 256;
+    private static final int MAX_CONCURRENT_CALLS_PER_SUBSCRIPTION = 4;
+
+    // module refreshes block on their subscription loads, so the two run on separate pools to avoid starvation
+    private final ListeningExecutorService moduleExecutor =
+            MoreExecutors.listeningDecorator(newPool("azure-explorer-refresh"));
+    private final ExecutorService subscriptionExecutor = newPool("azure-explorer-subscription");
+    private final Map<Object, Future<?>> runningRefreshes = new ConcurrentHashMap<>();
+    private final Map<String, Semaphore> subscriptionPermits = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastLatencies = new ConcurrentHashMap<>();
+
+    private ExplorerRefreshScheduler() {
+    }
+
+    private static ExecutorService newPool(String prefix) {
+        final AtomicLong counter = new AtomicLong();
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(MAX_QUEUED_TASKS), runnable -> {
+                    final Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static final class ExplorerRefreshSchedulerHolder {
+        private static final ExplorerRefreshScheduler INSTANCE = new ExplorerRefreshScheduler();
+    }
+
+    public static ExplorerRefreshScheduler getInstance() {
+        return ExplorerRefreshSchedulerHolder.INSTANCE;
+    }
+
+    /**
+     * Runs the refresh of <code>owner</code> on the refresh pool without waiting for it, any refresh of the same
+     * owner still in progress is cancelled.
+     *
+     * @param owner   the node being refreshed
+     * @param name    the name latency is recorded under
+     * @param refresh the refresh action
+     * @return the submitted refresh, cancelling it interrupts the refresh
+     */
+    public ListenableFuture<?> submit(@NotNull Object owner, @NotNull String name, @NotNull Runnable refresh) {
+        final ListenableFuture<?> future = moduleExecutor.submit(() -> {
+            // timed once it runs, the time spent queued for a pool thread is not the module's
+            final long start = System.nanoTime();
+            try {
+                refresh.run();
+            } finally {
+                lastLatencies.put(name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        });
+        final Future<?> previous = runningRefreshes.put(owner, future);
+        if (previous != null) {
+            previous.cancel(true);
+        }
+        future.addListener(() -> runningRefreshes.remove(owner, future), MoreExecutors.directExecutor());
+        return future;
+    }
+
+    /**
+     * Cancels the refresh of <code>owner</code> if any.
+     */
+    public void cancel(@NotNull Object owner) {
+        final Future<?> previous = runningRefreshes.remove(owner);
+        if (previous != null) {
+            previous.cancel(true);
+        }
+    }
+
+    /**
+     * Loads every subscription in parallel, with at most {@link #MAX_CONCURRENT_CALLS_PER_SUBSCRIPTION} calls in
+     * flight per subscription across the whole explorer. <code>onLoaded</code> is invoked on the calling thread in
+     * completion order, <code>onFailed</code> for subscriptions whose loader threw. Without <code>onFailed</code>,
+     * the first failure is rethrown once all the other subscriptions are handed back.
+     */
+    public <T> void forEachSubscription(@NotNull Collection<String> subscriptionIds,
+                                        @NotNull Function<String, T> loader,
+                                        @NotNull BiConsumer<String, T> onLoaded,
+                                        @Nullable BiConsumer<String, Throwable> onFailed) throws InterruptedException {
+        final CompletionService<Map.Entry<String, T>> completionService = new ExecutorCompletionService<>(subscriptionExecutor);
+        final List<Future<Map.Entry<String, T>>> futures = new ArrayList<>();
+        final Map<Future<Map.Entry<String, T>>, String> futureToSubscription = new HashMap<>();
+        for (final String sid : subscriptionIds) {
+            final Future<Map.Entry<String, T>> future = completionService.submit(() -> withSubscriptionPermit(sid,
+                () -> new HashMap.SimpleImmutableEntry<>(sid, loader.apply(sid))));
+            futures.add(future);
+            futureToSubscription.put(future, sid);
+        }
+        Throwable firstFailure = null;
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                final Future<Map.Entry<String, T>> done = completionService.take();
+                try {
+                    final Map.Entry<String, T> result = done.get();
+                    onLoaded.accept(result.getKey(), result.getValue());
+                } catch (ExecutionException e) {
+                    if (onFailed != null) {
+                        onFailed.accept(futureToSubscription.get(done), e.getCause());
+                    } else if (firstFailure == null) {
+                        firstFailure = e.getCause();
+                    } else {
+                        LOGGER.log(Level.WARNING, "failed to load subscription " + futureToSubscription.get(done),
+                                e.getCause());
+                    }
+                }
+            }
+        } finally {
+            // a cancelled refresh abandons the subscriptions not loaded yet
+            futures.forEach(f -> f.cancel(true));
+        }
+        if (firstFailure instanceof RuntimeException) {
+            throw (RuntimeException) firstFailure;
+        } else if (firstFailure instanceof Error) {
+            throw (Error) firstFailure;
+        } else if (firstFailure != null) {
+            throw new IllegalStateException(firstFailure);
+        }
+    }
+
+    private <T> T withSubscriptionPermit(String subscriptionId, Callable<T> callable) throws Exception {
+        final Semaphore permits = subscriptionPermits.computeIfAbsent(subscriptionId,
+            sid -> new Semaphore(MAX_CONCURRENT_CALLS_PER_SUBSCRIPTION, true));
+        permits.acquire();
+        try {
+            return callable.call();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * @return latency in milliseconds of the latest refresh of each module
+     */
+    public Map<String, Long> getLastRefreshLatencies() {
+        return Collections.unmodifiableMap(lastLatencies);
+    }
+}
@@ -19,8 +19,10 @@ final class ParallelThreadFactory implements ThreadFactory {
     public ParallelThreadFactory(String prefix) {
         this.prefix = prefix;
     }
-    public Thread newThread(Runnable r) {
-        return new Thread(r, prefix + "-" + counter++);
+    public synchronized Thread newThread(Runnable r) {
+        final Thread thread = new Thread(r, prefix + "-" + counter++);
+        thread.setDaemon(true);
+        return thread;
     }
 }
 
@@ -35,7 +37,8 @@ public final class ParallelExecutor {
             // invokeAll blocks until all submitted tasks in the call complete
             forPool.invokeAll(createCallables(elements, operation));
         } catch (InterruptedException e) {
-            e.printStackTrace();
+            // invokeAll cancels the unfinished tasks, let the caller see the interruption
+            Thread.currentThread().interrupt();
         }
     }
 
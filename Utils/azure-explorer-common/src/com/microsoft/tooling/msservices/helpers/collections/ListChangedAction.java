@@ -7,5 +7,7 @@ package com.microsoft.tooling.msservices.helpers.collections;
 
 public enum ListChangedAction {
     add,
-    remove
+    remove,
+    // inserts, removes and in-place replacements applied as one change
+    batch
 }
@@ -6,22 +6,35 @@
 package com.microsoft.tooling.msservices.helpers.collections;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.EventObject;
+import java.util.Map;
 
 public class ListChangedEvent extends EventObject {
     private ListChangedAction action;
     private Collection<?> newItems;
     private Collection<?> oldItems;
+    private Map<?, ?> replacedItems;
 
     public ListChangedEvent(
             ObservableList<?> source,
             ListChangedAction action,
             Collection<?> newItems,
             Collection<?> oldItems) {
+        this(source, action, newItems, oldItems, Collections.emptyMap());
+    }
+
+    public ListChangedEvent(
+            ObservableList<?> source,
+            ListChangedAction action,
+            Collection<?> newItems,
+            Collection<?> oldItems,
+            Map<?, ?> replacedItems) {
         super(source);
         this.action = action;
         this.newItems = newItems;
         this.oldItems = oldItems;
+        this.replacedItems = replacedItems;
     }
 
     public ListChangedAction getAction() {
@@ -35,4 +48,11 @@ public class ListChangedEvent extends EventObject {
     public Collection<?> getOldItems() {
         return oldItems;
     }
+
+    /**
+     * Items replaced in place by a {@link ListChangedAction#batch} change, keyed by the replaced item.
+     */
+    public Map<?, ?> getReplacedItems() {
+        return replacedItems;
+    }
 }
@@ -10,7 +10,14 @@ import com.google.common.collect.ForwardingList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 public class ObservableList<E> extends ForwardingList<E> {
     private final List<E> delegate = new ArrayList<E>();
@@ -95,15 +102,71 @@ public class ObservableList<E> extends ForwardingList<E> {
         return removed;
     }
 
+    /**
+     * Updates this list to the content of <code>target</code> matching items by key: items whose key is
+     * already present are replaced in place, the others are appended and, if <code>removeMissing</code>,
+     * items whose key is absent from <code>target</code> are removed. A single {@link ListChangedAction#batch}
+     * event is fired for the whole change.
+     *
+     * @return false if nothing changed
+     */
+    public <K> boolean patch(Collection<? extends E> target, Function<? super E, K> keyOf, boolean removeMissing) {
+        final Map<K, E> currentByKey = new HashMap<>();
+        for (final E item : delegate) {
+            currentByKey.putIfAbsent(keyOf.apply(item), item);
+        }
+        final Set<K> targetKeys = new HashSet<>();
+        final List<E> inserted = new ArrayList<>();
+        final Map<E, E> replaced = new IdentityHashMap<>();
+        for (final E item : target) {
+            final K key = keyOf.apply(item);
+            final E current = targetKeys.add(key) ? currentByKey.get(key) : null;
+            if (current == null) {
+                inserted.add(item);
+            } else if (current != item) {
+                replaced.put(current, item);
+            }
+        }
+        final Set<E> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (removeMissing) {
+            for (final E item : delegate) {
+                if (!targetKeys.contains(keyOf.apply(item))) {
+                    removed.add(item);
+                }
+            }
+        }
+        if (inserted.isEmpty() && replaced.isEmpty() && removed.isEmpty()) {
+            return false;
+        }
+        delegate.removeIf(removed::contains);
+        for (int i = 0; i < delegate.size(); i++) {
+            final E replacement = replaced.get(delegate.get(i));
+            if (replacement != null) {
+                delegate.set(i, replacement);
+            }
+        }
+        delegate.addAll(inserted);
+        fireChangeListenerEvent(ListChangedAction.batch, inserted, new ArrayList<>(removed), replaced);
+        return true;
+    }
+
     private void fireChangeListenerEvent(ListChangedAction action,
                                          Collection<?> newItems,
                                          Collection<?> oldItems) {
+        fireChangeListenerEvent(action, newItems, oldItems, Collections.emptyMap());
+    }
+
+    private void fireChangeListenerEvent(ListChangedAction action,
+                                         Collection<?> newItems,
+                                         Collection<?> oldItems,
+                                         Map<?, ?> replacedItems) {
         if (!changeListeners.isEmpty() && !freezeEvents) {
             ListChangedEvent listChangedEvent = new ListChangedEvent(
                     this,
                     action,
                     newItems,
-                    oldItems);
+                    oldItems,
+                    replacedItems);
             for (ListChangeListener listener : changeListeners) {
                 listener.listChanged(listChangedEvent);
             }
@@ -27,9 +27,12 @@ import java.beans.PropertyChangeSupport;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 public class Node implements MvpView, BasicTelemetryProperty, Sortable {
     private static final String CLICK_ACTION = "click";
@@ -46,6 +49,8 @@ public class Node implements MvpView, BasicTelemetryProperty, Sortable {
     protected String name;
     protected Node parent;
     protected ObservableList<Node> childNodes = new ObservableList<Node>();
+    // children collected by a refresh in progress, applied to childNodes as one batch, see beginChildNodesUpdate
+    private volatile List<Node> stagedChildNodes;
     protected String iconPath;
     protected Object viewData;
     protected NodeAction clickAction = new NodeAction(this, CLICK_ACTION);
@@ -133,7 +138,8 @@ public class Node implements MvpView, BasicTelemetryProperty, Sortable {
     }
 
     public boolean isDirectChild(Node node) {
-        return childNodes.contains(node);
+        final List<Node> staged = stagedChildNodes;
+        return staged != null ? staged.contains(node) : childNodes.contains(node);
     }
 
     public boolean isDescendant(Node node) {
@@ -169,7 +175,7 @@ public class Node implements MvpView, BasicTelemetryProperty, Sortable {
         if (isDirectChild(childNode)) {
             // remove this node's child nodes (so they get an
             // opportunity to clean up after them)
-            childNode.removeAllChildNodes();
+            childNode.dispose();
 
             // this remove call should cause the NodeListChangeListener object
             // registered on it's child nodes to fire
@@ -185,7 +191,7 @@ public class Node implements MvpView, BasicTelemetryProperty, Sortable {
             if (node != null) {
                 // remove this node's child nodes (so they get an
                 // opportunity to clean up after them)
-                node.removeAllChildNodes();
+                node.dispose();
             }
 
             // this remove call should cause the NodeListChangeListener object
@@ -194,6 +200,14 @@ public class Node implements MvpView, BasicTelemetryProperty, Sortable {
         }
     }
 
+    /**
+     * Called once this node is removed from its parent, tears down the subtree so that the listeners registered on
+     * it are released. Sub-classes holding subscriptions release them here.
+     */
+    public void dispose() {
+        removeAllChildNodes();
+    }
+
     /**
      * higher priority than iconPath and icon
      */
@@ -221,7 +235,65 @@ public class Node implements MvpView, BasicTelemetryProperty, Sortable {
     }
 
     public void addChildNode(Node child) {
-        childNodes.add(child);
+        final List<Node> staged = stagedChildNodes;
+        if (staged != null) {
+            staged.add(child);
+        } else {
+            childNodes.add(child);
+        }
+    }
+
+    /**
+     * Replaces the child nodes with <code>newChildren</code> keyed by resource id: children with the same id are
+     * replaced in place, the others are inserted or removed, and a single batched change event is fired so the tree
+     * views can apply it in one model update. Removed and replaced children are disposed afterwards.
+     */
+    public void updateChildNodes(@NotNull List<? extends Node> newChildren) {
+        patchChildNodes(newChildren, true);
+    }
+
+    // Starts collecting the children added by addChildNode instead of adding them one by one, the current
+    // children stay visible until endChildNodesUpdate applies the difference.
+    protected void beginChildNodesUpdate() {
+        stagedChildNodes = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    // Inserts or replaces the children collected so far without removing anything, to fill the node progressively.
+    protected void publishStagedChildNodes() {
+        final List<Node> staged = stagedChildNodes;
+        if (staged != null) {
+            synchronized (staged) {
+                patchChildNodes(new ArrayList<>(staged), false);
+            }
+        }
+    }
+
+    protected void endChildNodesUpdate(boolean apply) {
+        final List<Node> staged = stagedChildNodes;
+        stagedChildNodes = null;
+        if (staged != null && apply) {
+            synchronized (staged) {
+                updateChildNodes(new ArrayList<>(staged));
+            }
+        }
+    }
+
+    private void patchChildNodes(List<? extends Node> newChildren, boolean removeMissing) {
+        final Set<Node> previous = Collections.newSetFromMap(new IdentityHashMap<>());
+        previous.addAll(childNodes);
+        if (!childNodes.patch(newChildren, Node::getChildKey, removeMissing)) {
+            return;
+        }
+        // the views dropped their handlers on the old nodes while applying the batch, release what is left
+        for (final Node child : childNodes) {
+            previous.remove(child);
+        }
+        previous.forEach(Node::dispose);
+    }
+
+    // Azure resource ids are case insensitive, and a placeholder is replaced by the regular node of the same resource
+    private static String getChildKey(Node node) {
+        return node.getId() == null ? String.valueOf(System.identityHashCode(node)) : node.getId().toLowerCase();
     }
 
     public void addAction(NodeAction action) {
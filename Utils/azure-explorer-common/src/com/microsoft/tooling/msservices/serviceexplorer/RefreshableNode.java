@@ -18,16 +18,24 @@ import com.microsoft.azure.toolkit.lib.common.task.AzureTaskManager;
 import com.microsoft.azuretools.azurecommons.helpers.AzureCmdException;
 import com.microsoft.azuretools.core.mvp.ui.base.NodeContent;
 import com.microsoft.tooling.msservices.components.DefaultLoader;
+import com.microsoft.tooling.msservices.helpers.ExplorerRefreshScheduler;
+import org.apache.commons.lang3.StringUtils;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 public abstract class RefreshableNode extends Node {
     protected boolean initialized;
     public static String REFRESH_ICON_LIGHT = "RefreshLight_16.png";
     public static String REFRESH_ICON_DARK = "RefreshDark_16.png";
     private static final String REFRESH = "Refresh";
+    private static final String REFRESHING_SUFFIX = " (Refreshing...)";
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final AtomicInteger loadGeneration = new AtomicInteger();
 
     public RefreshableNode(String id, String name, Node parent) {
         super(id, name, parent);
@@ -72,24 +80,56 @@ public abstract class RefreshableNode extends Node {
     protected abstract void refreshItems() throws AzureCmdException;
 
     // Sub-classes are expected to override this method if they wish
-    // to refresh items asynchronously. The default implementation simply
-    // delegates to "refreshItems" *synchronously* and completes the Future
-    // with the result of calling getChildNodes.
-    protected synchronized void refreshItems(SettableFuture<List<Node>> future, boolean forceRefresh) {
-        if (!loading) {
-            setLoading(true);
-            try {
-                removeAllChildNodes();
-                if (forceRefresh) {
-                    refreshFromAzure();
-                }
-                refreshItems();
-                future.set(getChildNodes());
-            } catch (Exception e) {
-                future.setException(e);
-            } finally {
-                setLoading(false);
+    // to refresh items asynchronously. The default implementation
+    // submits "refreshItems" to the explorer refresh pool without waiting,
+    // cancelling the refresh still running for this node if any, and
+    // completes the Future with the result of calling getChildNodes.
+    // Cancelling the Future interrupts the refresh.
+    protected void refreshItems(SettableFuture<List<Node>> future, boolean forceRefresh) {
+        final ListenableFuture<?> refresh = ExplorerRefreshScheduler.getInstance().submit(this,
+            getClass().getSimpleName(), () -> doRefreshItems(future, forceRefresh));
+        // superseded before it started, so the refresh never completes the future
+        refresh.addListener(() -> {
+            if (refresh.isCancelled()) {
+                future.cancel(false);
+            }
+        }, MoreExecutors.directExecutor());
+        future.addListener(() -> {
+            if (future.isCancelled()) {
+                refresh.cancel(true);
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    private void doRefreshItems(SettableFuture<List<Node>> future, boolean forceRefresh) {
+        try {
+            // a cancelled refresh may still be unwinding, wait for it to release the children
+            refreshLock.lockInterruptibly();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            return;
+        }
+        setLoading(true);
+        // children stay in place during the refresh, the difference is applied as one batch at the end
+        boolean succeeded = false;
+        beginChildNodesUpdate();
+        try {
+            if (forceRefresh) {
+                refreshFromAzure();
             }
+            refreshItems();
+            succeeded = !Thread.currentThread().isInterrupted();
+        } catch (Exception e) {
+            future.setException(e);
+        } finally {
+            endChildNodesUpdate(succeeded);
+            setLoading(false);
+            refreshLock.unlock();
+        }
+        if (succeeded) {
+            future.set(getChildNodes());
+        } else {
+            future.cancel(false);
         }
     }
 
@@ -115,15 +155,17 @@ public abstract class RefreshableNode extends Node {
         AzureTaskManager.getInstance().runInBackground(new AzureTask<>(getProject(), title, false, new Runnable() {
             @Override
             public void run() {
-                if (!loading) {
-                    final String nodeName = node.getName();
-                    DefaultLoader.getIdeHelper().invokeLater(() -> updateName(nodeName + " (Refreshing...)", null));
+                // a forced refresh supersedes the one in progress
+                if (!loading || forceRefresh) {
+                    final int generation = loadGeneration.incrementAndGet();
+                    final String nodeName = StringUtils.removeEnd(node.getName(), REFRESHING_SUFFIX);
+                    DefaultLoader.getIdeHelper().invokeLater(() -> updateName(nodeName + REFRESHING_SUFFIX, null));
 
                     Futures.addCallback(future, new FutureCallback<List<Node>>() {
                         @Override
                         public void onSuccess(List<Node> nodes) {
                             DefaultLoader.getIdeHelper().invokeLater(() -> {
-                                if (node.getName().endsWith("(Refreshing...)")) {
+                                if (node.getName().endsWith(REFRESHING_SUFFIX)) {
                                     updateName(nodeName, null);
                                 }
                                 updateNodeNameAfterLoading();
@@ -133,6 +175,13 @@ public abstract class RefreshableNode extends Node {
 
                         @Override
                         public void onFailure(Throwable throwable) {
+                            if (throwable instanceof CancellationException) {
+                                // a newer refresh updates the node when done, otherwise it's cancelled with its parent
+                                if (loadGeneration.get() == generation) {
+                                    DefaultLoader.getIdeHelper().invokeLater(() -> updateName(nodeName, null));
+                                }
+                                return;
+                            }
                             DefaultLoader.getIdeHelper().invokeLater(() -> {
                                 updateName(nodeName, throwable);
                                 updateNodeNameAfterLoading();
@@ -156,6 +205,15 @@ public abstract class RefreshableNode extends Node {
         return future;
     }
 
+    /**
+     * Replaces the children with nodes built elsewhere, e.g. from the shared Resource Graph query, and marks this node
+     * as loaded so that expanding it does not list the resources again.
+     */
+    public void fillChildNodes(List<? extends Node> nodes) {
+        initialized = true;
+        updateChildNodes(nodes);
+    }
+
     public void showNode(HashMap<String, ArrayList<NodeContent>> nodeMap) {
         for (String sid: nodeMap.keySet()) {
             for (NodeContent content: nodeMap.get(sid)) {
@@ -5,6 +5,8 @@
 
 package com.microsoft.tooling.msservices.serviceexplorer.azure;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.microsoft.azure.hdinsight.serverexplore.hdinsightnode.HDInsightRootModule;
 import com.microsoft.azuretools.authmanage.AuthMethodManager;
 import com.microsoft.azuretools.authmanage.SubscriptionManager;
@@ -14,12 +16,19 @@ import com.microsoft.azuretools.exception.AzureRuntimeException;
 import com.microsoft.azuretools.azurecommons.helpers.AzureCmdException;
 import com.microsoft.azuretools.azurecommons.helpers.NotNull;
 import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import com.microsoft.azure.management.resources.Subscription;
+import com.microsoft.azuretools.core.mvp.model.AzureMvpModel;
+import com.microsoft.azuretools.core.mvp.model.ResourceEx;
+import com.microsoft.azuretools.core.mvp.model.resourcegraph.ResourceGraphMvpModel;
+import com.microsoft.azuretools.core.mvp.model.resourcegraph.ResourceGraphRow;
 import com.microsoft.azuretools.sdkmanage.AzureManager;
 import com.microsoft.tooling.msservices.components.DefaultLoader;
+import com.microsoft.tooling.msservices.helpers.ExplorerRefreshScheduler;
 import com.microsoft.tooling.msservices.serviceexplorer.AzureIconSymbol;
 import com.microsoft.tooling.msservices.serviceexplorer.AzureRefreshableNode;
 import com.microsoft.tooling.msservices.serviceexplorer.Node;
 import com.microsoft.tooling.msservices.serviceexplorer.NodeActionEvent;
+import com.microsoft.tooling.msservices.serviceexplorer.RefreshableNode;
 import com.microsoft.tooling.msservices.serviceexplorer.azure.arm.ResourceManagementModule;
 import com.microsoft.tooling.msservices.serviceexplorer.azure.container.ContainerRegistryModule;
 import com.microsoft.tooling.msservices.serviceexplorer.azure.function.FunctionModule;
@@ -30,13 +39,23 @@ import com.microsoft.tooling.msservices.serviceexplorer.azure.storage.StorageMod
 import com.microsoft.tooling.msservices.serviceexplorer.azure.vmarm.VMArmModule;
 import com.microsoft.tooling.msservices.serviceexplorer.azure.webapp.WebAppModule;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 public class AzureModule extends AzureRefreshableNode {
+    private static final Logger LOGGER = Logger.getLogger(AzureModule.class.getName());
     private static final String AZURE_SERVICE_MODULE_ID = AzureModule.class.getName();
     private static final String ICON_PATH = "AzureExplorer_16.png";
     private static final String BASE_MODULE_NAME = "Azure";
+    // lists the explorer resources with one Resource Graph query instead of per module SDK calls, "true" opts in
+    public static final String RESOURCE_GRAPH_BACKEND_PROPERTY = "com.microsoft.azure.explorer.resourceGraphBackend";
     private static final String MODULE_NAME_NO_SUBSCRIPTION = "No subscription";
     private static final String ERROR_GETTING_SUBSCRIPTIONS_TITLE = "MS Services - Error Getting Subscriptions";
     private static final String ERROR_GETTING_SUBSCRIPTIONS_MESSAGE = "An error occurred while getting the subscription" +
@@ -191,32 +210,102 @@ public class AzureModule extends AzureRefreshableNode {
     protected void refreshFromAzure() throws AzureCmdException {
         try {
             if (AuthMethodManager.getInstance().isSignedIn() && hasSubscription()) {
-                vmArmServiceModule.load(true);
-                redisCacheModule.load(true);
-                storageModule.load(true);
-                webAppModule.load(true);
-                resourceManagementModule.load(true);
-                functionModule.load(true);
+                // the module loads are submitted to the explorer refresh pool without waiting, so sibling modules
+                // refresh in parallel, this refresh waits for all of them and cancels them if it's cancelled
+                // modules filled by the shared Resource Graph query only fetch resource details on expand
+                final Set<Node> filledModules = fillFromResourceGraph();
+                final List<RefreshableNode> modules = new ArrayList<>();
+                for (final AzureRefreshableNode module : Arrays.asList(vmArmServiceModule, redisCacheModule,
+                        storageModule, webAppModule, resourceManagementModule, functionModule, springCloudModule,
+                        mysqlModule)) {
+                    if (!filledModules.contains(module)) {
+                        modules.add(module);
+                    }
+                }
 
                 if (hdInsightModule != null) {
-                    hdInsightModule.load(true);
+                    modules.add(hdInsightModule);
                 }
 
                 if (sparkServerlessClusterRootModule != null) {
-                    sparkServerlessClusterRootModule.load(true);
+                    modules.add(sparkServerlessClusterRootModule);
                 }
 
                 if (arcadiaModule != null && arcadiaModule.isFeatureEnabled()) {
-                    arcadiaModule.load(true);
+                    modules.add(arcadiaModule);
                 }
 
-                containerRegistryModule.load(true);
+                modules.add(containerRegistryModule);
+                final List<ListenableFuture<List<Node>>> loads = modules.stream()
+                        .map(module -> module.load(true))
+                        .collect(Collectors.toList());
+                if (awaitModuleLoads(loads)) {
+                    logModuleLatencies(modules);
+                }
             }
         } catch (Exception e) {
             throw new AzureCmdException("Error loading Azure Explorer modules", e);
         }
     }
 
+    /**
+     * @return false if the refresh is cancelled while waiting
+     */
+    private static boolean awaitModuleLoads(List<ListenableFuture<List<Node>>> loads) {
+        try {
+            // the failed modules show their own errors
+            Futures.successfulAsList(loads).get();
+        } catch (InterruptedException e) {
+            loads.forEach(load -> load.cancel(true));
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException ignored) {
+            // never thrown by the successful list
+        }
+        return true;
+    }
+
+    private static void logModuleLatencies(List<RefreshableNode> modules) {
+        final Map<String, Long> latencies = ExplorerRefreshScheduler.getInstance().getLastRefreshLatencies();
+        final String summary = modules.stream()
+                .map(module -> module.getClass().getSimpleName())
+                .filter(latencies::containsKey)
+                .map(name -> name + "=" + latencies.get(name) + "ms")
+                .collect(Collectors.joining(", "));
+        LOGGER.info("Azure Explorer modules refreshed: " + summary);
+    }
+
+    private Set<Node> fillFromResourceGraph() {
+        final Set<Node> filled = new HashSet<>();
+        if (!"true".equalsIgnoreCase(DefaultLoader.getIdeHelper().getApplicationProperty(RESOURCE_GRAPH_BACKEND_PROPERTY))) {
+            return filled;
+        }
+        // leaf resources such as VMs, storage accounts and MySQL servers are still listed by their modules, a skeleton
+        // would have to be expanded before their actions are available
+        final List<ResourceGraphModule> modules = Arrays.asList(redisCacheModule, webAppModule, functionModule,
+                springCloudModule);
+        try {
+            final List<String> subscriptionIds = AzureMvpModel.getInstance().getSelectedSubscriptions().stream()
+                    .map(Subscription::subscriptionId).collect(Collectors.toList());
+            final Set<String> types = modules.stream().map(ResourceGraphModule::getResourceGraphType)
+                    .collect(Collectors.toSet());
+            final Map<String, List<ResourceEx<ResourceGraphRow>>> resources =
+                    ResourceGraphMvpModel.getInstance().listResources(subscriptionIds, types);
+            for (final ResourceGraphModule module : modules) {
+                final List<Node> nodes = resources.get(module.getResourceGraphType()).stream()
+                        .filter(resource -> module.acceptsResource(resource.getResource()))
+                        .map(module::createResourceNode)
+                        .collect(Collectors.toList());
+                ((AzureRefreshableNode) module).fillChildNodes(nodes);
+                filled.add((Node) module);
+            }
+        } catch (RuntimeException e) {
+            // fall back to listing every module through the management SDK
+            DefaultLoader.getUIHelper().logError("Failed to query Azure Resource Graph: " + e.getMessage(), e);
+        }
+        return filled;
+    }
+
     @Nullable
     @Override
     public Object getProject() {
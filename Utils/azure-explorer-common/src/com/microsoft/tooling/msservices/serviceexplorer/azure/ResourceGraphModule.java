@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.tooling.msservices.serviceexplorer.azure;
+
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.core.mvp.model.ResourceEx;
+import com.microsoft.azuretools.core.mvp.model.resourcegraph.ResourceGraphRow;
+import com.microsoft.tooling.msservices.serviceexplorer.Node;
+
+/**
+ * Explorer module whose children can be rendered from the rows of the shared Resource Graph query issued by
+ * {@link AzureModule}, instead of listing its resources through the management SDK.
+ */
+public interface ResourceGraphModule {
+    /**
+     * @return ARM resource type of the children, e.g. <code>microsoft.web/sites</code>
+     */
+    @NotNull
+    String getResourceGraphType();
+
+    /**
+     * Modules sharing a resource type (e.g. web apps and function apps) pick their own rows.
+     */
+    default boolean acceptsResource(@NotNull ResourceGraphRow row) {
+        return true;
+    }
+
+    /**
+     * Creates the child node of a row, usually a {@link ResourceSkeletonNode} fetching the resource details on expand.
+     */
+    @NotNull
+    Node createResourceNode(@NotNull ResourceEx<ResourceGraphRow> resource);
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.tooling.msservices.serviceexplorer.azure;
+
+import com.microsoft.azuretools.azurecommons.helpers.AzureCmdException;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import com.microsoft.azuretools.core.mvp.model.ResourceEx;
+import com.microsoft.azuretools.core.mvp.model.resourcegraph.ResourceGraphRow;
+import com.microsoft.tooling.msservices.serviceexplorer.AzureIconSymbol;
+import com.microsoft.tooling.msservices.serviceexplorer.Node;
+import com.microsoft.tooling.msservices.serviceexplorer.RefreshableNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Placeholder of a resource listed by the Resource Graph query. The first expand fetches the full resource through
+ * the management SDK and replaces this node with the regular node of the module.
+ */
+public class ResourceSkeletonNode extends RefreshableNode {
+    private final String subscriptionId;
+    private final ResourceGraphRow row;
+    private final AzureIconSymbol iconSymbol;
+    private final DetailLoader loader;
+
+    @FunctionalInterface
+    public interface DetailLoader {
+        /**
+         * @return the regular node of the resource, or null if it does not exist anymore
+         */
+        @Nullable
+        Node load(@NotNull String subscriptionId, @NotNull String id) throws Exception;
+    }
+
+    public ResourceSkeletonNode(@NotNull Node parent, @NotNull ResourceEx<ResourceGraphRow> resource,
+                                @Nullable AzureIconSymbol iconSymbol, @NotNull DetailLoader loader) {
+        super(resource.getResource().getId(), resource.getResource().getName(), parent);
+        this.subscriptionId = resource.getSubscriptionId();
+        this.row = resource.getResource();
+        this.iconSymbol = iconSymbol;
+        this.loader = loader;
+    }
+
+    @Override
+    public @Nullable AzureIconSymbol getIconSymbol() {
+        return iconSymbol;
+    }
+
+    public String getSubscriptionId() {
+        return subscriptionId;
+    }
+
+    public ResourceGraphRow getRow() {
+        return row;
+    }
+
+    @Override
+    protected void refreshItems() throws AzureCmdException {
+        final Node detail;
+        try {
+            detail = loader.load(subscriptionId, row.getId());
+        } catch (Exception e) {
+            throw new AzureCmdException(String.format("Failed to load resource %s", row.getName()), e);
+        }
+        final List<Node> siblings = new ArrayList<>(getParent().getChildNodes());
+        final int index = siblings.indexOf(this);
+        if (index < 0) {
+            return;
+        }
+        if (detail == null) {
+            siblings.remove(index);
+        } else {
+            siblings.set(index, detail);
+            // the regular node takes over the tree node, expand it like the placeholder once its children are loaded
+            detail.setTree(getTree());
+            detail.setTreePath(getTreePath());
+        }
+        getParent().updateChildNodes(siblings);
+        if (detail instanceof RefreshableNode) {
+            ((RefreshableNode) detail).load(false);
+        }
+    }
+}
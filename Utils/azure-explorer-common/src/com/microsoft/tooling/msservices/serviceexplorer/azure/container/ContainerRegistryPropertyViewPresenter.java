@@ -5,12 +5,9 @@
 
 package com.microsoft.tooling.msservices.serviceexplorer.azure.container;
 
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Stack;
 
-import com.google.gson.Gson;
 import com.microsoft.azure.management.containerregistry.AccessKeyType;
 import com.microsoft.azure.management.containerregistry.Registry;
 import com.microsoft.azure.management.containerregistry.RegistryCredentials;
@@ -18,16 +15,13 @@ import com.microsoft.azure.management.containerregistry.RegistryPassword;
 import com.microsoft.azuretools.azurecommons.helpers.NotNull;
 import com.microsoft.azuretools.azurecommons.helpers.Nullable;
 import com.microsoft.azuretools.azurecommons.util.Utils;
-import com.microsoft.azuretools.core.mvp.model.container.ContainerExplorerMvpModel;
+import com.microsoft.azuretools.core.mvp.model.container.ContainerRegistryCatalog;
 import com.microsoft.azuretools.core.mvp.model.container.ContainerRegistryMvpModel;
-import com.microsoft.azuretools.core.mvp.model.container.pojo.Catalog;
-import com.microsoft.azuretools.core.mvp.model.container.pojo.Tag;
 import com.microsoft.azuretools.core.mvp.model.webapp.PrivateRegistryImageSetting;
 import com.microsoft.azuretools.core.mvp.ui.base.MvpPresenter;
 import com.microsoft.azuretools.core.mvp.ui.containerregistry.ContainerRegistryProperty;
 import com.microsoft.tooling.msservices.components.DefaultLoader;
 
-import okhttp3.HttpUrl;
 import rx.Observable;
 
 public class ContainerRegistryPropertyViewPresenter<V extends ContainerRegistryPropertyMvpView>
@@ -39,12 +33,7 @@ public class ContainerRegistryPropertyViewPresenter<V extends ContainerRegistryP
     private static final String CANNOT_GET_REPOS = "Cannot get repositories.";
     private static final String CANNOT_GET_TAGS = "Cannot get tags.";
 
-    private static final String BODY = "body";
-    private static final String PAGE_SIZE = "30";
-    private static final String KEY_LAST = "last";
-    private static final String KEY_PAGE_SIZE = "n";
-    private static final String HEADER_LINK = "link";
-    private static final String FAKE_URL = "http://a";
+    private static final int PAGE_SIZE = ContainerRegistryCatalog.DEFAULT_PAGE_SIZE;
     private final Stack<String> repoStack = new Stack<>();
     private final Stack<String> tagStack = new Stack<>();
     private String currentRepo;
@@ -109,13 +98,17 @@ public class ContainerRegistryPropertyViewPresenter<V extends ContainerRegistryP
      */
     public void onRefreshRepositories(String sid, String id, boolean isNextPage) {
         resetRepoStack();
-        onListRepositories(sid, id, isNextPage);
+        listRepositories(sid, id, isNextPage, true);
     }
 
     /**
      * Called when listing repositories of ACR.
      */
     public void onListRepositories(String sid, String id, boolean isNextPage) {
+        listRepositories(sid, id, isNextPage, false);
+    }
+
+    private void listRepositories(String sid, String id, boolean isNextPage, boolean isRefresh) {
         if (isSubscriptionIdAndResourceIdInValid(sid, id)) {
             return;
         }
@@ -124,13 +117,14 @@ public class ContainerRegistryPropertyViewPresenter<V extends ContainerRegistryP
             Registry registry = ContainerRegistryMvpModel.getInstance().getContainerRegistry(sid, id);
             PrivateRegistryImageSetting setting = ContainerRegistryMvpModel.getInstance()
                     .createImageSettingWithRegistry(registry);
-            Map<String, String> query = buildQueryMap(isNextPage, repoStack, nextRepo);
-            Map<String, String> responseMap = ContainerExplorerMvpModel.getInstance().listRepositories(registry
-                    .loginServerUrl(), setting.getUsername(), setting.getPassword(), query);
-            updatePaginationInfo(isNextPage, Type.REPO, responseMap.get(HEADER_LINK));
-            Gson gson = new Gson();
-            Catalog catalog = gson.fromJson(responseMap.get(BODY), Catalog.class);
-            return catalog.getRepositories();
+            if (isRefresh) {
+                ContainerRegistryCatalog.getInstance().expire(registry.loginServerUrl());
+            }
+            ContainerRegistryCatalog.Page page = ContainerRegistryCatalog.getInstance().listRepositories(registry
+                    .loginServerUrl(), setting.getUsername(), setting.getPassword(),
+                    getLastMarker(isNextPage, repoStack, nextRepo), PAGE_SIZE);
+            updatePaginationInfo(isNextPage, Type.REPO, page.getNext());
+            return page.getItems();
         })
                 .subscribeOn(getSchedulerProvider().io())
                 .subscribe(repos -> DefaultLoader.getIdeHelper().invokeLater(() -> {
@@ -153,13 +147,11 @@ public class ContainerRegistryPropertyViewPresenter<V extends ContainerRegistryP
             Registry registry = ContainerRegistryMvpModel.getInstance().getContainerRegistry(sid, id);
             PrivateRegistryImageSetting setting = ContainerRegistryMvpModel.getInstance()
                     .createImageSettingWithRegistry(registry);
-            Map<String, String> query = buildQueryMap(isNextPage, tagStack, nextTag);
-            Map<String, String> responseMap = ContainerExplorerMvpModel.getInstance().listTags(registry
-                    .loginServerUrl(), setting.getUsername(), setting.getPassword(), repo, query);
-            updatePaginationInfo(isNextPage, Type.TAG, responseMap.get(HEADER_LINK));
-            Gson gson = new Gson();
-            Tag tag = gson.fromJson(responseMap.get(BODY), Tag.class);
-            return tag.getTags();
+            ContainerRegistryCatalog.Page page = ContainerRegistryCatalog.getInstance().listTags(registry
+                    .loginServerUrl(), setting.getUsername(), setting.getPassword(), repo,
+                    getLastMarker(isNextPage, tagStack, nextTag), PAGE_SIZE);
+            updatePaginationInfo(isNextPage, Type.TAG, page.getNext());
+            return page.getItems();
         })
                 .subscribeOn(getSchedulerProvider().io())
                 .subscribe(tags -> DefaultLoader.getIdeHelper().invokeLater(() -> {
@@ -226,22 +218,15 @@ public class ContainerRegistryPropertyViewPresenter<V extends ContainerRegistryP
         return false;
     }
 
-    private Map<String, String> buildQueryMap(boolean isNextPage, @NotNull Stack<String> stack, @Nullable String next) {
-        Map<String, String> query = new HashMap<>();
-        query.put(KEY_PAGE_SIZE, PAGE_SIZE);
+    @Nullable
+    private String getLastMarker(boolean isNextPage, @NotNull Stack<String> stack, @Nullable String next) {
         if (isNextPage) {
-            if (next != null) {
-                query.put(KEY_LAST, next);
-            }
-        } else {
-            if (stack.size() > 0) {
-                query.put(KEY_LAST, stack.peek());
-            }
+            return next;
         }
-        return query;
+        return stack.size() > 0 ? stack.peek() : null;
     }
 
-    private void updatePaginationInfo(boolean isNextPage, @NotNull Type type, @Nullable String linkHeader) {
+    private void updatePaginationInfo(boolean isNextPage, @NotNull Type type, @Nullable String next) {
         if (isNextPage) {
             switch (type) {
                 case REPO:
@@ -251,7 +236,7 @@ public class ContainerRegistryPropertyViewPresenter<V extends ContainerRegistryP
                     if (this.nextRepo != null) {
                         this.currentRepo = this.nextRepo;
                     }
-                    this.nextRepo = linkHeader == null ? null : parseLinkHeader(linkHeader);
+                    this.nextRepo = next;
                     break;
                 case TAG:
                     if (this.currentTag != null) {
@@ -260,7 +245,7 @@ public class ContainerRegistryPropertyViewPresenter<V extends ContainerRegistryP
                     if (this.nextTag != null) {
                         this.currentTag = this.nextTag;
                     }
-                    this.nextTag = linkHeader == null ? null : parseLinkHeader(linkHeader);
+                    this.nextTag = next;
                     break;
                 default:
                     break;
@@ -285,20 +270,6 @@ public class ContainerRegistryPropertyViewPresenter<V extends ContainerRegistryP
         }
     }
 
-    @Nullable
-    private String parseLinkHeader(@NotNull String header) {
-        int start = header.indexOf("<") + 1;
-        int end = header.lastIndexOf(">");
-        if (start <= 0 || end < 0 || end >= header.length() || start >= end) {
-            return null;
-        }
-        HttpUrl url = HttpUrl.parse(FAKE_URL + header.substring(start, end));
-        if (url == null) {
-            return null;
-        }
-        return url.queryParameter(KEY_LAST);
-    }
-
     private void errorHandler(String msg, Exception e) {
         DefaultLoader.getIdeHelper().invokeLater(() -> {
             if (isViewDetached()) {
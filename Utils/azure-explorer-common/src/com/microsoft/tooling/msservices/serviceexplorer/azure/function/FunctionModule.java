@@ -15,13 +15,19 @@ import com.microsoft.azuretools.utils.AzureUIRefreshListener;
 import com.microsoft.tooling.msservices.serviceexplorer.AzureIconSymbol;
 import com.microsoft.tooling.msservices.serviceexplorer.AzureRefreshableNode;
 import com.microsoft.tooling.msservices.serviceexplorer.Node;
+import com.microsoft.azuretools.core.mvp.model.function.AzureFunctionMvpModel;
+import com.microsoft.azuretools.core.mvp.model.resourcegraph.ResourceGraphRow;
+import com.microsoft.tooling.msservices.serviceexplorer.azure.ResourceGraphModule;
+import com.microsoft.tooling.msservices.serviceexplorer.azure.ResourceSkeletonNode;
+import org.apache.commons.lang3.StringUtils;
 
 import java.util.List;
 
-public class FunctionModule extends AzureRefreshableNode implements FunctionModuleView {
+public class FunctionModule extends AzureRefreshableNode implements FunctionModuleView, ResourceGraphModule {
     private static final String FUNCTION_SERVICE_MODULE_ID = FunctionModule.class.getName();
     private static final String ICON_PATH = "azure-functions-small.png";
     private static final String BASE_MODULE_NAME = "Function App(Preview)";
+    private static final String FUNCTION_APP_KIND = "functionapp";
     private static final String FUNCTION_MODULE = "FunctionModule";
     private static final String FAILED_TO_DELETE_FUNCTION_APP = "Failed to delete Function App %s";
     private static final String ERROR_DELETING_FUNCTION_APP = "Azure Services Explorer - Error Deleting Function App";
@@ -54,6 +60,7 @@ public class FunctionModule extends AzureRefreshableNode implements FunctionModu
             final FunctionAppNode node = new FunctionAppNode(this, resourceEx.getSubscriptionId(), resourceEx.getResource());
             addChildNode(node);
         }
+        publishStagedChildNodes();
     }
 
     @Override
@@ -93,4 +100,24 @@ public class FunctionModule extends AzureRefreshableNode implements FunctionModu
     private static boolean isFunctionModuleEvent(Object eventObject) {
         return eventObject != null && eventObject instanceof FunctionApp;
     }
+
+    @NotNull
+    @Override
+    public String getResourceGraphType() {
+        return "microsoft.web/sites";
+    }
+
+    @Override
+    public boolean acceptsResource(@NotNull ResourceGraphRow row) {
+        return StringUtils.containsIgnoreCase(row.getKind(), FUNCTION_APP_KIND);
+    }
+
+    @NotNull
+    @Override
+    public Node createResourceNode(@NotNull ResourceEx<ResourceGraphRow> resource) {
+        return new ResourceSkeletonNode(this, resource, AzureIconSymbol.FunctionApp.MODULE, (sid, id) -> {
+            final FunctionApp functionApp = AzureFunctionMvpModel.getInstance().getNullableFunctionById(sid, id);
+            return functionApp == null ? null : new FunctionAppNode(this, sid, functionApp);
+        });
+    }
 }
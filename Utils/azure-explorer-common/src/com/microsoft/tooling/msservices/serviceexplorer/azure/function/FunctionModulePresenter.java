@@ -5,15 +5,32 @@
 
 package com.microsoft.tooling.msservices.serviceexplorer.azure.function;
 
+import com.microsoft.azure.management.resources.Subscription;
+import com.microsoft.azuretools.core.mvp.model.AzureMvpModel;
 import com.microsoft.azuretools.core.mvp.model.function.AzureFunctionMvpModel;
 import com.microsoft.azuretools.core.mvp.ui.base.MvpPresenter;
+import com.microsoft.tooling.msservices.helpers.ExplorerRefreshScheduler;
+
+import java.util.List;
+import java.util.stream.Collectors;
 
 public class FunctionModulePresenter<V extends FunctionModuleView> extends MvpPresenter<V> {
 
     public void onModuleRefresh() {
         final FunctionModuleView view = getMvpView();
-        if (view != null) {
-            view.renderChildren(AzureFunctionMvpModel.getInstance().listAllFunctions(true));
+        if (view == null) {
+            return;
+        }
+        final List<String> subscriptionIds = AzureMvpModel.getInstance().getSelectedSubscriptions().stream()
+                .map(Subscription::subscriptionId)
+                .collect(Collectors.toList());
+        try {
+            // render each subscription as soon as it is loaded
+            ExplorerRefreshScheduler.getInstance().forEachSubscription(subscriptionIds,
+                sid -> AzureFunctionMvpModel.getInstance().listFunctionsInSubscription(sid, true),
+                (sid, resources) -> view.renderChildren(resources), null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
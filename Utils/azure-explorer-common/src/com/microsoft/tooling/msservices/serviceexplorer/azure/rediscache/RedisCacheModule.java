@@ -6,13 +6,18 @@
 package com.microsoft.tooling.msservices.serviceexplorer.azure.rediscache;
 
 import com.microsoft.azuretools.azurecommons.helpers.AzureCmdException;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
 import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import com.microsoft.azuretools.core.mvp.model.ResourceEx;
+import com.microsoft.azuretools.core.mvp.model.resourcegraph.ResourceGraphRow;
 import com.microsoft.azuretools.core.mvp.ui.base.NodeContent;
 import com.microsoft.tooling.msservices.serviceexplorer.AzureIconSymbol;
 import com.microsoft.tooling.msservices.serviceexplorer.AzureRefreshableNode;
 import com.microsoft.tooling.msservices.serviceexplorer.Node;
+import com.microsoft.tooling.msservices.serviceexplorer.azure.ResourceGraphModule;
+import org.apache.commons.lang3.StringUtils;
 
-public class RedisCacheModule extends AzureRefreshableNode {
+public class RedisCacheModule extends AzureRefreshableNode implements ResourceGraphModule {
     private static final String REDIS_SERVICE_MODULE_ID = RedisCacheModule.class.getName();
     private static final String ICON_PATH = "RedisCache.png";
     private static final String BASE_MODULE_NAME = "Redis Caches";
@@ -51,4 +56,19 @@ public class RedisCacheModule extends AzureRefreshableNode {
     public void removeNode(String sid, String id, Node node) {
         redisCachePresenter.onNodeDelete(sid, id, node);
     }
+
+    @NotNull
+    @Override
+    public String getResourceGraphType() {
+        return "microsoft.cache/redis";
+    }
+
+    @NotNull
+    @Override
+    public Node createResourceNode(@NotNull ResourceEx<ResourceGraphRow> resource) {
+        // the node only needs the id, name and state which the query already returns
+        final ResourceGraphRow row = resource.getResource();
+        return createNode(this, resource.getSubscriptionId(), new NodeContent(row.getId(), row.getName(),
+                StringUtils.defaultString(row.getProvisioningState())));
+    }
 }
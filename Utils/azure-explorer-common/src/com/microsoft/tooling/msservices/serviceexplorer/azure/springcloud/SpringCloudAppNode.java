@@ -84,6 +84,12 @@ public class SpringCloudAppNode extends Node implements SpringCloudAppNodeView {
         return super.getNodeActions();
     }
 
+    @Override
+    public void dispose() {
+        super.dispose();
+        unsubscribe();
+    }
+
     public void unsubscribe() {
         if (rxSubscription != null && !rxSubscription.isDisposed()) {
             rxSubscription.dispose();
@@ -12,10 +12,17 @@ import com.microsoft.azuretools.core.mvp.model.springcloud.SpringCloudIdHelper;
 import com.microsoft.tooling.msservices.serviceexplorer.AzureIconSymbol;
 import com.microsoft.tooling.msservices.serviceexplorer.AzureRefreshableNode;
 import com.microsoft.tooling.msservices.serviceexplorer.Node;
+import com.microsoft.azure.management.appplatform.v2020_07_01.ServiceResource;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.core.mvp.model.ResourceEx;
+import com.microsoft.azuretools.core.mvp.model.resourcegraph.ResourceGraphRow;
+import com.microsoft.azuretools.core.mvp.model.springcloud.AzureSpringCloudMvpModel;
+import com.microsoft.tooling.msservices.serviceexplorer.azure.ResourceGraphModule;
+import com.microsoft.tooling.msservices.serviceexplorer.azure.ResourceSkeletonNode;
 
 import java.util.List;
 
-public class SpringCloudModule extends AzureRefreshableNode implements SpringCloudModuleView {
+public class SpringCloudModule extends AzureRefreshableNode implements SpringCloudModuleView, ResourceGraphModule {
     protected static final String ICON_FILE = "azure-springcloud-small.png";
     private static final String SPRING_SERVICE_MODULE_ID = SpringCloudModule.class.getName();
     private static final String BASE_MODULE_NAME = "Spring Cloud(Preview)";
@@ -54,4 +61,19 @@ public class SpringCloudModule extends AzureRefreshableNode implements SpringClo
         ((SpringCloudNode) node).unsubscribe();
         removeDirectChildNode(node);
     }
+
+    @NotNull
+    @Override
+    public String getResourceGraphType() {
+        return "microsoft.appplatform/spring";
+    }
+
+    @NotNull
+    @Override
+    public Node createResourceNode(@NotNull ResourceEx<ResourceGraphRow> resource) {
+        return new ResourceSkeletonNode(this, resource, AzureIconSymbol.SpringCloud.MODULE, (sid, id) -> {
+            final ServiceResource cluster = AzureSpringCloudMvpModel.getClusterById(sid, id);
+            return cluster == null ? null : new SpringCloudNode(this, sid, cluster.inner());
+        });
+    }
 }
@@ -161,6 +161,12 @@ public class SpringCloudNode extends RefreshableNode implements TelemetryPropert
         return this.getProject();
     }
 
+    @Override
+    public void dispose() {
+        super.dispose();
+        unsubscribe();
+    }
+
     public void unsubscribe() {
         if (rxSubscription != null && !rxSubscription.isDisposed()) {
             rxSubscription.dispose();
@@ -5,13 +5,13 @@
 
 package com.microsoft.tooling.msservices.serviceexplorer.azure.storage;
 
-import com.microsoft.azure.management.Azure;
 import com.microsoft.azure.management.storage.StorageAccount;
 import com.microsoft.azuretools.authmanage.AuthMethodManager;
 import com.microsoft.azuretools.authmanage.SubscriptionManager;
 import com.microsoft.azuretools.azurecommons.helpers.Nullable;
 import com.microsoft.azuretools.sdkmanage.AzureManager;
 import com.microsoft.tooling.msservices.components.DefaultLoader;
+import com.microsoft.tooling.msservices.helpers.ExplorerRefreshScheduler;
 import com.microsoft.tooling.msservices.helpers.ExternalStorageHelper;
 import com.microsoft.azuretools.azurecommons.helpers.AzureCmdException;
 import com.microsoft.tooling.msservices.helpers.azure.sdk.StorageClientSDKManager;
@@ -55,19 +55,17 @@ public class StorageModule extends AzureRefreshableNode {
 
             SubscriptionManager subscriptionManager = azureManager.getSubscriptionManager();
             Set<String> sidList = subscriptionManager.getAccountSidList();
-            for (String sid : sidList) {
-                try {
-                    Azure azure = azureManager.getAzure(sid);
-                    List<com.microsoft.azure.management.storage.StorageAccount> storageAccounts = azure.storageAccounts().list();
+            ExplorerRefreshScheduler.getInstance().forEachSubscription(sidList,
+                sid -> azureManager.getAzure(sid).storageAccounts().list(),
+                (sid, storageAccounts) -> {
                     for (StorageAccount sm : storageAccounts) {
                         addChildNode(new StorageNode(this, sid, sm));
                     }
-
-                } catch (Exception ex) {
-                    failedSubscriptions.add(new ImmutablePair<>(sid, ex.getMessage()));
-                    continue;
-                }
-            }
+                    publishStagedChildNodes();
+                },
+                (sid, ex) -> failedSubscriptions.add(new ImmutablePair<>(sid, ex.getMessage())));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
         } catch (Exception ex) {
             DefaultLoader.getUIHelper().logError("An error occurred when trying to load Storage Accounts\n\n" + ex.getMessage(), ex);
         }
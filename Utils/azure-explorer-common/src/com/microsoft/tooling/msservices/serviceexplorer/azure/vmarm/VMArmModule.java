@@ -5,13 +5,13 @@
 
 package com.microsoft.tooling.msservices.serviceexplorer.azure.vmarm;
 
-import com.microsoft.azure.management.Azure;
 import com.microsoft.azure.management.compute.VirtualMachine;
 import com.microsoft.azuretools.authmanage.AuthMethodManager;
 import com.microsoft.azuretools.authmanage.SubscriptionManager;
 import com.microsoft.azuretools.azurecommons.helpers.Nullable;
 import com.microsoft.azuretools.sdkmanage.AzureManager;
 import com.microsoft.tooling.msservices.components.DefaultLoader;
+import com.microsoft.tooling.msservices.helpers.ExplorerRefreshScheduler;
 import com.microsoft.azuretools.azurecommons.helpers.AzureCmdException;
 import com.microsoft.tooling.msservices.serviceexplorer.AzureIconSymbol;
 import com.microsoft.tooling.msservices.serviceexplorer.AzureRefreshableNode;
@@ -56,20 +56,17 @@ public class VMArmModule extends AzureRefreshableNode {
                     .filter(subscriptionDetail -> Objects.nonNull(subscriptionDetail) && subscriptionDetail.isSelected())
                     .map(subscriptionDetail -> subscriptionDetail.getSubscriptionId())
                     .collect(Collectors.toSet());
-            for (String sid : sidList) {
-                try {
-                    Azure azure = azureManager.getAzure(sid);
-                    List<VirtualMachine> virtualMachines = azure.virtualMachines().list();
-
+            ExplorerRefreshScheduler.getInstance().forEachSubscription(sidList,
+                sid -> azureManager.getAzure(sid).virtualMachines().list(),
+                (sid, virtualMachines) -> {
                     for (VirtualMachine vm : virtualMachines) {
                         addChildNode(new VMNode(this, sid, vm));
                     }
-
-                } catch (Exception ex) {
-                    failedSubscriptions.add(new ImmutablePair<>(sid, ex.getMessage()));
-                    continue;
-                }
-            }
+                    publishStagedChildNodes();
+                },
+                (sid, ex) -> failedSubscriptions.add(new ImmutablePair<>(sid, ex.getMessage())));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
         } catch (Exception ex) {
             DefaultLoader.getUIHelper().logError("An error occurred when trying to load Virtual Machines\n\n" + ex.getMessage(), ex);
         }
@@ -19,13 +19,19 @@ import com.microsoft.tooling.msservices.components.DefaultLoader;
 import com.microsoft.tooling.msservices.serviceexplorer.AzureIconSymbol;
 import com.microsoft.tooling.msservices.serviceexplorer.AzureRefreshableNode;
 import com.microsoft.tooling.msservices.serviceexplorer.Node;
+import com.microsoft.azuretools.core.mvp.model.resourcegraph.ResourceGraphRow;
+import com.microsoft.azuretools.core.mvp.model.webapp.AzureWebAppMvpModel;
+import com.microsoft.tooling.msservices.serviceexplorer.azure.ResourceGraphModule;
+import com.microsoft.tooling.msservices.serviceexplorer.azure.ResourceSkeletonNode;
+import org.apache.commons.lang3.StringUtils;
 
 import java.util.List;
 
-public class WebAppModule extends AzureRefreshableNode implements WebAppModuleView {
+public class WebAppModule extends AzureRefreshableNode implements WebAppModuleView, ResourceGraphModule {
     private static final String REDIS_SERVICE_MODULE_ID = WebAppModule.class.getName();
     private static final String ICON_PATH = "WebApp_16.png";
     private static final String BASE_MODULE_NAME = "Web Apps";
+    private static final String FUNCTION_APP_KIND = "functionapp";
     private final WebAppModulePresenter<WebAppModule> webAppModulePresenter;
 
     public static final String MODULE_NAME = "Web App";
@@ -106,5 +112,26 @@ public class WebAppModule extends AzureRefreshableNode implements WebAppModuleVi
 
             addChildNode(node);
         }
+        publishStagedChildNodes();
+    }
+
+    @NotNull
+    @Override
+    public String getResourceGraphType() {
+        return "microsoft.web/sites";
+    }
+
+    @Override
+    public boolean acceptsResource(@NotNull ResourceGraphRow row) {
+        return !StringUtils.containsIgnoreCase(row.getKind(), FUNCTION_APP_KIND);
+    }
+
+    @NotNull
+    @Override
+    public Node createResourceNode(@NotNull ResourceEx<ResourceGraphRow> resource) {
+        return new ResourceSkeletonNode(this, resource, AzureIconSymbol.WebApp.MODULE, (sid, id) -> {
+            final WebApp webApp = AzureWebAppMvpModel.getInstance().getNullableWebAppById(sid, id);
+            return webApp == null ? null : new WebAppNode(this, sid, webApp);
+        });
     }
 }
@@ -5,8 +5,14 @@
 
 package com.microsoft.tooling.msservices.serviceexplorer.azure.webapp;
 
+import com.microsoft.azure.management.resources.Subscription;
+import com.microsoft.azuretools.core.mvp.model.AzureMvpModel;
 import com.microsoft.azuretools.core.mvp.model.webapp.AzureWebAppMvpModel;
 import com.microsoft.azuretools.core.mvp.ui.base.MvpPresenter;
+import com.microsoft.tooling.msservices.helpers.ExplorerRefreshScheduler;
+
+import java.util.List;
+import java.util.stream.Collectors;
 
 public class WebAppModulePresenter<V extends WebAppModuleView> extends MvpPresenter<V> {
     /**
@@ -14,8 +20,19 @@ public class WebAppModulePresenter<V extends WebAppModuleView> extends MvpPresen
      */
     public void onModuleRefresh() {
         final WebAppModuleView view = getMvpView();
-        if (view != null) {
-            view.renderChildren(AzureWebAppMvpModel.getInstance().listAllWebApps(true));
+        if (view == null) {
+            return;
+        }
+        final List<String> subscriptionIds = AzureMvpModel.getInstance().getSelectedSubscriptions().stream()
+                .map(Subscription::subscriptionId)
+                .collect(Collectors.toList());
+        try {
+            // render each subscription as soon as it is loaded
+            ExplorerRefreshScheduler.getInstance().forEachSubscription(subscriptionIds,
+                sid -> AzureWebAppMvpModel.getInstance().listWebApps(sid, true),
+                (sid, resources) -> view.renderChildren(resources), null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.tooling.msservices.helpers;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ExplorerRefreshSchedulerTest {
+    private final ExplorerRefreshScheduler scheduler = ExplorerRefreshScheduler.getInstance();
+
+    @Test
+    public void testSubmitWithoutWaiting() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final Future<?> refresh = scheduler.submit(new Object(), "test", () -> await(release));
+
+        assertFalse(refresh.isDone());
+        release.countDown();
+        refresh.get(5, TimeUnit.SECONDS);
+        assertTrue(refresh.isDone());
+    }
+
+    @Test
+    public void testNewRefreshCancelsRunning() throws Exception {
+        final Object owner = new Object();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final Future<?> first = scheduler.submit(owner, "test", () -> {
+            started.countDown();
+            if (!await(new CountDownLatch(1))) {
+                interrupted.countDown();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        final Future<?> second = scheduler.submit(owner, "test", () -> { });
+
+        assertTrue(first.isCancelled());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        second.get(5, TimeUnit.SECONDS);
+        assertFalse(second.isCancelled());
+    }
+
+    @Test
+    public void testCancelOwner() throws Exception {
+        final Object owner = new Object();
+        final Future<?> refresh = scheduler.submit(owner, "test", () -> await(new CountDownLatch(1)));
+
+        scheduler.cancel(owner);
+
+        assertTrue(refresh.isCancelled());
+        // cancelled before or while running, it never blocks the pool
+        scheduler.submit(new Object(), "test", () -> { }).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testRecordLatestLatency() throws Exception {
+        scheduler.submit(new Object(), "LatencyModule", () -> sleep(100)).get(5, TimeUnit.SECONDS);
+        assertTrue(scheduler.getLastRefreshLatencies().get("LatencyModule") >= 100);
+
+        // the latest refresh replaces the previous latency, also when it fails
+        final Future<?> failed = scheduler.submit(new Object(), "LatencyModule", () -> {
+            throw new IllegalStateException("forbidden");
+        });
+        try {
+            failed.get(5, TimeUnit.SECONDS);
+            fail("the failure should be reported by the future");
+        } catch (ExecutionException e) {
+            assertEquals("forbidden", e.getCause().getMessage());
+        }
+        assertTrue(scheduler.getLastRefreshLatencies().get("LatencyModule") < 100);
+    }
+
+    @Test
+    public void testForEachSubscription() throws Exception {
+        final Map<String, Integer> loaded = new ConcurrentHashMap<>();
+        final Map<String, Throwable> failed = new ConcurrentHashMap<>();
+        scheduler.forEachSubscription(Arrays.asList("sid0", "sid1", "sid2"), sid -> {
+            if (sid.equals("sid1")) {
+                throw new IllegalStateException("forbidden");
+            }
+            return sid.length();
+        }, loaded::put, failed::put);
+
+        assertEquals(2, loaded.size());
+        assertEquals(Integer.valueOf(4), loaded.get("sid2"));
+        assertEquals("forbidden", failed.get("sid1").getMessage());
+    }
+
+    @Test
+    public void testForEachSubscriptionRethrowsFirstFailure() throws Exception {
+        final AtomicInteger loaded = new AtomicInteger();
+        try {
+            scheduler.forEachSubscription(Arrays.asList("sid0", "sid1"), sid -> {
+                if (sid.equals("sid0")) {
+                    throw new IllegalStateException("forbidden");
+                }
+                return sid;
+            }, (sid, result) -> loaded.incrementAndGet(), null);
+            fail("the failure should be rethrown");
+        } catch (IllegalStateException e) {
+            assertEquals("forbidden", e.getMessage());
+        }
+        // the other subscriptions are still handed back
+        assertEquals(1, loaded.get());
+    }
+
+    @Test
+    public void testLimitCallsPerSubscription() throws Exception {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final Runnable load = () -> {
+            try {
+                scheduler.forEachSubscription(Collections.singletonList("sid-limited"), sid -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return running.decrementAndGet();
+                }, (sid, result) -> { }, null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        final Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(load);
+            threads[i].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join(10_000);
+        }
+
+        assertTrue(maxRunning.get() <= 4);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return false if interrupted
+     */
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+}
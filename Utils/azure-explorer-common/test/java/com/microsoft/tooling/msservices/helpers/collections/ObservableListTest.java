@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.tooling.msservices.helpers.collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ObservableListTest {
+    private ObservableList<Item> list;
+    private List<ListChangedEvent> events;
+
+    @Before
+    public void setUp() {
+        list = new ObservableList<>();
+        list.add(new Item("a", 1));
+        list.add(new Item("b", 1));
+        list.add(new Item("c", 1));
+        events = new ArrayList<>();
+        list.addChangeListener(events::add);
+    }
+
+    @Test
+    public void testPatchFiresSingleBatch() {
+        final Item a = list.get(0);
+        final Item b2 = new Item("b", 2);
+        final Item d = new Item("d", 1);
+
+        assertTrue(list.patch(Arrays.asList(a, b2, d), Item::getKey, true));
+
+        assertEquals(1, events.size());
+        final ListChangedEvent event = events.get(0);
+        assertEquals(ListChangedAction.batch, event.getAction());
+        assertEquals(Collections.singletonList(d), event.getNewItems());
+        assertEquals(1, event.getOldItems().size());
+        assertEquals("c", ((Item) event.getOldItems().iterator().next()).getKey());
+        assertEquals(1, event.getReplacedItems().size());
+        assertSame(b2, event.getReplacedItems().values().iterator().next());
+
+        // replaced in place, inserted at the end
+        assertEquals(Arrays.asList(a, b2, d), new ArrayList<>(list));
+    }
+
+    @Test
+    public void testPatchWithoutRemoval() {
+        final Item d = new Item("d", 1);
+
+        assertTrue(list.patch(Collections.singletonList(d), Item::getKey, false));
+
+        assertEquals(4, list.size());
+        assertTrue(events.get(0).getOldItems().isEmpty());
+    }
+
+    @Test
+    public void testPatchUnchanged() {
+        assertFalse(list.patch(new ArrayList<>(list), Item::getKey, true));
+        assertTrue(events.isEmpty());
+    }
+
+    private static class Item {
+        private final String key;
+        private final int version;
+
+        Item(String key, int version) {
+            this.key = key;
+            this.version = version;
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        @Override
+        public String toString() {
+            return key + version;
+        }
+    }
+}
@@ -10,4 +10,11 @@ package com.microsoft.azuretools.authmanage;
  */
 public interface ISubscriptionSelectionListener {
     void update(boolean isRefresh);
+
+    /**
+     * Notified with the changes since the last notification, override it to handle only the changed subscriptions.
+     */
+    default void update(SubscriptionSnapshot.Diff diff) {
+        update(diff.isCleared());
+    }
 }
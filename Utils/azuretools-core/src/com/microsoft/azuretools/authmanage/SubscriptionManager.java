@@ -9,6 +9,7 @@ import com.microsoft.azure.management.resources.Subscription;
 import com.microsoft.azure.management.resources.Tenant;
 import com.microsoft.azure.toolkit.lib.common.operation.AzureOperation;
 import com.microsoft.azuretools.authmanage.models.SubscriptionDetail;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
 import com.microsoft.azuretools.sdkmanage.AzureManager;
 import com.microsoft.azuretools.utils.AzureUIRefreshCore;
 import com.microsoft.azuretools.utils.AzureUIRefreshEvent;
@@ -16,73 +17,67 @@ import com.microsoft.azuretools.utils.Pair;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 /**
  * Created by shch on 10/3/2016.
+ *
+ * The subscription details are published as an immutable {@link SubscriptionSnapshot}, replaced on each change, so
+ * the getters read the current snapshot without locks. Only the changes, and the loading on the first read, are
+ * serialized.
  */
 public class SubscriptionManager {
-    private final Set<ISubscriptionSelectionListener> listeners = new HashSet<>();
+    private final Set<ISubscriptionSelectionListener> listeners = new CopyOnWriteArraySet<>();
     protected final AzureManager azureManager;
 
-    // for user to select subscr to work with
-    private List<SubscriptionDetail> subscriptionDetails; // NOTE: This one should be retired in future.
-    private Map<String, SubscriptionDetail> subscriptionIdToSubscriptionDetailMap;
+    private final Object writeLock = new Object();
+    private volatile SubscriptionSnapshot snapshot = SubscriptionSnapshot.EMPTY;
+    // The snapshot the listeners are notified with, for the changes since then, guarded by the write lock
+    private SubscriptionSnapshot notified = SubscriptionSnapshot.EMPTY;
     protected Map<String, Subscription> subscriptionIdToSubscriptionMap = new ConcurrentHashMap<>();
 
-    // to get tid for sid
-    private final Map<String, String> sidToTid = new ConcurrentHashMap<>();
-
     public SubscriptionManager(AzureManager azureManager) {
         this.azureManager = azureManager;
     }
 
-    public synchronized Map<String, SubscriptionDetail> getSubscriptionIdToSubscriptionDetailsMap() {
-        System.out.println(Thread.currentThread().getId() + " SubscriptionManager.getSubscriptionIdToSubscriptionDetailsMap()");
-        updateSubscriptionDetailsIfNull();
-        return subscriptionIdToSubscriptionDetailMap;
+    /**
+     * @return the current snapshot, the subscriptions are loaded if not yet
+     */
+    @NotNull
+    public SubscriptionSnapshot getSnapshot() {
+        final SubscriptionSnapshot current = snapshot;
+        return current.isLoaded() ? current : loadSnapshot();
     }
 
-    public synchronized Map<String, Subscription> getSubscriptionIdToSubscriptionMap() {
-        System.out.println(Thread.currentThread().getId() + " SubscriptionManager.getSubscriptionIdToSubscriptionMap()");
+    public Map<String, SubscriptionDetail> getSubscriptionIdToSubscriptionDetailsMap() {
+        return getSnapshot().getSubscriptionIdToSubscriptionDetailsMap();
+    }
+
+    public Map<String, Subscription> getSubscriptionIdToSubscriptionMap() {
         updateSubscriptionDetailsIfNull();
         return subscriptionIdToSubscriptionMap;
     }
 
     @AzureOperation(name = "account|subscription.get_details", type = AzureOperation.Type.TASK)
-    public synchronized List<SubscriptionDetail> getSubscriptionDetails() {
-        System.out.println(Thread.currentThread().getId() + " SubscriptionManager.getSubscriptionDetails()");
-        updateSubscriptionDetailsIfNull();
-        return subscriptionDetails;
+    public List<SubscriptionDetail> getSubscriptionDetails() {
+        return getSnapshot().getSubscriptionDetails();
     }
 
     @AzureOperation(name = "account|subscription.get_detail.selected", type = AzureOperation.Type.TASK)
-    public synchronized List<SubscriptionDetail> getSelectedSubscriptionDetails() {
-        System.out.println(Thread.currentThread().getId() + " SubscriptionManager.getSelectedSubscriptionDetails()");
-        updateSubscriptionDetailsIfNull();
-
-        return getAccountSidList().stream()
-                .map(sid -> subscriptionIdToSubscriptionDetailMap.get(sid))
-                .filter(s -> Objects.nonNull(s) && s.isSelected())
-                .collect(Collectors.toList());
+    public List<SubscriptionDetail> getSelectedSubscriptionDetails() {
+        return getSnapshot().getSelectedSubscriptionDetails();
     }
 
     public void updateSubscriptionDetailsIfNull() {
-        if (subscriptionDetails == null) {
-            List<SubscriptionDetail> sdl = updateAccountSubscriptionList();
-            doSetSubscriptionDetails(sdl);
-        }
+        getSnapshot();
     }
 
     @AzureOperation(name = "account|subscription.flush_cache", type = AzureOperation.Type.SERVICE)
     protected List<SubscriptionDetail> updateAccountSubscriptionList() {
-        System.out.println(Thread.currentThread().getId() + " SubscriptionManager.updateAccountSubscriptionList()");
-
         if (azureManager == null) {
             throw new IllegalArgumentException("azureManager is null");
         }
 
-        System.out.println("Getting subscription list from Azure");
         subscriptionIdToSubscriptionMap.clear();
         List<SubscriptionDetail> sdl = new ArrayList<>();
         List<Pair<Subscription, Tenant>> stpl = azureManager.getSubscriptionsWithTenant();
@@ -98,79 +93,65 @@ public class SubscriptionManager {
         return sdl;
     }
 
-    private synchronized void doSetSubscriptionDetails(List<SubscriptionDetail> subscriptionDetails) {
-        System.out.println(Thread.currentThread().getId() + " SubscriptionManager.doSetSubscriptionDetails()");
-        this.subscriptionDetails = subscriptionDetails;
-        updateMapAccordingToList(); // WORKAROUND: Update SubscriptionId->SubscriptionDetail Map
-        updateSidToTidMap();
-    }
-
-    // WORKAROUND: private helper to construct SubscriptionId->SubscriptionDetail map
-    private void updateMapAccordingToList() {
-        Map<String, SubscriptionDetail> sid2sd = new ConcurrentHashMap<>();
-        for (SubscriptionDetail sd : this.subscriptionDetails) {
-            sid2sd.put(sd.getSubscriptionId(),
-                    new SubscriptionDetail(
-                            sd.getSubscriptionId(),
-                            sd.getSubscriptionName(),
-                            sd.getTenantId(),
-                            sd.isSelected()));
+    private SubscriptionSnapshot loadSnapshot() {
+        synchronized (writeLock) {
+            // Loaded by another thread while waiting for the lock
+            if (snapshot.isLoaded()) {
+                return snapshot;
+            }
+            final List<SubscriptionDetail> sdl = updateAccountSubscriptionList();
+            snapshot = snapshot.next(sdl);
+            return snapshot;
         }
-        this.subscriptionIdToSubscriptionDetailMap = sid2sd;
     }
 
     public void setSubscriptionDetails(List<SubscriptionDetail> subscriptionDetails) {
-        System.out.println("SubscriptionManager.setSubscriptionDetails() " + Thread.currentThread().getId());
-        doSetSubscriptionDetails(subscriptionDetails);
-        notifyAllListeners();
+        publishAndNotify(Objects.requireNonNull(subscriptionDetails));
     }
 
-    public synchronized void addListener(ISubscriptionSelectionListener l) {
-        if (!listeners.contains(l)) {
-            listeners.add(l);
-        }
+    public void addListener(ISubscriptionSelectionListener l) {
+        listeners.add(l);
     }
 
-    public synchronized void removeListener(ISubscriptionSelectionListener l) {
+    public void removeListener(ISubscriptionSelectionListener l) {
         listeners.remove(l);
     }
 
-    private void notifyAllListeners() {
+    /**
+     * Publish the details, null for the subscriptions cleaned, then notify the listeners with the changes since the
+     * last notification, including the loading in between.
+     */
+    private void publishAndNotify(List<SubscriptionDetail> subscriptionDetails) {
+        final SubscriptionSnapshot.Diff diff;
+        synchronized (writeLock) {
+            snapshot = snapshot.next(subscriptionDetails);
+            persist(snapshot);
+            diff = snapshot.diff(notified);
+            notified = snapshot;
+        }
         for (ISubscriptionSelectionListener l : listeners) {
-            l.update(subscriptionDetails == null);
+            l.update(diff);
         }
         if (AzureUIRefreshCore.listeners != null) {
             AzureUIRefreshCore.execute(new AzureUIRefreshEvent(AzureUIRefreshEvent.EventType.UPDATE, null));
         }
     }
 
-    public synchronized String getSubscriptionTenant(String sid) {
-        System.out.println(Thread.currentThread().getId() + " SubscriptionManager.getSubscriptionTenant()");
-        return sidToTid.get(sid);
+    /**
+     * Save the published snapshot, it's called in the order of publishing, so it should hand over the slow saving.
+     */
+    protected void persist(@NotNull SubscriptionSnapshot published) {
     }
 
-    public synchronized Set<String> getAccountSidList() {
-        System.out.println(Thread.currentThread().getId() + " SubscriptionManager.getAccountSidList()");
-        return sidToTid.keySet();
+    public String getSubscriptionTenant(String sid) {
+        return snapshot.getSubscriptionTenant(sid);
     }
 
-    public void cleanSubscriptions() {
-        System.out.println(Thread.currentThread().getId() + " SubscriptionManager.cleanSubscriptions()");
-        synchronized (this) {
-            if (subscriptionDetails != null) {
-                subscriptionDetails.clear();
-                subscriptionDetails = null;
-                sidToTid.clear();
-            }
-        }
-        notifyAllListeners();
+    public Set<String> getAccountSidList() {
+        return snapshot.getSubscriptionIds();
     }
 
-    private void updateSidToTidMap() {
-        System.out.println(Thread.currentThread().getId() + " SubscriptionManager.updateSidToTidMap()");
-        sidToTid.clear();
-        for (SubscriptionDetail sd : subscriptionDetails) {
-            sidToTid.put(sd.getSubscriptionId(), sd.getTenantId());
-        }
+    public void cleanSubscriptions() {
+        publishAndNotify(null);
     }
 }
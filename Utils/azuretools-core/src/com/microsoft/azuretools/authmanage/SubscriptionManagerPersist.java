@@ -11,6 +11,7 @@ import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeExcep
 import com.microsoft.azure.toolkit.lib.common.operation.AzureOperation;
 import com.microsoft.azuretools.adauth.JsonHelper;
 import com.microsoft.azuretools.authmanage.models.SubscriptionDetail;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
 import com.microsoft.azuretools.sdkmanage.AzureManager;
 import com.microsoft.azuretools.utils.Pair;
 import lombok.extern.java.Log;
@@ -18,40 +19,74 @@ import lombok.extern.java.Log;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+
+/**
+ * Persists the subscription details to the local cache, the published snapshots are saved on a background thread in
+ * the order of publishing, and the snapshots published before a pending save starts are skipped.
+ */
 @Log
 public class SubscriptionManagerPersist extends SubscriptionManager {
+    private static final ExecutorService persistExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "subscription-persist");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // The latest snapshots to save, keyed by the file name
+    private static final Map<String, SubscriptionSnapshot> pendingSnapshots = new ConcurrentHashMap<>();
 
     public SubscriptionManagerPersist(AzureManager azureManager) {
         super(azureManager);
     }
 
     @Override
-    public void setSubscriptionDetails(List<SubscriptionDetail> subscriptionDetails) {
-        System.out.println(Thread.currentThread().getId() + " SubscriptionManagerPersist.setSubscriptionDetails()");
-        synchronized (this) {
-            final String subscriptionsDetailsFileName = azureManager.getSettings().getSubscriptionsDetailsFileName();
-            try {
-                saveSubscriptions(subscriptionDetails, subscriptionsDetailsFileName);
-            } catch (final IOException e) {
-                final String error = "Failed to update local subscriptions cache while updating";
-                final String action = "Retry later";
-                throw new AzureToolkitRuntimeException(error, e, action);
+    protected void persist(@NotNull SubscriptionSnapshot published) {
+        final String subscriptionsDetailsFileName = azureManager.getSettings().getSubscriptionsDetailsFileName();
+        pendingSnapshots.put(subscriptionsDetailsFileName, published);
+        persistExecutor.execute(() -> persistPending(subscriptionsDetailsFileName));
+    }
+
+    private static void persistPending(String subscriptionsDetailsFileName) {
+        final SubscriptionSnapshot pending = pendingSnapshots.remove(subscriptionsDetailsFileName);
+        if (pending == null) {
+            // Saved with a later snapshot already
+            return;
+        }
+        try {
+            if (pending.isLoaded()) {
+                saveSubscriptions(pending.getSubscriptionDetails(), subscriptionsDetailsFileName);
+            } else {
+                deleteSubscriptionsFile(subscriptionsDetailsFileName);
             }
+        } catch (final IOException | RuntimeException e) {
+            log.log(Level.WARNING, "Failed to update local subscriptions cache " + subscriptionsDetailsFileName, e);
+        }
+    }
+
+    /**
+     * Wait until the published snapshots are saved
+     */
+    private static void awaitPersisted() {
+        try {
+            persistExecutor.submit(() -> { }).get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException e) {
+            // The no-op never fails
         }
-        super.setSubscriptionDetails(subscriptionDetails);
     }
 
     @Override
     @AzureOperation(name = "account|subscription.flush_cache", type = AzureOperation.Type.SERVICE)
     protected List<SubscriptionDetail> updateAccountSubscriptionList() {
-        System.out.println(Thread.currentThread().getId()
-                + "SubscriptionManagerPersist.updateAccountSubscriptionList()");
-        List<SubscriptionDetail> sdl = null;
-        synchronized (this) {
-            String subscriptionsDetailsFileName = azureManager.getSettings().getSubscriptionsDetailsFileName();
-            sdl = loadSubscriptions(subscriptionsDetailsFileName);
-        }
+        // Load what is published last, rather than a file to be saved or deleted
+        awaitPersisted();
+        String subscriptionsDetailsFileName = azureManager.getSettings().getSubscriptionsDetailsFileName();
+        List<SubscriptionDetail> sdl = loadSubscriptions(subscriptionsDetailsFileName);
 
         if (sdl.isEmpty()) {
             return super.updateAccountSubscriptionList();
@@ -79,17 +114,20 @@ public class SubscriptionManagerPersist extends SubscriptionManager {
         return ret;
     }
 
-    @Override
-    public synchronized void cleanSubscriptions() {
-        System.out.println(Thread.currentThread().getId() + " SubscriptionManagerPersist.cleanSubscriptions()");
-        String subscriptionsDetailsFileName = azureManager.getSettings().getSubscriptionsDetailsFileName();
-        deleteSubscriptions(subscriptionsDetailsFileName);
-        super.cleanSubscriptions();
+    @AzureOperation(name = "account|subscription.clear_cache", type = AzureOperation.Type.TASK)
+    public static void deleteSubscriptions(String subscriptionsDetailsFileName) {
+        // Drop the pending save, and wait for the running one, so the file is not written again after deleting
+        pendingSnapshots.remove(subscriptionsDetailsFileName);
+        awaitPersisted();
+        try {
+            deleteSubscriptionsFile(subscriptionsDetailsFileName);
+        } catch (final IOException e) {
+            final String error = "Failed to clear local cached subscriptions";
+            throw new AzureToolkitRuntimeException(error, e);
+        }
     }
 
-    @AzureOperation(name = "account|subscription.clear_cache", type = AzureOperation.Type.TASK)
-    public static synchronized void deleteSubscriptions(String subscriptionsDetailsFileName) {
-        System.out.println("cleaning " + subscriptionsDetailsFileName + " file");
+    private static void deleteSubscriptionsFile(String subscriptionsDetailsFileName) throws IOException {
         FileStorage fs = null;
         try {
             fs = new FileStorage(subscriptionsDetailsFileName, CommonSettings.getSettingsBaseDir());
@@ -97,19 +135,12 @@ public class SubscriptionManagerPersist extends SubscriptionManager {
             log.warning(subscriptionsDetailsFileName + " is not found when try to clean subscriptions");
         }
         if (Objects.nonNull(fs)) {
-            try {
-                fs.cleanFile();
-            } catch (final IOException e) {
-                final String error = "Failed to clear local cached subscriptions";
-                throw new AzureToolkitRuntimeException(error, e);
-            }
+            fs.cleanFile();
         }
     }
 
     @AzureOperation(name = "account|subscription.load_cache", type = AzureOperation.Type.TASK)
     private static List<SubscriptionDetail> loadSubscriptions(String subscriptionsDetailsFileName) {
-        System.out.println("SubscriptionManagerPersist.loadSubscriptions()");
-
         //subscriptionDetails.clear();
         try {
             final FileStorage file = new FileStorage(subscriptionsDetailsFileName, CommonSettings.getSettingsBaseDir());
@@ -131,7 +162,6 @@ public class SubscriptionManagerPersist extends SubscriptionManager {
     @AzureOperation(name = "account|subscription.persist", type = AzureOperation.Type.TASK)
     private static void saveSubscriptions(List<SubscriptionDetail> sdl, String subscriptionsDetailsFileName)
             throws IOException {
-        System.out.println("SubscriptionManagerPersist.saveSubscriptions()");
         String sd = JsonHelper.serialize(sdl);
         FileStorage subscriptionsDetailsFileStorage = new FileStorage(subscriptionsDetailsFileName,
                 CommonSettings.getSettingsBaseDir());
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.authmanage;
+
+import com.microsoft.azuretools.authmanage.models.SubscriptionDetail;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The immutable subscription details of an account at a version. The {@link SubscriptionManager} publishes a new
+ * snapshot on each change, so a snapshot is read without locks. The details are copied in and out, since
+ * {@link SubscriptionDetail} is mutable.
+ */
+public final class SubscriptionSnapshot {
+    /**
+     * The snapshot before the subscriptions are loaded
+     */
+    public static final SubscriptionSnapshot EMPTY = new SubscriptionSnapshot(0, null);
+
+    private final long version;
+    private final boolean isLoaded;
+    // The details keyed by the subscription ID, in the listed order
+    private final Map<String, SubscriptionDetail> details;
+    private final Set<String> subscriptionIds;
+    private final List<String> selectedSubscriptionIds;
+
+    private SubscriptionSnapshot(long version, @Nullable List<SubscriptionDetail> subscriptionDetails) {
+        this.version = version;
+        this.isLoaded = subscriptionDetails != null;
+        final Map<String, SubscriptionDetail> map = new LinkedHashMap<>();
+        if (subscriptionDetails != null) {
+            for (final SubscriptionDetail sd : subscriptionDetails) {
+                map.put(sd.getSubscriptionId(), copy(sd));
+            }
+        }
+        this.details = Collections.unmodifiableMap(map);
+        this.subscriptionIds = Collections.unmodifiableSet(map.keySet());
+        this.selectedSubscriptionIds = Collections.unmodifiableList(map.values().stream()
+                .filter(SubscriptionDetail::isSelected)
+                .map(SubscriptionDetail::getSubscriptionId)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * @param subscriptionDetails the details, or null for the subscriptions cleaned
+     * @return the next version of the snapshot
+     */
+    @NotNull
+    SubscriptionSnapshot next(@Nullable List<SubscriptionDetail> subscriptionDetails) {
+        return new SubscriptionSnapshot(version + 1, subscriptionDetails);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isLoaded() {
+        return isLoaded;
+    }
+
+    /**
+     * @return the copies of the details, which are free to change
+     */
+    @NotNull
+    public List<SubscriptionDetail> getSubscriptionDetails() {
+        return details.values().stream().map(SubscriptionSnapshot::copy).collect(Collectors.toList());
+    }
+
+    @NotNull
+    public List<SubscriptionDetail> getSelectedSubscriptionDetails() {
+        return selectedSubscriptionIds.stream().map(sid -> copy(details.get(sid))).collect(Collectors.toList());
+    }
+
+    @NotNull
+    public Map<String, SubscriptionDetail> getSubscriptionIdToSubscriptionDetailsMap() {
+        final Map<String, SubscriptionDetail> map = new LinkedHashMap<>();
+        details.forEach((sid, sd) -> map.put(sid, copy(sd)));
+        return map;
+    }
+
+    @NotNull
+    public Set<String> getSubscriptionIds() {
+        return subscriptionIds;
+    }
+
+    @NotNull
+    public List<String> getSelectedSubscriptionIds() {
+        return selectedSubscriptionIds;
+    }
+
+    @Nullable
+    public String getSubscriptionTenant(String sid) {
+        final SubscriptionDetail sd = details.get(sid);
+        return sd == null ? null : sd.getTenantId();
+    }
+
+    public boolean isSelected(String sid) {
+        final SubscriptionDetail sd = details.get(sid);
+        return sd != null && sd.isSelected();
+    }
+
+    /**
+     * @return the changes from the previous snapshot to this one
+     */
+    @NotNull
+    public Diff diff(@NotNull SubscriptionSnapshot previous) {
+        final List<String> added = new ArrayList<>();
+        final List<String> removed = new ArrayList<>();
+        final List<String> selected = new ArrayList<>();
+        final List<String> deselected = new ArrayList<>();
+        details.forEach((sid, sd) -> {
+            final SubscriptionDetail old = previous.details.get(sid);
+            if (old == null) {
+                added.add(sid);
+            } else if (old.isSelected() != sd.isSelected()) {
+                (sd.isSelected() ? selected : deselected).add(sid);
+            }
+        });
+        previous.details.keySet().stream().filter(sid -> !details.containsKey(sid)).forEach(removed::add);
+        return new Diff(previous, this, added, removed, selected, deselected);
+    }
+
+    private static SubscriptionDetail copy(SubscriptionDetail sd) {
+        return new SubscriptionDetail(sd.getSubscriptionId(), sd.getSubscriptionName(), sd.getTenantId(),
+                sd.isSelected());
+    }
+
+    /**
+     * The changes between two snapshots, by subscription IDs. The selection changes cover the subscriptions in both.
+     */
+    public static final class Diff {
+        private final SubscriptionSnapshot previous;
+        private final SubscriptionSnapshot current;
+        private final List<String> added;
+        private final List<String> removed;
+        private final List<String> selected;
+        private final List<String> deselected;
+
+        private Diff(SubscriptionSnapshot previous, SubscriptionSnapshot current, List<String> added,
+                     List<String> removed, List<String> selected, List<String> deselected) {
+            this.previous = previous;
+            this.current = current;
+            this.added = Collections.unmodifiableList(added);
+            this.removed = Collections.unmodifiableList(removed);
+            this.selected = Collections.unmodifiableList(selected);
+            this.deselected = Collections.unmodifiableList(deselected);
+        }
+
+        @NotNull
+        public SubscriptionSnapshot getPrevious() {
+            return previous;
+        }
+
+        @NotNull
+        public SubscriptionSnapshot getCurrent() {
+            return current;
+        }
+
+        @NotNull
+        public List<String> getAdded() {
+            return added;
+        }
+
+        @NotNull
+        public List<String> getRemoved() {
+            return removed;
+        }
+
+        @NotNull
+        public List<String> getSelected() {
+            return selected;
+        }
+
+        @NotNull
+        public List<String> getDeselected() {
+            return deselected;
+        }
+
+        /**
+         * @return true if the subscriptions are cleaned, such as signing out
+         */
+        public boolean isCleared() {
+            return !current.isLoaded();
+        }
+
+        public boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty() && selected.isEmpty() && deselected.isEmpty()
+                    && previous.isLoaded() == current.isLoaded();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("v%d -> v%d, added: %s, removed: %s, selected: %s, deselected: %s",
+                    previous.version, current.version, added, removed, selected, deselected);
+        }
+    }
+}
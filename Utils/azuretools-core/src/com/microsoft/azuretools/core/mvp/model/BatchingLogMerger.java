@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model;
+
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import rx.Observable;
+import rx.Subscription;
+import rx.schedulers.Schedulers;
+import rx.subscriptions.CompositeSubscription;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Merge the lines of one or more log streams into batched chunks for a console. The producers put the lines into the
+ * bounded buffers of their streams, and a single flusher sends the lines to the consumer in chunks on a fixed cadence,
+ * merged by the timestamps of the stream heads and tagged by the stream name if there are multiple streams. The lines
+ * of one stream are never reordered.
+ *
+ * A producer which can wait, such as a reader of a log connection, puts a line and is blocked while the buffer is full,
+ * which applies the backpressure to the connection. A producer which can't, such as a live log subscription, offers a
+ * line instead, the full buffer drops its oldest line, and the dropped lines are reported in the chunks.
+ */
+public class BatchingLogMerger implements Closeable {
+    public static final int MAX_BUFFERED_LINES = 10_000;    // Per stream
+    public static final int MAX_CHUNK_CHARS = 256 * 1024;
+    public static final long FLUSH_INTERVAL_MS = 200;
+
+    private final Map<String, LogStream> streams = new LinkedHashMap<>();
+    private final String name;
+    private final long reorderWindowMs;
+    private final int maxBufferedLines;
+    private final long flushIntervalMs;
+    // The arrival order of the lines of the merged sources
+    private final AtomicLong sequence = new AtomicLong();
+    private boolean isTagged = false;
+    private ScheduledExecutorService flusher;
+    private Consumer<String> chunkConsumer;
+    private Runnable onCompleted;
+    private volatile boolean isStarted = false;
+    private volatile boolean isStopped = false;
+
+    private static class LogLine {
+        @NotNull
+        private final String text;
+        private final long timestamp;
+        private final long arrivalTime = System.currentTimeMillis();
+
+        LogLine(@NotNull String text, long timestamp) {
+            this.text = text;
+            this.timestamp = timestamp;
+        }
+    }
+
+    /**
+     * The log stream of the merger, written by the producer of the stream
+     */
+    public static class LogStream {
+        @NotNull
+        private final String name;
+        @NotNull
+        private final LineRing buffer;
+        // The lines drained from the buffer to merge, in the arrival order, accessed by the flusher only
+        private final Deque<LogLine> pending = new ArrayDeque<>();
+        private long reportedDropped = 0;
+        private volatile boolean isEnded = false;
+
+        private LogStream(@NotNull String name, int maxBufferedLines) {
+            this.name = name;
+            this.buffer = new LineRing(maxBufferedLines);
+        }
+
+        /**
+         * Put the line, waiting while the buffer is full
+         *
+         * @param timestamp the sortable timestamp to merge the streams by, such as the log timestamp
+         */
+        public void put(@NotNull String line, long timestamp) throws InterruptedException {
+            buffer.put(new LogLine(line, timestamp));
+        }
+
+        /**
+         * Offer the line without waiting, the oldest line is dropped if the buffer is full
+         *
+         * @param timestamp the sortable timestamp to merge the streams by, such as the log timestamp
+         */
+        public void offer(@NotNull String line, long timestamp) {
+            buffer.offer(new LogLine(line, timestamp));
+        }
+
+        /**
+         * End the stream, the merger completes after all streams are ended and all lines are consumed
+         */
+        public void end() {
+            isEnded = true;
+        }
+
+        public boolean isEnded() {
+            return isEnded;
+        }
+    }
+
+    /**
+     * The bounded buffer, either waiting for the room or overwriting the oldest line when it's full
+     */
+    private static class LineRing {
+        private final LogLine[] lines;
+        private int head = 0;
+        private int size = 0;
+        private long dropped = 0;
+
+        LineRing(int capacity) {
+            this.lines = new LogLine[capacity];
+        }
+
+        synchronized void put(@NotNull LogLine line) throws InterruptedException {
+            while (size == lines.length) {
+                wait();
+            }
+
+            add(line);
+        }
+
+        synchronized void offer(@NotNull LogLine line) {
+            if (size == lines.length) {
+                lines[head] = line;
+                head = (head + 1) % lines.length;
+                dropped++;
+            } else {
+                add(line);
+            }
+        }
+
+        private void add(@NotNull LogLine line) {
+            lines[(head + size) % lines.length] = line;
+            size++;
+        }
+
+        synchronized void drainTo(@NotNull Collection<LogLine> target, int maxLines) {
+            for (; size > 0 && maxLines > 0; size--, maxLines--) {
+                target.add(lines[head]);
+                lines[head] = null;
+                head = (head + 1) % lines.length;
+            }
+
+            notifyAll();
+        }
+
+        synchronized boolean isEmpty() {
+            return size == 0;
+        }
+
+        synchronized long getDropped() {
+            return dropped;
+        }
+
+        synchronized void clear() {
+            Arrays.fill(lines, null);
+            head = 0;
+            size = 0;
+            notifyAll();
+        }
+    }
+
+    /**
+     * @param name the name of the flusher thread
+     * @param reorderWindowMs how long a line is held to be merged with the later arriving lines of other streams
+     */
+    public BatchingLogMerger(@NotNull String name, long reorderWindowMs) {
+        this(name, reorderWindowMs, MAX_BUFFERED_LINES, FLUSH_INTERVAL_MS);
+    }
+
+    public BatchingLogMerger(@NotNull String name, long reorderWindowMs, int maxBufferedLines, long flushIntervalMs) {
+        this.name = name;
+        this.reorderWindowMs = reorderWindowMs;
+        this.maxBufferedLines = maxBufferedLines;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    /**
+     * Add a stream before starting
+     */
+    @NotNull
+    public synchronized LogStream addStream(@NotNull String streamName) {
+        final LogStream stream = new LogStream(streamName, maxBufferedLines);
+        streams.put(streamName, stream);
+        isTagged = streams.size() > 1;
+        return stream;
+    }
+
+    /**
+     * Add a stream for each live log source before starting, and subscribe to the sources. The lines are offered as
+     * they arrive, merged in the arrival order across the sources and tagged by the stream name if there are multiple
+     * streams. An erroneous source ends its stream with the error line.
+     *
+     * @param sources the log lines by the stream name, such as the apps or slots
+     * @return the subscription of the sources, to be unsubscribed when closing
+     */
+    @NotNull
+    public synchronized Subscription merge(@NotNull Map<String, Observable<String>> sources) {
+        final CompositeSubscription subscriptions = new CompositeSubscription();
+
+        sources.forEach((streamName, source) -> {
+            final LogStream stream = addStream(streamName);
+            subscriptions.add(source
+                    .subscribeOn(Schedulers.io())
+                    .subscribe(line -> stream.offer(line, sequence.getAndIncrement()), error -> {
+                        stream.offer("Streaming Log is interrupted due to error : " + error.getMessage(),
+                                     sequence.getAndIncrement());
+                        stream.end();
+                    }, stream::end));
+        });
+
+        return subscriptions;
+    }
+
+    /**
+     * Start flushing the streams
+     *
+     * @param chunkConsumer the consumer of the merged lines chunks, called on the flusher thread
+     * @param onCompleted the callback after all streams are ended and all lines are consumed
+     */
+    public synchronized void start(@NotNull Consumer<String> chunkConsumer, @NotNull Runnable onCompleted) {
+        this.chunkConsumer = chunkConsumer;
+        this.onCompleted = onCompleted;
+        this.isStarted = true;
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return true if it's started, and neither closed nor completed
+     */
+    public boolean isStreaming() {
+        return isStarted && !isStopped;
+    }
+
+    public boolean isStopped() {
+        return isStopped;
+    }
+
+    @Override
+    public synchronized void close() {
+        isStopped = true;
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+
+        // Wake up the producers waiting for the room
+        streams.values().forEach(stream -> stream.buffer.clear());
+    }
+
+    /**
+     * @return the count of the lines dropped from the full buffers
+     */
+    public long getDroppedCount() {
+        return streams.values().stream().mapToLong(stream -> stream.buffer.getDropped()).sum();
+    }
+
+    /*
+     * Helpers
+     */
+
+    /**
+     * Pick the stream whose pending head comes first, only the heads are compared to keep the order of each stream
+     */
+    private @Nullable LogStream nextStream() {
+        LogStream next = null;
+
+        for (final LogStream stream : streams.values()) {
+            final LogLine head = stream.pending.peek();
+            if (head != null && (next == null || head.timestamp < next.pending.peek().timestamp)) {
+                next = stream;
+            }
+        }
+
+        return next;
+    }
+
+    private StringBuilder appendTag(@NotNull StringBuilder chunk, @NotNull LogStream stream) {
+        return isTagged ? chunk.append('[').append(stream.name).append("] ") : chunk;
+    }
+
+    void flush() {
+        try {
+            final boolean isAllEnded = streams.values().stream().allMatch(stream -> stream.isEnded);
+            final StringBuilder chunk = new StringBuilder();
+
+            for (final LogStream stream : streams.values()) {
+                // Keep the merging buffer bounded too, the rest are kept in the stream buffer
+                stream.buffer.drainTo(stream.pending, maxBufferedLines - stream.pending.size());
+
+                final long dropped = stream.buffer.getDropped();
+                if (dropped > stream.reportedDropped) {
+                    appendTag(chunk, stream).append(String.format(
+                            "... %d lines dropped, the log is produced faster than it can be shown\n",
+                            dropped - stream.reportedDropped));
+                    stream.reportedDropped = dropped;
+                }
+            }
+
+            // All lines are ready once the streams are ended, no more lines to reorder
+            final long readyTime = isAllEnded ? Long.MAX_VALUE : System.currentTimeMillis() - reorderWindowMs;
+            LogStream next;
+
+            while (chunk.length() < MAX_CHUNK_CHARS && (next = nextStream()) != null
+                    && next.pending.peek().arrivalTime <= readyTime) {
+                appendTag(chunk, next).append(next.pending.poll().text).append('\n');
+            }
+
+            if (chunk.length() > 0 && !isStopped) {
+                chunkConsumer.accept(chunk.toString());
+            }
+
+            if (isAllEnded && !isStopped
+                    && streams.values().stream().allMatch(s -> s.pending.isEmpty() && s.buffer.isEmpty())) {
+                isStopped = true;
+                flusher.shutdown();
+                onCompleted.run();
+            }
+        } catch (RuntimeException ex) {
+            // Keep the scheduled flushing alive
+            if (!isStopped) {
+                chunkConsumer.accept("Streaming Log failed due to error : " + ex.getMessage() + "\n");
+            }
+        }
+    }
+}
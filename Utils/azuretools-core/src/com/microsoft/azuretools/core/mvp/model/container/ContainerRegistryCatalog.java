@@ -0,0 +1,468 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.container;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import okhttp3.Credentials;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Paged catalog of the repositories and tags of Docker Registry v2 registries.
+ * <ul>
+ * <li>one HTTP client is shared per registry and credential, the clients share the connection pool</li>
+ * <li>pages are cached, served within {@link #FRESH_TTL} and revalidated with their ETag afterwards</li>
+ * <li>listing a page prefetches the next pages of its <code>Link</code> header in the background</li>
+ * <li>page bodies are parsed as a stream, without reading the whole body into a string</li>
+ * </ul>
+ */
+public class ContainerRegistryCatalog {
+    private static final Logger LOGGER = Logger.getLogger(ContainerRegistryCatalog.class.getName());
+    public static final int DEFAULT_PAGE_SIZE = 30;
+    static final long FRESH_TTL = TimeUnit.MINUTES.toMillis(1);
+    private static final long EXPIRE_AFTER_ACCESS_MINUTES = 30;
+    private static final int MAX_CACHED_PAGES = 1000;
+    private static final int PREFETCH_PAGES = 2;
+    private static final int PREFETCH_THREADS = 4;
+    private static final String CATALOG_PATH = "v2/_catalog";
+    private static final String TAGS_PATH = "v2/%s/tags/list";
+    private static final String REPOSITORIES_FIELD = "repositories";
+    private static final String TAGS_FIELD = "tags";
+    static final String KEY_PAGE_SIZE = "n";
+    static final String KEY_LAST = "last";
+    private static final String SEPARATOR = "|";
+    private static final String RESPONSE_FAIL_MSG = "Unexpected response %d from %s. please make sure the admin user "
+            + "is enabled and try again";
+
+    private final PageFetcher fetcher;
+    private final Executor prefetchExecutor;
+    private final LongSupplier clock;
+    private final Cache<String, CachedPage> pages = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_PAGES)
+            .expireAfterAccess(EXPIRE_AFTER_ACCESS_MINUTES, TimeUnit.MINUTES)
+            .build();
+    // The pages being fetched, so the listing joins the prefetch of the same page instead of fetching it again
+    private final Map<String, CompletableFuture<CachedPage>> fetching = new ConcurrentHashMap<>();
+
+    /**
+     * A page of repositories or tags, with the <code>last</code> marker of the next page
+     */
+    public static class Page {
+        private final List<String> items;
+        private final String next;
+
+        Page(@NotNull List<String> items, @Nullable String next) {
+            this.items = Collections.unmodifiableList(items);
+            this.next = next;
+        }
+
+        @NotNull
+        public List<String> getItems() {
+            return items;
+        }
+
+        /**
+         * @return the <code>last</code> marker of the next page, or null if it's the last page
+         */
+        @Nullable
+        public String getNext() {
+            return next;
+        }
+    }
+
+    /**
+     * The registry HTTP transport, which is replaced by a local registry stand-in in tests
+     */
+    interface PageFetcher {
+        @NotNull
+        PageResponse fetch(@NotNull String serverUrl, @NotNull String username, @NotNull String password,
+                           @NotNull String path, @NotNull Map<String, String> query, @Nullable String etag)
+                throws IOException;
+    }
+
+    static class PageResponse implements Closeable {
+        private final int code;
+        private final String etag;
+        private final String link;
+        private final InputStream body;
+        private final Closeable resource;
+
+        PageResponse(int code, @Nullable String etag, @Nullable String link, @Nullable InputStream body,
+                     @Nullable Closeable resource) {
+            this.code = code;
+            this.etag = etag;
+            this.link = link;
+            this.body = body == null ? new ByteArrayInputStream(new byte[0]) : body;
+            this.resource = resource == null ? this.body : resource;
+        }
+
+        @Override
+        public void close() throws IOException {
+            resource.close();
+        }
+    }
+
+    private static class CachedPage {
+        private final List<String> items;
+        private final String next;
+        private final String etag;
+        private final long fetchedTime;
+
+        CachedPage(List<String> items, String next, String etag, long fetchedTime) {
+            this.items = items;
+            this.next = next;
+            this.etag = etag;
+            this.fetchedTime = fetchedTime;
+        }
+
+        CachedPage withFetchedTime(long time) {
+            return new CachedPage(items, next, etag, time);
+        }
+    }
+
+    ContainerRegistryCatalog(@NotNull PageFetcher fetcher, @NotNull Executor prefetchExecutor,
+                             @NotNull LongSupplier clock) {
+        this.fetcher = fetcher;
+        this.prefetchExecutor = prefetchExecutor;
+        this.clock = clock;
+    }
+
+    private static final class ContainerRegistryCatalogHolder {
+        private static final ContainerRegistryCatalog INSTANCE = new ContainerRegistryCatalog(
+                new OkHttpPageFetcher(), newPrefetchExecutor(), System::currentTimeMillis);
+    }
+
+    public static ContainerRegistryCatalog getInstance() {
+        return ContainerRegistryCatalogHolder.INSTANCE;
+    }
+
+    private static Executor newPrefetchExecutor() {
+        final AtomicLong counter = new AtomicLong();
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(PREFETCH_THREADS, PREFETCH_THREADS, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    final Thread thread = new Thread(runnable, "container-registry-catalog-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * List a page of the repositories of the registry.
+     *
+     * @param last the <code>last</code> marker of the page, null or empty for the first page
+     */
+    @NotNull
+    public Page listRepositories(@NotNull String serverUrl, @NotNull String username, @NotNull String password,
+                                 @Nullable String last, int pageSize) throws IOException {
+        return list(serverUrl, username, password, CATALOG_PATH, REPOSITORIES_FIELD, last, pageSize);
+    }
+
+    /**
+     * List a page of the tags of the repository.
+     *
+     * @param last the <code>last</code> marker of the page, null or empty for the first page
+     */
+    @NotNull
+    public Page listTags(@NotNull String serverUrl, @NotNull String username, @NotNull String password,
+                         @NotNull String repo, @Nullable String last, int pageSize) throws IOException {
+        return list(serverUrl, username, password, String.format(TAGS_PATH, repo), TAGS_FIELD, last, pageSize);
+    }
+
+    /**
+     * Revalidate the cached pages of the registry on the next listing, such as when the user refreshes it.
+     */
+    public void expire(@NotNull String serverUrl) {
+        final String prefix = serverUrl + SEPARATOR;
+        final long staleTime = clock.getAsLong() - FRESH_TTL;
+        for (final Map.Entry<String, CachedPage> entry : pages.asMap().entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                pages.asMap().replace(entry.getKey(), entry.getValue(), entry.getValue().withFetchedTime(staleTime));
+            }
+        }
+    }
+
+    @NotNull
+    private Page list(@NotNull String serverUrl, @NotNull String username, @NotNull String password,
+                      @NotNull String path, @NotNull String field, @Nullable String last, int pageSize)
+            throws IOException {
+        final CachedPage page = getPage(serverUrl, username, password, path, field, last, pageSize);
+        prefetch(serverUrl, username, password, path, field, page.next, pageSize, PREFETCH_PAGES);
+        return new Page(page.items, page.next);
+    }
+
+    private void prefetch(@NotNull String serverUrl, @NotNull String username, @NotNull String password,
+                          @NotNull String path, @NotNull String field, @Nullable String last, int pageSize,
+                          int remainingPages) {
+        if (StringUtils.isEmpty(last) || remainingPages <= 0) {
+            return;
+        }
+        final String key = getKey(serverUrl, username, password, path, last, pageSize);
+        if (isFresh(pages.getIfPresent(key)) || fetching.containsKey(key)) {
+            return;
+        }
+        prefetchExecutor.execute(() -> {
+            try {
+                final CachedPage page = getPage(serverUrl, username, password, path, field, last, pageSize);
+                prefetch(serverUrl, username, password, path, field, page.next, pageSize, remainingPages - 1);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.FINE, "Failed to prefetch " + key, e);
+            }
+        });
+    }
+
+    @NotNull
+    private CachedPage getPage(@NotNull String serverUrl, @NotNull String username, @NotNull String password,
+                               @NotNull String path, @NotNull String field, @Nullable String last, int pageSize)
+            throws IOException {
+        final String key = getKey(serverUrl, username, password, path, last, pageSize);
+        final CachedPage cached = pages.getIfPresent(key);
+        if (isFresh(cached)) {
+            return cached;
+        }
+
+        final CompletableFuture<CachedPage> future = new CompletableFuture<>();
+        final CompletableFuture<CachedPage> inflight = fetching.putIfAbsent(key, future);
+        if (inflight != null) {
+            return join(inflight);
+        }
+        try {
+            final CachedPage fetched = fetchPage(serverUrl, username, password, path, field, last, pageSize, cached);
+            pages.put(key, fetched);
+            future.complete(fetched);
+            return fetched;
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            fetching.remove(key, future);
+        }
+    }
+
+    @NotNull
+    private CachedPage fetchPage(@NotNull String serverUrl, @NotNull String username, @NotNull String password,
+                                 @NotNull String path, @NotNull String field, @Nullable String last, int pageSize,
+                                 @Nullable CachedPage cached) throws IOException {
+        final Map<String, String> query = new LinkedHashMap<>();
+        query.put(KEY_PAGE_SIZE, String.valueOf(pageSize));
+        if (StringUtils.isNotEmpty(last)) {
+            query.put(KEY_LAST, last);
+        }
+        final String etag = cached == null ? null : cached.etag;
+        try (PageResponse response = fetcher.fetch(serverUrl, username, password, path, query, etag)) {
+            if (response.code == 304 && cached != null) {
+                return cached.withFetchedTime(clock.getAsLong());
+            }
+            if (response.code < 200 || response.code >= 300) {
+                throw new IOException(String.format(RESPONSE_FAIL_MSG, response.code, serverUrl));
+            }
+            return new CachedPage(parseItems(response.body, field), parseNext(response.link), response.etag,
+                                  clock.getAsLong());
+        }
+    }
+
+    private boolean isFresh(@Nullable CachedPage page) {
+        return page != null && clock.getAsLong() - page.fetchedTime < FRESH_TTL;
+    }
+
+    @NotNull
+    private static CachedPage join(@NotNull CompletableFuture<CachedPage> inflight) throws IOException {
+        try {
+            return inflight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the registry page");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * The pages are keyed by the credential too, so the pages listed with a revoked credential are never served with
+     * another one, the credential is hashed to keep the password out of the key
+     */
+    @NotNull
+    private static String getKey(@NotNull String serverUrl, @NotNull String username, @NotNull String password,
+                                 @NotNull String path, @Nullable String last, int pageSize) {
+        return String.join(SEPARATOR, serverUrl, DigestUtils.sha256Hex(username + SEPARATOR + password), path,
+                           StringUtils.defaultString(last), String.valueOf(pageSize));
+    }
+
+    /**
+     * Read the string array field of the page body, the other fields are skipped.
+     */
+    @NotNull
+    static List<String> parseItems(@NotNull InputStream body, @NotNull String field) throws IOException {
+        final List<String> items = new ArrayList<>();
+        try (JsonReader reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (field.equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        items.add(reader.nextString());
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException e) {
+            throw new IOException("Unexpected registry response body", e);
+        }
+        return items;
+    }
+
+    /**
+     * Parse the <code>last</code> marker from the <code>Link</code> header, such as
+     * <code>&lt;/v2/_catalog?last=b&amp;n=30&gt;; rel="next"</code>.
+     */
+    @Nullable
+    static String parseNext(@Nullable String link) {
+        if (link == null) {
+            return null;
+        }
+        final int start = link.indexOf('<') + 1;
+        final int end = link.indexOf('>', start);
+        if (start <= 0 || end < 0) {
+            return null;
+        }
+        try {
+            final String query = new URI(link.substring(start, end)).getRawQuery();
+            if (query == null) {
+                return null;
+            }
+            for (final String parameter : query.split("&")) {
+                final int separator = parameter.indexOf('=');
+                if (separator > 0 && KEY_LAST.equals(parameter.substring(0, separator))) {
+                    return URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8.name());
+                }
+            }
+        } catch (URISyntaxException | UnsupportedEncodingException | IllegalArgumentException e) {
+            LOGGER.log(Level.FINE, "Invalid link header " + link, e);
+        }
+        return null;
+    }
+
+    static class OkHttpPageFetcher implements PageFetcher {
+        private static final String HTTPS = "https";
+        private static final String HEADER_AUTH = "Authorization";
+        private static final String HEADER_ETAG = "ETag";
+        private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+        private static final String HEADER_LINK = "Link";
+
+        private final String scheme;
+        private final OkHttpClient baseClient = new OkHttpClient();
+        private final Map<String, RegistryClient> clients = new ConcurrentHashMap<>();
+
+        OkHttpPageFetcher() {
+            this(HTTPS);
+        }
+
+        /**
+         * @param scheme the scheme of the registry URL, which is plain http for the local registry in tests
+         */
+        OkHttpPageFetcher(@NotNull String scheme) {
+            this.scheme = scheme;
+        }
+
+        private static class RegistryClient {
+            private final String password;
+            private final OkHttpClient client;
+
+            RegistryClient(String password, OkHttpClient client) {
+                this.password = password;
+                this.client = client;
+            }
+        }
+
+        @NotNull
+        @Override
+        public PageResponse fetch(@NotNull String serverUrl, @NotNull String username, @NotNull String password,
+                                  @NotNull String path, @NotNull Map<String, String> query, @Nullable String etag)
+                throws IOException {
+            // The login server may have a port, such as a registry hosted on premises
+            final HttpUrl serverHttpUrl = HttpUrl.parse(scheme + "://" + serverUrl);
+            if (serverHttpUrl == null) {
+                throw new IOException("Invalid registry login server " + serverUrl);
+            }
+            final HttpUrl.Builder urlBuilder = serverHttpUrl.newBuilder().addPathSegments(path);
+            query.forEach(urlBuilder::addQueryParameter);
+            final Request.Builder requestBuilder = new Request.Builder().url(urlBuilder.build()).get();
+            if (etag != null) {
+                requestBuilder.header(HEADER_IF_NONE_MATCH, etag);
+            }
+
+            final Response response = getClient(serverUrl, username, password).newCall(requestBuilder.build())
+                                                                               .execute();
+            final ResponseBody body = response.body();
+            return new PageResponse(response.code(), response.header(HEADER_ETAG), response.header(HEADER_LINK),
+                                    body == null ? null : body.byteStream(), response);
+        }
+
+        @NotNull
+        private OkHttpClient getClient(@NotNull String serverUrl, @NotNull String username, @NotNull String password) {
+            // A changed password, such as the regenerated admin password, replaces the client of the registry
+            return clients.compute(serverUrl + SEPARATOR + username, (key, existing) ->
+                    existing != null && existing.password.equals(password) ? existing
+                            : new RegistryClient(password, createClient(username, password))).client;
+        }
+
+        @NotNull
+        private OkHttpClient createClient(@NotNull String username, @NotNull String password) {
+            final String credential = Credentials.basic(username, password);
+            // Send the credential preemptively, saving the challenge round trip of every page
+            return baseClient.newBuilder()
+                    .addInterceptor(chain -> chain.proceed(chain.request().newBuilder()
+                                                                .header(HEADER_AUTH, credential)
+                                                                .build()))
+                    .build();
+        }
+    }
+}
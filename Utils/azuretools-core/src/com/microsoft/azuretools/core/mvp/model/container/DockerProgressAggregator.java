@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.container;
+
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Aggregates the Docker build, push and pull progress messages by layer, and renders them at a fixed frame rate.
+ * <ul>
+ * <li>the messages of a layer update its state and byte counts, a frame summarizing the layers is rendered at most
+ * once every {@link #DEFAULT_FRAME_INTERVAL_MS}</li>
+ * <li>the messages without a layer, such as the build steps, are rendered right away after the pending frame</li>
+ * <li>the total throughput is smoothed over the frames, the ETA is estimated from it</li>
+ * </ul>
+ * The progress callbacks of the Spotify docker client are adapted to {@link #update} by the IDE handlers.
+ */
+public class DockerProgressAggregator {
+    public static final long DEFAULT_FRAME_INTERVAL_MS = 250;
+    // The weight of the latest frame in the smoothed throughput
+    private static final double THROUGHPUT_SMOOTHING = 0.3;
+    private static final int SHORT_ID_LENGTH = 12;
+    private static final int MAX_ACTIVE_LAYERS_RENDERED = 4;
+    private static final List<String> DONE_STATUSES = Arrays.asList("pushed", "layer already exists",
+            "already exists", "pull complete", "download complete", "mounted from");
+    // The statuses with the image tag as the ID, rather than a layer
+    private static final List<String> HEADER_STATUSES = Arrays.asList("pulling from");
+    private static final String[] UNITS = {"B", "KB", "MB", "GB", "TB"};
+
+    private final Consumer<String> renderer;
+    private final LongSupplier clock;
+    private final long frameIntervalMs;
+    private final Map<String, LayerState> layers = new LinkedHashMap<>();
+    private boolean isDirty = false;
+    private long lastFrameTime = -1;
+    private long lastFrameTransferred = 0;
+    private double bytesPerSecond = 0;
+
+    private static class LayerState {
+        private String status;
+        private long current;
+        private long total;
+        private boolean isDone;
+    }
+
+    public DockerProgressAggregator(@NotNull Consumer<String> renderer) {
+        this(renderer, System::currentTimeMillis, DEFAULT_FRAME_INTERVAL_MS);
+    }
+
+    DockerProgressAggregator(@NotNull Consumer<String> renderer, @NotNull LongSupplier clock, long frameIntervalMs) {
+        this.renderer = renderer;
+        this.clock = clock;
+        this.frameIntervalMs = frameIntervalMs;
+    }
+
+    /**
+     * Update with a progress message.
+     *
+     * @param id the layer ID, null for the messages not about a layer
+     * @param current the bytes transferred of the layer, if reported
+     * @param total the total bytes of the layer, if reported
+     */
+    public synchronized void update(@Nullable String id, @Nullable String status, @Nullable String stream,
+                                    @Nullable Long current, @Nullable Long total) {
+        if (StringUtils.isEmpty(id) || hasStatus(status, HEADER_STATUSES)) {
+            flush();
+            final String line = StringUtils.trim(StringUtils.defaultString(stream, status));
+            if (StringUtils.isNotEmpty(line)) {
+                renderer.accept(StringUtils.isEmpty(id) ? line : id + ": " + line);
+            }
+            return;
+        }
+
+        final LayerState layer = layers.computeIfAbsent(id, key -> new LayerState());
+        layer.status = status;
+        // The bytes of a done layer are transferred already, such as extracting a downloaded layer
+        if (!layer.isDone) {
+            if (total != null && total > 0) {
+                layer.total = total;
+            }
+            if (current != null) {
+                layer.current = layer.total > 0 ? Math.min(current, layer.total) : current;
+            }
+            if (hasStatus(status, DONE_STATUSES)) {
+                layer.isDone = true;
+                layer.current = Math.max(layer.current, layer.total);
+            }
+        }
+        isDirty = true;
+
+        final long now = clock.getAsLong();
+        if (lastFrameTime < 0) {
+            // The first layer message starts the throughput measurement
+            lastFrameTime = now;
+            lastFrameTransferred = getTransferredBytes();
+        } else if (now - lastFrameTime >= frameIntervalMs) {
+            renderFrame(now);
+        }
+    }
+
+    /**
+     * Render the pending frame, such as when the build or push completes.
+     */
+    public synchronized void flush() {
+        if (isDirty) {
+            renderFrame(clock.getAsLong());
+        }
+    }
+
+    public synchronized long getTransferredBytes() {
+        return layers.values().stream().mapToLong(layer -> layer.current).sum();
+    }
+
+    /**
+     * @return the total bytes of the layers with the size reported
+     */
+    public synchronized long getTotalBytes() {
+        return layers.values().stream().mapToLong(layer -> layer.total).sum();
+    }
+
+    public synchronized double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * @return the estimated seconds to complete, or -1 if unknown
+     */
+    public synchronized long getEtaSeconds() {
+        final long remaining = getTotalBytes() - getTransferredBytes();
+        if (remaining <= 0) {
+            return layers.values().stream().allMatch(layer -> layer.isDone) ? 0 : -1;
+        }
+        return bytesPerSecond > 0 ? (long) Math.ceil(remaining / bytesPerSecond) : -1;
+    }
+
+    private void renderFrame(long now) {
+        final long transferred = getTransferredBytes();
+        final long elapsed = now - lastFrameTime;
+        if (elapsed > 0) {
+            final double frameRate = Math.max(0, transferred - lastFrameTransferred) * 1000.0 / elapsed;
+            bytesPerSecond = bytesPerSecond == 0 ? frameRate
+                    : THROUGHPUT_SMOOTHING * frameRate + (1 - THROUGHPUT_SMOOTHING) * bytesPerSecond;
+            lastFrameTime = now;
+            lastFrameTransferred = transferred;
+        }
+        isDirty = false;
+        renderer.accept(renderSummary());
+    }
+
+    /**
+     * Render like <code>[2/5 layers] 45.2 MB / 120.0 MB, 12.3 MB/s, ETA 7s | 5d4c2e8a1b3f: Pushing 40%</code>
+     */
+    @NotNull
+    String renderSummary() {
+        final long done = layers.values().stream().filter(layer -> layer.isDone).count();
+        final StringBuilder summary = new StringBuilder(String.format(Locale.ROOT, "[%d/%d layers] %s / %s", done,
+                layers.size(), formatBytes(getTransferredBytes()), formatBytes(getTotalBytes())));
+        if (done < layers.size()) {
+            summary.append(", ").append(formatBytes((long) bytesPerSecond)).append("/s");
+            final long eta = getEtaSeconds();
+            if (eta >= 0) {
+                summary.append(", ETA ").append(eta).append('s');
+            }
+        }
+
+        int rendered = 0;
+        for (final Map.Entry<String, LayerState> entry : layers.entrySet()) {
+            final LayerState layer = entry.getValue();
+            if (layer.isDone) {
+                continue;
+            }
+            if (rendered++ == MAX_ACTIVE_LAYERS_RENDERED) {
+                summary.append(" | ...");
+                break;
+            }
+            summary.append(" | ").append(StringUtils.left(entry.getKey(), SHORT_ID_LENGTH)).append(": ")
+                   .append(StringUtils.defaultString(layer.status));
+            if (layer.total > 0) {
+                summary.append(' ').append(layer.current * 100 / layer.total).append('%');
+            }
+        }
+        return summary.toString();
+    }
+
+    private static boolean hasStatus(@Nullable String status, @NotNull List<String> prefixes) {
+        final String lowerCase = StringUtils.lowerCase(StringUtils.trim(status), Locale.ROOT);
+        return lowerCase != null && prefixes.stream().anyMatch(lowerCase::startsWith);
+    }
+
+    @NotNull
+    static String formatBytes(long bytes) {
+        double value = bytes;
+        int unit = 0;
+        while (value >= 1024 && unit < UNITS.length - 1) {
+            value /= 1024;
+            unit++;
+        }
+        return unit == 0 ? bytes + " B" : String.format(Locale.ROOT, "%.1f %s", value, UNITS[unit]);
+    }
+}
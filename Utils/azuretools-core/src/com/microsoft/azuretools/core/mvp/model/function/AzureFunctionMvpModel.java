@@ -14,6 +14,7 @@ import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeExcep
 import com.microsoft.azure.toolkit.lib.common.operation.AzureOperation;
 import com.microsoft.azuretools.authmanage.AuthMethodManager;
 import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
 import com.microsoft.azuretools.core.mvp.model.AzureMvpModel;
 import com.microsoft.azuretools.core.mvp.model.ResourceEx;
 import com.microsoft.azuretools.core.mvp.model.webapp.AppServiceUtils;
@@ -44,7 +45,7 @@ public class AzureFunctionMvpModel {
         type = AzureOperation.Type.SERVICE
     )
     public FunctionApp getFunctionById(String sid, String id) throws AzureToolkitRuntimeException {
-        final FunctionApp app = getFunctionAppsClient(sid).getById(id);
+        final FunctionApp app = getNullableFunctionById(sid, id);
         if (Objects.isNull(app)) {
             final String error = String.format("cannot find FunctionApp[%s] in subscription[%s]", ResourceUtils.nameFromResourceId(id), sid);
             final String action = String.format("confirm if the FunctionApp[id=%s] still exists", ResourceUtils.nameFromResourceId(id));
@@ -53,6 +54,14 @@ public class AzureFunctionMvpModel {
         return app;
     }
 
+    /**
+     * get the function app by ID, null if it does not exist.
+     */
+    @Nullable
+    public FunctionApp getNullableFunctionById(String sid, String id) {
+        return getFunctionAppsClient(sid).getById(id);
+    }
+
     @AzureOperation(
         name = "function.get_detail",
         params = {"$name", "$sid"},
@@ -235,7 +244,7 @@ public class AzureFunctionMvpModel {
         params = {"$subscriptionId"},
         type = AzureOperation.Type.SERVICE
     )
-    private List<ResourceEx<FunctionApp>> listFunctionsInSubscription(final String subscriptionId, final boolean forceReload) {
+    public List<ResourceEx<FunctionApp>> listFunctionsInSubscription(final String subscriptionId, final boolean forceReload) {
         if (!forceReload && subscriptionIdToFunctionApps.get(subscriptionId) != null) {
             return subscriptionIdToFunctionApps.get(subscriptionId);
         }
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.resourcegraph;
+
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.core.mvp.model.ResourceEx;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Lists the resources of several types across all the given subscriptions with one paged Azure Resource Graph query,
+ * instead of one management <code>list()</code> call per resource type and subscription.
+ */
+public class ResourceGraphMvpModel {
+    // documented limits of a single Resource Graph request
+    private static final int PAGE_SIZE = 1000;
+    private static final int MAX_SUBSCRIPTIONS_PER_QUERY = 1000;
+    private static final String QUERY = "Resources | where type in~ (%s) "
+            + "| project id, name, type, kind, resourceGroup, subscriptionId, "
+            + "provisioningState = tostring(properties.provisioningState) "
+            + "| order by id asc";
+
+    private final ResourceGraphTransport transport;
+
+    ResourceGraphMvpModel(@NotNull ResourceGraphTransport transport) {
+        this.transport = transport;
+    }
+
+    private static final class ResourceGraphMvpModelHolder {
+        private static final ResourceGraphMvpModel INSTANCE = new ResourceGraphMvpModel(new RestResourceGraphTransport());
+    }
+
+    public static ResourceGraphMvpModel getInstance() {
+        return ResourceGraphMvpModelHolder.INSTANCE;
+    }
+
+    /**
+     * Lists the resources of the given types, grouped by their lower-cased resource type.
+     *
+     * @param subscriptionIds subscriptions to query
+     * @param types           ARM resource types, e.g. <code>microsoft.web/sites</code>
+     */
+    @NotNull
+    public Map<String, List<ResourceEx<ResourceGraphRow>>> listResources(@NotNull Collection<String> subscriptionIds,
+                                                                          @NotNull Collection<String> types) {
+        final Map<String, List<ResourceEx<ResourceGraphRow>>> result = new HashMap<>();
+        types.forEach(type -> result.put(type.toLowerCase(Locale.ROOT), new ArrayList<>()));
+        if (subscriptionIds.isEmpty() || types.isEmpty()) {
+            return result;
+        }
+        final String query = buildQuery(types);
+        final List<String> sids = new ArrayList<>(subscriptionIds);
+        for (int from = 0; from < sids.size(); from += MAX_SUBSCRIPTIONS_PER_QUERY) {
+            final List<String> batch = sids.subList(from, Math.min(from + MAX_SUBSCRIPTIONS_PER_QUERY, sids.size()));
+            String skipToken = null;
+            do {
+                final ResourceGraphResult page = transport.query(
+                        new ResourceGraphQuery(new ArrayList<>(batch), query, PAGE_SIZE, skipToken));
+                if (page.getData() != null) {
+                    for (final ResourceGraphRow row : page.getData()) {
+                        final List<ResourceEx<ResourceGraphRow>> rows = result.get(StringUtils.lowerCase(row.getType(), Locale.ROOT));
+                        if (rows != null) {
+                            rows.add(new ResourceEx<>(row, row.getSubscriptionId()));
+                        }
+                    }
+                }
+                skipToken = page.getSkipToken();
+            } while (StringUtils.isNotEmpty(skipToken) && !Thread.currentThread().isInterrupted());
+        }
+        return result;
+    }
+
+    static String buildQuery(Collection<String> types) {
+        final String typeList = types.stream()
+                .map(type -> "'" + type.toLowerCase(Locale.ROOT).replace("'", "") + "'")
+                .distinct()
+                .collect(Collectors.joining(", "));
+        return String.format(QUERY, typeList);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.resourcegraph;
+
+import com.google.gson.annotations.SerializedName;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Request body of the Resource Graph <code>resources</code> API.
+ */
+@Getter
+public class ResourceGraphQuery {
+    @SerializedName("subscriptions")
+    private final List<String> subscriptions;
+
+    @SerializedName("query")
+    private final String query;
+
+    @SerializedName("options")
+    private final Options options;
+
+    public ResourceGraphQuery(List<String> subscriptions, String query, int top, String skipToken) {
+        this.subscriptions = subscriptions;
+        this.query = query;
+        this.options = new Options(top, skipToken);
+    }
+
+    @Getter
+    public static class Options {
+        @SerializedName("$top")
+        private final int top;
+
+        @SerializedName("$skipToken")
+        private final String skipToken;
+
+        @SerializedName("resultFormat")
+        private final String resultFormat = "objectArray";
+
+        Options(int top, String skipToken) {
+            this.top = top;
+            this.skipToken = skipToken;
+        }
+    }
+}
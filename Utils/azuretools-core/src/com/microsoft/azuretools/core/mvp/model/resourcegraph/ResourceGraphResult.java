@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.resourcegraph;
+
+import com.google.gson.annotations.SerializedName;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * One page of a Resource Graph query result, <code>skipToken</code> is set while more pages are available.
+ */
+@Getter
+@Setter
+public class ResourceGraphResult {
+    @SerializedName("totalRecords")
+    private long totalRecords;
+
+    @SerializedName("count")
+    private long count;
+
+    @SerializedName("data")
+    private List<ResourceGraphRow> data;
+
+    @SerializedName("$skipToken")
+    private String skipToken;
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.resourcegraph;
+
+import com.google.gson.annotations.SerializedName;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * One resource returned by an Azure Resource Graph query, only the columns needed to render the explorer skeleton.
+ */
+@Getter
+@Setter
+public class ResourceGraphRow {
+    @SerializedName("id")
+    private String id;
+
+    @SerializedName("name")
+    private String name;
+
+    @SerializedName("type")
+    private String type;
+
+    @SerializedName("kind")
+    private String kind;
+
+    @SerializedName("resourceGroup")
+    private String resourceGroup;
+
+    @SerializedName("subscriptionId")
+    private String subscriptionId;
+
+    // projected from properties, the full property bag of every resource is not transferred
+    @SerializedName("provisioningState")
+    private String provisioningState;
+}
@@ -0,0 +1,16 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.resourcegraph;
+
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+
+/**
+ * Sends one page request to Resource Graph, replaced by a stub returning recorded responses in tests.
+ */
+public interface ResourceGraphTransport {
+    @NotNull
+    ResourceGraphResult query(@NotNull ResourceGraphQuery query);
+}
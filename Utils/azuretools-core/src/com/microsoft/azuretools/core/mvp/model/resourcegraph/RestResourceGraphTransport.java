@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.resourcegraph;
+
+import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeException;
+import com.microsoft.azuretools.authmanage.AuthMethodManager;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.utils.JsonUtils;
+import com.microsoft.rest.RestClient;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import retrofit2.Response;
+import retrofit2.http.Body;
+import retrofit2.http.Headers;
+import retrofit2.http.POST;
+import rx.Observable;
+
+import java.io.IOException;
+
+/**
+ * Posts Resource Graph queries through the authenticated ARM {@link RestClient} of one of the queried subscriptions,
+ * a single query covers all the subscriptions listed in its body.
+ */
+public class RestResourceGraphTransport implements ResourceGraphTransport {
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+    private static final String QUERY_FAILED = "Resource Graph query failed with status code %d: %s";
+
+    interface ResourceGraphService {
+        @Headers({
+            "Content-Type: application/json; charset=utf-8",
+            "x-ms-logging-context: com.microsoft.azure.management.resourcegraph resources"
+        })
+        @POST("providers/Microsoft.ResourceGraph/resources?api-version=2021-03-01")
+        Observable<Response<ResponseBody>> resources(@Body RequestBody query);
+    }
+
+    @NotNull
+    @Override
+    public ResourceGraphResult query(@NotNull ResourceGraphQuery query) {
+        final String sid = query.getSubscriptions().get(0);
+        final RestClient restClient = AuthMethodManager.getInstance().getAzureClient(sid)
+                .genericResources().manager().inner().restClient();
+        final ResourceGraphService service = restClient.retrofit().create(ResourceGraphService.class);
+        final Response<ResponseBody> response = service.resources(
+                RequestBody.create(JSON, JsonUtils.getGson().toJson(query))).toBlocking().single();
+        try (ResponseBody body = response.isSuccessful() ? response.body() : response.errorBody()) {
+            final String content = body == null ? "" : body.string();
+            if (!response.isSuccessful()) {
+                throw new AzureToolkitRuntimeException(String.format(QUERY_FAILED, response.code(), content));
+            }
+            final ResourceGraphResult result = JsonUtils.fromJsonString(content, ResourceGraphResult.class);
+            if (result == null) {
+                throw new AzureToolkitRuntimeException("empty Resource Graph response");
+            }
+            return result;
+        } catch (IOException e) {
+            throw new AzureToolkitRuntimeException("failed to read Resource Graph response", e);
+        }
+    }
+}
@@ -5,11 +5,14 @@
 
 package com.microsoft.azuretools.core.mvp.model.springcloud;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.microsoft.azure.PagedList;
 import com.microsoft.azure.management.appplatform.v2020_07_01.AppResourceProperties;
 import com.microsoft.azure.management.appplatform.v2020_07_01.DeploymentInstance;
 import com.microsoft.azure.management.appplatform.v2020_07_01.DeploymentResource;
 import com.microsoft.azure.management.appplatform.v2020_07_01.DeploymentResourceProperties;
+import com.microsoft.azure.management.appplatform.v2020_07_01.DeploymentResourceStatus;
 import com.microsoft.azure.management.appplatform.v2020_07_01.ServiceResource;
 import com.microsoft.azure.management.appplatform.v2020_07_01.TestKeys;
 import com.microsoft.azure.management.appplatform.v2020_07_01.implementation.AppPlatformManager;
@@ -17,8 +20,6 @@ import com.microsoft.azure.management.appplatform.v2020_07_01.implementation.App
 import com.microsoft.azure.management.appplatform.v2020_07_01.implementation.DeploymentResourceInner;
 import com.microsoft.azure.management.appplatform.v2020_07_01.implementation.ServiceResourceInner;
 import com.microsoft.azure.management.resources.Subscription;
-import com.microsoft.azure.storage.StorageException;
-import com.microsoft.azure.storage.file.CloudFile;
 import com.microsoft.azuretools.authmanage.AuthMethodManager;
 import com.microsoft.azuretools.azurecommons.helpers.Nullable;
 import com.microsoft.azuretools.core.mvp.model.AzureMvpModel;
@@ -32,10 +33,9 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
-import java.net.URI;
-import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 import static com.microsoft.azuretools.core.mvp.model.springcloud.SpringCloudIdHelper.*;
 
@@ -44,6 +44,13 @@ public class AzureSpringCloudMvpModel {
     private static final int SPRING_LOG_STREAMING_CONNECT_TIMEOUT = 3 * 1000; // 3s
     private static final int SPRING_LOG_STREAMING_READ_TIMEOUT = 10 * 60 * 1000; // 10min
     private static final String LOG_STREAMING_ENDPOINT = "%s/api/logstream/apps/%s/instances/%s?follow=%b";
+    private static final long TEST_KEYS_EXPIRE_MINUTES = 1;
+
+    // The test keys by cluster for the log streaming bursts only, the keys can be regenerated out of the toolkit at
+    // any time, so they are reloaded once the log streaming is rejected, and the endpoints shown always load them
+    private static final Cache<String, TestKeys> TEST_KEYS_CACHE = CacheBuilder.newBuilder()
+            .expireAfterWrite(TEST_KEYS_EXPIRE_MINUTES, TimeUnit.MINUTES)
+            .build();
 
     public static List<ServiceResourceInner> listAllSpringCloudClusters() {
         final List<ServiceResourceInner> clusters = new ArrayList<>();
@@ -148,7 +155,7 @@ public class AzureSpringCloudMvpModel {
         String rid = getResourceGroup(appId);
         String cid = getClusterName(appId);
         String appName = getAppName(appId);
-        final TestKeys testKeys = getSpringManager(sid).services().listTestKeysAsync(rid, cid).toBlocking().first();
+        final TestKeys testKeys = loadTestKeys(sid, rid, cid);
         if (testKeys == null) {
             return null;
         } else {
@@ -165,7 +172,7 @@ public class AzureSpringCloudMvpModel {
         String sid = getSubscriptionId(clusterId);
         String rid = getResourceGroup(clusterId);
         String cid = getClusterName(clusterId);
-        final TestKeys testKeys = getSpringManager(sid).services().listTestKeysAsync(rid, cid).toBlocking().first();
+        final TestKeys testKeys = loadTestKeys(sid, rid, cid);
         if (testKeys == null) {
             return null;
         } else {
@@ -174,18 +181,48 @@ public class AzureSpringCloudMvpModel {
     }
 
     public static Map<String, InputStream> getLogStreamReaderList(String appId) throws IOException, HttpException {
-        final Map<String, InputStream> result = new HashMap<>();
+        final Map<String, InputStream> result = new LinkedHashMap<>();
         final DeploymentResourceInner activeDeployment = getActiveDeploymentForApp(appId);
-        for (final DeploymentInstance instance : activeDeployment.properties().instances()) {
-            result.put(instance.name(), getLogStream(appId, instance.name(), 0, 10, 0, true));
+        try {
+            for (final DeploymentInstance instance : activeDeployment.properties().instances()) {
+                result.put(instance.name(), getLogStream(appId, instance.name(), 0, 10, 0, true));
+            }
+        } catch (IOException | HttpException | RuntimeException e) {
+            // Don't leak the opened streams of other instances
+            for (final InputStream stream : result.values()) {
+                try {
+                    stream.close();
+                } catch (IOException ignored) {
+                    // swallow io exception when close
+                }
+            }
+            throw e;
         }
         return result;
     }
 
-    public static void uploadFileToStorage(File file, String sasUrl)
-            throws IOException, StorageException, URISyntaxException {
-        final CloudFile cloudFile = new CloudFile(new URI(sasUrl));
-        cloudFile.uploadFromFile(file.getPath());
+    public static void uploadFileToStorage(File file, String sasUrl) throws IOException {
+        SpringCloudArtifactUploader.getInstance().uploadFile(file, sasUrl);
+    }
+
+    /**
+     * Record the uploaded artifact as deployed once the deployment runs from it, so the next deployment of the same
+     * artifact skips the upload. A failed or unfinished deployment keeps the artifact to be uploaded again.
+     *
+     * @param appId the app resource ID
+     * @param deployment the deployment after waiting for it to be done, null if its status is unknown
+     */
+    public static void confirmArtifactDeployed(String appId, @Nullable DeploymentResourceInner deployment) {
+        final DeploymentResourceProperties properties = deployment == null ? null : deployment.properties();
+        if (properties == null || properties.source() == null
+                || !DeploymentResourceStatus.RUNNING.equals(properties.status())) {
+            return;
+        }
+
+        final String relativePath = properties.source().relativePath();
+        if (StringUtils.isNotEmpty(relativePath)) {
+            SpringCloudArtifactUploader.getInstance().markDeployed(appId, relativePath);
+        }
     }
 
     public static InputStream getLogStream(String appId,
@@ -195,37 +232,47 @@ public class AzureSpringCloudMvpModel {
         String resourceGroup = getResourceGroup(appId);
         String cluster = getClusterName(appId);
         String appName = getAppName(appId);
-        final AppPlatformManager manager = getSpringManager(subscriptionId);
-        final TestKeys testKeys = manager.services().listTestKeysAsync(resourceGroup, cluster).toBlocking().first();
-        String endpoint = String.format(LOG_STREAMING_ENDPOINT, testKeys.primaryTestEndpoint().replace(".test", ""),
-                appName, instanceName, follow);
-        if (sinceSeconds > 0) {
-            endpoint += "&sinceSeconds=" + sinceSeconds;
-        }
-        if (tailLines > 0) {
-            endpoint += "&tailLines=" + tailLines;
-        }
-        if (limitBytes > 0) {
-            endpoint += "&limitBytes=" + limitBytes;
-        }
-        final String userName = "primary";
-        final String password = testKeys.primaryKey();
-        HttpURLConnection connection;
-        final URL url = new URL(endpoint);
-        connection = (HttpURLConnection) url.openConnection();
-        final String userpass = userName + ":" + password;
-        final String basicAuth = "Basic " + new String(Base64.getEncoder().encode(userpass.getBytes()));
-        connection.setRequestProperty("Authorization", basicAuth);
-
-        connection.setReadTimeout(SPRING_LOG_STREAMING_READ_TIMEOUT);
-        connection.setConnectTimeout(SPRING_LOG_STREAMING_CONNECT_TIMEOUT);
-        connection.setRequestMethod("GET");
-        connection.connect();
-        if (connection.getResponseCode() == HttpURLConnection.HTTP_OK) {
-            return connection.getInputStream();
+        // Retry once with the reloaded test keys, in case the cached keys are regenerated
+        for (int retry = 0; ; retry++) {
+            final TestKeys testKeys = getTestKeys(subscriptionId, resourceGroup, cluster);
+            if (testKeys == null) {
+                throw new HttpException("Failed to get log stream due to no test keys of cluster " + cluster);
+            }
+            String endpoint = String.format(LOG_STREAMING_ENDPOINT, testKeys.primaryTestEndpoint().replace(".test", ""),
+                    appName, instanceName, follow);
+            if (sinceSeconds > 0) {
+                endpoint += "&sinceSeconds=" + sinceSeconds;
+            }
+            if (tailLines > 0) {
+                endpoint += "&tailLines=" + tailLines;
+            }
+            if (limitBytes > 0) {
+                endpoint += "&limitBytes=" + limitBytes;
+            }
+            final String userName = "primary";
+            final String password = testKeys.primaryKey();
+            HttpURLConnection connection;
+            final URL url = new URL(endpoint);
+            connection = (HttpURLConnection) url.openConnection();
+            final String userpass = userName + ":" + password;
+            final String basicAuth = "Basic " + new String(Base64.getEncoder().encode(userpass.getBytes()));
+            connection.setRequestProperty("Authorization", basicAuth);
+
+            connection.setReadTimeout(SPRING_LOG_STREAMING_READ_TIMEOUT);
+            connection.setConnectTimeout(SPRING_LOG_STREAMING_CONNECT_TIMEOUT);
+            connection.setRequestMethod("GET");
+            connection.connect();
+            if (connection.getResponseCode() == HttpURLConnection.HTTP_OK) {
+                return connection.getInputStream();
+            }
+            if (connection.getResponseCode() == HttpURLConnection.HTTP_UNAUTHORIZED && retry == 0) {
+                invalidateTestKeys(subscriptionId, resourceGroup, cluster);
+                connection.disconnect();
+                continue;
+            }
+            throw new HttpException(
+                    String.format("Failed to get log stream due to http error, unexpectedly status code: " + connection.getResponseCode()));
         }
-        throw new HttpException(
-                String.format("Failed to get log stream due to http error, unexpectedly status code: " + connection.getResponseCode()));
     }
 
     public static ServiceResource getClusterById(String subscriptionId, String clusterId) {
@@ -238,4 +285,29 @@ public class AzureSpringCloudMvpModel {
     private static AppPlatformManager getSpringManager(String sid) {
         return AuthMethodManager.getInstance().getAzureSpringCloudClient(sid);
     }
+
+    private static @Nullable TestKeys getTestKeys(String sid, String resourceGroup, String cluster) {
+        final String key = getTestKeysCacheKey(sid, resourceGroup, cluster);
+        final TestKeys cached = TEST_KEYS_CACHE.getIfPresent(key);
+        return cached != null ? cached : loadTestKeys(sid, resourceGroup, cluster);
+    }
+
+    private static @Nullable TestKeys loadTestKeys(String sid, String resourceGroup, String cluster) {
+        final TestKeys testKeys = getSpringManager(sid).services().listTestKeysAsync(resourceGroup, cluster)
+                                                       .toBlocking().first();
+        if (testKeys != null) {
+            TEST_KEYS_CACHE.put(getTestKeysCacheKey(sid, resourceGroup, cluster), testKeys);
+        } else {
+            invalidateTestKeys(sid, resourceGroup, cluster);
+        }
+        return testKeys;
+    }
+
+    private static void invalidateTestKeys(String sid, String resourceGroup, String cluster) {
+        TEST_KEYS_CACHE.invalidate(getTestKeysCacheKey(sid, resourceGroup, cluster));
+    }
+
+    private static String getTestKeysCacheKey(String sid, String resourceGroup, String cluster) {
+        return String.join("/", sid, resourceGroup, cluster).toLowerCase();
+    }
 }
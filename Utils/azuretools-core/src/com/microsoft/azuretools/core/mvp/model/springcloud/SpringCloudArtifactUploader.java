@@ -0,0 +1,460 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.springcloud;
+
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.file.CloudFile;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * The chunked artifact uploader to the Azure Files SAS URL of Spring Cloud resource upload. The artifact is uploaded
+ * in ranges in parallel with bounded concurrency, and each range is retried on its own. The uploaded ranges are
+ * recorded in a local checkpoint, so an interrupted upload is resumed to the same upload URL, and the upload is
+ * skipped if the same artifact was deployed to the app successfully before, see {@link #markDeployed(String, String)}.
+ *
+ * The upload URL carries the SAS token, it's kept in memory only, so an upload interrupted before the IDE restarts is
+ * uploaded again to a new upload URL. The checkpoint file keeps the relative path and the progress only.
+ */
+public class SpringCloudArtifactUploader {
+    public static final int RANGE_SIZE = 4 * 1024 * 1024;     // The max range size of Azure Files Put Range
+    public static final int MAX_CONCURRENCY = 4;
+    public static final int MAX_RANGE_ATTEMPTS = 3;
+    public static final long RETRY_BACKOFF_MS = 1000;
+    public static final long RESUME_MAX_AGE_MS = TimeUnit.HOURS.toMillis(1);    // The upload URL SAS lifetime
+    public static final long SKIP_MAX_AGE_MS = TimeUnit.DAYS.toMillis(1);
+
+    private static final Logger LOGGER = Logger.getLogger(SpringCloudArtifactUploader.class.getName());
+    private static final String CHECKPOINT_DIR = ".azure-spring-cloud-upload";
+
+    @NotNull
+    private final File checkpointDir;
+    @NotNull
+    private final Function<String, RangeWriter> writerFactory;
+    private final int concurrency;
+    // The upload URLs of the uploads not completed yet by the checkpoint file path
+    private final Map<String, String> pendingUploadUrls = new ConcurrentHashMap<>();
+
+    /**
+     * The writer of file ranges to the upload URL
+     */
+    public interface RangeWriter {
+        void create(long size) throws IOException;
+
+        void writeRange(long offset, @NotNull byte[] data, int length) throws IOException;
+    }
+
+    /**
+     * The upload target returned by the resource upload URL API
+     */
+    public static class UploadTarget {
+        @NotNull
+        private final String uploadUrl;
+        @NotNull
+        private final String relativePath;
+
+        public UploadTarget(@NotNull String uploadUrl, @NotNull String relativePath) {
+            this.uploadUrl = uploadUrl;
+            this.relativePath = relativePath;
+        }
+
+        @NotNull
+        public String getUploadUrl() {
+            return uploadUrl;
+        }
+
+        @NotNull
+        public String getRelativePath() {
+            return relativePath;
+        }
+    }
+
+    @FunctionalInterface
+    public interface UploadTargetSupplier {
+        @NotNull
+        UploadTarget get() throws IOException;
+    }
+
+    private static class LazyHolder {
+        static final SpringCloudArtifactUploader INSTANCE = new SpringCloudArtifactUploader(
+                new File(System.getProperty("user.home"), CHECKPOINT_DIR), AzureFileRangeWriter::new, MAX_CONCURRENCY);
+    }
+
+    public static SpringCloudArtifactUploader getInstance() {
+        return LazyHolder.INSTANCE;
+    }
+
+    /**
+     * @param checkpointDir the local directory to keep the upload checkpoints
+     * @param writerFactory the range writer by the upload URL, such as a local stand-in for testing
+     * @param concurrency the max ranges uploading in parallel
+     */
+    public SpringCloudArtifactUploader(@NotNull File checkpointDir,
+                                       @NotNull Function<String, RangeWriter> writerFactory,
+                                       int concurrency) {
+        this.checkpointDir = checkpointDir;
+        this.writerFactory = writerFactory;
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     * Upload the artifact of the app, or resume the interrupted upload of the same artifact
+     *
+     * @param appId the app resource ID the artifact to deploy to
+     * @param artifact the artifact file
+     * @param targetSupplier to request a new upload target, only called if no resumable upload
+     * @return the relative path of the uploaded artifact for the deployment source
+     * @throws IOException for the hashing, checkpoint or range uploading failures
+     */
+    @NotNull
+    public String upload(@NotNull String appId,
+                         @NotNull File artifact,
+                         @NotNull UploadTargetSupplier targetSupplier) throws IOException {
+        final String hash;
+        try (InputStream in = new FileInputStream(artifact)) {
+            hash = DigestUtils.sha256Hex(in);
+        }
+
+        final File checkpointFile = getCheckpointFile(appId);
+        Checkpoint checkpoint = Checkpoint.load(checkpointFile);
+        final long now = System.currentTimeMillis();
+
+        if (checkpoint != null && checkpoint.matches(hash, artifact.length())) {
+            if (checkpoint.isDeployed && checkpoint.isCompleted() && now - checkpoint.createdTime < SKIP_MAX_AGE_MS) {
+                LOGGER.info("Skip uploading artifact " + artifact + " deployed from " + checkpoint.relativePath);
+                return checkpoint.relativePath;
+            }
+
+            checkpoint.uploadUrl = pendingUploadUrls.get(checkpointFile.getPath());
+            if (checkpoint.uploadUrl == null || now - checkpoint.createdTime >= RESUME_MAX_AGE_MS) {
+                checkpoint = null;
+            }
+        } else {
+            checkpoint = null;
+        }
+
+        if (checkpoint == null) {
+            final UploadTarget target = targetSupplier.get();
+            checkpoint = new Checkpoint(checkpointFile, hash, artifact.length(), RANGE_SIZE,
+                                        target.getRelativePath(), now);
+            checkpoint.uploadUrl = target.getUploadUrl();
+            pendingUploadUrls.put(checkpointFile.getPath(), target.getUploadUrl());
+        }
+
+        uploadRanges(artifact, checkpoint);
+        pendingUploadUrls.remove(checkpointFile.getPath());
+
+        return checkpoint.relativePath;
+    }
+
+    /**
+     * Record the completed upload of the app as deployed, after the deployment from it succeeded, so the next upload
+     * of the same artifact is skipped
+     *
+     * @param appId the app resource ID the artifact is deployed to
+     * @param relativePath the relative path of the deployment source
+     */
+    public void markDeployed(@NotNull String appId, @NotNull String relativePath) {
+        final Checkpoint checkpoint = Checkpoint.load(getCheckpointFile(appId));
+        if (checkpoint == null || !checkpoint.relativePath.equals(relativePath) || !checkpoint.isCompleted()) {
+            return;
+        }
+
+        try {
+            checkpoint.setDeployed();
+        } catch (IOException ex) {
+            // The artifact is uploaded again next time
+            LOGGER.log(Level.WARNING, "Failed to record the deployed upload checkpoint " + checkpoint.file, ex);
+        }
+    }
+
+    /**
+     * Upload the file to the SAS URL in parallel ranges, without checkpoint
+     */
+    public void uploadFile(@NotNull File file, @NotNull String sasUrl) throws IOException {
+        final Checkpoint checkpoint = new Checkpoint(null, "", file.length(), RANGE_SIZE, "", System.currentTimeMillis());
+        checkpoint.uploadUrl = sasUrl;
+        uploadRanges(file, checkpoint);
+    }
+
+    /*
+     * Helpers
+     */
+
+    @NotNull
+    private File getCheckpointFile(@NotNull String appId) {
+        return new File(checkpointDir, DigestUtils.sha1Hex(appId.toLowerCase()) + ".properties");
+    }
+
+    private void uploadRanges(@NotNull File artifact, @NotNull Checkpoint checkpoint) throws IOException {
+        final RangeWriter writer = writerFactory.apply(checkpoint.uploadUrl);
+
+        if (!checkpoint.isFileCreated) {
+            writer.create(checkpoint.size);
+            checkpoint.isFileCreated = true;
+            checkpoint.save();
+        }
+
+        final List<Integer> pendingRanges = IntStream.range(0, checkpoint.rangeCount())
+                .filter(range -> !checkpoint.isRangeUploaded(range))
+                .boxed()
+                .collect(Collectors.toList());
+
+        if (pendingRanges.isEmpty()) {
+            return;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(concurrency, pendingRanges.size()), runnable -> {
+                    final Thread thread = new Thread(runnable, "spring-cloud-artifact-upload");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        try (RandomAccessFile file = new RandomAccessFile(artifact, "r")) {
+            final FileChannel channel = file.getChannel();
+            final List<Future<?>> uploads = new ArrayList<>();
+
+            for (final int range : pendingRanges) {
+                uploads.add(executor.submit(() -> {
+                    uploadRange(channel, writer, checkpoint, range);
+                    return null;
+                }));
+            }
+
+            for (final Future<?> upload : uploads) {
+                upload.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("The artifact uploading is interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof IOException
+                  ? (IOException) ex.getCause()
+                  : new IOException("Failed to upload artifact " + artifact, ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void uploadRange(@NotNull FileChannel channel,
+                             @NotNull RangeWriter writer,
+                             @NotNull Checkpoint checkpoint,
+                             int range) throws IOException, InterruptedException {
+        final long offset = (long) range * checkpoint.rangeSize;
+        final int length = (int) Math.min(checkpoint.rangeSize, checkpoint.size - offset);
+        final byte[] data = new byte[length];
+        final ByteBuffer buffer = ByteBuffer.wrap(data);
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("The artifact is changed during uploading");
+            }
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                writer.writeRange(offset, data, length);
+                break;
+            } catch (IOException ex) {
+                if (attempt >= MAX_RANGE_ATTEMPTS) {
+                    throw ex;
+                }
+
+                LOGGER.log(Level.FINE, "Retry uploading range at " + offset + " after failure", ex);
+                Thread.sleep(RETRY_BACKOFF_MS * attempt);
+            }
+        }
+
+        checkpoint.setRangeUploaded(range);
+    }
+
+    // The upload progress, saved after each range uploaded
+    private static class Checkpoint {
+        @Nullable
+        private final File file;
+        @NotNull
+        private final String hash;
+        private final long size;
+        private final int rangeSize;
+        @NotNull
+        private final String relativePath;
+        private final long createdTime;
+        private final BitSet uploadedRanges = new BitSet();
+        private boolean isFileCreated = false;
+        private boolean isDeployed = false;
+        // Not saved, the SAS token is not to be written to the disk
+        @Nullable
+        private String uploadUrl;
+
+        Checkpoint(@Nullable File file,
+                   @NotNull String hash,
+                   long size,
+                   int rangeSize,
+                   @NotNull String relativePath,
+                   long createdTime) {
+            this.file = file;
+            this.hash = hash;
+            this.size = size;
+            this.rangeSize = rangeSize;
+            this.relativePath = relativePath;
+            this.createdTime = createdTime;
+        }
+
+        @Nullable
+        static Checkpoint load(@NotNull File file) {
+            if (!file.isFile()) {
+                return null;
+            }
+
+            final Properties properties = new Properties();
+            try (InputStream in = new FileInputStream(file)) {
+                properties.load(in);
+
+                final Checkpoint checkpoint = new Checkpoint(file,
+                                                             properties.getProperty("hash"),
+                                                             Long.parseLong(properties.getProperty("size")),
+                                                             Integer.parseInt(properties.getProperty("rangeSize")),
+                                                             properties.getProperty("relativePath"),
+                                                             Long.parseLong(properties.getProperty("createdTime")));
+                checkpoint.isFileCreated = Boolean.parseBoolean(properties.getProperty("fileCreated"));
+                checkpoint.isDeployed = Boolean.parseBoolean(properties.getProperty("deployed"));
+                for (final String range : properties.getProperty("uploadedRanges", "").split(",")) {
+                    if (!range.isEmpty()) {
+                        checkpoint.uploadedRanges.set(Integer.parseInt(range));
+                    }
+                }
+
+                return checkpoint;
+            } catch (IOException | RuntimeException ex) {
+                LOGGER.log(Level.WARNING, "Ignore the broken upload checkpoint " + file, ex);
+                return null;
+            }
+        }
+
+        boolean matches(@NotNull String artifactHash, long artifactSize) {
+            return hash.equals(artifactHash) && size == artifactSize && rangeSize == RANGE_SIZE;
+        }
+
+        int rangeCount() {
+            return (int) ((size + rangeSize - 1) / rangeSize);
+        }
+
+        synchronized boolean isRangeUploaded(int range) {
+            return uploadedRanges.get(range);
+        }
+
+        synchronized boolean isCompleted() {
+            return isFileCreated && uploadedRanges.cardinality() == rangeCount();
+        }
+
+        synchronized void setRangeUploaded(int range) throws IOException {
+            uploadedRanges.set(range);
+            save();
+        }
+
+        synchronized void setDeployed() throws IOException {
+            isDeployed = true;
+            save();
+        }
+
+        synchronized void save() throws IOException {
+            if (file == null) {
+                return;
+            }
+
+            final Properties properties = new Properties();
+            properties.setProperty("hash", hash);
+            properties.setProperty("size", String.valueOf(size));
+            properties.setProperty("rangeSize", String.valueOf(rangeSize));
+            properties.setProperty("relativePath", relativePath);
+            properties.setProperty("createdTime", String.valueOf(createdTime));
+            properties.setProperty("fileCreated", String.valueOf(isFileCreated));
+            properties.setProperty("deployed", String.valueOf(isDeployed));
+            properties.setProperty("uploadedRanges", uploadedRanges.stream()
+                    .mapToObj(String::valueOf)
+                    .collect(Collectors.joining(",")));
+
+            Files.createDirectories(file.getParentFile().toPath());
+
+            // Replace the checkpoint atomically, not to be broken by the interruption
+            final File temp = new File(file.getPath() + ".tmp");
+            try (OutputStream out = new FileOutputStream(temp)) {
+                properties.store(out, "Spring Cloud artifact upload checkpoint");
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    // The range writer of Azure Files by the SAS URL
+    private static class AzureFileRangeWriter implements RangeWriter {
+        @NotNull
+        private final String sasUrl;
+
+        AzureFileRangeWriter(@NotNull String sasUrl) {
+            this.sasUrl = sasUrl;
+        }
+
+        @Override
+        public void create(long size) throws IOException {
+            try {
+                getCloudFile().create(size);
+            } catch (StorageException ex) {
+                throw new IOException("Failed to create file to upload: " + ex.getMessage(), ex);
+            }
+        }
+
+        @Override
+        public void writeRange(long offset, @NotNull byte[] data, int length) throws IOException {
+            try {
+                getCloudFile().uploadRange(new ByteArrayInputStream(data, 0, length), offset, length);
+            } catch (StorageException ex) {
+                throw new IOException("Failed to upload range at " + offset + ": " + ex.getMessage(), ex);
+            }
+        }
+
+        @NotNull
+        private CloudFile getCloudFile() throws IOException {
+            try {
+                return new CloudFile(new URI(sasUrl));
+            } catch (URISyntaxException | StorageException ex) {
+                throw new IOException("Invalid upload URL", ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.springcloud;
+
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.core.mvp.model.BatchingLogMerger;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Merge the log streams of Spring Cloud app instances into one time ordered view. Each stream is read in bulk by its
+ * own reader into a {@link BatchingLogMerger}, which merges the lines by the log timestamps of the instance heads
+ * within a short reordering window.
+ *
+ * A reader is blocked when its instance buffer is full, which in turn applies the backpressure to the log stream
+ * connection.
+ */
+public class SpringCloudLogStreamMerger implements Closeable {
+    public static final int READ_BUFFER_SIZE = 64 * 1024;
+    public static final long REORDER_WINDOW_MS = 500;
+
+    private final Map<String, InputStream> streams;
+    private final BatchingLogMerger merger = new BatchingLogMerger("spring-cloud-log-merger", REORDER_WINDOW_MS);
+
+    /**
+     * @param streams the log streams by the instance name
+     */
+    public SpringCloudLogStreamMerger(@NotNull Map<String, InputStream> streams) {
+        this.streams = new LinkedHashMap<>(streams);
+    }
+
+    /**
+     * Start reading the log streams
+     *
+     * @param chunkConsumer the consumer of the merged lines chunks, called on the merger thread
+     * @param onCompleted the callback after all streams are ended and all lines are consumed
+     */
+    public synchronized void start(@NotNull Consumer<String> chunkConsumer, @NotNull Runnable onCompleted) {
+        streams.forEach((name, stream) -> {
+            final BatchingLogMerger.LogStream instance = merger.addStream(name);
+            final Thread reader = new Thread(() -> read(stream, instance), "spring-cloud-log-reader-" + name);
+            reader.setDaemon(true);
+            reader.start();
+        });
+
+        merger.start(chunkConsumer, onCompleted);
+    }
+
+    @Override
+    public void close() {
+        merger.close();
+
+        for (final InputStream stream : streams.values()) {
+            try {
+                stream.close();
+            } catch (IOException ignored) {
+                // swallow io exception when close
+            }
+        }
+    }
+
+    /**
+     * Parse the leading log timestamp as a sortable number, such as `2020-10-19 08:21:03.123` of the Spring Boot
+     * default log pattern to 20201019082103123
+     *
+     * @param line the log line
+     * @return the timestamp number, or -1 if the line doesn't start with a timestamp, such as the stack traces
+     */
+    public static long parseTimestamp(@NotNull String line) {
+        // yyyy-MM-dd HH:mm:ss, the date and time separator can be `T` of ISO 8601 too
+        if (line.length() < 19 || line.charAt(4) != '-' || line.charAt(7) != '-'
+                || (line.charAt(10) != ' ' && line.charAt(10) != 'T')
+                || line.charAt(13) != ':' || line.charAt(16) != ':') {
+            return -1;
+        }
+
+        long timestamp = 0;
+        for (int i = 0; i < 19; i++) {
+            if (i == 4 || i == 7 || i == 10 || i == 13 || i == 16) {
+                continue;
+            }
+
+            final char ch = line.charAt(i);
+            if (ch < '0' || ch > '9') {
+                return -1;
+            }
+
+            timestamp = timestamp * 10 + (ch - '0');
+        }
+
+        // Milliseconds
+        int millis = 0;
+        int digits = 0;
+        if (line.length() > 19 && (line.charAt(19) == '.' || line.charAt(19) == ',')) {
+            for (int i = 20; digits < 3 && i < line.length() && Character.isDigit(line.charAt(i)); i++, digits++) {
+                millis = millis * 10 + (line.charAt(i) - '0');
+            }
+        }
+
+        for (; digits < 3; digits++) {
+            millis *= 10;
+        }
+
+        return timestamp * 1000 + millis;
+    }
+
+    /*
+     * Helpers
+     */
+
+    private void read(@NotNull InputStream stream, @NotNull BatchingLogMerger.LogStream instance) {
+        long lastTimestamp = 0;
+
+        try (final BufferedReader reader = new BufferedReader(
+                new InputStreamReader(stream, StandardCharsets.UTF_8), READ_BUFFER_SIZE)) {
+            String line;
+
+            while (!merger.isStopped() && (line = reader.readLine()) != null) {
+                // The lines without timestamp follow their leading line, such as the stack traces
+                final long timestamp = parseTimestamp(line);
+                lastTimestamp = timestamp >= 0 ? timestamp : lastTimestamp;
+
+                // Blocked while the buffer is full
+                instance.put(line, lastTimestamp);
+            }
+        } catch (IOException ex) {
+            if (!merger.isStopped()) {
+                instance.offer("Streaming Log is interrupted due to error : " + ex.getMessage(), lastTimestamp);
+            }
+        } catch (InterruptedException ignored) {
+            // swallow interrupt exception while shutdown
+        } finally {
+            instance.end();
+        }
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.vm;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.SerializedName;
+import com.microsoft.azuretools.authmanage.CommonSettings;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Region indexed catalog of marketplace VM images (publisher, offer, sku, version) persisted on disk.
+ * <ul>
+ * <li>levels are listed on first use and served from the catalog afterwards, also across IDE restarts</li>
+ * <li>entries older than {@link #TTL} are still served but refreshed in the background</li>
+ * <li>listing a level prefetches the next level of its top entries in the background</li>
+ * </ul>
+ */
+public class VirtualMachineImageCatalog {
+    private static final Logger LOGGER = Logger.getLogger(VirtualMachineImageCatalog.class.getName());
+    private static final long TTL = TimeUnit.HOURS.toMillis(24);
+    private static final int PREFETCH_COUNT = 5;
+    private static final int REFRESH_THREADS = 2;
+    private static final int MAX_DEPTH = 3; // publisher:offer:sku, versions are leaves
+    private static final String SEPARATOR = ":";
+    private static final String CATALOG_DIR = "vm-image-catalog";
+    private static final List<String> POPULAR_PUBLISHERS = Arrays.asList("Canonical", "MicrosoftWindowsServer",
+            "OpenLogic", "RedHat", "SUSE", "Debian", "MicrosoftWindowsDesktop", "MicrosoftSQLServer");
+
+    private final Path cacheDir;
+    private final Executor refreshExecutor;
+    private final LongSupplier clock;
+    private final Gson gson = new Gson();
+    private final Map<String, RegionCatalog> regions = new ConcurrentHashMap<>();
+    private final Set<String> pendingRefreshes = ConcurrentHashMap.newKeySet();
+
+    VirtualMachineImageCatalog(@Nullable Path cacheDir, @NotNull Executor refreshExecutor, @NotNull LongSupplier clock) {
+        this.cacheDir = cacheDir;
+        this.refreshExecutor = refreshExecutor;
+        this.clock = clock;
+    }
+
+    private static final class VirtualMachineImageCatalogHolder {
+        private static final VirtualMachineImageCatalog INSTANCE = new VirtualMachineImageCatalog(
+                StringUtils.isBlank(CommonSettings.getSettingsBaseDir()) ? null :
+                        Paths.get(CommonSettings.getSettingsBaseDir(), CATALOG_DIR),
+                newRefreshExecutor(), System::currentTimeMillis);
+    }
+
+    public static VirtualMachineImageCatalog getInstance() {
+        return VirtualMachineImageCatalogHolder.INSTANCE;
+    }
+
+    private static Executor newRefreshExecutor() {
+        final AtomicLong counter = new AtomicLong();
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(REFRESH_THREADS, REFRESH_THREADS, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    final Thread thread = new Thread(runnable, "vm-image-catalog-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    @NotNull
+    public List<String> getPublishers(@NotNull VirtualMachineImageSource source, @NotNull String region) {
+        return list(source, region);
+    }
+
+    @NotNull
+    public List<String> getOffers(@NotNull VirtualMachineImageSource source, @NotNull String region,
+                                  @NotNull String publisher) {
+        return list(source, region, publisher);
+    }
+
+    @NotNull
+    public List<String> getSkus(@NotNull VirtualMachineImageSource source, @NotNull String region,
+                                @NotNull String publisher, @NotNull String offer) {
+        return list(source, region, publisher, offer);
+    }
+
+    @NotNull
+    public List<String> getVersions(@NotNull VirtualMachineImageSource source, @NotNull String region,
+                                    @NotNull String publisher, @NotNull String offer, @NotNull String sku) {
+        return list(source, region, publisher, offer, sku);
+    }
+
+    /**
+     * Searches the cached publishers, offers and skus of a region. Image URNs (<code>publisher:offer:sku</code>)
+     * with a segment starting with <code>text</code> come first, then those containing it, shorter URNs first.
+     */
+    @NotNull
+    public List<String> search(@NotNull String region, @NotNull String text, int limit) {
+        final String query = text.trim().toLowerCase(Locale.ROOT);
+        if (query.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<String> prefixMatches = new ArrayList<>();
+        final List<String> substringMatches = new ArrayList<>();
+        for (final Map.Entry<String, CatalogEntry> entry : catalogOf(region).entries.entrySet()) {
+            if (depthOf(entry.getKey()) >= MAX_DEPTH) {
+                continue;
+            }
+            for (final String child : entry.getValue().children) {
+                final String urn = entry.getKey().isEmpty() ? child : entry.getKey() + SEPARATOR + child;
+                final String lowerUrn = urn.toLowerCase(Locale.ROOT);
+                if (lowerUrn.startsWith(query) || lowerUrn.contains(SEPARATOR + query)) {
+                    prefixMatches.add(urn);
+                } else if (lowerUrn.contains(query)) {
+                    substringMatches.add(urn);
+                }
+            }
+        }
+        final Comparator<String> order = Comparator.comparingInt(VirtualMachineImageCatalog::depthOf)
+                .thenComparing(String.CASE_INSENSITIVE_ORDER);
+        prefixMatches.sort(order);
+        substringMatches.sort(order);
+        prefixMatches.addAll(substringMatches);
+        return prefixMatches.size() > limit ? new ArrayList<>(prefixMatches.subList(0, limit)) : prefixMatches;
+    }
+
+    private List<String> list(VirtualMachineImageSource source, String region, String... path) {
+        final CatalogEntry entry = catalogOf(region).entries.get(String.join(SEPARATOR, path));
+        if (entry == null) {
+            return fetch(source, region, path, true);
+        }
+        if (clock.getAsLong() - entry.fetchedAt > TTL) {
+            fetchInBackground(source, region, path, false);
+        }
+        return Collections.unmodifiableList(entry.children);
+    }
+
+    private List<String> fetch(VirtualMachineImageSource source, String region, String[] path, boolean prefetchNext) {
+        final List<String> children = new ArrayList<>(load(source, region, path));
+        children.sort(String.CASE_INSENSITIVE_ORDER);
+        final RegionCatalog catalog = catalogOf(region);
+        catalog.entries.put(String.join(SEPARATOR, path), new CatalogEntry(clock.getAsLong(), children));
+        save(region, catalog);
+        if (prefetchNext && path.length < MAX_DEPTH) {
+            prefetchChildren(source, region, path, children);
+        }
+        return Collections.unmodifiableList(children);
+    }
+
+    private static List<String> load(VirtualMachineImageSource source, String region, String[] path) {
+        switch (path.length) {
+            case 0:
+                return source.listPublishers(region);
+            case 1:
+                return source.listOffers(region, path[0]);
+            case 2:
+                return source.listSkus(region, path[0], path[1]);
+            default:
+                return source.listVersions(region, path[0], path[1], path[2]);
+        }
+    }
+
+    private void prefetchChildren(VirtualMachineImageSource source, String region, String[] path, List<String> children) {
+        final List<String> top;
+        if (path.length == 0) {
+            // the order of publishers says nothing about their use, prefetch the common ones
+            top = children.stream().filter(child -> POPULAR_PUBLISHERS.stream().anyMatch(child::equalsIgnoreCase))
+                    .limit(PREFETCH_COUNT).collect(Collectors.toList());
+        } else {
+            top = children.stream().limit(PREFETCH_COUNT).collect(Collectors.toList());
+        }
+        final RegionCatalog catalog = catalogOf(region);
+        for (final String child : top) {
+            final String[] childPath = Arrays.copyOf(path, path.length + 1);
+            childPath[path.length] = child;
+            if (!catalog.entries.containsKey(String.join(SEPARATOR, childPath))) {
+                fetchInBackground(source, region, childPath, false);
+            }
+        }
+    }
+
+    private void fetchInBackground(VirtualMachineImageSource source, String region, String[] path, boolean prefetchNext) {
+        final String key = normalize(region) + "/" + String.join(SEPARATOR, path);
+        if (!pendingRefreshes.add(key)) {
+            return;
+        }
+        refreshExecutor.execute(() -> {
+            try {
+                fetch(source, region, path, prefetchNext);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.FINE, "failed to refresh VM image catalog " + key, e);
+            } finally {
+                pendingRefreshes.remove(key);
+            }
+        });
+    }
+
+    private RegionCatalog catalogOf(String region) {
+        return regions.computeIfAbsent(normalize(region), this::read);
+    }
+
+    private RegionCatalog read(String region) {
+        if (cacheDir != null) {
+            final Path file = cacheDir.resolve(region + ".json");
+            if (Files.isRegularFile(file)) {
+                try {
+                    final RegionCatalog catalog = gson.fromJson(new String(Files.readAllBytes(file), StandardCharsets.UTF_8),
+                            RegionCatalog.class);
+                    if (catalog != null && catalog.entries != null) {
+                        return catalog;
+                    }
+                } catch (IOException | JsonParseException e) {
+                    LOGGER.log(Level.WARNING, "ignoring unreadable VM image catalog " + file, e);
+                }
+            }
+        }
+        return new RegionCatalog();
+    }
+
+    private void save(String region, RegionCatalog catalog) {
+        if (cacheDir == null) {
+            return;
+        }
+        synchronized (catalog) {
+            try {
+                Files.createDirectories(cacheDir);
+                final Path file = cacheDir.resolve(normalize(region) + ".json");
+                final Path temp = Files.createTempFile(cacheDir, normalize(region), ".tmp");
+                Files.write(temp, gson.toJson(catalog).getBytes(StandardCharsets.UTF_8));
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "failed to save VM image catalog of " + region, e);
+            }
+        }
+    }
+
+    private static String normalize(String region) {
+        return region.replace(" ", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static int depthOf(String key) {
+        return key.isEmpty() ? 0 : StringUtils.countMatches(key, SEPARATOR) + 1;
+    }
+
+    private static class RegionCatalog {
+        // keyed by path of the listed level, "" for publishers, "publisher:offer" for skus...
+        @SerializedName("entries")
+        private ConcurrentMap<String, CatalogEntry> entries = new ConcurrentHashMap<>();
+    }
+
+    private static class CatalogEntry {
+        @SerializedName("fetchedAt")
+        private final long fetchedAt;
+
+        @SerializedName("children")
+        private final List<String> children;
+
+        CatalogEntry(long fetchedAt, List<String> children) {
+            this.fetchedAt = fetchedAt;
+            this.children = children;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.vm;
+
+import com.microsoft.azure.management.Azure;
+import com.microsoft.azure.management.compute.implementation.VirtualMachineImageResourceInner;
+import com.microsoft.azure.management.compute.implementation.VirtualMachineImagesInner;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Lists one level of the marketplace image hierarchy of a region: publishers, offers, skus and versions.
+ */
+public interface VirtualMachineImageSource {
+    @NotNull
+    List<String> listPublishers(@NotNull String region);
+
+    @NotNull
+    List<String> listOffers(@NotNull String region, @NotNull String publisher);
+
+    @NotNull
+    List<String> listSkus(@NotNull String region, @NotNull String publisher, @NotNull String offer);
+
+    @NotNull
+    List<String> listVersions(@NotNull String region, @NotNull String publisher, @NotNull String offer, @NotNull String sku);
+
+    /**
+     * Lists names only through the inner compute client, one call per level instead of walking the fluent
+     * publisher/offer/sku objects.
+     */
+    static VirtualMachineImageSource of(@NotNull Azure azure) {
+        final VirtualMachineImagesInner images = azure.virtualMachines().manager().inner().virtualMachineImages();
+        return new VirtualMachineImageSource() {
+            @Override
+            public List<String> listPublishers(String region) {
+                return namesOf(images.listPublishers(region));
+            }
+
+            @Override
+            public List<String> listOffers(String region, String publisher) {
+                return namesOf(images.listOffers(region, publisher));
+            }
+
+            @Override
+            public List<String> listSkus(String region, String publisher, String offer) {
+                return namesOf(images.listSkus(region, publisher, offer));
+            }
+
+            @Override
+            public List<String> listVersions(String region, String publisher, String offer, String sku) {
+                return namesOf(images.list(region, publisher, offer, sku));
+            }
+
+            private List<String> namesOf(List<VirtualMachineImageResourceInner> resources) {
+                return resources == null ? Collections.emptyList() :
+                        resources.stream().map(VirtualMachineImageResourceInner::name).collect(Collectors.toList());
+            }
+        };
+    }
+}
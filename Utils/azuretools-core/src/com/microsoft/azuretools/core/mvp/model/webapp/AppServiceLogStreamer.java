@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.webapp;
+
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import com.microsoft.azuretools.core.mvp.model.BatchingLogMerger;
+import rx.Observable;
+import rx.Subscription;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Stream the logs of App Service apps or slots into one view through a {@link BatchingLogMerger}. The lines are
+ * filtered as they arrive, and sent to the consumer in batched chunks on a fixed cadence rather than one by one, in the
+ * arrival order across the streams and tagged by the stream name if there are multiple streams.
+ *
+ * A live log can't be slowed down, so a full buffer drops its oldest lines rather than growing, the dropped lines are
+ * counted and reported in the view.
+ */
+public class AppServiceLogStreamer implements Closeable {
+    private final Map<String, Observable<String>> sources;
+    private final BatchingLogMerger merger;
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong filtered = new AtomicLong();
+    private volatile Filter filter;
+    private Subscription subscription;
+
+    /**
+     * The include and exclude filters of the log lines, compiled once for all lines. A term is matched as a plain
+     * text, or as a regular expression if it's quoted by slashes, such as <code>/ (4|5)\d\d /</code>.
+     */
+    public static final class Filter {
+        public static final Filter NONE = new Filter(null, null);
+
+        @Nullable
+        private final Pattern include;
+        @Nullable
+        private final Pattern exclude;
+
+        private Filter(@Nullable Pattern include, @Nullable Pattern exclude) {
+            this.include = include;
+            this.exclude = exclude;
+        }
+
+        /**
+         * @param includes the terms a line should match any of, all lines are included if empty
+         * @param excludes the terms a line should match none of
+         */
+        @NotNull
+        public static Filter of(@NotNull Collection<String> includes, @NotNull Collection<String> excludes) {
+            return new Filter(compile(includes), compile(excludes));
+        }
+
+        public boolean accept(@NotNull String line) {
+            return (include == null || include.matcher(line).find())
+                    && (exclude == null || !exclude.matcher(line).find());
+        }
+
+        public boolean isNone() {
+            return include == null && exclude == null;
+        }
+
+        @Nullable
+        private static Pattern compile(@NotNull Collection<String> terms) {
+            final List<String> alternatives = terms.stream()
+                    .filter(term -> term != null && !term.isEmpty())
+                    .map(term -> term.length() > 2 && term.startsWith("/") && term.endsWith("/")
+                            ? "(?:" + term.substring(1, term.length() - 1) + ")" : Pattern.quote(term))
+                    .collect(Collectors.toList());
+            // One pattern for all terms, so a line is scanned once
+            return alternatives.isEmpty() ? null : Pattern.compile(String.join("|", alternatives));
+        }
+    }
+
+    /**
+     * @param sources the log lines by the app or slot name, such as the <code>streamAllLogsAsync()</code>
+     * @param filter the filter of the lines, can be changed while streaming by {@link #setFilter(Filter)}
+     */
+    public AppServiceLogStreamer(@NotNull Map<String, Observable<String>> sources, @NotNull Filter filter) {
+        this(sources, filter, BatchingLogMerger.MAX_BUFFERED_LINES, BatchingLogMerger.FLUSH_INTERVAL_MS);
+    }
+
+    AppServiceLogStreamer(@NotNull Map<String, Observable<String>> sources, @NotNull Filter filter,
+                          int maxBufferedLines, long flushIntervalMs) {
+        this.sources = new LinkedHashMap<>(sources);
+        this.filter = filter;
+        // The lines of the live streams are merged as they arrive, nothing to reorder
+        this.merger = new BatchingLogMerger("app-service-log-streamer", 0, maxBufferedLines, flushIntervalMs);
+    }
+
+    /**
+     * Start streaming the logs
+     *
+     * @param chunkConsumer the consumer of the lines chunks, called on the streamer thread
+     * @param onCompleted the callback after all logs are ended and all lines are consumed
+     */
+    public synchronized void start(@NotNull Consumer<String> chunkConsumer, @NotNull Runnable onCompleted) {
+        // Filter the lines before they are buffered
+        final Map<String, Observable<String>> filteredSources = new LinkedHashMap<>();
+        sources.forEach((name, source) -> filteredSources.put(name, source.filter(this::accept)));
+
+        subscription = merger.merge(filteredSources);
+        merger.start(chunkConsumer, onCompleted);
+    }
+
+    /**
+     * Filter the lines arriving from now on
+     */
+    public void setFilter(@NotNull Filter filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * @return true if it's started, and neither closed nor completed
+     */
+    public boolean isStreaming() {
+        return merger.isStreaming();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (subscription != null) {
+            subscription.unsubscribe();
+        }
+
+        merger.close();
+    }
+
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    /**
+     * @return the count of the lines excluded by the filter
+     */
+    public long getFilteredCount() {
+        return filtered.get();
+    }
+
+    /**
+     * @return the count of the lines dropped from the full buffers
+     */
+    public long getDroppedCount() {
+        return merger.getDroppedCount();
+    }
+
+    /*
+     * Helpers
+     */
+
+    private boolean accept(@NotNull String line) {
+        received.incrementAndGet();
+        if (filter.accept(line)) {
+            return true;
+        }
+
+        filtered.incrementAndGet();
+        return false;
+    }
+}
@@ -9,6 +9,7 @@ import com.microsoft.azure.management.appservice.JavaVersion;
 import com.microsoft.azure.management.appservice.LogLevel;
 import com.microsoft.azure.management.appservice.OperatingSystem;
 import com.microsoft.azure.management.appservice.RuntimeStack;
+import com.microsoft.azuretools.core.mvp.model.webapp.kudu.KuduDeployOptions;
 import com.microsoft.azuretools.telemetry.TelemetryConstants;
 import com.microsoft.azuretools.utils.WebAppUtils;
 import lombok.Data;
@@ -33,6 +34,9 @@ public class WebAppSettingModel {
     private String slotName;
     private String newSlotName;
     private String newSlotConfigurationSource;
+    private boolean incrementalDeploy = true;
+    private boolean cleanDeploy = true;
+    private boolean restartAfterDeploy = false;
     // create related
     private String webAppName = "";
     private String webContainer = "";
@@ -69,6 +73,10 @@ public class WebAppSettingModel {
         this.os = os;
     }
 
+    public KuduDeployOptions getDeployOptions() {
+        return new KuduDeployOptions(incrementalDeploy, cleanDeploy, restartAfterDeploy);
+    }
+
     public Map<String, String> getTelemetryProperties(Map<String, String> properties) {
         Map<String, String> result = new HashMap<>();
         try {
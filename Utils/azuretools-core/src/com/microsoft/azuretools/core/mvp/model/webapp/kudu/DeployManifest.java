@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.webapp.kudu;
+
+import com.google.gson.annotations.SerializedName;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import com.microsoft.azuretools.utils.JsonUtils;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Content manifest (relative path to size and sha-256) of a deployed archive, used to compute incremental deploys.
+ */
+public class DeployManifest {
+    @SerializedName("files")
+    private final Map<String, Entry> files;
+
+    public DeployManifest() {
+        this(new TreeMap<>());
+    }
+
+    private DeployManifest(Map<String, Entry> files) {
+        this.files = files;
+    }
+
+    /**
+     * Builds the manifest of all file entries in a zip/war/jar archive, reading each entry as a stream.
+     */
+    public static DeployManifest fromArchive(@NotNull File archive) throws IOException {
+        final Map<String, Entry> files = new TreeMap<>();
+        try (ZipFile zipFile = new ZipFile(archive)) {
+            for (final ZipEntry zipEntry : Collections.list(zipFile.entries())) {
+                if (zipEntry.isDirectory()) {
+                    continue;
+                }
+                try (InputStream input = zipFile.getInputStream(zipEntry)) {
+                    files.put(zipEntry.getName(), new Entry(zipEntry.getSize(), DigestUtils.sha256Hex(input)));
+                }
+            }
+        }
+        return new DeployManifest(files);
+    }
+
+    @Nullable
+    public static DeployManifest fromJson(@Nullable String json) {
+        if (json == null) {
+            return null;
+        }
+        final DeployManifest manifest = JsonUtils.fromJsonString(json, DeployManifest.class);
+        return manifest == null || manifest.files == null ? null : manifest;
+    }
+
+    public String toJson() {
+        return JsonUtils.getGson().toJson(this);
+    }
+
+    public Map<String, Entry> getFiles() {
+        return Collections.unmodifiableMap(files);
+    }
+
+    public void put(@NotNull String path, long size, @NotNull String sha256) {
+        files.put(path, new Entry(size, sha256));
+    }
+
+    /**
+     * Computes the changes needed to turn the remote state into this manifest.
+     *
+     * @param previous    manifest recorded by the last successful deploy
+     * @param remoteSizes sizes of the files currently present remotely, keyed by relative path
+     */
+    public Diff diff(@NotNull DeployManifest previous, @NotNull Map<String, Long> remoteSizes) {
+        final List<String> changed = new ArrayList<>();
+        final List<String> removed = new ArrayList<>();
+        for (final Map.Entry<String, Entry> local : files.entrySet()) {
+            final Entry last = previous.files.get(local.getKey());
+            final Long remoteSize = remoteSizes.get(local.getKey());
+            // a file modified or removed remotely since the last deploy is pushed again
+            if (!Objects.equals(local.getValue(), last) || remoteSize == null
+                    || remoteSize != local.getValue().getSize()) {
+                changed.add(local.getKey());
+            }
+        }
+        for (final String remote : remoteSizes.keySet()) {
+            if (!files.containsKey(remote)) {
+                removed.add(remote);
+            }
+        }
+        return new Diff(changed, removed);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+        @SerializedName("size")
+        private final long size;
+
+        @SerializedName("sha256")
+        private final String sha256;
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            final Entry entry = (Entry) o;
+            return size == entry.size && Objects.equals(sha256, entry.sha256);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(size, sha256);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Diff {
+        private final List<String> changed;
+        private final List<String> removed;
+
+        public boolean isEmpty() {
+            return changed.isEmpty() && removed.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.webapp.kudu;
+
+import com.google.common.base.Joiner;
+import com.google.gson.reflect.TypeToken;
+import com.microsoft.azure.management.appservice.WebAppBase;
+import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeException;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import com.microsoft.azuretools.utils.IProgressIndicator;
+import com.microsoft.azuretools.utils.JsonUtils;
+import com.microsoft.rest.RestClient;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import retrofit2.Response;
+import retrofit2.http.Body;
+import retrofit2.http.DELETE;
+import retrofit2.http.GET;
+import retrofit2.http.Header;
+import retrofit2.http.Headers;
+import retrofit2.http.POST;
+import retrofit2.http.PUT;
+import retrofit2.http.Path;
+import retrofit2.http.Query;
+import retrofit2.http.Streaming;
+import rx.Observable;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thin client over the Kudu (SCM) REST API of an App Service, sharing the authenticated
+ * {@link RestClient} of the app service manager.
+ */
+public class KuduClient {
+    private static final MediaType OCTET_STREAM = MediaType.parse("application/octet-stream");
+    private static final MediaType ZIP = MediaType.parse("application/zip");
+    private static final int UPLOAD_CHUNK_SIZE = 64 * 1024;
+    private static final String REQUEST_FAILED = "Kudu request '%s' failed with status code %d";
+    private static final String NO_DEPLOYMENT_ID = "Kudu request '%s' answered %d without the deployment location";
+
+    private final KuduService service;
+
+    public KuduClient(@NotNull WebAppBase webAppBase) {
+        if (webAppBase.defaultHostName() == null) {
+            throw new AzureToolkitRuntimeException(
+                    String.format("cannot resolve the SCM site of app service[%s]", webAppBase.name()));
+        }
+        String host = webAppBase.defaultHostName().toLowerCase()
+                .replace("http://", "")
+                .replace("https://", "");
+        final String[] parts = host.split("\\.", 2);
+        host = Joiner.on('.').join(parts[0], "scm", parts[1]);
+        try {
+            final RestClient restClient = (RestClient) FieldUtils.readDeclaredField(webAppBase.manager(), "restClient", true);
+            service = restClient.newBuilder()
+                    .withBaseUrl("https://" + host)
+                    .withConnectionTimeout(3, TimeUnit.MINUTES)
+                    .withReadTimeout(3, TimeUnit.MINUTES)
+                    .build()
+                    .retrofit().create(KuduService.class);
+        } catch (IllegalAccessException e) {
+            throw new AzureToolkitRuntimeException("failed to initialize Kudu client", e);
+        }
+    }
+
+    KuduClient(@NotNull KuduService service) {
+        this.service = service;
+    }
+
+    interface KuduService {
+        @Headers({
+            "x-ms-logging-context: com.microsoft.azure.management.appservice.WebApps zipDeploy",
+            "x-ms-body-logging: false"
+        })
+        @POST("api/zipdeploy?isAsync=true")
+        Observable<Response<ResponseBody>> zipDeploy(@Body RequestBody zipFile);
+
+        @Headers({
+            "x-ms-logging-context: com.microsoft.azure.management.appservice.WebApps oneDeploy",
+            "x-ms-body-logging: false"
+        })
+        @POST("api/publish?async=true")
+        Observable<Response<ResponseBody>> oneDeploy(@Body RequestBody artifact, @Query("type") String type,
+                                                     @Query("path") String path, @Query("restart") Boolean restart,
+                                                     @Query("clean") Boolean clean);
+
+        @Headers({
+            "x-ms-logging-context: com.microsoft.azure.management.appservice.WebApps getDeployment",
+            "x-ms-body-logging: false"
+        })
+        @GET("api/deployments/{id}")
+        Observable<Response<ResponseBody>> getDeployment(@Path("id") String id);
+
+        @Headers({
+            "x-ms-logging-context: com.microsoft.azure.management.appservice.WebApps listFiles",
+            "x-ms-body-logging: false"
+        })
+        @GET("api/vfs/{path}/")
+        Observable<Response<ResponseBody>> listDirectory(@Path(value = "path", encoded = true) String path);
+
+        @Headers({
+            "x-ms-logging-context: com.microsoft.azure.management.appservice.WebApps getFile",
+            "x-ms-body-logging: false"
+        })
+        @GET("api/vfs/{path}")
+        @Streaming
+        Observable<Response<ResponseBody>> getFile(@Path(value = "path", encoded = true) String path);
+
+        @Headers({
+            "x-ms-logging-context: com.microsoft.azure.management.appservice.WebApps getFileRange",
+            "x-ms-body-logging: false"
+        })
+        @GET("api/vfs/{path}")
+        @Streaming
+        Observable<Response<ResponseBody>> getFileRange(@Path(value = "path", encoded = true) String path,
+                                                        @Header("Range") String range);
+
+        @Headers({
+            "x-ms-logging-context: com.microsoft.azure.management.appservice.WebApps putFile",
+            "x-ms-body-logging: false",
+            "If-Match: *"
+        })
+        @PUT("api/vfs/{path}")
+        Observable<Response<ResponseBody>> putFile(@Path(value = "path", encoded = true) String path,
+                                                   @Body RequestBody content);
+
+        @Headers({
+            "x-ms-logging-context: com.microsoft.azure.management.appservice.WebApps deleteFile",
+            "x-ms-body-logging: false",
+            "If-Match: *"
+        })
+        @DELETE("api/vfs/{path}")
+        Observable<Response<ResponseBody>> deleteFile(@Path(value = "path", encoded = true) String path);
+
+        @Headers({
+            "x-ms-logging-context: com.microsoft.azure.management.appservice.WebApps putZip",
+            "x-ms-body-logging: false"
+        })
+        @PUT("api/zip/{path}/")
+        Observable<Response<ResponseBody>> extractZip(@Path(value = "path", encoded = true) String path,
+                                                      @Body RequestBody zipFile);
+    }
+
+    /**
+     * Starts an asynchronous zip deploy, the returned value is the deployment id to track with
+     * {@link #getDeploymentStatus(String)}.
+     */
+    public String zipDeploy(@NotNull File zipFile, @Nullable IProgressIndicator indicator) {
+        final Response<ResponseBody> response = service.zipDeploy(streamOf(zipFile, ZIP, indicator))
+                .toBlocking().single();
+        ensureSuccess("zipdeploy", response);
+        return deploymentIdOf("zipdeploy", response);
+    }
+
+    /**
+     * Starts an asynchronous OneDeploy (<code>api/publish</code>) of the given artifact.
+     */
+    public String oneDeploy(@NotNull File artifact, @NotNull String type, @Nullable String path, boolean restart,
+                            boolean clean, @Nullable IProgressIndicator indicator) {
+        final Response<ResponseBody> response = service.oneDeploy(streamOf(artifact, OCTET_STREAM, indicator),
+                type, path, restart, clean).toBlocking().single();
+        ensureSuccess("publish", response);
+        return deploymentIdOf("publish", response);
+    }
+
+    @Nullable
+    public KuduDeploymentStatus getDeploymentStatus(@NotNull String deploymentId) {
+        final Response<ResponseBody> response = service.getDeployment(deploymentId).toBlocking().single();
+        if (response.code() == HttpURLConnection.HTTP_NOT_FOUND) {
+            return null;
+        }
+        ensureSuccess("deployments", response);
+        return JsonUtils.fromJsonString(readBody(response), KuduDeploymentStatus.class);
+    }
+
+    /**
+     * Lists the direct children of a remote directory, or <code>null</code> if the directory does not exist.
+     */
+    @Nullable
+    public List<KuduVfsEntry> listDirectory(@NotNull String path) {
+        final Response<ResponseBody> response = service.listDirectory(StringUtils.strip(path, "/"))
+                .toBlocking().single();
+        if (response.code() == HttpURLConnection.HTTP_NOT_FOUND) {
+            return null;
+        }
+        ensureSuccess("vfs", response);
+        final List<KuduVfsEntry> entries = JsonUtils.fromJson(readBody(response),
+                new TypeToken<List<KuduVfsEntry>>() { }.getType());
+        return entries == null ? Collections.emptyList() : entries;
+    }
+
+    /**
+     * Reads a small remote text file, or returns <code>null</code> if it does not exist.
+     */
+    @Nullable
+    public String readTextFile(@NotNull String path) {
+        final Response<ResponseBody> response = service.getFile(StringUtils.strip(path, "/")).toBlocking().single();
+        if (response.code() == HttpURLConnection.HTTP_NOT_FOUND) {
+            return null;
+        }
+        ensureSuccess("vfs", response);
+        return readBody(response);
+    }
+
+    /**
+     * Downloads the remote file straight to disk in resumable range requests, see {@link KuduFileDownloader}.
+     *
+     * @throws FileNotFoundException if the remote file does not exist
+     * @throws InterruptedIOException if canceled by the indicator
+     */
+    public void downloadFile(@NotNull String path, @NotNull File dest, @Nullable IProgressIndicator indicator)
+            throws IOException {
+        newDownloader().download(StringUtils.strip(path, "/"), dest, indicator);
+    }
+
+    public void writeTextFile(@NotNull String path, @NotNull String content) {
+        final Response<ResponseBody> response = service.putFile(StringUtils.strip(path, "/"),
+                RequestBody.create(OCTET_STREAM, content)).toBlocking().single();
+        ensureSuccess("vfs", response);
+    }
+
+    public void deleteFile(@NotNull String path) {
+        final Response<ResponseBody> response = service.deleteFile(StringUtils.strip(path, "/")).toBlocking().single();
+        if (response.code() != HttpURLConnection.HTTP_NOT_FOUND) {
+            ensureSuccess("vfs", response);
+        }
+    }
+
+    /**
+     * Extracts the zip into the remote directory, existing files which are not part of the zip are kept.
+     */
+    public void extractZip(@NotNull String path, @NotNull File zipFile, @Nullable IProgressIndicator indicator) {
+        final Response<ResponseBody> response = service.extractZip(StringUtils.strip(path, "/"),
+                streamOf(zipFile, ZIP, indicator)).toBlocking().single();
+        ensureSuccess("zip", response);
+    }
+
+    private KuduFileDownloader newDownloader() {
+        return new KuduFileDownloader((path, range) -> {
+            final Response<ResponseBody> response = service.getFileRange(path, range).toBlocking().single();
+            final String version = StringUtils.defaultIfBlank(response.headers().get("ETag"),
+                    response.headers().get("Last-Modified"));
+            if (!response.isSuccessful()) {
+                closeQuietly(response);
+                return new KuduFileDownloader.RangeResponse(response.code(), null, version, null);
+            }
+            return new KuduFileDownloader.RangeResponse(response.code(), response.headers().get("Content-Range"),
+                    version, response.body() == null ? null : response.body().byteStream());
+        });
+    }
+
+    private static String deploymentIdOf(String operation, Response<ResponseBody> response) {
+        // async deployments answer 202 with the status url in Location. The latest deployment is not a safe fallback,
+        // it may be a previous one which has already completed, so its status would be reported for this push.
+        final String location = response.headers().get("Location");
+        if (StringUtils.isBlank(location)) {
+            throw new AzureToolkitRuntimeException(String.format(NO_DEPLOYMENT_ID, operation, response.code()));
+        }
+        return StringUtils.substringAfterLast(StringUtils.stripEnd(location, "/"), "/");
+    }
+
+    private static void ensureSuccess(String operation, Response<ResponseBody> response) {
+        if (!response.isSuccessful()) {
+            closeQuietly(response);
+            throw new AzureToolkitRuntimeException(String.format(REQUEST_FAILED, operation, response.code()));
+        }
+    }
+
+    private static String readBody(Response<ResponseBody> response) {
+        try (ResponseBody body = response.body()) {
+            return body == null ? null : body.string();
+        } catch (IOException e) {
+            throw new AzureToolkitRuntimeException("failed to read Kudu response", e);
+        }
+    }
+
+    private static void closeQuietly(Response<ResponseBody> response) {
+        if (response.body() != null) {
+            response.body().close();
+        }
+        if (response.errorBody() != null) {
+            response.errorBody().close();
+        }
+    }
+
+    /**
+     * Request body streaming the file from disk in fixed size chunks, so that the artifact never lands on the heap.
+     */
+    static RequestBody streamOf(@NotNull File file, @NotNull MediaType mediaType,
+                                @Nullable IProgressIndicator indicator) {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return mediaType;
+            }
+
+            @Override
+            public long contentLength() {
+                return file.length();
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                final long total = file.length();
+                long written = 0;
+                try (Source source = Okio.source(file)) {
+                    long read;
+                    while ((read = source.read(sink.buffer(), UPLOAD_CHUNK_SIZE)) != -1) {
+                        sink.emitCompleteSegments();
+                        written += read;
+                        if (indicator != null) {
+                            if (indicator.isCanceled()) {
+                                throw new InterruptedIOException("upload canceled by user");
+                            }
+                            if (total > 0) {
+                                indicator.setFraction((double) written / total);
+                            }
+                        }
+                    }
+                }
+                sink.flush();
+            }
+        };
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.webapp.kudu;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Options of a Kudu deployment, taken from the deploy settings.
+ */
+@Getter
+@AllArgsConstructor
+public class KuduDeployOptions {
+    public static final KuduDeployOptions DEFAULT = new KuduDeployOptions(true, true, false);
+
+    // push only the changed entries of a war when the previous deployment can be compared
+    private final boolean incremental;
+    // remove the files of the previous deployment which are not part of the artifact
+    private final boolean clean;
+    // let Kudu restart the site after the deployment, the app is usually stopped and started around the deployment
+    private final boolean restart;
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.webapp.kudu;
+
+import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeException;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import com.microsoft.azuretools.utils.IProgressIndicator;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Deploys artifacts through Kudu: full deploys use zip deploy / OneDeploy with a streamed body, incremental deploys
+ * of web container applications only push the entries which differ from the last deployed manifest.
+ * Completion is tracked with Kudu's deployment status API.
+ */
+public class KuduDeployer {
+    public static final String TYPE_WAR = "war";
+    public static final String TYPE_JAR = "jar";
+    public static final String TYPE_ZIP = "zip";
+
+    private static final String WEB_APPS_PATH = "site/wwwroot/webapps/";
+    private static final String MANIFEST_PATH = "site/deployments/tools/azure-toolkit/%s.manifest.json";
+    private static final String TEMP_FILE_PREFIX = "azuretoolkit";
+    private static final long POLL_INITIAL_INTERVAL = 500; // milliseconds
+    private static final long POLL_MAX_INTERVAL = 5000; // milliseconds
+    private static final long DEPLOY_TIMEOUT = 10 * 60 * 1000; // milliseconds
+
+    private static final String UPLOADING = "Uploading the application...";
+    private static final String COMPARING = "Comparing local and remote files...";
+    private static final String UP_TO_DATE = "Remote files are up to date, skip uploading.";
+    private static final String UPLOADING_CHANGES = "Uploading %d changed file(s), removing %d file(s)...";
+    private static final String WAITING = "Waiting for deployment to complete...";
+    private static final String DEPLOY_FAILED = "deployment %s failed: %s";
+    private static final String DEPLOY_TIMEOUT_MESSAGE = "deployment %s did not complete in %d seconds";
+
+    private final KuduClient client;
+
+    public KuduDeployer(@NotNull KuduClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Deploys a jar/zip artifact with an asynchronous zip deploy and waits for its completion.
+     *
+     * @return false if canceled by the indicator
+     */
+    public boolean zipDeploy(@NotNull File zipPackage, @NotNull IProgressIndicator indicator) {
+        indicator.setText(UPLOADING);
+        final String deploymentId = client.zipDeploy(zipPackage, indicator);
+        return awaitDeployment(deploymentId, indicator);
+    }
+
+    /**
+     * Deploys a war into the web container, under ROOT if <code>webappPath</code> is null.
+     *
+     * @return false if canceled by the indicator
+     */
+    public boolean warDeploy(@NotNull File war, @Nullable String webappPath, @NotNull KuduDeployOptions options,
+                             @NotNull IProgressIndicator indicator) throws IOException {
+        final String appName = StringUtils.isBlank(webappPath) ? "ROOT" : webappPath;
+        final DeployManifest local = DeployManifest.fromArchive(war);
+        if (options.isIncremental()) {
+            final Boolean result = tryIncrementalDeploy(war, appName, local, options.isClean(), indicator);
+            if (result != null) {
+                return result;
+            }
+        }
+        indicator.setText(UPLOADING);
+        final String deploymentId = client.oneDeploy(war, TYPE_WAR, webappPath == null ? null : "webapps/" + appName,
+                options.isRestart(), options.isClean(), indicator);
+        if (!awaitDeployment(deploymentId, indicator)) {
+            return false;
+        }
+        client.writeTextFile(String.format(MANIFEST_PATH, appName), local.toJson());
+        return true;
+    }
+
+    /**
+     * @return null if the previous deployment can't be compared, false if canceled by the indicator
+     */
+    @Nullable
+    private Boolean tryIncrementalDeploy(File war, String appName, DeployManifest local, boolean clean,
+                                         IProgressIndicator indicator) throws IOException {
+        indicator.setText(COMPARING);
+        final DeployManifest previous = DeployManifest.fromJson(client.readTextFile(String.format(MANIFEST_PATH, appName)));
+        final String remoteRoot = WEB_APPS_PATH + appName;
+        final Map<String, Long> remoteSizes = new HashMap<>();
+        if (previous == null || !listRemoteFiles(remoteRoot, "", remoteSizes, indicator)) {
+            // nothing to compare with, e.g. first deployment or app not exploded under webapps
+            return null;
+        }
+        if (indicator.isCanceled()) {
+            // the remote sizes are partial
+            return false;
+        }
+        final DeployManifest.Diff diff = local.diff(previous, remoteSizes);
+        // the remote files which are not part of the war are only removed by a clean deploy, like the full deploy
+        final List<String> removedFiles = clean ? diff.getRemoved() : Collections.emptyList();
+        if (diff.getChanged().isEmpty() && removedFiles.isEmpty()) {
+            indicator.setText(UP_TO_DATE);
+            return true;
+        }
+        indicator.setText(String.format(UPLOADING_CHANGES, diff.getChanged().size(), removedFiles.size()));
+        if (!diff.getChanged().isEmpty()) {
+            final File delta = createDeltaPackage(war, diff.getChanged());
+            try {
+                client.extractZip(remoteRoot, delta, indicator);
+            } finally {
+                Files.deleteIfExists(delta.toPath());
+            }
+        }
+        for (final String removed : removedFiles) {
+            if (indicator.isCanceled()) {
+                // the manifest is not written, so the next deploy compares against the previous one again
+                return false;
+            }
+            indicator.setText2(removed);
+            client.deleteFile(remoteRoot + "/" + removed);
+        }
+        indicator.setText2("");
+        client.writeTextFile(String.format(MANIFEST_PATH, appName), local.toJson());
+        return true;
+    }
+
+    /**
+     * Collects sizes of all remote files under <code>root</code>, returns false if the root does not exist.
+     */
+    private boolean listRemoteFiles(String root, String relativePath, Map<String, Long> result,
+                                    IProgressIndicator indicator) {
+        final List<KuduVfsEntry> entries = client.listDirectory(root + "/" + relativePath);
+        if (entries == null) {
+            return false;
+        }
+        for (final KuduVfsEntry entry : entries) {
+            if (indicator.isCanceled()) {
+                break;
+            }
+            final String path = relativePath + entry.getName();
+            if (entry.isDirectory()) {
+                listRemoteFiles(root, path + "/", result, indicator);
+            } else {
+                result.put(path, entry.getSize());
+            }
+        }
+        return true;
+    }
+
+    private static File createDeltaPackage(File war, List<String> changed) throws IOException {
+        final File delta = Files.createTempFile(TEMP_FILE_PREFIX, ".zip").toFile();
+        try (ZipFile source = new ZipFile(war);
+             ZipOutputStream target = new ZipOutputStream(new FileOutputStream(delta))) {
+            for (final String name : changed) {
+                final ZipEntry entry = source.getEntry(name);
+                target.putNextEntry(new ZipEntry(name));
+                try (InputStream input = source.getInputStream(entry)) {
+                    IOUtils.copy(input, target);
+                }
+                target.closeEntry();
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Polls Kudu's deployment status endpoint with a growing interval until the deployment completes.
+     *
+     * @return true if succeeded, false if canceled by the indicator
+     */
+    public boolean awaitDeployment(@NotNull String deploymentId, @NotNull IProgressIndicator indicator) {
+        indicator.setText(WAITING);
+        final long deadline = System.currentTimeMillis() + DEPLOY_TIMEOUT;
+        long interval = POLL_INITIAL_INTERVAL;
+        while (!indicator.isCanceled()) {
+            final KuduDeploymentStatus status = client.getDeploymentStatus(deploymentId);
+            if (status != null) {
+                if (status.isSucceeded()) {
+                    return true;
+                }
+                if (status.isFailed()) {
+                    throw new AzureToolkitRuntimeException(String.format(DEPLOY_FAILED, deploymentId,
+                            StringUtils.defaultString(status.getStatusText())));
+                }
+                if (StringUtils.isNotBlank(status.getProgress())) {
+                    indicator.setText2(status.getProgress());
+                }
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw new AzureToolkitRuntimeException(String.format(DEPLOY_TIMEOUT_MESSAGE, deploymentId,
+                        DEPLOY_TIMEOUT / 1000));
+            }
+            try {
+                Thread.sleep(interval);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AzureToolkitRuntimeException("interrupted while waiting for deployment", e);
+            }
+            interval = Math.min(interval * 2, POLL_MAX_INTERVAL);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.webapp.kudu;
+
+import com.google.gson.annotations.SerializedName;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Status of a Kudu deployment, see <code>api/deployments/{id}</code>.
+ */
+@Getter
+@Setter
+public class KuduDeploymentStatus {
+    // values of Kudu's DeployStatus enum
+    private static final int STATUS_FAILED = 3;
+    private static final int STATUS_SUCCESS = 4;
+
+    @SerializedName("id")
+    private String id;
+
+    @SerializedName("status")
+    private int status;
+
+    @SerializedName("status_text")
+    private String statusText;
+
+    @SerializedName("progress")
+    private String progress;
+
+    @SerializedName("complete")
+    private boolean complete;
+
+    public boolean isSucceeded() {
+        return complete && status == STATUS_SUCCESS;
+    }
+
+    public boolean isFailed() {
+        return status == STATUS_FAILED || (complete && status != STATUS_SUCCESS);
+    }
+}
@@ -0,0 +1,473 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.webapp.kudu;
+
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import com.microsoft.azuretools.utils.IProgressIndicator;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Streaming download of a Kudu VFS file straight to disk. The file is fetched by HTTP range requests in fixed size
+ * segments, the large file segments are fetched in parallel, and the finished segments are recorded beside the
+ * partial file, so an interrupted download is resumed rather than restarted.
+ *
+ * The partial files are kept in the download work directory of the toolkit rather than beside the destination, and
+ * the ones not resumed for a day are purged. A failure which can't be resumed, such as the missing remote file or
+ * the server without range support, removes its partial files right away.
+ */
+public class KuduFileDownloader {
+    public static final int CHUNK_SIZE = 64 * 1024;
+    public static final long SEGMENT_SIZE = 8 * 1024 * 1024;
+    public static final long PARALLEL_MIN_SIZE = 2 * SEGMENT_SIZE;
+    public static final int MAX_CONCURRENCY = 4;
+    public static final int MAX_SEGMENT_ATTEMPTS = 3;
+    public static final long RESUME_MAX_AGE_MS = TimeUnit.DAYS.toMillis(1);
+
+    private static final String PARTIAL_SUFFIX = ".part";
+    private static final String PROGRESS_SUFFIX = ".part.progress";
+    private static final String FETCH_FAILED = "Kudu request 'vfs' failed with status code %d";
+    private static final String WORK_DIR = "azure-toolkit-kudu-download";
+
+    @NotNull
+    private final RangeFetcher fetcher;
+    @NotNull
+    private final File workDir;
+
+    /**
+     * The range request of a VFS file
+     */
+    @FunctionalInterface
+    interface RangeFetcher {
+        /**
+         * @param path the VFS file path
+         * @param range the `Range` header value, such as `bytes=0-1023`
+         * @return the response, to be closed by the caller
+         */
+        @NotNull
+        RangeResponse fetch(@NotNull String path, @NotNull String range) throws IOException;
+    }
+
+    static class RangeResponse implements Closeable {
+        private final int code;
+        @Nullable
+        private final String contentRange;
+        @Nullable
+        private final String version;
+        @Nullable
+        private final InputStream body;
+
+        /**
+         * @param code the HTTP status code
+         * @param contentRange the `Content-Range` header, such as `bytes 0-1023/4096`
+         * @param version the `ETag` or `Last-Modified` header to detect the remote file changes
+         * @param body the response body
+         */
+        RangeResponse(int code, @Nullable String contentRange, @Nullable String version, @Nullable InputStream body) {
+            this.code = code;
+            this.contentRange = contentRange;
+            this.version = version;
+            this.body = body;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (body != null) {
+                body.close();
+            }
+        }
+    }
+
+    KuduFileDownloader(@NotNull RangeFetcher fetcher) {
+        this(fetcher, new File(System.getProperty("java.io.tmpdir"), WORK_DIR));
+    }
+
+    /**
+     * @param fetcher the range request of the VFS files
+     * @param workDir the directory to keep the partial files to resume
+     */
+    KuduFileDownloader(@NotNull RangeFetcher fetcher, @NotNull File workDir) {
+        this.fetcher = fetcher;
+        this.workDir = workDir;
+    }
+
+    /**
+     * Get the remote file size by a one byte range request
+     *
+     * @param path the VFS file path
+     * @return the file size
+     * @throws FileNotFoundException if the remote file doesn't exist
+     */
+    public long getFileSize(@NotNull String path) throws IOException {
+        try (RangeResponse probe = fetcher.fetch(path, "bytes=0-0")) {
+            return probeSize(path, probe);
+        }
+    }
+
+    /**
+     * Download the remote file to the local file, an interrupted download of the same remote file is resumed
+     *
+     * @param path the VFS file path
+     * @param dest the local file to write
+     * @param indicator the progress indicator, to report the downloaded fraction and to cancel
+     * @throws FileNotFoundException if the remote file doesn't exist
+     * @throws InterruptedIOException if canceled
+     */
+    public void download(@NotNull String path,
+                         @NotNull File dest,
+                         @Nullable IProgressIndicator indicator) throws IOException {
+        purgeStaleFiles();
+        Files.createDirectories(workDir.toPath());
+
+        // The same remote file downloaded to the same destination is resumed
+        final String partialName = DigestUtils.sha1Hex(dest.getAbsolutePath() + "|" + path);
+        final File partial = new File(workDir, partialName + PARTIAL_SUFFIX);
+        final File progressFile = new File(workDir, partialName + PROGRESS_SUFFIX);
+        final long size;
+        final String version;
+
+        try (RangeResponse probe = fetcher.fetch(path, "bytes=0-0")) {
+            if (probe.code == HttpURLConnection.HTTP_OK) {
+                // No range support, stream the whole file without resuming
+                try {
+                    copy(probe.body, partial, indicator, -1);
+                } catch (IOException ex) {
+                    deletePartialFiles(partial, progressFile);
+                    throw ex;
+                }
+                moveTo(partial, dest, progressFile);
+
+                return;
+            }
+
+            size = probeSize(path, probe);
+            version = StringUtils.defaultString(probe.version);
+        } catch (FileNotFoundException ex) {
+            deletePartialFiles(partial, progressFile);
+            throw ex;
+        }
+
+        Progress progress = Progress.load(progressFile);
+        if (progress == null || progress.size != size || !progress.version.equals(version) || !partial.isFile()) {
+            Files.deleteIfExists(partial.toPath());
+            progress = new Progress(progressFile, size, version);
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(partial, "rw")) {
+            file.setLength(size);
+            fetchSegments(path, file.getChannel(), progress, indicator);
+        }
+
+        moveTo(partial, dest, progressFile);
+    }
+
+    /*
+     * Helpers
+     */
+
+    private void fetchSegments(@NotNull String path,
+                               @NotNull FileChannel channel,
+                               @NotNull Progress progress,
+                               @Nullable IProgressIndicator indicator) throws IOException {
+        final List<Integer> pendingSegments = IntStream.range(0, progress.segmentCount())
+                .filter(segment -> !progress.isFetched(segment))
+                .boxed()
+                .collect(Collectors.toList());
+        final AtomicLong downloaded = new AtomicLong(progress.size - pendingSegments.stream()
+                .mapToLong(progress::segmentLength)
+                .sum());
+
+        if (pendingSegments.isEmpty()) {
+            return;
+        }
+
+        final int concurrency = progress.size >= PARALLEL_MIN_SIZE ? Math.min(MAX_CONCURRENCY, pendingSegments.size()) : 1;
+        final ExecutorService executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            final Thread thread = new Thread(runnable, "kudu-file-download");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        final List<Future<?>> fetches = new ArrayList<>();
+        Throwable failure = null;
+
+        try {
+            for (final int segment : pendingSegments) {
+                fetches.add(executor.submit(() -> {
+                    fetchSegment(path, channel, progress, segment, downloaded, indicator);
+                    return null;
+                }));
+            }
+
+            for (final Future<?> fetch : fetches) {
+                try {
+                    fetch.get();
+                } catch (ExecutionException ex) {
+                    // Let the running segments finish to be resumed from, but skip the pending ones
+                    if (failure == null) {
+                        failure = ex.getCause();
+                        fetches.forEach(pending -> pending.cancel(false));
+                    }
+                } catch (CancellationException ignored) {
+                    // Skipped after the failure
+                }
+            }
+        } catch (InterruptedException ex) {
+            // The writers are not interrupted, an interrupted channel write closes the whole file
+            Thread.currentThread().interrupt();
+            fetches.forEach(pending -> pending.cancel(false));
+            failure = new InterruptedIOException("download interrupted");
+        } finally {
+            executor.shutdown();
+        }
+
+        if (failure != null) {
+            throw failure instanceof IOException
+                  ? (IOException) failure
+                  : new IOException("failed to download " + path, failure);
+        }
+    }
+
+    private void fetchSegment(@NotNull String path,
+                              @NotNull FileChannel channel,
+                              @NotNull Progress progress,
+                              int segment,
+                              @NotNull AtomicLong downloaded,
+                              @Nullable IProgressIndicator indicator) throws IOException {
+        final long start = segment * SEGMENT_SIZE;
+        final long end = start + progress.segmentLength(segment) - 1;
+
+        for (int attempt = 1; ; attempt++) {
+            // A failed attempt refetches the whole segment
+            long position = start;
+
+            try (RangeResponse response = fetcher.fetch(path, "bytes=" + start + "-" + end)) {
+                if (response.code != HttpURLConnection.HTTP_PARTIAL || response.body == null) {
+                    throw new IOException(String.format(FETCH_FAILED, response.code));
+                }
+
+                final byte[] chunk = new byte[CHUNK_SIZE];
+                int read;
+                while (position <= end && (read = response.body.read(chunk, 0, (int) Math.min(CHUNK_SIZE, end - position + 1))) != -1) {
+                    final ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, read);
+                    while (buffer.hasRemaining()) {
+                        position += channel.write(buffer, position);
+                    }
+
+                    reportProgress(indicator, downloaded.addAndGet(read), progress.size);
+                }
+
+                if (position <= end) {
+                    throw new IOException("unexpected end of Kudu file " + path + " at " + position);
+                }
+
+                progress.setFetched(segment);
+
+                return;
+            } catch (InterruptedIOException ex) {
+                throw ex;
+            } catch (IOException ex) {
+                // Roll back the progress of the failed attempt
+                downloaded.addAndGet(start - position);
+
+                if (attempt >= MAX_SEGMENT_ATTEMPTS) {
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    private static long probeSize(@NotNull String path, @NotNull RangeResponse probe) throws IOException {
+        if (probe.code == HttpURLConnection.HTTP_NOT_FOUND) {
+            throw new FileNotFoundException("Kudu file " + path + " doesn't exist");
+        }
+
+        // Range Not Satisfiable for the empty file
+        if (probe.code == 416) {
+            return 0;
+        }
+
+        if (probe.code != HttpURLConnection.HTTP_PARTIAL || StringUtils.isBlank(probe.contentRange)) {
+            throw new IOException(String.format(FETCH_FAILED, probe.code));
+        }
+
+        // bytes 0-0/4096
+        try {
+            return Long.parseLong(StringUtils.substringAfterLast(probe.contentRange, "/").trim());
+        } catch (NumberFormatException ex) {
+            throw new IOException("unknown size of Kudu file " + path + ": " + probe.contentRange, ex);
+        }
+    }
+
+    private static void copy(@Nullable InputStream body,
+                             @NotNull File dest,
+                             @Nullable IProgressIndicator indicator,
+                             long size) throws IOException {
+        try (OutputStream out = new FileOutputStream(dest)) {
+            if (body == null) {
+                return;
+            }
+
+            final byte[] chunk = new byte[CHUNK_SIZE];
+            long written = 0;
+            int read;
+            while ((read = body.read(chunk)) != -1) {
+                out.write(chunk, 0, read);
+                written += read;
+                reportProgress(indicator, written, size);
+            }
+        }
+    }
+
+    private static void reportProgress(@Nullable IProgressIndicator indicator,
+                                       long downloaded,
+                                       long size) throws InterruptedIOException {
+        if (indicator == null) {
+            return;
+        }
+
+        if (indicator.isCanceled()) {
+            throw new InterruptedIOException("download canceled by user");
+        }
+
+        if (size > 0) {
+            indicator.setFraction((double) downloaded / size);
+        }
+    }
+
+    private static void moveTo(@NotNull File partial, @NotNull File dest, @NotNull File progressFile) throws IOException {
+        // The work directory can be on another file system, the file is copied then
+        Files.move(partial.toPath(), dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(progressFile.toPath());
+    }
+
+    private static void deletePartialFiles(@NotNull File partial, @NotNull File progressFile) throws IOException {
+        Files.deleteIfExists(partial.toPath());
+        Files.deleteIfExists(progressFile.toPath());
+    }
+
+    // The partial files not resumed in time, such as the downloads given up by the user
+    private void purgeStaleFiles() {
+        final File[] files = workDir.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        final long staleTime = System.currentTimeMillis() - RESUME_MAX_AGE_MS;
+        for (final File file : files) {
+            if (file.lastModified() < staleTime) {
+                FileUtils.deleteQuietly(file);
+            }
+        }
+    }
+
+    // The fetched segments of the partial file, saved after each segment fetched
+    private static class Progress {
+        @NotNull
+        private final File file;
+        private final long size;
+        @NotNull
+        private final String version;
+        private final BitSet fetchedSegments = new BitSet();
+
+        Progress(@NotNull File file, long size, @NotNull String version) {
+            this.file = file;
+            this.size = size;
+            this.version = version;
+        }
+
+        @Nullable
+        static Progress load(@NotNull File file) {
+            if (!file.isFile()) {
+                return null;
+            }
+
+            final Properties properties = new Properties();
+            try (InputStream in = new FileInputStream(file)) {
+                properties.load(in);
+
+                if (Long.parseLong(properties.getProperty("segmentSize")) != SEGMENT_SIZE) {
+                    return null;
+                }
+
+                final Progress progress = new Progress(file,
+                                                       Long.parseLong(properties.getProperty("size")),
+                                                       properties.getProperty("version", ""));
+                for (final String segment : properties.getProperty("fetchedSegments", "").split(",")) {
+                    if (!segment.isEmpty()) {
+                        progress.fetchedSegments.set(Integer.parseInt(segment));
+                    }
+                }
+
+                return progress;
+            } catch (IOException | RuntimeException ex) {
+                return null;
+            }
+        }
+
+        int segmentCount() {
+            return (int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+        }
+
+        long segmentLength(int segment) {
+            return Math.min(SEGMENT_SIZE, size - segment * SEGMENT_SIZE);
+        }
+
+        synchronized boolean isFetched(int segment) {
+            return fetchedSegments.get(segment);
+        }
+
+        synchronized void setFetched(int segment) throws IOException {
+            fetchedSegments.set(segment);
+
+            final Properties properties = new Properties();
+            properties.setProperty("size", String.valueOf(size));
+            properties.setProperty("version", version);
+            properties.setProperty("segmentSize", String.valueOf(SEGMENT_SIZE));
+            properties.setProperty("fetchedSegments", fetchedSegments.stream()
+                    .mapToObj(String::valueOf)
+                    .collect(Collectors.joining(",")));
+
+            // Replace the progress atomically, not to be broken by the interruption
+            final File temp = new File(file.getPath() + ".tmp");
+            try (OutputStream out = new FileOutputStream(temp)) {
+                properties.store(out, "Kudu file download progress");
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.webapp.kudu;
+
+import com.google.gson.annotations.SerializedName;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class KuduVfsEntry {
+    private static final String DIRECTORY_MIME = "inode/directory";
+
+    @SerializedName("name")
+    private String name;
+
+    @SerializedName("size")
+    private long size;
+
+    @SerializedName("mtime")
+    private String mtime;
+
+    @SerializedName("mime")
+    private String mime;
+
+    @SerializedName("path")
+    private String path;
+
+    public boolean isDirectory() {
+        return DIRECTORY_MIME.equals(mime);
+    }
+}
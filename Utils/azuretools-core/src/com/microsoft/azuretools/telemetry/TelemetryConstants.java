@@ -111,6 +111,7 @@ public class TelemetryConstants {
     public static final String SHOW_WEBAPP_SLOT_PROP = "show-webapp-slot-prop";
     public static final String OPERN_WEBAPP_SLOT_BROWSER = "open-webappslot-inbrowser";
     public static final String START_STREAMING_LOG_WEBAPP_SLOT = "start-streaming-log-webapp-slot";
+    public static final String START_STREAMING_LOG_WEBAPP_WITH_SLOTS = "start-streaming-log-webapp-with-slots";
     public static final String STOP_STREAMING_LOG_WEBAPP_SLOT = "stop-streaming-log-webapp-slot";
     public static final String OPEN_CREATEWEBAPP_DIALOG = "open-create-webapp-dialog";
     public static final String REFRESH_METADATA = "refresh";
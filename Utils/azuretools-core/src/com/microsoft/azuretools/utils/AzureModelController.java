@@ -15,6 +15,7 @@ import com.microsoft.azuretools.authmanage.AuthMethodManager;
 import com.microsoft.azuretools.authmanage.CommonSettings;
 import com.microsoft.azuretools.authmanage.ISubscriptionSelectionListener;
 import com.microsoft.azuretools.authmanage.SubscriptionManager;
+import com.microsoft.azuretools.authmanage.SubscriptionSnapshot;
 import com.microsoft.azuretools.authmanage.models.SubscriptionDetail;
 import com.microsoft.azuretools.sdkmanage.AzureManager;
 import com.microsoft.azuretools.utils.WebAppUtils.WebAppDetails;
@@ -42,6 +43,14 @@ import java.util.stream.Collectors;
 public class AzureModelController {
     private static final Logger LOGGER = Logger.getLogger(AzureModelController.class.getName());
     private static ISubscriptionSelectionListener subscriptionSelectionListener = new ISubscriptionSelectionListener() {
+        @Override
+        public void update(SubscriptionSnapshot.Diff diff) {
+            // Nothing to reload if no subscription is added, removed or (de)selected
+            if (diff.isCleared() || !diff.isEmpty()) {
+                update(diff.isCleared());
+            }
+        }
+
         @Override
         public void update(boolean isRefresh) {
             if (isRefresh) {
@@ -17,9 +17,13 @@ import com.microsoft.azuretools.authmanage.AuthMethodManager;
 import com.microsoft.azuretools.authmanage.models.SubscriptionDetail;
 import com.microsoft.azuretools.azurecommons.helpers.NotNull;
 import com.microsoft.azuretools.azurecommons.util.FileUtil;
+import com.microsoft.azuretools.core.mvp.model.webapp.kudu.KuduClient;
+import com.microsoft.azuretools.core.mvp.model.webapp.kudu.KuduDeployOptions;
+import com.microsoft.azuretools.core.mvp.model.webapp.kudu.KuduDeployer;
 import com.microsoft.azuretools.sdkmanage.AzureManager;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.commons.net.ftp.FTP;
 import org.apache.commons.net.ftp.FTPClient;
 import org.apache.commons.net.ftp.FTPFile;
@@ -59,6 +63,7 @@ public class WebAppUtils {
     public static final String RETRY_MESSAGE = "Exception occurred while deploying to app service:" +
             " %s, retrying immediately (%d/%d)";
     public static final String RETRY_FAIL_MESSAGE = "Failed to deploy after %d times of retry.";
+    public static final String DEPLOY_CANCELED = "Deployment is canceled.";
     public static final String COPYING_RESOURCES = "Copying resources to staging folder...";
 
     @NotNull
@@ -91,6 +96,11 @@ public class WebAppUtils {
         return ftp;
     }
 
+    /**
+     * @deprecated FTP deploy removes and uploads files one by one, use
+     * {@link #deployArtifactsToAppService(WebAppBase, File, boolean, boolean, IProgressIndicator)} instead.
+     */
+    @Deprecated
     public static int deployArtifact(String artifactName, String artifactPath, PublishingProfile pp,
                                      boolean toRoot, IProgressIndicator indicator) throws IOException {
         File file = new File(artifactPath);
@@ -147,6 +157,10 @@ public class WebAppUtils {
         return uploadingTryCount;
     }
 
+    /**
+     * @deprecated use {@link #deployArtifactsToAppService(WebAppBase, File, boolean, boolean, IProgressIndicator)}
+     */
+    @Deprecated
     public static int deployArtifactForJavaSE(String artifactPath, PublishingProfile pp, IProgressIndicator indicator) throws IOException {
         File file = new File(artifactPath);
         if (!file.exists()) {
@@ -284,13 +298,29 @@ public class WebAppUtils {
      * @param isDeployToRoot
      * @param progressIndicator
      */
+    public static boolean deployArtifactsToAppService(WebAppBase deployTarget
+            , File artifact, boolean isDeployToRoot, IProgressIndicator progressIndicator) {
+        return deployArtifactsToAppService(deployTarget, artifact, isDeployToRoot, KuduDeployOptions.DEFAULT,
+                progressIndicator);
+    }
+
+    /**
+     * Deploys artifact to Azure App Service through Kudu
+     *
+     * @param deployTarget      the web app or deployment slot
+     * @param artifact          artifact to deploy
+     * @param isDeployToRoot
+     * @param options           the options of the Kudu deployment, from the deploy settings
+     * @param progressIndicator
+     * @return false if canceled by the indicator
+     */
     @AzureOperation(
         name = "webapp|artifact.upload",
         params = {"$artifact.getName()", "$deployTarget.name()"},
         type = AzureOperation.Type.SERVICE
     )
-    public static void deployArtifactsToAppService(WebAppBase deployTarget
-            , File artifact, boolean isDeployToRoot, IProgressIndicator progressIndicator) {
+    public static boolean deployArtifactsToAppService(WebAppBase deployTarget, File artifact, boolean isDeployToRoot,
+                                                      KuduDeployOptions options, IProgressIndicator progressIndicator) {
         if (!(deployTarget instanceof WebApp || deployTarget instanceof DeploymentSlot)) {
             final String error = "the deployment target is not a valid (deployment slot of) Web App";
             final String action = "select a valid Web App or deployment slot to deploy the artifact";
@@ -303,13 +333,16 @@ public class WebAppUtils {
         // deploy with zip/war deploy according to file type
         boolean deployResult = isJarBaseOnFileName(artifact.getPath()) ?
                 deployWebAppToJavaSERuntime(deployTarget, artifact, progressIndicator) :
-                deployWebAppToWebContainer(deployTarget, artifact, isDeployToRoot, progressIndicator);
+                deployWebAppToWebContainer(deployTarget, artifact, isDeployToRoot, options, progressIndicator);
         if (deployResult) {
             String successMessage = deployTarget instanceof WebApp ?
                     DEPLOY_SUCCESS_WEB_APP : DEPLOY_SUCCESS_DEPLOYMENT_SLOT;
             progressIndicator.setText(successMessage);
             deployTarget.start();
+        } else {
+            progressIndicator.setText(DEPLOY_CANCELED);
         }
+        return deployResult;
     }
 
     private static boolean isJarBaseOnFileName(String filePath) {
@@ -327,9 +360,11 @@ public class WebAppUtils {
             int retryCount = 0;
             while (retryCount++ < DEPLOY_MAX_TRY) {
                 try {
-                    deployTarget.zipDeploy(zipPackage);
-                    return true;
+                    return new KuduDeployer(new KuduClient(deployTarget)).zipDeploy(zipPackage, progressIndicator);
                 } catch (Exception e) {
+                    if (isCanceled(e, progressIndicator)) {
+                        return false;
+                    }
                     progressIndicator.setText(String.format(RETRY_MESSAGE, e.getMessage(), retryCount, DEPLOY_MAX_TRY));
                 }
             }
@@ -365,17 +400,25 @@ public class WebAppUtils {
 
     public static boolean deployWebAppToWebContainer(WebAppBase deployTarget
             , File artifact, boolean isDeployToRoot, IProgressIndicator progressIndicator) {
+        return deployWebAppToWebContainer(deployTarget, artifact, isDeployToRoot, KuduDeployOptions.DEFAULT,
+                progressIndicator);
+    }
+
+    /**
+     * @return false if canceled by the indicator
+     */
+    public static boolean deployWebAppToWebContainer(WebAppBase deployTarget, File artifact, boolean isDeployToRoot,
+                                                     KuduDeployOptions options, IProgressIndicator progressIndicator) {
         int retryCount = 0;
         String webappPath = isDeployToRoot ? null : FilenameUtils.getBaseName(artifact.getName()).replaceAll("#", StringUtils.EMPTY);
+        final KuduDeployer deployer = new KuduDeployer(new KuduClient(deployTarget));
         while (retryCount++ < DEPLOY_MAX_TRY) {
             try {
-                if (deployTarget instanceof WebApp) {
-                    ((WebApp) deployTarget).warDeploy(artifact, webappPath);
-                } else {
-                    ((DeploymentSlot) deployTarget).warDeploy(artifact, webappPath);
-                }
-                return true;
+                return deployer.warDeploy(artifact, webappPath, options, progressIndicator);
             } catch (Exception e) {
+                if (isCanceled(e, progressIndicator)) {
+                    return false;
+                }
                 progressIndicator.setText(String.format(RETRY_MESSAGE, e.getMessage(), retryCount, DEPLOY_MAX_TRY));
             }
         }
@@ -384,6 +427,13 @@ public class WebAppUtils {
         throw new AzureToolkitRuntimeException(error, action);
     }
 
+    /**
+     * The upload canceled by the indicator fails with an {@link InterruptedIOException}, which is not retried
+     */
+    private static boolean isCanceled(Exception e, IProgressIndicator progressIndicator) {
+        return progressIndicator.isCanceled() || ExceptionUtils.indexOfThrowable(e, InterruptedIOException.class) >= 0;
+    }
+
     public static class WebAppException extends Exception {
         /**
          *
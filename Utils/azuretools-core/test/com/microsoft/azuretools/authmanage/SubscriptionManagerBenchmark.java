@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.authmanage;
+
+import com.microsoft.azuretools.authmanage.models.SubscriptionDetail;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the read throughput of 8 threads, each listing the selected subscriptions and looking up each one's
+ * tenant, as the explorer nodes do when they refresh together. {@code lockedReading} copies the synchronized getters
+ * of the manager before the immutable snapshot, minus the stdout logging, and {@code snapshotReading} calls the
+ * current {@link SubscriptionManager}, whose getters read a snapshot without taking the lock.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SubscriptionManagerBenchmark {
+    @Param({ "20" })
+    public int subscriptionCount;
+
+    private SubscriptionManager snapshotManager;
+    private LockedSubscriptionManager lockedManager;
+
+    /**
+     * The subscription reading before the snapshot
+     */
+    private static class LockedSubscriptionManager {
+        private List<SubscriptionDetail> subscriptionDetails;
+        private Map<String, SubscriptionDetail> subscriptionIdToSubscriptionDetailMap;
+        private final Map<String, String> sidToTid = new ConcurrentHashMap<>();
+
+        private synchronized void setSubscriptionDetails(List<SubscriptionDetail> subscriptionDetails) {
+            this.subscriptionDetails = subscriptionDetails;
+            final Map<String, SubscriptionDetail> sid2sd = new ConcurrentHashMap<>();
+            for (final SubscriptionDetail sd : subscriptionDetails) {
+                sid2sd.put(sd.getSubscriptionId(), new SubscriptionDetail(sd.getSubscriptionId(),
+                        sd.getSubscriptionName(), sd.getTenantId(), sd.isSelected()));
+                sidToTid.put(sd.getSubscriptionId(), sd.getTenantId());
+            }
+            this.subscriptionIdToSubscriptionDetailMap = sid2sd;
+        }
+
+        private synchronized List<SubscriptionDetail> getSelectedSubscriptionDetails() {
+            return getAccountSidList().stream()
+                    .map(sid -> subscriptionIdToSubscriptionDetailMap.get(sid))
+                    .filter(s -> Objects.nonNull(s) && s.isSelected())
+                    .collect(Collectors.toList());
+        }
+
+        private synchronized String getSubscriptionTenant(String sid) {
+            return sidToTid.get(sid);
+        }
+
+        private synchronized Set<String> getAccountSidList() {
+            return sidToTid.keySet();
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        final List<SubscriptionDetail> subscriptionDetails = new ArrayList<>();
+        for (int i = 0; i < subscriptionCount; i++) {
+            subscriptionDetails.add(new SubscriptionDetail("sid-" + i, "Subscription " + i, "tid-" + i % 3,
+                    i % 2 == 0));
+        }
+        snapshotManager = new SubscriptionManager(null);
+        snapshotManager.setSubscriptionDetails(subscriptionDetails);
+        lockedManager = new LockedSubscriptionManager();
+        lockedManager.setSubscriptionDetails(subscriptionDetails);
+    }
+
+    @Benchmark
+    public void lockedReading(Blackhole blackhole) {
+        for (final SubscriptionDetail sd : lockedManager.getSelectedSubscriptionDetails()) {
+            blackhole.consume(lockedManager.getSubscriptionTenant(sd.getSubscriptionId()));
+        }
+    }
+
+    @Benchmark
+    public void snapshotReading(Blackhole blackhole) {
+        for (final SubscriptionDetail sd : snapshotManager.getSelectedSubscriptionDetails()) {
+            blackhole.consume(snapshotManager.getSubscriptionTenant(sd.getSubscriptionId()));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SubscriptionManagerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.authmanage;
+
+import com.microsoft.azuretools.authmanage.models.SubscriptionDetail;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SubscriptionManagerTest {
+    private final AtomicInteger loads = new AtomicInteger();
+    private final List<SubscriptionSnapshot.Diff> diffs = new ArrayList<>();
+    private final List<Boolean> refreshes = new ArrayList<>();
+    private SubscriptionManager manager;
+
+    @Before
+    public void setUp() {
+        // Load the subscriptions from the account, rather than from Azure
+        manager = new SubscriptionManager(null) {
+            @Override
+            protected List<SubscriptionDetail> updateAccountSubscriptionList() {
+                loads.incrementAndGet();
+                return details(true, false, true);
+            }
+        };
+        manager.addListener(new ISubscriptionSelectionListener() {
+            @Override
+            public void update(SubscriptionSnapshot.Diff diff) {
+                diffs.add(diff);
+                ISubscriptionSelectionListener.super.update(diff);
+            }
+
+            @Override
+            public void update(boolean isRefresh) {
+                refreshes.add(isRefresh);
+            }
+        });
+    }
+
+    private static List<SubscriptionDetail> details(boolean... selected) {
+        final List<SubscriptionDetail> details = new ArrayList<>();
+        for (int i = 0; i < selected.length; i++) {
+            details.add(new SubscriptionDetail("sid" + i, "Subscription " + i, "tid" + i, selected[i]));
+        }
+        return details;
+    }
+
+    private static List<String> ids(List<SubscriptionDetail> details) {
+        final List<String> ids = new ArrayList<>();
+        details.forEach(sd -> ids.add(sd.getSubscriptionId()));
+        return ids;
+    }
+
+    @Test
+    public void testLoadOnFirstRead() {
+        assertNull(manager.getSubscriptionTenant("sid0"));
+        assertTrue(manager.getAccountSidList().isEmpty());
+
+        assertEquals(Arrays.asList("sid0", "sid1", "sid2"), ids(manager.getSubscriptionDetails()));
+        assertEquals(Arrays.asList("sid0", "sid2"), ids(manager.getSelectedSubscriptionDetails()));
+        assertEquals("tid1", manager.getSubscriptionTenant("sid1"));
+        assertEquals(3, manager.getSubscriptionIdToSubscriptionDetailsMap().size());
+        assertEquals(1, loads.get());
+        // The loading is not notified
+        assertTrue(diffs.isEmpty());
+    }
+
+    @Test
+    public void testLoadOnceConcurrently() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return manager.getSelectedSubscriptionDetails().size();
+            }));
+        }
+        start.countDown();
+        for (final Future<Integer> result : results) {
+            assertEquals(2, result.get(10, TimeUnit.SECONDS).intValue());
+        }
+        executor.shutdown();
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testReadCopies() {
+        final List<SubscriptionDetail> details = manager.getSubscriptionDetails();
+        details.get(1).setSelected(true);
+        details.clear();
+
+        assertEquals(Arrays.asList("sid0", "sid2"), ids(manager.getSelectedSubscriptionDetails()));
+        assertFalse(manager.getSnapshot().isSelected("sid1"));
+    }
+
+    @Test
+    public void testPublishVersions() {
+        final SubscriptionSnapshot loaded = manager.getSnapshot();
+        final List<SubscriptionDetail> details = manager.getSubscriptionDetails();
+        details.get(1).setSelected(true);
+        manager.setSubscriptionDetails(details);
+
+        final SubscriptionSnapshot published = manager.getSnapshot();
+        assertEquals(loaded.getVersion() + 1, published.getVersion());
+        assertEquals(Arrays.asList("sid0", "sid1", "sid2"), published.getSelectedSubscriptionIds());
+        // The snapshot read before is unchanged
+        assertEquals(Arrays.asList("sid0", "sid2"), loaded.getSelectedSubscriptionIds());
+    }
+
+    @Test
+    public void testNotifyDiffs() {
+        final List<SubscriptionDetail> details = manager.getSubscriptionDetails();
+        manager.setSubscriptionDetails(details);
+        SubscriptionSnapshot.Diff diff = diffs.get(0);
+        // The changes since the last notification, including the loading
+        assertEquals(Arrays.asList("sid0", "sid1", "sid2"), diff.getAdded());
+        assertFalse(diff.isCleared());
+
+        details.get(0).setSelected(false);
+        details.get(1).setSelected(true);
+        details.remove(2);
+        details.add(new SubscriptionDetail("sid3", "Subscription 3", "tid3", true));
+        manager.setSubscriptionDetails(details);
+        diff = diffs.get(1);
+        assertEquals(Collections.singletonList("sid3"), diff.getAdded());
+        assertEquals(Collections.singletonList("sid2"), diff.getRemoved());
+        assertEquals(Collections.singletonList("sid1"), diff.getSelected());
+        assertEquals(Collections.singletonList("sid0"), diff.getDeselected());
+
+        manager.setSubscriptionDetails(details);
+        assertTrue(diffs.get(2).isEmpty());
+        assertEquals(Arrays.asList(false, false, false), refreshes);
+    }
+
+    @Test
+    public void testCleanSubscriptions() {
+        manager.setSubscriptionDetails(manager.getSubscriptionDetails());
+        manager.cleanSubscriptions();
+
+        final SubscriptionSnapshot.Diff diff = diffs.get(1);
+        assertTrue(diff.isCleared());
+        assertEquals(Arrays.asList("sid0", "sid1", "sid2"), diff.getRemoved());
+        assertEquals(Arrays.asList(false, true), refreshes);
+        assertTrue(manager.getAccountSidList().isEmpty());
+        assertNull(manager.getSubscriptionTenant("sid0"));
+
+        // Loaded again on the next read
+        assertEquals(3, manager.getSubscriptionDetails().size());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testRemoveListener() {
+        final AtomicInteger notified = new AtomicInteger();
+        final ISubscriptionSelectionListener listener = isRefresh -> notified.incrementAndGet();
+        manager.addListener(listener);
+        manager.addListener(listener);
+        manager.setSubscriptionDetails(details(true));
+        assertEquals(1, notified.get());
+
+        manager.removeListener(listener);
+        manager.setSubscriptionDetails(details(false));
+        assertEquals(1, notified.get());
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model;
+
+import org.junit.After;
+import org.junit.Test;
+import rx.Observable;
+import rx.Subscription;
+import rx.subjects.PublishSubject;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class BatchingLogMergerTest {
+    // Flushed by the tests, rather than on schedule
+    private static final long NO_SCHEDULED_FLUSH = TimeUnit.HOURS.toMillis(1);
+
+    private final List<String> chunks = new CopyOnWriteArrayList<>();
+    private final CountDownLatch completed = new CountDownLatch(1);
+    private BatchingLogMerger merger;
+
+    @After
+    public void tearDown() {
+        if (merger != null) {
+            merger.close();
+        }
+    }
+
+    private void start() {
+        merger.start(chunks::add, completed::countDown);
+    }
+
+    private List<String> getLines() {
+        return chunks.stream().flatMap(chunk -> Arrays.stream(chunk.split("\n"))).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testSingleStreamNotTagged() {
+        merger = new BatchingLogMerger("test", 0, 100, NO_SCHEDULED_FLUSH);
+        final BatchingLogMerger.LogStream stream = merger.addStream("app");
+        start();
+        stream.offer("line0", 0);
+        stream.offer("line1", 0);
+        stream.end();
+
+        merger.flush();
+
+        assertEquals(Collections.singletonList("line0\nline1\n"), chunks);
+        assertEquals(0, completed.getCount());
+        assertFalse(merger.isStreaming());
+    }
+
+    @Test
+    public void testMergeByHeadTimestamps() {
+        merger = new BatchingLogMerger("test", 0, 100, NO_SCHEDULED_FLUSH);
+        final BatchingLogMerger.LogStream first = merger.addStream("app-1");
+        final BatchingLogMerger.LogStream second = merger.addStream("app-2");
+        start();
+        first.offer("a3", 3);
+        // A late line is kept after the newer one of its stream
+        first.offer("a1", 1);
+        second.offer("b2", 2);
+        second.offer("b4", 4);
+        first.end();
+        second.end();
+
+        merger.flush();
+
+        assertEquals(Arrays.asList("[app-2] b2", "[app-1] a3", "[app-1] a1", "[app-2] b4"), getLines());
+    }
+
+    @Test
+    public void testMergeSourcesInArrivalOrder() throws InterruptedException {
+        merger = new BatchingLogMerger("test", 0, 100, NO_SCHEDULED_FLUSH);
+        final PublishSubject<String> app = PublishSubject.create();
+        final PublishSubject<String> slot = PublishSubject.create();
+        final Map<String, Observable<String>> sources = new LinkedHashMap<>();
+        sources.put("app", app);
+        sources.put("slot", slot);
+        final Subscription subscription = merger.merge(sources);
+        start();
+        // The sources are subscribed in background
+        for (int i = 0; i < 500 && !(app.hasObservers() && slot.hasObservers()); i++) {
+            Thread.sleep(10);
+        }
+
+        app.onNext("a0");
+        slot.onNext("b0");
+        app.onNext("a1");
+        slot.onNext("b1");
+        app.onCompleted();
+        slot.onCompleted();
+        merger.flush();
+
+        assertEquals(Arrays.asList("[app] a0", "[slot] b0", "[app] a1", "[slot] b1"), getLines());
+        assertEquals(0, completed.getCount());
+        subscription.unsubscribe();
+    }
+
+    @Test
+    public void testEndSourceWithError() throws InterruptedException {
+        merger = new BatchingLogMerger("test", 0, 100, NO_SCHEDULED_FLUSH);
+        merger.merge(Collections.singletonMap("app",
+                Observable.just("line0").concatWith(Observable.error(new IllegalStateException("reset")))));
+        start();
+
+        // The source is subscribed in background
+        for (int i = 0; i < 500 && completed.getCount() > 0; i++) {
+            Thread.sleep(10);
+            merger.flush();
+        }
+
+        assertEquals(Arrays.asList("line0", "Streaming Log is interrupted due to error : reset"), getLines());
+        assertEquals(0, completed.getCount());
+    }
+
+    @Test
+    public void testHoldLinesWithinReorderWindow() {
+        merger = new BatchingLogMerger("test", TimeUnit.HOURS.toMillis(1), 100, NO_SCHEDULED_FLUSH);
+        final BatchingLogMerger.LogStream stream = merger.addStream("app");
+        start();
+        stream.offer("line0", 0);
+
+        merger.flush();
+        assertTrue(chunks.isEmpty());
+
+        // The lines are ready once the streams are ended
+        stream.end();
+        merger.flush();
+        assertEquals(Collections.singletonList("line0"), getLines());
+    }
+
+    @Test
+    public void testDropOldestLinesWhenOffered() {
+        merger = new BatchingLogMerger("test", 0, 10, NO_SCHEDULED_FLUSH);
+        final BatchingLogMerger.LogStream stream = merger.addStream("app");
+        start();
+        IntStream.range(0, 100).forEach(i -> stream.offer("line" + i, 0));
+        stream.end();
+
+        merger.flush();
+
+        final List<String> lines = getLines();
+        assertEquals("... 90 lines dropped, the log is produced faster than it can be shown", lines.get(0));
+        assertEquals(IntStream.range(90, 100).mapToObj(i -> "line" + i).collect(Collectors.toList()),
+                     lines.subList(1, lines.size()));
+        assertEquals(90, merger.getDroppedCount());
+    }
+
+    @Test
+    public void testBlockPutWhenFull() throws InterruptedException {
+        merger = new BatchingLogMerger("test", 0, 10, NO_SCHEDULED_FLUSH);
+        final BatchingLogMerger.LogStream stream = merger.addStream("app");
+        start();
+        final CountDownLatch written = new CountDownLatch(1);
+        final Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < 15; i++) {
+                    stream.put("line" + i, 0);
+                }
+                stream.end();
+                written.countDown();
+            } catch (InterruptedException ignored) {
+                // interrupted by the test
+            }
+        });
+        producer.start();
+
+        // The producer waits for the room instead of dropping lines
+        assertFalse(written.await(200, TimeUnit.MILLISECONDS));
+        merger.flush();
+        assertTrue(written.await(5, TimeUnit.SECONDS));
+        merger.flush();
+
+        assertEquals(IntStream.range(0, 15).mapToObj(i -> "line" + i).collect(Collectors.toList()), getLines());
+        assertEquals(0, merger.getDroppedCount());
+        assertEquals(0, completed.getCount());
+    }
+
+    @Test
+    public void testBoundChunkSize() {
+        merger = new BatchingLogMerger("test", 0, 1000, NO_SCHEDULED_FLUSH);
+        final BatchingLogMerger.LogStream stream = merger.addStream("app");
+        start();
+        final char[] text = new char[1023];
+        Arrays.fill(text, 'x');
+        for (int i = 0; i < 600; i++) {
+            stream.offer(new String(text), 0);
+        }
+        stream.end();
+
+        merger.flush();
+        assertEquals(1, chunks.size());
+        assertEquals(BatchingLogMerger.MAX_CHUNK_CHARS, chunks.get(0).length());
+        assertEquals(1, completed.getCount());
+
+        merger.flush();
+        merger.flush();
+        assertEquals(600, getLines().size());
+        assertEquals(0, completed.getCount());
+    }
+
+    @Test
+    public void testClose() throws InterruptedException {
+        merger = new BatchingLogMerger("test", 0, 1, NO_SCHEDULED_FLUSH);
+        final BatchingLogMerger.LogStream stream = merger.addStream("app");
+        start();
+        stream.put("line0", 0);
+        assertTrue(merger.isStreaming());
+
+        // A producer waiting for the room is woken up
+        final Thread producer = new Thread(() -> {
+            try {
+                stream.put("line1", 0);
+            } catch (InterruptedException ignored) {
+                // interrupted by the test
+            }
+        });
+        producer.start();
+        merger.close();
+        producer.join(5000);
+        stream.end();
+        merger.flush();
+
+        assertFalse(producer.isAlive());
+        assertFalse(merger.isStreaming());
+        assertTrue(chunks.isEmpty());
+        assertEquals(1, completed.getCount());
+    }
+}
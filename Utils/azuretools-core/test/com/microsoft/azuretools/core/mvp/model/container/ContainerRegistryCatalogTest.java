@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.container;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.microsoft.azuretools.core.mvp.model.container.ContainerRegistryCatalog.FRESH_TTL;
+import static org.junit.Assert.*;
+
+public class ContainerRegistryCatalogTest {
+    private static final String SERVER = "contoso.azurecr.io";
+    private static final String USERNAME = "contoso";
+    private static final String PASSWORD = "secret";
+
+    private final AtomicLong now = new AtomicLong(1000);
+    private final Registry registry = new Registry();
+    private final List<Runnable> prefetches = new ArrayList<>();
+    private ContainerRegistryCatalog catalog;
+
+    /**
+     * The local stand-in of a Docker Registry v2, paging the sorted names by <code>n</code> and <code>last</code>
+     */
+    private static class Registry implements ContainerRegistryCatalog.PageFetcher {
+        private final Map<String, List<String>> repositories = new TreeMap<>();
+        private final List<String> requests = new CopyOnWriteArrayList<>();
+        private int revision = 1;
+
+        @Override
+        public ContainerRegistryCatalog.PageResponse fetch(String serverUrl, String username, String password,
+                                                           String path, Map<String, String> query, String etag)
+                throws IOException {
+            requests.add(path + "?" + query + (etag == null ? "" : " " + etag));
+            if (!SERVER.equals(serverUrl) || !USERNAME.equals(username) || !PASSWORD.equals(password)) {
+                return new ContainerRegistryCatalog.PageResponse(401, null, null, null, null);
+            }
+
+            final List<String> names;
+            final String field;
+            if (path.equals("v2/_catalog")) {
+                names = new ArrayList<>(repositories.keySet());
+                field = "repositories";
+            } else {
+                final String repo = path.substring("v2/".length(), path.length() - "/tags/list".length());
+                if (!repositories.containsKey(repo)) {
+                    return new ContainerRegistryCatalog.PageResponse(404, null, null, null, null);
+                }
+                names = new ArrayList<>(repositories.get(repo));
+                Collections.sort(names);
+                field = "tags";
+            }
+
+            final int size = Integer.parseInt(query.get(ContainerRegistryCatalog.KEY_PAGE_SIZE));
+            final String last = query.get(ContainerRegistryCatalog.KEY_LAST);
+            final List<String> page = new ArrayList<>();
+            for (final String name : names) {
+                if ((last == null || name.compareTo(last) > 0) && page.size() < size) {
+                    page.add(name);
+                }
+            }
+            final String pageEtag = "\"" + revision + ":" + path + ":" + page + "\"";
+            if (pageEtag.equals(etag)) {
+                return new ContainerRegistryCatalog.PageResponse(304, pageEtag, null, null, null);
+            }
+
+            final boolean hasNext = !page.isEmpty() && !page.get(page.size() - 1).equals(names.get(names.size() - 1));
+            final String link = hasNext ? String.format("</%s?last=%s&n=%d>; rel=\"next\"", path,
+                    URLEncoder.encode(page.get(page.size() - 1), "UTF-8"), size) : null;
+            final StringBuilder body = new StringBuilder("{\"name\":\"ignored\",\"" + field + "\":[");
+            for (int i = 0; i < page.size(); i++) {
+                body.append(i == 0 ? "" : ",").append('"').append(page.get(i)).append('"');
+            }
+            body.append("],\"extra\":{\"nested\":[1,2]}}");
+            final InputStream stream = new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8));
+            return new ContainerRegistryCatalog.PageResponse(200, pageEtag, link, stream, null);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        for (int i = 0; i < 7; i++) {
+            registry.repositories.put("team/repo" + i, new ArrayList<>(Arrays.asList("1.0", "1.1", "latest")));
+        }
+        // The prefetches are run on demand, so the tests see when the pages are fetched
+        catalog = new ContainerRegistryCatalog(registry, prefetches::add, now::get);
+    }
+
+    private void runPrefetches() {
+        while (!prefetches.isEmpty()) {
+            prefetches.remove(0).run();
+        }
+    }
+
+    @Test
+    public void testListRepositoriesByPages() throws IOException {
+        ContainerRegistryCatalog.Page page = catalog.listRepositories(SERVER, USERNAME, PASSWORD, null, 3);
+        assertEquals(Arrays.asList("team/repo0", "team/repo1", "team/repo2"), page.getItems());
+        assertEquals("team/repo2", page.getNext());
+        assertEquals(Arrays.asList("v2/_catalog?{n=3}"), registry.requests);
+
+        page = catalog.listRepositories(SERVER, USERNAME, PASSWORD, page.getNext(), 3);
+        assertEquals(Arrays.asList("team/repo3", "team/repo4", "team/repo5"), page.getItems());
+
+        page = catalog.listRepositories(SERVER, USERNAME, PASSWORD, page.getNext(), 3);
+        assertEquals(Arrays.asList("team/repo6"), page.getItems());
+        assertNull(page.getNext());
+    }
+
+    @Test
+    public void testPrefetchNextPages() throws IOException {
+        ContainerRegistryCatalog.Page page = catalog.listRepositories(SERVER, USERNAME, PASSWORD, null, 2);
+        runPrefetches();
+        // The first page and the next 2 pages
+        assertEquals(3, registry.requests.size());
+        assertEquals("v2/_catalog?{n=2, last=team/repo3}", registry.requests.get(2));
+
+        registry.requests.clear();
+        page = catalog.listRepositories(SERVER, USERNAME, PASSWORD, page.getNext(), 2);
+        assertEquals(Arrays.asList("team/repo2", "team/repo3"), page.getItems());
+        page = catalog.listRepositories(SERVER, USERNAME, PASSWORD, page.getNext(), 2);
+        assertEquals(Arrays.asList("team/repo4", "team/repo5"), page.getItems());
+        assertTrue(registry.requests.isEmpty());
+    }
+
+    @Test
+    public void testServeFreshPagesFromCache() throws IOException {
+        catalog.listRepositories(SERVER, USERNAME, PASSWORD, null, 3);
+        now.addAndGet(FRESH_TTL - 1);
+        registry.requests.clear();
+
+        final ContainerRegistryCatalog.Page page = catalog.listRepositories(SERVER, USERNAME, PASSWORD, null, 3);
+
+        assertEquals(Arrays.asList("team/repo0", "team/repo1", "team/repo2"), page.getItems());
+        assertTrue(registry.requests.isEmpty());
+    }
+
+    @Test
+    public void testRevalidateStalePagesWithEtag() throws IOException {
+        catalog.listRepositories(SERVER, USERNAME, PASSWORD, null, 3);
+        now.addAndGet(FRESH_TTL);
+        registry.requests.clear();
+
+        ContainerRegistryCatalog.Page page = catalog.listRepositories(SERVER, USERNAME, PASSWORD, null, 3);
+        assertEquals(Arrays.asList("team/repo0", "team/repo1", "team/repo2"), page.getItems());
+        assertEquals("team/repo2", page.getNext());
+        assertEquals(1, registry.requests.size());
+        assertTrue(registry.requests.get(0).endsWith("\"1:v2/_catalog:[team/repo0, team/repo1, team/repo2]\""));
+
+        // The revalidated page is fresh again
+        registry.requests.clear();
+        catalog.listRepositories(SERVER, USERNAME, PASSWORD, null, 3);
+        assertTrue(registry.requests.isEmpty());
+    }
+
+    @Test
+    public void testExpireRefetchesChangedPages() throws IOException {
+        catalog.listRepositories(SERVER, USERNAME, PASSWORD, null, 3);
+        registry.repositories.put("team/new", new ArrayList<>(Arrays.asList("latest")));
+        registry.revision++;
+
+        catalog.expire(SERVER);
+        final ContainerRegistryCatalog.Page page = catalog.listRepositories(SERVER, USERNAME, PASSWORD, null, 3);
+
+        assertEquals(Arrays.asList("team/new", "team/repo0", "team/repo1"), page.getItems());
+    }
+
+    @Test
+    public void testListTags() throws IOException {
+        registry.repositories.put("team/empty", Collections.emptyList());
+
+        ContainerRegistryCatalog.Page page = catalog.listTags(SERVER, USERNAME, PASSWORD, "team/repo1", null, 2);
+        assertEquals(Arrays.asList("1.0", "1.1"), page.getItems());
+        assertEquals("v2/team/repo1/tags/list?{n=2}", registry.requests.get(0));
+
+        page = catalog.listTags(SERVER, USERNAME, PASSWORD, "team/repo1", page.getNext(), 2);
+        assertEquals(Arrays.asList("latest"), page.getItems());
+        assertNull(page.getNext());
+
+        page = catalog.listTags(SERVER, USERNAME, PASSWORD, "team/empty", null, 2);
+        assertTrue(page.getItems().isEmpty());
+        assertNull(page.getNext());
+    }
+
+    @Test(expected = IOException.class)
+    public void testFailOnUnauthorized() throws IOException {
+        catalog.listRepositories(SERVER, USERNAME, "wrong", null, 3);
+    }
+
+    @Test
+    public void testParseNextFromLinkHeader() {
+        assertEquals("team/repo 1", ContainerRegistryCatalog.parseNext(
+                "</v2/_catalog?last=team%2Frepo+1&n=30>; rel=\"next\""));
+        assertEquals("b", ContainerRegistryCatalog.parseNext("<https://contoso.azurecr.io/v2/_catalog?n=3&last=b>"));
+        assertNull(ContainerRegistryCatalog.parseNext("</v2/_catalog?n=30>; rel=\"next\""));
+        assertNull(ContainerRegistryCatalog.parseNext("invalid"));
+        assertNull(ContainerRegistryCatalog.parseNext(null));
+    }
+
+    @Test
+    public void testParseTagsNull() throws IOException {
+        final InputStream body = new ByteArrayInputStream("{\"name\":\"repo\",\"tags\":null}".getBytes(StandardCharsets.UTF_8));
+        assertTrue(ContainerRegistryCatalog.parseItems(body, "tags").isEmpty());
+    }
+}
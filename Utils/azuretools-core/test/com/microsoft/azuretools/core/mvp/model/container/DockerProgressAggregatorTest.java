@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.container;
+
+import com.google.gson.Gson;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class DockerProgressAggregatorTest {
+    private static final long FRAME_INTERVAL_MS = 250;
+    // The interval between the replayed messages
+    private static final long MESSAGE_INTERVAL_MS = 40;
+    private static final long MB = 1024 * 1024;
+
+    private final AtomicLong now = new AtomicLong(1000);
+    private final List<String> rendered = new ArrayList<>();
+    private DockerProgressAggregator aggregator;
+
+    /**
+     * The JSON progress message of the Docker engine API, as recorded from the build and push
+     */
+    private static class ProgressMessage {
+        private String id;
+        private String status;
+        private String stream;
+        private ProgressDetail progressDetail;
+    }
+
+    private static class ProgressDetail {
+        private Long current;
+        private Long total;
+    }
+
+    @Before
+    public void setUp() {
+        aggregator = new DockerProgressAggregator(rendered::add, now::get, FRAME_INTERVAL_MS);
+    }
+
+    /**
+     * Replay the recorded messages into the aggregator, as the progress handler does
+     *
+     * @return the count of the replayed messages
+     */
+    private int replay(String recording) throws IOException {
+        final Gson gson = new Gson();
+        int count = 0;
+        try (InputStream input = getClass().getResourceAsStream(recording);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (StringUtils.isBlank(line)) {
+                    continue;
+                }
+                final ProgressMessage message = gson.fromJson(line, ProgressMessage.class);
+                final ProgressDetail detail = message.progressDetail;
+                aggregator.update(message.id, message.status, message.stream,
+                                  detail == null ? null : detail.current, detail == null ? null : detail.total);
+                now.addAndGet(MESSAGE_INTERVAL_MS);
+                count++;
+            }
+        }
+        aggregator.flush();
+        return count;
+    }
+
+    private List<String> getFrames() {
+        return rendered.stream().filter(line -> line.startsWith("[")).collect(Collectors.toList());
+    }
+
+    private List<String> getPassThroughLines() {
+        return rendered.stream().filter(line -> !line.startsWith("[")).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testReplayPush() throws IOException {
+        final int messages = replay("docker-push-progress.jsonl");
+
+        // At most a frame per interval, and a frame flushed before each pass-through line
+        final List<String> frames = getFrames();
+        final long maxFrames = messages * MESSAGE_INTERVAL_MS / FRAME_INTERVAL_MS + getPassThroughLines().size() + 1;
+        assertTrue(frames.size() + " frames", frames.size() <= maxFrames);
+        assertTrue(frames.size() < messages / 4);
+
+        assertEquals(Arrays.asList("The push refers to repository [contoso.azurecr.io/spring-petclinic]",
+                "latest: digest: sha256:3f1e0a7c9b2d4e6f8a0b1c2d3e4f5a6b7c8d9e0f1a2b3c4d5e6f7a8b9c0d1e2f size: 1578"),
+                getPassThroughLines());
+        assertEquals("[6/6 layers] 55.6 MB / 55.6 MB", frames.get(frames.size() - 1));
+        assertEquals(58_250_000, aggregator.getTotalBytes());
+        assertEquals(58_250_000, aggregator.getTransferredBytes());
+        assertEquals(0, aggregator.getEtaSeconds());
+    }
+
+    @Test
+    public void testReplayPushRendersActiveLayers() throws IOException {
+        replay("docker-push-progress.jsonl");
+
+        final String frame = getFrames().stream().filter(line -> line.contains("Pushing")).findFirst().orElse(null);
+        assertNotNull(frame);
+        assertTrue(frame, frame.matches("\\[2/6 layers] [0-9.]+ [KM]B / [0-9.]+ MB, [0-9.]+ [KM]?B/s(, ETA \\d+s)?"
+                + "( \\| [0-9a-f]{12}: (Pushing \\d+%|Waiting|Preparing|Pushed))+"));
+        assertFalse(frame, frame.contains("c3d4e5f60718"));
+    }
+
+    @Test
+    public void testReplayBuild() throws IOException {
+        replay("docker-build-progress.jsonl");
+
+        final List<String> lines = getPassThroughLines();
+        assertEquals("Step 1/4 : FROM mcr.microsoft.com/java/jre-headless:8u192-zulu-alpine", lines.get(0));
+        assertEquals("8u192-zulu-alpine: Pulling from java/jre-headless", lines.get(1));
+        assertEquals("Successfully tagged contoso.azurecr.io/spring-petclinic:latest", lines.get(lines.size() - 1));
+        assertEquals(4, lines.stream().filter(line -> line.startsWith("Step ")).count());
+        // The pulled layers are summarized before the next step
+        final int digest = rendered.indexOf(lines.get(2));
+        assertEquals("[3/3 layers] 39.7 MB / 39.7 MB", rendered.get(digest - 1));
+        assertEquals(41_630_177, aggregator.getTotalBytes());
+    }
+
+    @Test
+    public void testThroughputAndEta() {
+        final long total = 20 * MB;
+        for (int i = 0; i <= 10; i++) {
+            aggregator.update("5d4c2e8a1b3f", "Pushing", null, i * MB, total);
+            now.addAndGet(FRAME_INTERVAL_MS);
+        }
+
+        // 1 MB per frame interval
+        assertEquals(4.0 * MB, aggregator.getBytesPerSecond(), 1);
+        assertEquals(3, aggregator.getEtaSeconds());
+        assertEquals("[0/1 layers] 10.0 MB / 20.0 MB, 4.0 MB/s, ETA 3s | 5d4c2e8a1b3f: Pushing 50%",
+                     rendered.get(rendered.size() - 1));
+    }
+
+    @Test
+    public void testThroughputSmoothed() {
+        aggregator.update("5d4c2e8a1b3f", "Pushing", null, 0L, 100 * MB);
+        now.addAndGet(1000);
+        aggregator.update("5d4c2e8a1b3f", "Pushing", null, 10 * MB, 100 * MB);
+        now.addAndGet(1000);
+        // A stall drops the throughput gradually
+        aggregator.update("5d4c2e8a1b3f", "Pushing", null, 10 * MB, 100 * MB);
+
+        assertEquals(7.0 * MB, aggregator.getBytesPerSecond(), 1);
+    }
+
+    @Test
+    public void testEtaUnknown() {
+        aggregator.update("5d4c2e8a1b3f", "Preparing", null, null, null);
+        assertEquals(-1, aggregator.getEtaSeconds());
+
+        aggregator.update("5d4c2e8a1b3f", "Pushing", null, 0L, 10 * MB);
+        now.addAndGet(FRAME_INTERVAL_MS);
+        aggregator.update("5d4c2e8a1b3f", "Pushing", null, 0L, 10 * MB);
+        assertEquals(-1, aggregator.getEtaSeconds());
+    }
+
+    @Test
+    public void testRenderAtMostFourActiveLayers() {
+        for (int i = 0; i < 6; i++) {
+            aggregator.update("layer" + i + "-0123456789", "Waiting", null, null, null);
+        }
+        aggregator.update("layer0-0123456789", "Layer already exists", null, null, null);
+
+        assertEquals("[1/6 layers] 0 B / 0 B, 0 B/s | layer1-01234: Waiting | layer2-01234: Waiting"
+                + " | layer3-01234: Waiting | layer4-01234: Waiting | ...", aggregator.renderSummary());
+    }
+
+    @Test
+    public void testFlushOnlyPendingFrame() {
+        aggregator.update("5d4c2e8a1b3f", "Pushed", null, null, null);
+        aggregator.flush();
+        aggregator.flush();
+        aggregator.update(null, null, "\n", null, null);
+
+        assertEquals(Arrays.asList("[1/1 layers] 0 B / 0 B"), rendered);
+    }
+
+    @Test
+    public void testFormatBytes() {
+        assertEquals("1023 B", DockerProgressAggregator.formatBytes(1023));
+        assertEquals("1.0 KB", DockerProgressAggregator.formatBytes(1024));
+        assertEquals("1.5 MB", DockerProgressAggregator.formatBytes(3 * MB / 2));
+        assertEquals("2.0 GB", DockerProgressAggregator.formatBytes(2048 * MB));
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.container;
+
+import okhttp3.Credentials;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.microsoft.azuretools.core.mvp.model.container.ContainerRegistryCatalog.FRESH_TTL;
+import static org.junit.Assert.*;
+
+/**
+ * The catalog over the OkHttp fetcher against a local HTTP server, checking the requests sent to the registry.
+ */
+public class OkHttpPageFetcherTest {
+    private static final String USERNAME = "contoso";
+    private static final String PASSWORD = "secret";
+
+    @Rule
+    public final MockWebServer server = new MockWebServer();
+
+    private final AtomicLong now = new AtomicLong(1000);
+    private final List<Runnable> prefetches = new ArrayList<>();
+    private ContainerRegistryCatalog catalog;
+    private String serverUrl;
+
+    @Before
+    public void setUp() {
+        // The prefetches are never run, so the server only sees the pages listed by the tests
+        catalog = new ContainerRegistryCatalog(new ContainerRegistryCatalog.OkHttpPageFetcher("http"), prefetches::add,
+                                               now::get);
+        serverUrl = server.getHostName() + ":" + server.getPort();
+    }
+
+    private static MockResponse page(String field, String... items) {
+        final StringBuilder body = new StringBuilder("{\"" + field + "\":[");
+        for (int i = 0; i < items.length; i++) {
+            body.append(i == 0 ? "" : ",").append('"').append(items[i]).append('"');
+        }
+        return new MockResponse().setResponseCode(200).setBody(body.append("]}").toString());
+    }
+
+    private RecordedRequest takeRequest() throws InterruptedException {
+        final RecordedRequest request = server.takeRequest(5, TimeUnit.SECONDS);
+        assertNotNull(request);
+        return request;
+    }
+
+    @Test
+    public void testPagesByLinkHeader() throws Exception {
+        server.enqueue(page("repositories", "a", "b").setHeader("Link", "</v2/_catalog?last=b&n=2>; rel=\"next\""));
+        server.enqueue(page("repositories", "c"));
+
+        ContainerRegistryCatalog.Page page = catalog.listRepositories(serverUrl, USERNAME, PASSWORD, null, 2);
+        assertEquals(Arrays.asList("a", "b"), page.getItems());
+        assertEquals("b", page.getNext());
+        RecordedRequest request = takeRequest();
+        assertEquals("GET", request.getMethod());
+        assertEquals("/v2/_catalog?n=2", request.getPath());
+
+        page = catalog.listRepositories(serverUrl, USERNAME, PASSWORD, page.getNext(), 2);
+        assertEquals(Collections.singletonList("c"), page.getItems());
+        assertNull(page.getNext());
+        request = takeRequest();
+        assertEquals("/v2/_catalog?n=2&last=b", request.getPath());
+    }
+
+    @Test
+    public void testTagsPath() throws Exception {
+        server.enqueue(page("tags", "1.0", "latest"));
+
+        final ContainerRegistryCatalog.Page page = catalog.listTags(serverUrl, USERNAME, PASSWORD, "team/repo", null, 30);
+
+        assertEquals(Arrays.asList("1.0", "latest"), page.getItems());
+        assertEquals("/v2/team/repo/tags/list?n=30", takeRequest().getPath());
+    }
+
+    @Test
+    public void testSendCredentialPreemptively() throws Exception {
+        server.enqueue(page("repositories", "a"));
+        server.enqueue(page("repositories", "a"));
+
+        catalog.listRepositories(serverUrl, USERNAME, PASSWORD, null, 2);
+        catalog.listRepositories(serverUrl, USERNAME, PASSWORD, null, 3);
+
+        // Every page carries the credential, without waiting for the challenge
+        assertEquals(Credentials.basic(USERNAME, PASSWORD), takeRequest().getHeader("Authorization"));
+        assertEquals(Credentials.basic(USERNAME, PASSWORD), takeRequest().getHeader("Authorization"));
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void testChangedPasswordNotServedFromCache() throws Exception {
+        server.enqueue(page("repositories", "a"));
+        server.enqueue(new MockResponse().setResponseCode(401));
+
+        catalog.listRepositories(serverUrl, USERNAME, PASSWORD, null, 2);
+        try {
+            catalog.listRepositories(serverUrl, USERNAME, "regenerated", null, 2);
+            fail("The page listed with the other password must not be served");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("401"));
+        }
+
+        takeRequest();
+        assertEquals(Credentials.basic(USERNAME, "regenerated"), takeRequest().getHeader("Authorization"));
+    }
+
+    @Test
+    public void testRevalidateWithEtag() throws Exception {
+        server.enqueue(page("repositories", "a", "b").setHeader("ETag", "\"page-1\"")
+                                                     .setHeader("Link", "</v2/_catalog?last=b&n=2>; rel=\"next\""));
+        server.enqueue(new MockResponse().setResponseCode(304).setHeader("ETag", "\"page-1\""));
+
+        catalog.listRepositories(serverUrl, USERNAME, PASSWORD, null, 2);
+        now.addAndGet(FRESH_TTL);
+        final ContainerRegistryCatalog.Page page = catalog.listRepositories(serverUrl, USERNAME, PASSWORD, null, 2);
+
+        assertEquals(Arrays.asList("a", "b"), page.getItems());
+        assertEquals("b", page.getNext());
+        assertNull(takeRequest().getHeader("If-None-Match"));
+        final RecordedRequest revalidation = takeRequest();
+        assertEquals("\"page-1\"", revalidation.getHeader("If-None-Match"));
+        assertEquals(Credentials.basic(USERNAME, PASSWORD), revalidation.getHeader("Authorization"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testFailOnServerError() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(500));
+
+        catalog.listRepositories(serverUrl, USERNAME, PASSWORD, null, 2);
+    }
+}
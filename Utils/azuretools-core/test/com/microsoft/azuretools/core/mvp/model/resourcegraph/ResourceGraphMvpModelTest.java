@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.resourcegraph;
+
+import com.microsoft.azuretools.core.mvp.model.ResourceEx;
+import com.microsoft.azuretools.utils.JsonUtils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ResourceGraphMvpModelTest {
+    private static final String PAGE_1 = "{\"totalRecords\": 3, \"count\": 2, \"$skipToken\": \"page2\", \"data\": ["
+            + "{\"id\": \"/subscriptions/s1/resourceGroups/rg/providers/Microsoft.Web/sites/app1\", \"name\": \"app1\","
+            + " \"type\": \"microsoft.web/sites\", \"kind\": \"app,linux\", \"resourceGroup\": \"rg\","
+            + " \"subscriptionId\": \"s1\", \"provisioningState\": \"Succeeded\"},"
+            + "{\"id\": \"/subscriptions/s1/resourceGroups/rg/providers/Microsoft.Web/sites/func1\", \"name\": \"func1\","
+            + " \"type\": \"microsoft.web/sites\", \"kind\": \"functionapp\", \"resourceGroup\": \"rg\","
+            + " \"subscriptionId\": \"s1\", \"provisioningState\": \"Succeeded\"}]}";
+    private static final String PAGE_2 = "{\"totalRecords\": 3, \"count\": 1, \"data\": ["
+            + "{\"id\": \"/subscriptions/s2/resourceGroups/rg/providers/Microsoft.Cache/Redis/cache1\", \"name\": \"cache1\","
+            + " \"type\": \"microsoft.cache/redis\", \"resourceGroup\": \"rg\","
+            + " \"subscriptionId\": \"s2\", \"provisioningState\": \"Creating\"}]}";
+
+    @Test
+    public void testListResourcesFollowsSkipToken() {
+        final List<ResourceGraphQuery> queries = new ArrayList<>();
+        final ResourceGraphMvpModel model = new ResourceGraphMvpModel(query -> {
+            queries.add(query);
+            final String recorded = query.getOptions().getSkipToken() == null ? PAGE_1 : PAGE_2;
+            return JsonUtils.fromJsonString(recorded, ResourceGraphResult.class);
+        });
+
+        final Map<String, List<ResourceEx<ResourceGraphRow>>> resources = model.listResources(
+                Arrays.asList("s1", "s2"), Arrays.asList("Microsoft.Web/sites", "Microsoft.Cache/Redis",
+                        "Microsoft.Compute/virtualMachines"));
+
+        assertEquals(2, queries.size());
+        assertEquals(Arrays.asList("s1", "s2"), queries.get(0).getSubscriptions());
+        assertEquals("page2", queries.get(1).getOptions().getSkipToken());
+        assertEquals(2, resources.get("microsoft.web/sites").size());
+        assertEquals("functionapp", resources.get("microsoft.web/sites").get(1).getResource().getKind());
+        assertEquals(1, resources.get("microsoft.cache/redis").size());
+        assertEquals("s2", resources.get("microsoft.cache/redis").get(0).getSubscriptionId());
+        assertEquals("Creating", resources.get("microsoft.cache/redis").get(0).getResource().getProvisioningState());
+        assertTrue(resources.get("microsoft.compute/virtualmachines").isEmpty());
+    }
+
+    @Test
+    public void testListResourcesWithoutSubscription() {
+        final ResourceGraphMvpModel model = new ResourceGraphMvpModel(query -> {
+            throw new AssertionError("no query expected");
+        });
+        assertTrue(model.listResources(Collections.emptyList(), Collections.singletonList("microsoft.web/sites"))
+                .get("microsoft.web/sites").isEmpty());
+    }
+
+    @Test
+    public void testBuildQuery() {
+        assertEquals("Resources | where type in~ ('microsoft.web/sites', 'microsoft.cache/redis') "
+                        + "| project id, name, type, kind, resourceGroup, subscriptionId, "
+                        + "provisioningState = tostring(properties.provisioningState) "
+                        + "| order by id asc",
+                ResourceGraphMvpModel.buildQuery(Arrays.asList("Microsoft.Web/sites", "microsoft.web/sites",
+                        "Microsoft.Cache/Redis")));
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.springcloud;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.microsoft.azuretools.core.mvp.model.springcloud.SpringCloudArtifactUploader.RANGE_SIZE;
+import static org.junit.Assert.*;
+
+public class SpringCloudArtifactUploaderTest {
+    private static final String APP_ID = "/subscriptions/sub/resourceGroups/rg/providers/Microsoft.AppPlatform/Spring/cluster/apps/app";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File artifact;
+    private File checkpointDir;
+    private final AtomicInteger targetRequests = new AtomicInteger();
+    private final Set<Long> writtenOffsets = ConcurrentHashMap.newKeySet();
+    // The failures to inject by range offset, -1 to fail always
+    private final Map<Long, AtomicInteger> failures = new ConcurrentHashMap<>();
+
+    // The local stand-in of the Azure Files share, writing the ranges into the local file by the upload URL
+    private class LocalShareWriter implements SpringCloudArtifactUploader.RangeWriter {
+        private final File target;
+
+        LocalShareWriter(String uploadUrl) {
+            this.target = new File(uploadUrl);
+        }
+
+        @Override
+        public void create(long size) throws IOException {
+            try (RandomAccessFile file = new RandomAccessFile(target, "rw")) {
+                file.setLength(size);
+            }
+        }
+
+        @Override
+        public void writeRange(long offset, byte[] data, int length) throws IOException {
+            final AtomicInteger remainingFailures = failures.get(offset);
+            if (remainingFailures != null && remainingFailures.getAndDecrement() != 0) {
+                throw new IOException("Injected failure at " + offset);
+            }
+
+            try (RandomAccessFile file = new RandomAccessFile(target, "rw")) {
+                file.seek(offset);
+                file.write(data, 0, length);
+            }
+            writtenOffsets.add(offset);
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        artifact = folder.newFile("app.jar");
+        checkpointDir = folder.newFolder("checkpoints");
+
+        final byte[] content = new byte[RANGE_SIZE * 2 + 1024];
+        new Random(42).nextBytes(content);
+        Files.write(artifact.toPath(), content);
+    }
+
+    @Test
+    public void testUploadWithRangeRetry() throws Exception {
+        failures.put((long) RANGE_SIZE, new AtomicInteger(1));
+
+        final String relativePath = newUploader().upload(APP_ID, artifact, this::newTarget);
+
+        assertEquals("resources/1", relativePath);
+        assertEquals(3, writtenOffsets.size());
+        assertArrayEquals(Files.readAllBytes(artifact.toPath()), Files.readAllBytes(getUploaded(1).toPath()));
+    }
+
+    @Test
+    public void testResumeInterruptedUpload() throws Exception {
+        final SpringCloudArtifactUploader uploader = newUploader();
+        failures.put((long) RANGE_SIZE * 2, new AtomicInteger(-1));
+
+        try {
+            uploader.upload(APP_ID, artifact, this::newTarget);
+            fail("The upload should fail after the range retries");
+        } catch (IOException ignored) {
+        }
+
+        failures.clear();
+        writtenOffsets.clear();
+
+        final String relativePath = uploader.upload(APP_ID, artifact, this::newTarget);
+
+        // Resumed to the same target, only the failed range is uploaded again
+        assertEquals("resources/1", relativePath);
+        assertEquals(1, targetRequests.get());
+        assertEquals(1, writtenOffsets.size());
+        assertTrue(writtenOffsets.contains((long) RANGE_SIZE * 2));
+        assertArrayEquals(Files.readAllBytes(artifact.toPath()), Files.readAllBytes(getUploaded(1).toPath()));
+    }
+
+    @Test
+    public void testUploadUrlNotSaved() throws Exception {
+        failures.put((long) RANGE_SIZE * 2, new AtomicInteger(-1));
+
+        try {
+            newUploader().upload(APP_ID, artifact, this::newTarget);
+            fail("The upload should fail after the range retries");
+        } catch (IOException ignored) {
+        }
+
+        final File[] checkpoints = checkpointDir.listFiles();
+        assertNotNull(checkpoints);
+        assertEquals(1, checkpoints.length);
+        assertFalse(new String(Files.readAllBytes(checkpoints[0].toPath()), StandardCharsets.UTF_8)
+                            .contains(getUploaded(1).getName()));
+
+        // The upload URL is gone with the restarted IDE, uploaded again to a new target
+        failures.clear();
+        writtenOffsets.clear();
+
+        assertEquals("resources/2", newUploader().upload(APP_ID, artifact, this::newTarget));
+        assertEquals(2, targetRequests.get());
+        assertEquals(3, writtenOffsets.size());
+        assertArrayEquals(Files.readAllBytes(artifact.toPath()), Files.readAllBytes(getUploaded(2).toPath()));
+    }
+
+    @Test
+    public void testSkipDeployedArtifact() throws Exception {
+        newUploader().upload(APP_ID, artifact, this::newTarget);
+        newUploader().markDeployed(APP_ID, "resources/1");
+        writtenOffsets.clear();
+
+        assertEquals("resources/1", newUploader().upload(APP_ID, artifact, this::newTarget));
+        assertEquals(1, targetRequests.get());
+        assertTrue(writtenOffsets.isEmpty());
+
+        // A changed artifact is uploaded to a new target
+        Files.write(artifact.toPath(), new byte[] { 1, 2, 3 });
+
+        assertEquals("resources/2", newUploader().upload(APP_ID, artifact, this::newTarget));
+        assertEquals(2, targetRequests.get());
+        assertArrayEquals(new byte[] { 1, 2, 3 }, Files.readAllBytes(getUploaded(2).toPath()));
+    }
+
+    @Test
+    public void testUploadAgainIfNotDeployed() throws Exception {
+        // The deployment from the upload failed, the deployed mark of another upload is ignored
+        newUploader().upload(APP_ID, artifact, this::newTarget);
+        newUploader().markDeployed(APP_ID, "resources/0");
+        writtenOffsets.clear();
+
+        assertEquals("resources/2", newUploader().upload(APP_ID, artifact, this::newTarget));
+        assertEquals(2, targetRequests.get());
+        assertEquals(3, writtenOffsets.size());
+        assertArrayEquals(Files.readAllBytes(artifact.toPath()), Files.readAllBytes(getUploaded(2).toPath()));
+    }
+
+    private SpringCloudArtifactUploader newUploader() {
+        return new SpringCloudArtifactUploader(checkpointDir, LocalShareWriter::new, 2);
+    }
+
+    private SpringCloudArtifactUploader.UploadTarget newTarget() {
+        final int id = targetRequests.incrementAndGet();
+
+        return new SpringCloudArtifactUploader.UploadTarget(getUploaded(id).getPath(), "resources/" + id);
+    }
+
+    private File getUploaded(int id) {
+        return new File(folder.getRoot(), "share-" + id + ".jar");
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.springcloud;
+
+import com.microsoft.azuretools.core.mvp.model.BatchingLogMerger;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SpringCloudLogStreamMergerTest {
+    @Test
+    public void testParseTimestamp() {
+        assertEquals(20201019082103123L, SpringCloudLogStreamMerger.parseTimestamp(
+                "2020-10-19 08:21:03.123  INFO 1 --- [main] o.s.b.StartupInfoLogger : Starting"));
+        assertEquals(20201019082103500L, SpringCloudLogStreamMerger.parseTimestamp("2020-10-19T08:21:03.5Z"));
+        assertEquals(20201019082103000L, SpringCloudLogStreamMerger.parseTimestamp("2020-10-19 08:21:03 started"));
+        assertEquals(-1, SpringCloudLogStreamMerger.parseTimestamp("\tat org.springframework.boot.run(Boot.java:10)"));
+        assertEquals(-1, SpringCloudLogStreamMerger.parseTimestamp("2020-10-19"));
+    }
+
+    @Test
+    public void testMergeInstancesByTime() throws Exception {
+        final Map<String, InputStream> streams = new LinkedHashMap<>();
+        streams.put("app-1", toStream("2020-10-19 08:21:01.000 first\n"
+                                              + "2020-10-19 08:21:03.000 failed\n"
+                                              + "\tat Foo.bar(Foo.java:1)\n"));
+        streams.put("app-2", toStream("2020-10-19 08:21:02.000 second\n"
+                                              + "2020-10-19 08:21:04.000 last\n"));
+
+        final String merged = merge(streams);
+
+        assertEquals("[app-1] 2020-10-19 08:21:01.000 first\n"
+                             + "[app-2] 2020-10-19 08:21:02.000 second\n"
+                             + "[app-1] 2020-10-19 08:21:03.000 failed\n"
+                             + "[app-1] \tat Foo.bar(Foo.java:1)\n"
+                             + "[app-2] 2020-10-19 08:21:04.000 last\n", merged);
+    }
+
+    @Test
+    public void testKeepOrderWithinInstance() throws Exception {
+        final Map<String, InputStream> streams = new LinkedHashMap<>();
+        // A late line of the asynchronous logging comes after a newer one
+        streams.put("app-1", toStream("2020-10-19 08:21:03.000 newer\n"
+                                              + "2020-10-19 08:21:01.000 older\n"));
+        streams.put("app-2", toStream("2020-10-19 08:21:02.000 other\n"));
+
+        final String merged = merge(streams);
+
+        assertEquals("[app-2] 2020-10-19 08:21:02.000 other\n"
+                             + "[app-1] 2020-10-19 08:21:03.000 newer\n"
+                             + "[app-1] 2020-10-19 08:21:01.000 older\n", merged);
+    }
+
+    @Test
+    public void testSingleInstanceNotTagged() throws Exception {
+        final StringBuilder log = new StringBuilder();
+        for (int i = 0; i < BatchingLogMerger.MAX_BUFFERED_LINES * 3; i++) {
+            log.append("line ").append(i).append('\n');
+        }
+
+        final String merged = merge(Collections.singletonMap("app-1", toStream(log.toString())));
+
+        assertEquals(log.toString(), merged);
+    }
+
+    private static InputStream toStream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String merge(Map<String, InputStream> streams) throws InterruptedException {
+        final StringBuffer merged = new StringBuffer();
+        final CountDownLatch completed = new CountDownLatch(1);
+
+        try (SpringCloudLogStreamMerger merger = new SpringCloudLogStreamMerger(streams)) {
+            merger.start(merged::append, completed::countDown);
+
+            assertTrue(completed.await(30, TimeUnit.SECONDS));
+        }
+
+        return merged.toString();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.vm;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class VirtualMachineImageCatalogTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicLong now = new AtomicLong(1000);
+
+    private static class RecordingSource implements VirtualMachineImageSource {
+        private final List<String> calls = new ArrayList<>();
+
+        @Override
+        public List<String> listPublishers(String region) {
+            calls.add(region);
+            return Arrays.asList("OpenLogic", "Canonical", "ZPublisher");
+        }
+
+        @Override
+        public List<String> listOffers(String region, String publisher) {
+            calls.add(region + "/" + publisher);
+            return "Canonical".equals(publisher) ? Arrays.asList("UbuntuServer", "0001-com-ubuntu-server-focal")
+                    : Arrays.asList("CentOS");
+        }
+
+        @Override
+        public List<String> listSkus(String region, String publisher, String offer) {
+            calls.add(region + "/" + publisher + "/" + offer);
+            return Arrays.asList("18.04-LTS", "16.04-LTS");
+        }
+
+        @Override
+        public List<String> listVersions(String region, String publisher, String offer, String sku) {
+            calls.add(region + "/" + publisher + "/" + offer + "/" + sku);
+            return Arrays.asList("18.04.202101010");
+        }
+    }
+
+    private VirtualMachineImageCatalog newCatalog(Path dir) {
+        return new VirtualMachineImageCatalog(dir, Runnable::run, now::get);
+    }
+
+    @Test
+    public void testListsOnceAndPrefetchesPopularPublishers() throws Exception {
+        final RecordingSource source = new RecordingSource();
+        final VirtualMachineImageCatalog catalog = newCatalog(folder.getRoot().toPath());
+
+        assertEquals(Arrays.asList("Canonical", "OpenLogic", "ZPublisher"), catalog.getPublishers(source, "westus"));
+        assertEquals(Arrays.asList("westus", "westus/Canonical", "westus/OpenLogic"), source.calls);
+
+        source.calls.clear();
+        assertEquals(Arrays.asList("0001-com-ubuntu-server-focal", "UbuntuServer"),
+                catalog.getOffers(source, "westus", "Canonical"));
+        assertEquals(Arrays.asList("CentOS"), catalog.getOffers(source, "West US", "OpenLogic"));
+        assertTrue(source.calls.isEmpty());
+    }
+
+    @Test
+    public void testRefreshesExpiredEntries() {
+        final RecordingSource source = new RecordingSource();
+        final VirtualMachineImageCatalog catalog = newCatalog(null);
+        catalog.getSkus(source, "eastus", "Canonical", "UbuntuServer");
+        source.calls.clear();
+
+        catalog.getSkus(source, "eastus", "Canonical", "UbuntuServer");
+        assertTrue(source.calls.isEmpty());
+
+        now.addAndGet(TimeUnit.HOURS.toMillis(25));
+        assertEquals(Arrays.asList("16.04-LTS", "18.04-LTS"), catalog.getSkus(source, "eastus", "Canonical", "UbuntuServer"));
+        assertEquals(Arrays.asList("eastus/Canonical/UbuntuServer"), source.calls);
+    }
+
+    @Test
+    public void testPersistsCatalog() {
+        final RecordingSource source = new RecordingSource();
+        newCatalog(folder.getRoot().toPath()).getPublishers(source, "westus");
+        source.calls.clear();
+
+        final VirtualMachineImageCatalog reloaded = newCatalog(folder.getRoot().toPath());
+        assertEquals(Arrays.asList("Canonical", "OpenLogic", "ZPublisher"), reloaded.getPublishers(source, "westus"));
+        assertEquals(Arrays.asList("CentOS"), reloaded.getOffers(source, "westus", "OpenLogic"));
+        assertTrue(source.calls.isEmpty());
+
+        // other regions are listed on their own
+        reloaded.getPublishers(source, "eastus");
+        assertEquals("eastus", source.calls.get(0));
+    }
+
+    @Test
+    public void testSearch() {
+        final RecordingSource source = new RecordingSource();
+        final VirtualMachineImageCatalog catalog = newCatalog(null);
+        catalog.getPublishers(source, "westus");
+        catalog.getSkus(source, "westus", "Canonical", "UbuntuServer");
+
+        assertEquals(Arrays.asList("Canonical:UbuntuServer", "Canonical:UbuntuServer:16.04-LTS",
+                "Canonical:UbuntuServer:18.04-LTS", "Canonical:0001-com-ubuntu-server-focal"),
+                catalog.search("westus", "ubuntu", 10));
+        assertEquals(Arrays.asList("Canonical:UbuntuServer:18.04-LTS"), catalog.search("westus", "18.04", 10));
+        assertEquals(1, catalog.search("westus", "c", 1).size());
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.webapp;
+
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import rx.Observable;
+import rx.schedulers.Schedulers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times printing {@link #lineCount} access log lines streamed from a local HTTP server in place of the Kudu log
+ * stream endpoint. {@code perLinePrinting} prints each line through a synchronized console as it arrives, as the
+ * console did before, while {@code streamer} prints the batched chunks of {@link AppServiceLogStreamer}, whose time
+ * includes up to one flush interval of waiting for the last chunk. {@code filteredStreamer} excludes the health check
+ * lines, and {@code mergedStreamer} merges the same log of an app and its slot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AppServiceLogStreamerBenchmark {
+    private static final String PATH = "/api/logstream";
+
+    @Param({ "100000" })
+    public int lineCount;
+
+    private HttpServer server;
+    private String url;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(PATH, exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (final Writer writer = new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8)) {
+                for (int i = 0; i < lineCount; i++) {
+                    writer.write(getLine(i));
+                    writer.write('\n');
+                }
+            }
+        });
+        server.start();
+        url = "http://localhost:" + server.getAddress().getPort() + PATH;
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private static String getLine(int index) {
+        if (index % 10 == 0) {
+            return "2020-10-19T08:21:03  PID[4821] Information GET /healthcheck 200 1ms";
+        } else if (index % 100 == 1) {
+            return "2020-10-19T08:21:03  PID[4821] Error GET /api/orders/" + index + " 503 2041ms";
+        }
+        return "2020-10-19T08:21:03  PID[4821] Information GET /api/orders/" + index + " 200 12ms";
+    }
+
+    private Observable<String> streamLog() {
+        return Observable.create(subscriber -> {
+            try {
+                final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+                try (final BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while (!subscriber.isUnsubscribed() && (line = reader.readLine()) != null) {
+                        subscriber.onNext(line);
+                    }
+                }
+                subscriber.onCompleted();
+            } catch (IOException e) {
+                subscriber.onError(e);
+            }
+        });
+    }
+
+    /**
+     * The console printing, serialized as the console view appending
+     */
+    private synchronized void print(Blackhole blackhole, String text) {
+        blackhole.consume(text);
+    }
+
+    @Benchmark
+    public void perLinePrinting(Blackhole blackhole) throws InterruptedException {
+        final CountDownLatch completed = new CountDownLatch(1);
+        streamLog().subscribeOn(Schedulers.io())
+                .doAfterTerminate(completed::countDown)
+                .subscribe(line -> print(blackhole, line + System.lineSeparator()));
+        completed.await();
+    }
+
+    private void stream(Blackhole blackhole, Map<String, Observable<String>> streams,
+                        AppServiceLogStreamer.Filter filter) throws InterruptedException {
+        final CountDownLatch completed = new CountDownLatch(1);
+        final AppServiceLogStreamer streamer = new AppServiceLogStreamer(streams, filter);
+        streamer.start(chunk -> print(blackhole, chunk), completed::countDown);
+        completed.await();
+        blackhole.consume(streamer.getDroppedCount());
+    }
+
+    @Benchmark
+    public void streamer(Blackhole blackhole) throws InterruptedException {
+        stream(blackhole, Collections.singletonMap("app", streamLog()), AppServiceLogStreamer.Filter.NONE);
+    }
+
+    @Benchmark
+    public void filteredStreamer(Blackhole blackhole) throws InterruptedException {
+        stream(blackhole, Collections.singletonMap("app", streamLog()), AppServiceLogStreamer.Filter.of(
+                Collections.emptyList(), Collections.singletonList("GET /healthcheck")));
+    }
+
+    @Benchmark
+    public void mergedStreamer(Blackhole blackhole) throws InterruptedException {
+        final Map<String, Observable<String>> streams = new LinkedHashMap<>();
+        streams.put("app", streamLog());
+        streams.put("app/staging", streamLog());
+        stream(blackhole, streams, AppServiceLogStreamer.Filter.NONE);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AppServiceLogStreamerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
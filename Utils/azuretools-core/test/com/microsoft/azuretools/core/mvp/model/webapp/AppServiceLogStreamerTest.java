@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.webapp;
+
+import org.junit.After;
+import org.junit.Test;
+import rx.Observable;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class AppServiceLogStreamerTest {
+    private static final long FLUSH_INTERVAL_MS = 10;
+
+    private final List<String> chunks = new CopyOnWriteArrayList<>();
+    private final CountDownLatch completed = new CountDownLatch(1);
+    private AppServiceLogStreamer streamer;
+
+    @After
+    public void tearDown() {
+        if (streamer != null) {
+            streamer.close();
+        }
+    }
+
+    private static Observable<String> lines(String prefix, int count) {
+        return Observable.from(IntStream.range(0, count).mapToObj(i -> prefix + i).collect(Collectors.toList()));
+    }
+
+    private void stream(Observable<String> log) throws InterruptedException {
+        stream(Collections.singletonMap("app", log), AppServiceLogStreamer.Filter.NONE);
+    }
+
+    private void stream(Map<String, Observable<String>> logs, AppServiceLogStreamer.Filter filter)
+            throws InterruptedException {
+        streamer = new AppServiceLogStreamer(logs, filter, 10_000, FLUSH_INTERVAL_MS);
+        streamer.start(chunks::add, completed::countDown);
+
+        // Completed after the log is ended and all lines are consumed
+        assertTrue(completed.await(10, TimeUnit.SECONDS));
+        assertFalse(streamer.isStreaming());
+    }
+
+    private List<String> getLines() {
+        return chunks.stream().flatMap(chunk -> Arrays.stream(chunk.split("\n"))).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testStreamLines() throws InterruptedException {
+        stream(lines("line", 1000));
+
+        assertEquals(IntStream.range(0, 1000).mapToObj(i -> "line" + i).collect(Collectors.toList()), getLines());
+        assertEquals(0, streamer.getDroppedCount());
+    }
+
+    @Test
+    public void testFilter() {
+        final AppServiceLogStreamer.Filter filter = AppServiceLogStreamer.Filter.of(
+                Arrays.asList("ERROR", "/ [45]\\d\\d /", "a.b"), Collections.singletonList("/health(check)?/"));
+
+        assertTrue(filter.accept("2020-10-19T08:21:03 ERROR failed"));
+        assertTrue(filter.accept("GET /api 503 12ms"));
+        assertTrue(filter.accept("x a.b y"));
+        assertFalse(filter.accept("x axb y"));
+        assertFalse(filter.accept("GET /api 200 12ms"));
+        assertFalse(filter.accept("GET /healthcheck 500 1ms"));
+
+        assertTrue(AppServiceLogStreamer.Filter.NONE.accept("anything"));
+        assertTrue(AppServiceLogStreamer.Filter.of(Collections.emptyList(), Arrays.asList("", null)).accept("line"));
+    }
+
+    @Test
+    public void testStreamFilteredLines() throws InterruptedException {
+        final Observable<String> log = Observable.from(Arrays.asList(
+                "INFO started", "GET /healthcheck 200", "WARN slow", "GET /api 200", "ERROR failed"));
+        stream(Collections.singletonMap("app", log), AppServiceLogStreamer.Filter.of(Collections.emptyList(),
+                Collections.singletonList("GET /healthcheck")));
+
+        assertEquals(Arrays.asList("INFO started", "WARN slow", "GET /api 200", "ERROR failed"), getLines());
+        assertEquals(5, streamer.getReceivedCount());
+        assertEquals(1, streamer.getFilteredCount());
+    }
+
+    @Test
+    public void testMergeStreams() throws InterruptedException {
+        final Map<String, Observable<String>> logs = new LinkedHashMap<>();
+        logs.put("app", lines("a", 500));
+        logs.put("app/staging", lines("s", 500));
+        stream(logs, AppServiceLogStreamer.Filter.NONE);
+
+        final List<String> lines = getLines();
+        assertEquals(1000, lines.size());
+        // Tagged by the stream, and ordered within each stream
+        assertEquals(IntStream.range(0, 500).mapToObj(i -> "[app] a" + i).collect(Collectors.toList()),
+                lines.stream().filter(line -> line.startsWith("[app] ")).collect(Collectors.toList()));
+        assertEquals(IntStream.range(0, 500).mapToObj(i -> "[app/staging] s" + i).collect(Collectors.toList()),
+                lines.stream().filter(line -> line.startsWith("[app/staging] ")).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testFlushOnDefaultSchedule() throws InterruptedException {
+        streamer = new AppServiceLogStreamer(Collections.singletonMap("app", lines("line", 3)),
+                AppServiceLogStreamer.Filter.NONE);
+        streamer.start(chunks::add, completed::countDown);
+
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        assertEquals("line0\nline1\nline2\n", String.join("", chunks));
+    }
+
+    @Test
+    public void testReportStreamError() throws InterruptedException {
+        stream(lines("line", 2).concatWith(Observable.error(new IOException("reset"))));
+
+        assertEquals(Arrays.asList("line0", "line1", "Streaming Log is interrupted due to error : reset"), getLines());
+    }
+
+    @Test
+    public void testClose() throws InterruptedException {
+        streamer = new AppServiceLogStreamer(Collections.singletonMap("app", Observable.never()),
+                AppServiceLogStreamer.Filter.NONE, 100, FLUSH_INTERVAL_MS);
+        streamer.start(chunks::add, completed::countDown);
+        assertTrue(streamer.isStreaming());
+
+        streamer.close();
+
+        assertFalse(streamer.isStreaming());
+        assertFalse(completed.await(100, TimeUnit.MILLISECONDS));
+        assertTrue(chunks.isEmpty());
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.webapp.kudu;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+public class DeployManifestTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testFromArchive() throws Exception {
+        final File war = folder.newFile("app.war");
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(war))) {
+            zos.putNextEntry(new ZipEntry("WEB-INF/"));
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry("WEB-INF/web.xml"));
+            zos.write("<web-app/>".getBytes(StandardCharsets.UTF_8));
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry("index.html"));
+            zos.write("hello".getBytes(StandardCharsets.UTF_8));
+            zos.closeEntry();
+        }
+
+        final DeployManifest manifest = DeployManifest.fromArchive(war);
+        assertEquals(2, manifest.getFiles().size());
+        assertEquals(5, manifest.getFiles().get("index.html").getSize());
+
+        final DeployManifest restored = DeployManifest.fromJson(manifest.toJson());
+        assertNotNull(restored);
+        assertEquals(manifest.getFiles(), restored.getFiles());
+    }
+
+    @Test
+    public void testDiff() {
+        final DeployManifest previous = new DeployManifest();
+        previous.put("a.jsp", 10, "aaa");
+        previous.put("b.jsp", 20, "bbb");
+        previous.put("c.jsp", 30, "ccc");
+        previous.put("d.jsp", 40, "ddd");
+
+        final DeployManifest local = new DeployManifest();
+        local.put("a.jsp", 10, "aaa");
+        local.put("b.jsp", 21, "bbb2");
+        local.put("c.jsp", 30, "ccc");
+        local.put("e.jsp", 50, "eee");
+
+        final Map<String, Long> remote = new HashMap<>();
+        remote.put("a.jsp", 10L);
+        remote.put("b.jsp", 20L);
+        // c.jsp removed remotely since last deploy
+        remote.put("d.jsp", 40L);
+
+        final DeployManifest.Diff diff = local.diff(previous, remote);
+        assertEquals(Arrays.asList("b.jsp", "c.jsp", "e.jsp"), diff.getChanged());
+        assertEquals(Collections.singletonList("d.jsp"), diff.getRemoved());
+    }
+
+    @Test
+    public void testDiffUpToDate() {
+        final DeployManifest manifest = new DeployManifest();
+        manifest.put("a.jsp", 10, "aaa");
+        assertTrue(manifest.diff(manifest, Collections.singletonMap("a.jsp", 10L)).isEmpty());
+    }
+
+    @Test
+    public void testFromJsonNull() {
+        assertNull(DeployManifest.fromJson(null));
+    }
+}
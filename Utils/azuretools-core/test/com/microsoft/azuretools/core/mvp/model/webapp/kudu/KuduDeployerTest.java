@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.webapp.kudu;
+
+import com.microsoft.azuretools.utils.IProgressIndicator;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * The deploy decisions of {@link KuduDeployer} against a stubbed Kudu client, the previous deployment of ROOT holds
+ * <code>index.html</code>, <code>WEB-INF/web.xml</code> and <code>old.jsp</code>.
+ */
+public class KuduDeployerTest {
+    private static final String REMOTE_ROOT = "site/wwwroot/webapps/ROOT";
+    private static final String MANIFEST = "site/deployments/tools/azure-toolkit/ROOT.manifest.json";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final KuduClient client = mock(KuduClient.class);
+    private final IProgressIndicator indicator = mock(IProgressIndicator.class);
+    private final List<String> uploaded = new ArrayList<>();
+    private KuduDeployer deployer;
+    private File previousWar;
+
+    @Before
+    public void setUp() throws Exception {
+        previousWar = war("previous.war", "index.html", "hello", "WEB-INF/web.xml", "<web-app/>", "old.jsp", "old");
+        when(client.listDirectory(REMOTE_ROOT + "/")).thenReturn(Arrays.asList(
+                file("index.html", 5), directory("WEB-INF"), file("old.jsp", 3)));
+        when(client.listDirectory(REMOTE_ROOT + "/WEB-INF/")).thenReturn(Arrays.asList(file("web.xml", 10)));
+        // the delta package is deleted after the upload, so its entries are read while extracting
+        doAnswer(invocation -> {
+            uploaded.addAll(DeployManifest.fromArchive(invocation.getArgument(1)).getFiles().keySet());
+            return null;
+        }).when(client).extractZip(eq(REMOTE_ROOT), any(File.class), any());
+        deployer = new KuduDeployer(client);
+    }
+
+    private File war(String name, String... entries) throws Exception {
+        final File war = folder.newFile(name);
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(war))) {
+            for (int i = 0; i < entries.length; i += 2) {
+                zos.putNextEntry(new ZipEntry(entries[i]));
+                zos.write(entries[i + 1].getBytes(StandardCharsets.UTF_8));
+                zos.closeEntry();
+            }
+        }
+        return war;
+    }
+
+    private static KuduVfsEntry file(String name, long size) {
+        final KuduVfsEntry entry = new KuduVfsEntry();
+        entry.setName(name);
+        entry.setSize(size);
+        entry.setMime("text/plain");
+        return entry;
+    }
+
+    private static KuduVfsEntry directory(String name) {
+        final KuduVfsEntry entry = new KuduVfsEntry();
+        entry.setName(name);
+        entry.setMime("inode/directory");
+        return entry;
+    }
+
+    private void givenPreviousDeployment() throws Exception {
+        when(client.readTextFile(MANIFEST)).thenReturn(DeployManifest.fromArchive(previousWar).toJson());
+    }
+
+    private File changedWar() throws Exception {
+        return war("app.war", "index.html", "hello v2", "WEB-INF/web.xml", "<web-app/>", "new.jsp", "new");
+    }
+
+    @Test
+    public void testIncrementalUploadChangesAndRemoveFiles() throws Exception {
+        givenPreviousDeployment();
+
+        assertTrue(deployer.warDeploy(changedWar(), null, new KuduDeployOptions(true, true, false), indicator));
+
+        assertEquals(Arrays.asList("index.html", "new.jsp"), uploaded);
+        verify(client).deleteFile(REMOTE_ROOT + "/old.jsp");
+        verify(client, never()).deleteFile(REMOTE_ROOT + "/index.html");
+        verify(client).writeTextFile(eq(MANIFEST), anyString());
+        verify(client, never()).oneDeploy(any(), any(), any(), anyBoolean(), anyBoolean(), any());
+    }
+
+    @Test
+    public void testIncrementalKeepRemoteFilesWithoutClean() throws Exception {
+        givenPreviousDeployment();
+
+        assertTrue(deployer.warDeploy(changedWar(), null, new KuduDeployOptions(true, false, false), indicator));
+
+        assertEquals(Arrays.asList("index.html", "new.jsp"), uploaded);
+        verify(client, never()).deleteFile(anyString());
+        verify(client).writeTextFile(eq(MANIFEST), anyString());
+    }
+
+    @Test
+    public void testIncrementalSkipUpToDate() throws Exception {
+        givenPreviousDeployment();
+
+        assertTrue(deployer.warDeploy(previousWar, null, new KuduDeployOptions(true, true, false), indicator));
+
+        assertTrue(uploaded.isEmpty());
+        verify(client, never()).extractZip(anyString(), any(), any());
+        verify(client, never()).deleteFile(anyString());
+        verify(client, never()).oneDeploy(any(), any(), any(), anyBoolean(), anyBoolean(), any());
+    }
+
+    @Test
+    public void testIncrementalPushRemotelyChangedFile() throws Exception {
+        givenPreviousDeployment();
+        // index.html was edited on the site since the last deploy
+        when(client.listDirectory(REMOTE_ROOT + "/")).thenReturn(Arrays.asList(
+                file("index.html", 7), directory("WEB-INF"), file("old.jsp", 3)));
+
+        assertTrue(deployer.warDeploy(previousWar, null, new KuduDeployOptions(true, false, false), indicator));
+
+        assertEquals(Arrays.asList("index.html"), uploaded);
+        verify(client, never()).deleteFile(anyString());
+    }
+
+    @Test
+    public void testFullDeployWithoutPreviousManifest() throws Exception {
+        final KuduDeploymentStatus succeeded = new KuduDeploymentStatus();
+        succeeded.setStatus(4);
+        succeeded.setComplete(true);
+        final File war = changedWar();
+        when(client.oneDeploy(war, KuduDeployer.TYPE_WAR, null, false, false, indicator)).thenReturn("deployment-1");
+        when(client.getDeploymentStatus("deployment-1")).thenReturn(succeeded);
+
+        assertTrue(deployer.warDeploy(war, null, new KuduDeployOptions(true, false, false), indicator));
+
+        // clean=false is passed to Kudu, which then keeps the files not in the war
+        verify(client).oneDeploy(war, KuduDeployer.TYPE_WAR, null, false, false, indicator);
+        verify(client, never()).extractZip(anyString(), any(), any());
+        verify(client, never()).deleteFile(anyString());
+        verify(client).writeTextFile(eq(MANIFEST), anyString());
+    }
+
+    @Test
+    public void testFullDeployWhenNotIncremental() throws Exception {
+        givenPreviousDeployment();
+        final KuduDeploymentStatus succeeded = new KuduDeploymentStatus();
+        succeeded.setStatus(4);
+        succeeded.setComplete(true);
+        final File war = changedWar();
+        when(client.oneDeploy(war, KuduDeployer.TYPE_WAR, "webapps/app", true, true, indicator))
+                .thenReturn("deployment-2");
+        when(client.getDeploymentStatus("deployment-2")).thenReturn(succeeded);
+
+        assertTrue(deployer.warDeploy(war, "app", new KuduDeployOptions(false, true, true), indicator));
+
+        verify(client, never()).readTextFile(anyString());
+        verify(client, never()).deleteFile(anyString());
+        verify(client).writeTextFile(eq("site/deployments/tools/azure-toolkit/app.manifest.json"), anyString());
+    }
+}
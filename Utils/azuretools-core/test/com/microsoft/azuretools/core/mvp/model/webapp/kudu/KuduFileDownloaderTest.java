@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.webapp.kudu;
+
+import com.microsoft.azuretools.utils.IProgressIndicator;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.microsoft.azuretools.core.mvp.model.webapp.kudu.KuduFileDownloader.SEGMENT_SIZE;
+import static org.junit.Assert.*;
+
+public class KuduFileDownloaderTest {
+    private static final String PATH = "site/wwwroot/app.jar";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File workDir;
+    private byte[] remote;
+    private String remoteVersion = "\"v1\"";
+    private boolean isRangeSupported = true;
+    private final List<String> requestedRanges = new CopyOnWriteArrayList<>();
+    // The failures to inject by range start, -1 to fail always
+    private final Map<Long, AtomicInteger> failures = new ConcurrentHashMap<>();
+
+    // The local stand-in of the Kudu VFS API, serving the ranges of the remote bytes
+    private final KuduFileDownloader.RangeFetcher fetcher = (path, range) -> {
+        if (!PATH.equals(path) || remote == null) {
+            return new KuduFileDownloader.RangeResponse(404, null, null, null);
+        }
+
+        requestedRanges.add(range);
+
+        if (!isRangeSupported) {
+            return new KuduFileDownloader.RangeResponse(200, null, remoteVersion, new ByteArrayInputStream(remote));
+        }
+
+        final String[] bounds = range.substring("bytes=".length()).split("-");
+        final long start = Long.parseLong(bounds[0]);
+        if (start >= remote.length) {
+            return new KuduFileDownloader.RangeResponse(416, null, remoteVersion, null);
+        }
+
+        final int end = (int) Math.min(Long.parseLong(bounds[1]), remote.length - 1);
+        final AtomicInteger remainingFailures = failures.get(start);
+        final boolean isFailed = remainingFailures != null && remainingFailures.getAndDecrement() != 0;
+        // A failed range is cut off in the middle of the body
+        final int length = isFailed ? (end - (int) start + 1) / 2 : end - (int) start + 1;
+
+        return new KuduFileDownloader.RangeResponse(206,
+                                                    "bytes " + start + "-" + end + "/" + remote.length,
+                                                    remoteVersion,
+                                                    new ByteArrayInputStream(remote, (int) start, length));
+    };
+
+    private static class RecordingIndicator implements IProgressIndicator {
+        private volatile double fraction = 0;
+        private volatile boolean isCanceled = false;
+
+        @Override
+        public void setText(String text) {
+        }
+
+        @Override
+        public void setText2(String text2) {
+        }
+
+        @Override
+        public void setFraction(double fraction) {
+            this.fraction = fraction;
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return isCanceled;
+        }
+
+        @Override
+        public void notifyComplete() {
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        workDir = folder.newFolder("downloads");
+        remote = new byte[(int) (3 * SEGMENT_SIZE + 1234)];
+        new Random(42).nextBytes(remote);
+    }
+
+    @Test
+    public void testDownloadInParallelRanges() throws IOException {
+        final File dest = new File(folder.getRoot(), "app.jar");
+        final RecordingIndicator indicator = new RecordingIndicator();
+
+        newDownloader().download(PATH, dest, indicator);
+
+        assertArrayEquals(remote, Files.readAllBytes(dest.toPath()));
+        assertEquals(1.0, indicator.fraction, 0.0001);
+        // The probe and the 4 segments
+        assertEquals(5, requestedRanges.size());
+        assertTrue(requestedRanges.contains("bytes=" + 3 * SEGMENT_SIZE + "-" + (remote.length - 1)));
+        assertArrayEquals(new String[] { "app.jar" }, folder.getRoot().list((dir, name) -> !name.equals("downloads")));
+        assertEquals(0, workDir.list().length);
+    }
+
+    @Test
+    public void testRetryFailedRange() throws IOException {
+        final File dest = new File(folder.getRoot(), "app.jar");
+        failures.put(SEGMENT_SIZE, new AtomicInteger(2));
+
+        newDownloader().download(PATH, dest, null);
+
+        assertArrayEquals(remote, Files.readAllBytes(dest.toPath()));
+        assertEquals(7, requestedRanges.size());
+    }
+
+    @Test
+    public void testResumeInterruptedDownload() throws IOException {
+        final File dest = new File(folder.getRoot(), "app.jar");
+        failures.put(2 * SEGMENT_SIZE, new AtomicInteger(-1));
+
+        try {
+            newDownloader().download(PATH, dest, null);
+            fail("The download should fail for the always failed range");
+        } catch (IOException expected) {
+            assertFalse(dest.exists());
+            // The partial files to resume are not left beside the destination
+            assertArrayEquals(new String[] { "downloads" }, folder.getRoot().list());
+        }
+
+        failures.clear();
+        requestedRanges.clear();
+        newDownloader().download(PATH, dest, null);
+
+        assertArrayEquals(remote, Files.readAllBytes(dest.toPath()));
+        // Only the probe and the failed segment are requested again
+        assertEquals(Arrays.asList("bytes=0-0", "bytes=" + 2 * SEGMENT_SIZE + "-" + (3 * SEGMENT_SIZE - 1)),
+                     requestedRanges);
+        assertEquals(0, workDir.list().length);
+    }
+
+    @Test
+    public void testPurgeStalePartialFiles() throws IOException {
+        final File stale = new File(workDir, "stale.part");
+        Files.write(stale.toPath(), new byte[] { 1 });
+        assertTrue(stale.setLastModified(System.currentTimeMillis() - KuduFileDownloader.RESUME_MAX_AGE_MS - 1000));
+
+        newDownloader().download(PATH, new File(folder.getRoot(), "app.jar"), null);
+
+        assertFalse(stale.exists());
+    }
+
+    @Test
+    public void testRestartDownloadIfRemoteChanged() throws IOException {
+        final File dest = new File(folder.getRoot(), "app.jar");
+        failures.put(2 * SEGMENT_SIZE, new AtomicInteger(-1));
+
+        try {
+            newDownloader().download(PATH, dest, null);
+            fail("The download should fail for the always failed range");
+        } catch (IOException expected) {
+            // Expected
+        }
+
+        failures.clear();
+        requestedRanges.clear();
+        remoteVersion = "\"v2\"";
+        new Random(7).nextBytes(remote);
+        newDownloader().download(PATH, dest, null);
+
+        assertArrayEquals(remote, Files.readAllBytes(dest.toPath()));
+        assertEquals(5, requestedRanges.size());
+    }
+
+    @Test
+    public void testDownloadWithoutRangeSupport() throws IOException {
+        final File dest = new File(folder.getRoot(), "app.jar");
+        isRangeSupported = false;
+
+        newDownloader().download(PATH, dest, null);
+
+        assertArrayEquals(remote, Files.readAllBytes(dest.toPath()));
+        assertEquals(1, requestedRanges.size());
+    }
+
+    @Test
+    public void testDownloadEmptyFile() throws IOException {
+        final File dest = new File(folder.getRoot(), "empty.txt");
+        remote = new byte[0];
+
+        newDownloader().download(PATH, dest, null);
+
+        assertTrue(dest.isFile());
+        assertEquals(0, dest.length());
+    }
+
+    @Test
+    public void testDownloadMissingFile() throws IOException {
+        try {
+            newDownloader().download("site/wwwroot/missing.jar", new File(folder.getRoot(), "missing.jar"), null);
+            fail("The missing file should not be downloaded");
+        } catch (FileNotFoundException expected) {
+            assertEquals(0, workDir.list().length);
+        }
+    }
+
+    @Test
+    public void testDeletePartialFileWithoutRangeSupport() throws IOException {
+        final File dest = new File(folder.getRoot(), "app.jar");
+        final RecordingIndicator indicator = new RecordingIndicator();
+        isRangeSupported = false;
+        indicator.isCanceled = true;
+
+        try {
+            newDownloader().download(PATH, dest, indicator);
+            fail("The download should be canceled");
+        } catch (InterruptedIOException expected) {
+            // Not resumable, nothing is kept
+            assertFalse(dest.exists());
+            assertEquals(0, workDir.list().length);
+        }
+    }
+
+    @Test
+    public void testCancelDownload() throws IOException {
+        final File dest = new File(folder.getRoot(), "app.jar");
+        final RecordingIndicator indicator = new RecordingIndicator();
+        indicator.isCanceled = true;
+
+        try {
+            newDownloader().download(PATH, dest, indicator);
+            fail("The download should be canceled");
+        } catch (InterruptedIOException expected) {
+            assertFalse(dest.exists());
+        }
+    }
+
+    @Test
+    public void testGetFileSize() throws IOException {
+        assertEquals(remote.length, newDownloader().getFileSize(PATH));
+        assertEquals(Arrays.asList("bytes=0-0"), requestedRanges);
+    }
+
+    private KuduFileDownloader newDownloader() {
+        return new KuduFileDownloader(fetcher, workDir);
+    }
+}
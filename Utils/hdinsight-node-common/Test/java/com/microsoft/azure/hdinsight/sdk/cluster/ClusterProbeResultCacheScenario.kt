@@ -0,0 +1,137 @@
+package com.microsoft.azure.hdinsight.sdk.cluster
+
+import com.google.gson.JsonParser
+import com.microsoft.azure.hdinsight.common.CommonConst
+import com.microsoft.azure.hdinsight.sdk.cluster.HDInsightNewAPI.HDInsightUserRoleType
+import com.microsoft.tooling.msservices.components.DefaultLoader
+import com.microsoft.tooling.msservices.helpers.IDEHelper
+import cucumber.api.java.en.Given
+import cucumber.api.java.en.Then
+import cucumber.api.java.en.When
+import org.mockito.ArgumentMatchers.anyString
+import org.mockito.Mockito.doAnswer
+import org.mockito.Mockito.doReturn
+import org.mockito.Mockito.mock
+import rx.Observable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertNotNull
+import kotlin.test.assertTrue
+
+class ClusterProbeResultCacheScenario {
+    private val applicationProperties = ConcurrentHashMap<String, String>()
+    private val probeCounts = ConcurrentHashMap<String, AtomicInteger>()
+    private val probeRoles = ConcurrentHashMap<String, HDInsightUserRoleType>()
+    private val transientFailures = ConcurrentHashMap.newKeySet<String>()
+    private var cache = ClusterProbeResultCache()
+    private var result: ClusterProbeResultCache.ProbeResult? = null
+
+    private fun mockCluster(name: String, etag: String): ClusterRawInfo {
+        val cluster = mock(ClusterRawInfo::class.java)
+        doReturn("/subscriptions/sub/resourceGroups/rg/providers/Microsoft.HDInsight/clusters/$name")
+                .`when`(cluster).id
+        doReturn(name).`when`(cluster).name
+        doReturn(etag).`when`(cluster).etag
+
+        return cluster
+    }
+
+    private fun getOrProbe(name: String, etag: String): ClusterProbeResultCache.ProbeResult {
+        val cluster = mockCluster(name, etag)
+
+        return cache.getOrProbe(cluster) {
+            Observable.fromCallable {
+                if (transientFailures.contains(name))
+                    ClusterProbeResultCache.ProbeResult(cluster, false, false, null, false)
+                else
+                    ClusterProbeResultCache.ProbeResult(cluster, true, false, probeRoles[name])
+            }
+                    // Counted after the result is cached
+                    .doAfterTerminate { probeCounts.computeIfAbsent(name) { AtomicInteger() }.incrementAndGet() }
+        }.toBlocking().single()
+    }
+
+    @Given("^the cluster probe results persisted are empty$")
+    fun mockApplicationProperties() {
+        val ideHelper = mock(IDEHelper::class.java)
+        doAnswer { applicationProperties[it.getArgument(0)] }.`when`(ideHelper).getApplicationProperty(anyString())
+        doAnswer { applicationProperties[it.getArgument(0)] = it.getArgument(1) }
+                .`when`(ideHelper).setApplicationProperty(anyString(), anyString())
+
+        DefaultLoader.setIdeHelper(ideHelper)
+        cache = ClusterProbeResultCache()
+    }
+
+    @Given("^the cluster '(.+)' with ETag '(.+)' probed as new API supported with role '(.+)'$")
+    fun probeCluster(name: String, etag: String, role: String) {
+        probeRoles[name] = HDInsightUserRoleType.valueOf(role)
+        getOrProbe(name, etag)
+    }
+
+    @When("^the cluster '(.+)' probe result changes to new API supported with role '(.+)'$")
+    fun changeProbeResult(name: String, role: String) {
+        probeRoles[name] = HDInsightUserRoleType.valueOf(role)
+    }
+
+    @When("^the cluster '(.+)' probe fails transiently$")
+    fun failProbeTransiently(name: String) {
+        transientFailures.add(name)
+    }
+
+    @When("^the cluster '(.+)' probe recovers$")
+    fun recoverProbe(name: String) {
+        transientFailures.remove(name)
+    }
+
+    @When("^getting the probe result of cluster '(.+)' with ETag '(.+)'$")
+    fun getProbeResult(name: String, etag: String) {
+        result = getOrProbe(name, etag)
+    }
+
+    @When("^the IDE is restarted$")
+    fun restart() {
+        cache = ClusterProbeResultCache()
+    }
+
+    @When("^the probe results persisted are (\\d+) hours old$")
+    fun ageProbeResults(hours: Long) {
+        val saved = assertNotNull(applicationProperties[CommonConst.HDINSIGHT_CLUSTER_PROBE_RESULTS])
+        val results = JsonParser().parse(saved).asJsonArray
+        results.forEach {
+            val probeResult = it.asJsonObject
+            probeResult.addProperty("probedTime", probeResult["probedTime"].asLong - TimeUnit.HOURS.toMillis(hours))
+        }
+
+        applicationProperties[CommonConst.HDINSIGHT_CLUSTER_PROBE_RESULTS] = results.toString()
+        restart()
+    }
+
+    @Then("^the probe result should be new API supported with role '(.+)'$")
+    fun checkProbeResult(role: String) {
+        val probeResult = assertNotNull(result)
+
+        assertTrue(probeResult.isNewApiSupported)
+        assertEquals(HDInsightUserRoleType.valueOf(role), probeResult.roleType)
+    }
+
+    @Then("^the probe result should be new API not supported$")
+    fun checkProbeResultNotSupported() {
+        val probeResult = assertNotNull(result)
+
+        assertFalse(probeResult.isNewApiSupported)
+    }
+
+    @Then("^the cluster '(.+)' should be probed (\\d+) times$")
+    fun checkProbeCount(name: String, expected: Int) {
+        // Wait for the background refreshing
+        val deadline = System.currentTimeMillis() + 10_000
+        while ((probeCounts[name]?.get() ?: 0) < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10)
+        }
+
+        assertEquals(expected, probeCounts[name]?.get() ?: 0)
+    }
+}
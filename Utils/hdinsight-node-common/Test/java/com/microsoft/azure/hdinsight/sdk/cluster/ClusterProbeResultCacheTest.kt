@@ -0,0 +1,12 @@
+package com.microsoft.azure.hdinsight.sdk.cluster
+
+import cucumber.api.CucumberOptions
+import cucumber.api.junit.Cucumber
+import org.junit.runner.RunWith
+
+@RunWith(Cucumber::class)
+@CucumberOptions(
+        plugin = ["html:target/cucumber"],
+        name = ["Cluster probe result cache"]
+)
+class ClusterProbeResultCacheTest
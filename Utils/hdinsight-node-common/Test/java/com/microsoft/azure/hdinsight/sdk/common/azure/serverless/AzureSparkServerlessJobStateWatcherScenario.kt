@@ -0,0 +1,116 @@
+package com.microsoft.azure.hdinsight.sdk.common.azure.serverless
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.microsoft.azure.hdinsight.sdk.rest.azure.serverless.spark.models.SparkBatchJob
+import com.microsoft.azure.hdinsight.sdk.rest.azure.serverless.spark.models.SparkBatchJobList
+import cucumber.api.java.Before
+import cucumber.api.java.en.Given
+import cucumber.api.java.en.Then
+import cucumber.api.java.en.When
+import org.mockito.ArgumentMatchers.anyString
+import org.mockito.Mockito.*
+import rx.Observable
+import rx.observers.TestSubscriber
+import rx.schedulers.TestScheduler
+import java.util.concurrent.TimeUnit
+import kotlin.test.assertEquals
+
+class AzureSparkServerlessJobStateWatcherScenario {
+    private val mapper = ObjectMapper()
+    private val tickScheduler = TestScheduler()
+    private lateinit var account: AzureSparkServerlessAccount
+    private val watchers = mutableMapOf<String, TestSubscriber<SparkBatchJob>>()
+
+    @Before
+    fun setUp() {
+        account = mock(AzureSparkServerlessAccount::class.java)
+        doReturn("test").`when`(account).name
+        doReturn(Observable.error<SparkBatchJobList>(IllegalStateException("no job list")))
+                .`when`(account).getSparkBatchJobList()
+        watchers.clear()
+    }
+
+    @Given("^the Serverless Spark job list page '([^']+)' has jobs '([^']*)' in state '([^']+)'(?: with next page '([^']+)')?$")
+    fun mockJobListPage(page: String, jobs: String, schedulerState: String, nextPage: String?) {
+        val jobList = mapper.readValue("""{
+            "value": [${splitIds(jobs).joinToString(",") { jobJson(it, schedulerState, true) }}],
+            "nextLink": ${if (nextPage == null) "null" else "\"$nextPage\""}
+        }""", SparkBatchJobList::class.java)
+
+        if (page == "first") {
+            doReturn(Observable.just(jobList)).`when`(account).getSparkBatchJobList()
+        } else {
+            doReturn(Observable.just(jobList)).`when`(account).getSparkBatchJobList(page)
+        }
+    }
+
+    @Given("^the Serverless Spark job list first page has job '(.+)' without running details$")
+    fun mockJobListWithoutDetails(jobId: String) {
+        val jobList = mapper.readValue("""{ "value": [${jobJson(jobId, "Running", false)}] }""",
+                                       SparkBatchJobList::class.java)
+
+        doReturn(Observable.just(jobList)).`when`(account).getSparkBatchJobList()
+    }
+
+    @Given("^the Serverless Spark job '(.+)' detail is in state '(.+)'$")
+    fun mockJobDetail(jobId: String, schedulerState: String) {
+        doReturn(Observable.just(mapper.readValue(jobJson(jobId, schedulerState, true), SparkBatchJob::class.java)))
+                .`when`(account).getSparkBatchJobRequest(jobId)
+    }
+
+    @When("^watch the Serverless Spark jobs '(.+)' for one tick$")
+    fun watchJobs(jobs: String) {
+        val watcher = AzureSparkServerlessJobStateWatcher(account, tickScheduler)
+
+        splitIds(jobs).forEach { jobId ->
+            watchers[jobId] = TestSubscriber<SparkBatchJob>().also { watcher.watch(jobId).subscribe(it) }
+        }
+
+        tickScheduler.triggerActions()
+    }
+
+    @Then("^the watched Serverless Spark job '(.+)' should get a snapshot in state '(.+)'$")
+    fun checkSnapshot(jobId: String, schedulerState: String) {
+        val subscriber = watchers[jobId]!!
+        val deadline = System.currentTimeMillis() + 5000
+
+        while (subscriber.onNextEvents.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10)
+        }
+
+        assertEquals(1, subscriber.onNextEvents.size)
+        assertEquals(schedulerState, subscriber.onNextEvents.first().schedulerState().toString())
+    }
+
+    @Then("^the watching of Serverless Spark job '(.+)' should be completed$")
+    fun checkCompleted(jobId: String) {
+        watchers[jobId]!!.awaitTerminalEvent(5, TimeUnit.SECONDS)
+        watchers[jobId]!!.assertCompleted()
+    }
+
+    @Then("^the Serverless Spark job list page '(.+)' should be requested (\\d+) times?$")
+    fun checkPageRequested(page: String, times: Int) {
+        if (page == "first") {
+            verify(account, times(times)).getSparkBatchJobList()
+        } else {
+            verify(account, times(times)).getSparkBatchJobList(page)
+        }
+    }
+
+    @Then("^the Serverless Spark job '(.+)' detail should be requested (\\d+) times?$")
+    fun checkDetailRequested(jobId: String, times: Int) {
+        if (jobId == "any") {
+            verify(account, times(times)).getSparkBatchJobRequest(anyString())
+        } else {
+            verify(account, times(times)).getSparkBatchJobRequest(jobId)
+        }
+    }
+
+    private fun splitIds(ids: String): List<String> = ids.split(",").map { it.trim() }.filter { it.isNotEmpty() }
+
+    private fun jobJson(jobId: String, schedulerState: String, withDetails: Boolean): String {
+        val properties = if (withDetails) "{ \"responsePayload\": { \"state\": \"running\" } }" else "{}"
+
+        return """{ "id": "$jobId", "schedulerState": "$schedulerState", "properties": $properties }"""
+    }
+}
@@ -0,0 +1,44 @@
+package com.microsoft.azure.hdinsight.sdk.common.livy.interactive
+
+import cucumber.api.java.en.Given
+import cucumber.api.java.en.Then
+import cucumber.api.java.en.When
+import kotlin.test.assertEquals
+
+class PollingBackoffScenario {
+    private var backoff = PollingBackoff()
+    private var delay = -1L
+
+    private fun parseDelays(delays: String): List<Long> = delays.split(",").map { it.trim().toLong() }
+
+    @Given("^a polling backoff from (\\d+) ms up to (\\d+) ms$")
+    fun createBackoff(initialDelayMs: Long, maxDelayMs: Long) {
+        backoff = PollingBackoff(initialDelayMs, maxDelayMs)
+    }
+
+    @When("^polling (\\d+) times without progress$")
+    fun pollWithoutProgress(times: Int) {
+        repeat(times) { delay = backoff.nextDelayMillis() }
+    }
+
+    @When("^polling with progress (.+)$")
+    fun pollWithProgress(progresses: String) {
+        // Reported back to back, so the estimated remaining time is below the initial delay
+        progresses.split(",").forEach { delay = backoff.nextDelayMillis(it.trim().toDouble()) }
+    }
+
+    @Then("^the last delay should be (\\d+) ms$")
+    fun checkLastDelay(expected: Long) {
+        assertEquals(expected, delay)
+    }
+
+    @Then("^the next delays without progress should be (.+) ms$")
+    fun checkNextDelays(expected: String) {
+        assertEquals(parseDelays(expected), parseDelays(expected).map { backoff.nextDelayMillis() })
+    }
+
+    @Then("^the next delays with unknown progress should be (.+) ms$")
+    fun checkNextDelaysWithUnknownProgress(expected: String) {
+        assertEquals(parseDelays(expected), parseDelays(expected).map { backoff.nextDelayMillis(-1.0) })
+    }
+}
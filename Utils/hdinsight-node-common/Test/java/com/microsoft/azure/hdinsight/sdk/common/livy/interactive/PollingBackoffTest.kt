@@ -0,0 +1,12 @@
+package com.microsoft.azure.hdinsight.sdk.common.livy.interactive
+
+import cucumber.api.CucumberOptions
+import cucumber.api.junit.Cucumber
+import org.junit.runner.RunWith
+
+@RunWith(Cucumber::class)
+@CucumberOptions(
+        plugin = ["html:target/cucumber"],
+        name = ["Livy polling backoff"]
+)
+class PollingBackoffTest
@@ -0,0 +1,121 @@
+package com.microsoft.azure.hdinsight.sdk.common.livy.interactive
+
+import com.github.tomakehurst.wiremock.client.WireMock
+import com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo
+import com.microsoft.azure.hdinsight.spark.common.MockHttpService
+import cucumber.api.java.Before
+import cucumber.api.java.en.Given
+import cucumber.api.java.en.Then
+import cucumber.api.java.en.When
+import rx.Observable
+import java.net.URI
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.test.assertEquals
+
+class SessionPoolScenario {
+    private lateinit var httpServerMock: MockHttpService
+    private lateinit var pool: SessionPool
+    private val startedCount = AtomicInteger()
+    private val checkedOut = mutableMapOf<String, Session>()
+
+    @Before
+    fun setUp() {
+        httpServerMock = MockHttpService()
+        pool = SessionPool(URI.create(httpServerMock.completeUrl("/")))
+        startedCount.set(0)
+        checkedOut.clear()
+    }
+
+    private fun sessionResponse(id: Int, state: String): String =
+            """{"id":$id,"appId":null,"owner":null,"proxyUser":null,"state":"$state","kind":"spark",""" +
+                    """"appInfo":{"driverLogUrl":null,"sparkUiUrl":null},"log":[]}"""
+
+    @Given("^the Livy service reports session (\\d+) as '(.+)'$")
+    fun mockSessionState(id: Int, state: String) {
+        httpServerMock.stub("GET", "/sessions/$id", 200, sessionResponse(id, state))
+        httpServerMock.stub("DELETE", "/sessions/$id", 200, "{}")
+    }
+
+    @Given("^the pooled sessions are idle for at most (\\d+) ms$")
+    fun setIdleTtl(idleTtlMs: Long) {
+        pool.setIdleTtl(idleTtlMs, TimeUnit.MILLISECONDS)
+    }
+
+    @Given("^the pool keeps (\\d+) idle sessions warm$")
+    fun setMinIdleSessions(minIdleSessions: Int) {
+        pool.setMinIdleSessions(minIdleSessions)
+    }
+
+    // Started sessions get the next id, without calling Livy
+    private fun start(session: Session): Observable<Session> = Observable.fromCallable {
+        session.id = startedCount.incrementAndGet()
+        session
+    }
+
+    @When("^'(.+)' checks out the session '(.+)'$")
+    fun checkout(owner: String, name: String) {
+        val candidate = SparkSession(name, pool.baseUrl, owner, "password")
+
+        checkedOut[name] = pool.checkout(candidate) { session -> start(session) }.toBlocking().single()
+    }
+
+    @When("^'(.+)' pre-warms the sessions like '(.+)'$")
+    fun prewarm(owner: String, name: String) {
+        pool.prewarm({ SparkSession(name, pool.baseUrl, owner, "password") }, { session -> start(session) })
+    }
+
+    @When("^the session '(.+)' is released$")
+    fun release(name: String) {
+        pool.release(checkedOut.getValue(name))
+    }
+
+    @When("^the idle sessions are evicted after (\\d+) ms$")
+    fun evictExpired(waitMs: Long) {
+        Thread.sleep(waitMs)
+        pool.evictExpired()
+    }
+
+    @When("^the session pool is closed$")
+    fun close() {
+        pool.close()
+    }
+
+    @Then("^the session '(.+)' should have id (\\d+)$")
+    fun checkSessionId(name: String, id: Int) {
+        assertEquals(id, checkedOut.getValue(name).id)
+    }
+
+    @Then("^(\\d+) sessions should have been started$")
+    fun checkStartedCount(expected: Int) {
+        assertEquals(expected, startedCount.get())
+    }
+
+    @Then("^the pool should have (\\d+) idle sessions$")
+    fun checkIdleCount(expected: Int) {
+        assertEquals(expected, pool.idleCount)
+    }
+
+    @Then("^the pool should get (\\d+) idle sessions in background$")
+    fun waitIdleCount(expected: Int) {
+        // Pre-warmed sessions are started in background
+        val deadline = System.currentTimeMillis() + 10_000
+        while (pool.idleCount != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10)
+        }
+
+        assertEquals(expected, pool.idleCount)
+    }
+
+    @Then("^the session (\\d+) should be killed$")
+    fun checkKilled(id: Int) {
+        // Sessions are killed in background
+        val deadline = System.currentTimeMillis() + 10_000
+        while (WireMock.findAll(WireMock.deleteRequestedFor(urlEqualTo("/sessions/$id"))).isEmpty()
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10)
+        }
+
+        WireMock.verify(WireMock.deleteRequestedFor(urlEqualTo("/sessions/$id")))
+    }
+}
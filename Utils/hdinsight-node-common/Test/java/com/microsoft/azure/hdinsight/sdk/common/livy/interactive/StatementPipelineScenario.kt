@@ -0,0 +1,149 @@
+package com.microsoft.azure.hdinsight.sdk.common.livy.interactive
+
+import com.github.tomakehurst.wiremock.client.WireMock
+import com.github.tomakehurst.wiremock.client.WireMock.aResponse
+import com.github.tomakehurst.wiremock.client.WireMock.equalTo
+import com.github.tomakehurst.wiremock.client.WireMock.get
+import com.github.tomakehurst.wiremock.client.WireMock.matchingJsonPath
+import com.github.tomakehurst.wiremock.client.WireMock.post
+import com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor
+import com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo
+import com.github.tomakehurst.wiremock.stubbing.Scenario
+import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.exceptions.StatementCancelledException
+import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.exceptions.StatementExecutionError
+import com.microsoft.azure.hdinsight.spark.common.MockHttpService
+import cucumber.api.java.en.Given
+import cucumber.api.java.en.Then
+import cucumber.api.java.en.When
+import rx.Notification
+import rx.Observable
+import java.net.URI
+import java.util.concurrent.TimeUnit
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+
+class StatementPipelineScenario {
+    private lateinit var httpServerMock: MockHttpService
+    private lateinit var pipeline: StatementPipeline
+    private val submissions = mutableListOf<Observable<Notification<Statement>>>()
+
+    private val sessionId = 6
+
+    private fun statementResponse(id: Int, code: String, state: String, output: String = "null"): String =
+            """{"id":$id,"code":"$code","state":"$state","output":$output,"progress":0}"""
+
+    private fun stubPost(code: String, id: Int) {
+        WireMock.stubFor(post(urlEqualTo("/sessions/$sessionId/statements"))
+                .withRequestBody(matchingJsonPath("$.code", equalTo(code)))
+                .willReturn(aResponse().withStatus(200).withBody(statementResponse(id, code, "waiting"))))
+    }
+
+    private fun stubGet(id: Int, body: String) {
+        WireMock.stubFor(get(urlEqualTo("/sessions/$sessionId/statements/$id"))
+                .willReturn(aResponse().withStatus(200).withBody(body)))
+    }
+
+    private fun outcome(notification: Notification<Statement>): String = when {
+        notification.isOnNext -> "ok: " + notification.value.output?.data?.get("text/plain")
+        notification.throwable is StatementExecutionError -> "failed"
+        notification.throwable is StatementCancelledException -> "cancelled"
+        else -> "error: " + notification.throwable.javaClass.simpleName
+    }
+
+    @Given("^a statement pipeline of a mocked Livy session$")
+    fun createPipeline() {
+        httpServerMock = MockHttpService()
+        WireMock.configureFor(httpServerMock.port)
+
+        val session = SparkSession("pipelined", URI.create(httpServerMock.completeUrl("/")))
+        session.id = sessionId
+        pipeline = StatementPipeline(session)
+        submissions.clear()
+    }
+
+    @Given("^the code '(.+)' runs as statement (\\d+) with output '(.+)'$")
+    fun mockStatementOutput(code: String, id: Int, output: String) {
+        stubPost(code, id)
+        stubGet(id, statementResponse(id, code, "available",
+                """{"status":"ok","execution_count":$id,"data":{"text/plain":"$output"}}"""))
+    }
+
+    @Given("^the code '(.+)' runs as statement (\\d+) and fails with '(.+)'$")
+    fun mockStatementError(code: String, id: Int, evalue: String) {
+        stubPost(code, id)
+        stubGet(id, statementResponse(id, code, "available",
+                """{"status":"error","execution_count":$id,"ename":"Error","evalue":"$evalue","traceback":[]}"""))
+    }
+
+    @Given("^the code '(.+)' runs as statement (\\d+) until cancelled$")
+    fun mockStatementUntilCancelled(code: String, id: Int) {
+        val scenario = "statement $id"
+
+        stubPost(code, id)
+        WireMock.stubFor(get(urlEqualTo("/sessions/$sessionId/statements/$id"))
+                .inScenario(scenario)
+                .whenScenarioStateIs(Scenario.STARTED)
+                .willReturn(aResponse().withStatus(200).withBody(statementResponse(id, code, "running"))))
+        WireMock.stubFor(post(urlEqualTo("/sessions/$sessionId/statements/$id/cancel"))
+                .inScenario(scenario)
+                .willSetStateTo("cancelled")
+                .willReturn(aResponse().withStatus(200).withBody("""{"msg":"canceled"}""")))
+        WireMock.stubFor(get(urlEqualTo("/sessions/$sessionId/statements/$id"))
+                .inScenario(scenario)
+                .whenScenarioStateIs("cancelled")
+                .willReturn(aResponse().withStatus(200).withBody(statementResponse(id, code, "cancelled"))))
+    }
+
+    @Given("^posting the code '(.+)' is rejected$")
+    fun mockPostRejected(code: String) {
+        WireMock.stubFor(post(urlEqualTo("/sessions/$sessionId/statements"))
+                .withRequestBody(matchingJsonPath("$.code", equalTo(code)))
+                .willReturn(aResponse().withStatus(400).withBody("Bad Request")))
+    }
+
+    @When("^submitting the codes one by one$")
+    fun submitCodes(codes: List<String>) {
+        // All submitted before waiting for any result
+        codes.forEach { code -> submissions.add(pipeline.submit(code).materialize().filter { !it.isOnCompleted }.cache()) }
+        submissions.forEach { it.subscribe() }
+    }
+
+    @When("^the statement pipeline is closed$")
+    fun closePipeline() {
+        pipeline.close()
+    }
+
+    @Then("^the submission results should be$")
+    fun checkResults(expected: List<String>) {
+        val actual = submissions.map { outcome(it.timeout(30, TimeUnit.SECONDS).toBlocking().first()) }
+
+        assertEquals(expected, actual)
+        submissions.clear()
+    }
+
+    @Then("^the done statements should be (.+)$")
+    fun checkDoneStatements(expected: String) {
+        // Replayed to the late subscriber
+        val ids = expected.split(",").map { it.trim().toInt() }
+        val actual = pipeline.doneStatements
+                .take(ids.size)
+                .map { it.id }
+                .timeout(30, TimeUnit.SECONDS)
+                .toList()
+                .toBlocking()
+                .single()
+
+        assertEquals(ids, actual)
+    }
+
+    @Then("^the code '(.+)' should not be left running as statement (\\d+)$")
+    fun checkNotRunning(code: String, id: Int) {
+        val posted = WireMock.findAll(postRequestedFor(urlEqualTo("/sessions/$sessionId/statements"))
+                .withRequestBody(matchingJsonPath("$.code", equalTo(code)))).size
+        val cancelled = WireMock.findAll(
+                postRequestedFor(urlEqualTo("/sessions/$sessionId/statements/$id/cancel"))).size
+
+        // Either cancelled on the server, or never posted since the failure happened first
+        assertTrue(posted == 0 || cancelled == 1, "posted $posted times, cancelled $cancelled times")
+    }
+}
@@ -0,0 +1,190 @@
+package com.microsoft.azure.hdinsight.spark.common
+
+import com.jcraft.jsch.JSch
+import com.jcraft.jsch.JSchException
+import cucumber.api.java.After
+import cucumber.api.java.en.And
+import cucumber.api.java.en.Given
+import cucumber.api.java.en.Then
+import cucumber.api.java.en.When
+import org.apache.sshd.server.SshServer
+import org.apache.sshd.server.auth.password.PasswordAuthenticator
+import org.apache.sshd.server.forward.AcceptAllForwardingFilter
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider
+import java.net.ServerSocket
+import java.net.Socket
+import java.nio.charset.StandardCharsets.UTF_8
+import java.util.Properties
+import java.util.concurrent.TimeUnit
+import kotlin.concurrent.thread
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertFalse
+import kotlin.test.assertNotSame
+
+class SshTunnelScenario {
+    private var sshServer: SshServer? = null
+    private var echoServer: ServerSocket? = null
+    private var tunnel: SshTunnel? = null
+    private var manager: SshTunnelManager? = null
+    private val forwards = mutableListOf<SshTunnel.PortForward>()
+    private var user = ""
+    private var password = ""
+
+    @Given("^start an embedded SSH server with user '(.+)' and password '(.+)'$")
+    fun startSshServer(user: String, password: String) {
+        this.user = user
+        this.password = password
+
+        sshServer = SshServer.setUpDefaultServer().apply {
+            port = 0
+            keyPairProvider = SimpleGeneratorHostKeyProvider()
+            passwordAuthenticator = PasswordAuthenticator { u, p, _ -> u == user && p == password }
+            forwardingFilter = AcceptAllForwardingFilter.INSTANCE
+            start()
+        }
+    }
+
+    @And("^start a local echo server as the remote debug target$")
+    fun startEchoServer() {
+        val server = ServerSocket(0)
+        echoServer = server
+
+        thread(isDaemon = true) {
+            while (!server.isClosed) {
+                val socket = try { server.accept() } catch (ignored: Exception) { break }
+
+                thread(isDaemon = true) {
+                    socket.use { it.getInputStream().copyTo(it.getOutputStream(), 1) }
+                }
+            }
+        }
+    }
+
+    @Given("^create an SSH tunnel to the embedded SSH server$")
+    fun createTunnel() {
+        val jsch = JSch()
+
+        tunnel = SshTunnel("$user@localhost") {
+            jsch.getSession(user, "localhost", sshServer!!.port).apply {
+                setConfig(Properties().apply { put("StrictHostKeyChecking", "no") })
+                setPassword(password)
+            }
+        }.apply { acquire() }
+    }
+
+    @When("^forward a local port to the echo server at '(.+)' through the SSH tunnel$")
+    fun forwardToEchoServer(host: String) {
+        forwards.add(tunnel!!.forward(host, echoServer!!.localPort))
+    }
+
+    @Then("^the SSH tunnel should have (\\d+) port forwards$")
+    fun checkForwardsCount(expect: Int) {
+        assertEquals(expect, tunnel!!.forwards.size)
+    }
+
+    @And("^the embedded SSH server should have (\\d+) active sessions$")
+    fun checkActiveSessions(expect: Int) {
+        assertEquals(expect, sshServer!!.activeSessions.size)
+    }
+
+    @Then("^sending '(.+)' through the forwarded port should get '(.+)' back$")
+    fun checkEcho(message: String, expect: String) {
+        Socket("127.0.0.1", forwards.first().localPort).use { socket ->
+            socket.soTimeout = 10000
+            socket.getOutputStream().apply { write(message.toByteArray(UTF_8)); flush() }
+
+            val received = ByteArray(expect.toByteArray(UTF_8).size)
+            var offset = 0
+            while (offset < received.size) {
+                val n = socket.getInputStream().read(received, offset, received.size - offset)
+                if (n < 0) {
+                    break
+                }
+
+                offset += n
+            }
+
+            assertEquals(expect, String(received, 0, offset, UTF_8))
+        }
+    }
+
+    @And("^the forwarded port should count (\\d+) bytes sent and (\\d+) bytes received$")
+    fun checkForwardTraffic(sent: Long, received: Long) {
+        val forward = forwards.first()
+
+        // The counting happens after the bytes are written to the local socket
+        val deadline = System.currentTimeMillis() + 5000
+        while (forward.bytesFromRemote < received && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50)
+        }
+
+        assertEquals(sent, forward.bytesToRemote)
+        assertEquals(received, forward.bytesFromRemote)
+    }
+
+    @When("^the embedded SSH server drops all sessions$")
+    fun dropSessions() {
+        sshServer!!.activeSessions.forEach { it.close(true) }
+
+        val deadline = System.currentTimeMillis() + 10000
+        while (tunnel!!.session.isConnected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100)
+        }
+
+        assertFalse(tunnel!!.session.isConnected)
+    }
+
+    @And("^the SSH tunnel checks alive$")
+    fun checkAlive() {
+        tunnel!!.checkAlive()
+    }
+
+    @Given("^acquire an SSH tunnel from a manager with password '(.+)'$")
+    fun acquireTunnelFromManager(tunnelPassword: String) {
+        val jsch = JSch()
+        val tunnelManager = manager ?: SshTunnelManager(TimeUnit.HOURS.toMillis(1), 0).also { manager = it }
+
+        tunnel = tunnelManager.acquire("$user@localhost#password:$tunnelPassword") {
+            jsch.getSession(user, "localhost", sshServer!!.port).apply {
+                setConfig(Properties().apply { put("StrictHostKeyChecking", "no") })
+                setPassword(tunnelPassword)
+            }
+        }
+    }
+
+    @When("^opening a debug session over the SSH tunnel fails$")
+    fun openDebugSessionFailed() {
+        val session = SparkBatchDebugSession(JSch(), SparkBatchDebugSession.DebugUserInfo(), tunnel!!)
+
+        assertFailsWith<JSchException> { session.open() }
+    }
+
+    @Then("^the SSH tunnel should not be acquired$")
+    fun checkTunnelNotAcquired() {
+        assertFalse(tunnel!!.isAcquired)
+    }
+
+    @When("^the SSH tunnel manager checks tunnels$")
+    fun checkTunnels() {
+        // The idle timeout is 0, wait for the idle time to pass it
+        Thread.sleep(10)
+        manager!!.checkTunnels()
+    }
+
+    @Then("^acquiring an SSH tunnel with password '(.+)' again should create a new one$")
+    fun checkNewTunnel(tunnelPassword: String) {
+        val previous = tunnel
+
+        acquireTunnelFromManager(tunnelPassword)
+        assertNotSame(previous, tunnel)
+    }
+
+    @After
+    fun cleanUp() {
+        manager?.close()
+        tunnel?.disconnect()
+        echoServer?.close()
+        sshServer?.stop(true)
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.spark.common.log;
+
+import com.microsoft.azure.hdinsight.common.MessageInfoType;
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Level;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+
+import static com.microsoft.azure.hdinsight.common.MessageInfoType.Log;
+
+/**
+ * The Spark driver log classifying benchmark over the recorded log, repeated to the multi-MB size of a long running
+ * job. The regex matching is the classifying before the log4j prefix columns check, creating the line objects for
+ * every line; the typed lines and the bare message types are the two ways the console maps the lines now.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SparkLogUtilsBenchmark {
+    private static final String RECORDED_LOG = "spark-driver-sample.log";
+
+    @Param({ "8" })
+    public int logSizeMB;
+
+    private List<String> lines;
+
+    @Setup
+    public void loadLog() throws IOException {
+        List<String> recorded;
+        try (InputStream in = SparkLogUtilsBenchmark.class.getResourceAsStream(RECORDED_LOG)) {
+            recorded = IOUtils.readLines(in, StandardCharsets.UTF_8);
+        }
+
+        lines = new ArrayList<>();
+        long size = 0;
+        while (size < logSizeMB * 1024L * 1024L) {
+            for (String line : recorded) {
+                lines.add(line);
+                size += line.length() + 1;
+            }
+        }
+    }
+
+    // The per line regex matching and the line objects, before the prefix columns classifying
+    @Benchmark
+    public void regexMatching(Blackhole blackhole) {
+        SparkLogLine previous = new SparkLogLine(SparkLogLine.SPARK_DRIVER_STDERR, Log, "");
+
+        for (String line : lines) {
+            SparkLogLine current = new SparkLogLine(SparkLogLine.SPARK_DRIVER_STDERR, Log, line);
+            MessageInfoType type = previous.getMessageInfoType();
+
+            Matcher matcher = SparkLogUtils.log4jLevelRegex.matcher(line);
+            if (matcher.find()) {
+                Level level = Level.toLevel(matcher.group("level"));
+                type = level.isGreaterOrEqual(Level.ERROR) ? MessageInfoType.Error
+                        : level == Level.WARN ? MessageInfoType.Warning
+                        : level == Level.INFO ? MessageInfoType.Info
+                        : Log;
+            }
+
+            previous = new SparkLogLine(current.getLogSource(), type, line);
+            blackhole.consume(previous);
+        }
+    }
+
+    @Benchmark
+    public void mapTypedLogLines(Blackhole blackhole) {
+        SparkLogLine previous = new SparkLogLine(SparkLogLine.SPARK_DRIVER_STDERR, Log, "");
+
+        for (String line : lines) {
+            previous = SparkLogUtils.mapTypedMessageByLog4jLevels(
+                    previous, new SparkLogLine(SparkLogLine.SPARK_DRIVER_STDERR, Log, line));
+            blackhole.consume(previous);
+        }
+    }
+
+    @Benchmark
+    public void mapMessageInfoTypes(Blackhole blackhole) {
+        MessageInfoType previous = Log;
+
+        for (String line : lines) {
+            previous = SparkLogUtils.mapMessageInfoTypeByLog4jLevels(previous, line);
+            blackhole.consume(previous);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SparkLogUtilsBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
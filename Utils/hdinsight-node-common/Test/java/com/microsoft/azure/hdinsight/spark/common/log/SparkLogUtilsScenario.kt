@@ -0,0 +1,55 @@
+package com.microsoft.azure.hdinsight.spark.common.log
+
+import com.microsoft.azure.hdinsight.common.MessageInfoType
+import cucumber.api.DataTable
+import cucumber.api.java.en.Given
+import cucumber.api.java.en.Then
+import kotlin.test.assertEquals
+import kotlin.test.assertNotNull
+import kotlin.test.assertTrue
+
+class SparkLogUtilsScenario {
+    private var logLines = listOf<String>()
+
+    @Then("^the prefix log4j level of the following lines should be$")
+    fun checkPrefixLevels(expected: DataTable) {
+        expected.raw().forEach { (line, level) ->
+            assertEquals(level.ifBlank { null }, SparkLogUtils.findLog4jLevelInPrefix(line)?.toString(), line)
+        }
+    }
+
+    @Given("^read the recorded Spark driver log '(.+)'$")
+    fun readLog(logResource: String) {
+        val log = assertNotNull(javaClass.getResourceAsStream(logResource), "No log resource $logResource")
+
+        logLines = log.bufferedReader().use { it.readLines() }
+    }
+
+    @Then("^the log4j levels of all log lines should be the same as the regex matching$")
+    fun checkSameAsRegex() {
+        assertTrue(logLines.isNotEmpty())
+
+        logLines.forEach { line ->
+            val matcher = SparkLogUtils.log4jLevelRegex.matcher(line)
+            val expected = if (matcher.find()) matcher.group("level") else null
+
+            assertEquals(expected, SparkLogUtils.findLog4jLevel(line)?.toString(), line)
+        }
+    }
+
+    @Then("^the message types of the log lines starting with the following should be$")
+    fun checkMessageTypes(expected: DataTable) {
+        var previous = MessageInfoType.Log
+        val types = logLines.map { line ->
+            SparkLogUtils.mapMessageInfoTypeByLog4jLevels(previous, line).also { previous = it }
+        }
+
+        expected.raw().forEach { (prefix, type) ->
+            val start = prefix.replace("\\t", "\t")
+            val index = logLines.indexOfFirst { it.startsWith(start) }
+
+            assertTrue(index >= 0, "No log line starts with $start")
+            assertEquals(MessageInfoType.valueOf(type), types[index], logLines[index])
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.spark.jobs;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.microsoft.azure.hdinsight.sdk.cluster.IClusterDetail;
+import cucumber.api.java.Before;
+import cucumber.api.java.en.Given;
+import cucumber.api.java.en.Then;
+import cucumber.api.java.en.When;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+public class JobViewCacheScenario {
+    private static final long REFRESH_AFTER_WRITE_MS = 1000;
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+    };
+
+    private JobViewCache cache;
+    private Map<String, AtomicInteger> loadCounts;
+    private Map<String, Integer> listSizes;
+    private Map<String, Boolean> finishedApps;
+    private JobViewCache.View<List<Integer>> stagesView;
+    private JobViewCache.View<List<Integer>> tasksView;
+    private List<Integer> lastView;
+
+    @Before
+    public void setUp() {
+        loadCounts = new ConcurrentHashMap<>();
+        listSizes = new ConcurrentHashMap<>();
+        finishedApps = new ConcurrentHashMap<>();
+        stagesView = createView("stages");
+        tasksView = createView("tasks");
+    }
+
+    private JobViewCache.View<List<Integer>> createView(String name) {
+        return new JobViewCache.View<>(
+                name,
+                list -> Math.max(1, list.size()),
+                (key, list, loadedTime) -> finishedApps.getOrDefault(key.getAppId(), false),
+                key -> {
+                    int loaded = loadCounts.computeIfAbsent(name + "/" + key.getAppId(), k -> new AtomicInteger())
+                                           .incrementAndGet();
+
+                    return Collections.nCopies(listSizes.getOrDefault(key.getAppId(), 1), loaded);
+                });
+    }
+
+    private ApplicationKey appKey(String appId) {
+        IClusterDetail cluster = mock(IClusterDetail.class);
+        doReturn("https://cluster.azurehdinsight.net").when(cluster).getConnectionUrl();
+
+        return new ApplicationKey(cluster, appId);
+    }
+
+    private JobViewCache.View<List<Integer>> view(String name) {
+        return name.equals("tasks") ? tasksView : stagesView;
+    }
+
+    @Given("^a Job View cache of max weight (\\d+)$")
+    public void createCache(long maxWeight) {
+        cache = new JobViewCache(maxWeight, REFRESH_AFTER_WRITE_MS, MoreExecutors.directExecutor(), ticker);
+    }
+
+    @Given("^the Job View application '(.+)' has (\\d+) items in each list view$")
+    public void setListSize(String appId, int size) {
+        listSizes.put(appId, size);
+    }
+
+    @Given("^the Job View application '(.+)' is finished$")
+    public void finishApp(String appId) {
+        finishedApps.put(appId, true);
+    }
+
+    @When("^get the Job View '(.+)' of application '(.+)'$")
+    public void getView(String viewName, String appId) throws ExecutionException {
+        lastView = cache.get(appKey(appId), view(viewName));
+    }
+
+    @When("^the Job View refresh interval passed$")
+    public void passRefreshInterval() {
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(REFRESH_AFTER_WRITE_MS + 1));
+    }
+
+    @Then("^the Job View '(.+)' of application '(.+)' should be loaded (\\d+) times?$")
+    public void checkLoadCount(String viewName, String appId, int expect) {
+        AtomicInteger loaded = loadCounts.get(viewName + "/" + appId);
+
+        assertEquals(expect, loaded == null ? 0 : loaded.get());
+    }
+
+    @Then("^the Job View got should be from the load (\\d+)$")
+    public void checkLastView(int expect) {
+        assertEquals(Integer.valueOf(expect), lastView.get(0));
+    }
+
+    @Then("^the Job View '(.+)' statistics should be (\\d+) hits?, (\\d+) miss(?:es)? and (\\d+) evictions?$")
+    public void checkStats(String viewName, long hits, long misses, long evictions) {
+        CacheStats stats = view(viewName).stats();
+
+        assertEquals(hits, stats.hitCount());
+        assertEquals(misses, stats.missCount());
+        assertEquals(evictions, stats.evictionCount());
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.spark.jobs;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import com.microsoft.azure.hdinsight.spark.jobs.framework.JobRequestDetails;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import cucumber.api.java.Before;
+import cucumber.api.java.en.Given;
+import cucumber.api.java.en.Then;
+import cucumber.api.java.en.When;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+public class JobViewResponseCacheScenario {
+    private static final Map<String, Function<Map<String, Object>, Object>> FILTER_FIELDS =
+            ImmutableMap.of("status", stage -> stage.get("status"));
+
+    private JobViewResponseCache cache;
+    private List<Map<String, Object>> stages;
+    private int status;
+    private Headers responseHeaders;
+    private ByteArrayOutputStream responseBody;
+    private String lastEtag;
+
+    @Before
+    public void setUp() {
+        cache = new JobViewResponseCache(JobViewResponseCache.MAX_CACHED_BYTES);
+        lastEtag = null;
+    }
+
+    @Given("^a Job View list of (\\d+) stages, the ones with ids divisible by (\\d+) are FAILED$")
+    public void createStages(int count, int failedEvery) {
+        stages = new ArrayList<>();
+
+        for (int id = 0; id < count; id++) {
+            Map<String, Object> stage = new LinkedHashMap<>();
+            stage.put("stageId", id);
+            stage.put("status", id % failedEvery == 0 ? "FAILED" : "COMPLETE");
+            stages.add(stage);
+        }
+    }
+
+    @Given("^the Job View stage list is refreshed with the same content$")
+    public void refreshStages() {
+        stages = stages.stream().map(LinkedHashMap::new).collect(Collectors.toList());
+    }
+
+    @When("^request the Job View stage list with queries '(.*)'( with the last ETag)?$")
+    public void requestStages(String queries, String withEtag) throws Exception {
+        Map<String, String> queryMap = new HashMap<>();
+        Arrays.stream(StringUtils.split(queries, '&'))
+                .map(pair -> pair.split("=", 2))
+                .forEach(pair -> queryMap.put(pair[0], pair[1]));
+
+        JobRequestDetails request = mock(JobRequestDetails.class);
+        doAnswer(invocation -> queryMap.get(invocation.<String>getArgument(0)))
+                .when(request).getQueryValue(anyString());
+
+        Headers requestHeaders = new Headers();
+        if (withEtag != null) {
+            requestHeaders.add("If-None-Match", lastEtag);
+        }
+
+        responseHeaders = new Headers();
+        responseBody = new ByteArrayOutputStream();
+
+        HttpExchange httpExchange = mock(HttpExchange.class);
+        doReturn(requestHeaders).when(httpExchange).getRequestHeaders();
+        doReturn(responseHeaders).when(httpExchange).getResponseHeaders();
+        doReturn(responseBody).when(httpExchange).getResponseBody();
+        doAnswer(invocation -> {
+            status = invocation.getArgument(0);
+            return null;
+        }).when(httpExchange).sendResponseHeaders(anyInt(), anyLong());
+
+        cache.sendList(httpExchange, request, "cluster/app/stages_summary", stages, FILTER_FIELDS);
+
+        lastEtag = responseHeaders.getFirst("ETag");
+    }
+
+    @Then("^the Job View response status should be (\\d+)$")
+    public void checkStatus(int expect) {
+        assertEquals(expect, status);
+    }
+
+    @Then("^the Job View response should have stage ids '(.*)'$")
+    public void checkStageIds(String expectIds) throws Exception {
+        List<Map<String, Object>> got = new ObjectMapper().readValue(
+                responseBody.toByteArray(), new TypeReference<List<Map<String, Object>>>() { });
+
+        assertEquals(expectIds, got.stream()
+                .map(stage -> String.valueOf(stage.get("stageId")))
+                .collect(Collectors.joining(",")));
+    }
+
+    @Then("^the Job View response total count should be (\\d+)$")
+    public void checkTotalCount(int expect) {
+        assertEquals(String.valueOf(expect), responseHeaders.getFirst(JobViewResponseCache.TOTAL_COUNT_HEADER));
+    }
+
+    @Then("^the Job View response should have an ETag$")
+    public void checkEtag() {
+        assertNotNull(lastEtag);
+    }
+}
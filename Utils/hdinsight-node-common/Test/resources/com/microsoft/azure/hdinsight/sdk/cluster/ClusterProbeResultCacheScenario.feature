@@ -0,0 +1,45 @@
+Feature: Cluster probe result cache
+
+  Background:
+    Given the cluster probe results persisted are empty
+
+  Scenario: The unchanged cluster is probed once
+    Given the cluster 'spark1' with ETag 'etag1' probed as new API supported with role 'OWNER'
+    When getting the probe result of cluster 'spark1' with ETag 'etag1'
+    Then the probe result should be new API supported with role 'OWNER'
+    And the cluster 'spark1' should be probed 1 times
+
+  Scenario: The changed cluster is probed again
+    Given the cluster 'spark1' with ETag 'etag1' probed as new API supported with role 'OWNER'
+    When the cluster 'spark1' probe result changes to new API supported with role 'READER'
+    And getting the probe result of cluster 'spark1' with ETag 'etag2'
+    Then the probe result should be new API supported with role 'READER'
+    And the cluster 'spark1' should be probed 2 times
+
+  Scenario: The probe results are persisted
+    Given the cluster 'spark1' with ETag 'etag1' probed as new API supported with role 'READER'
+    When the IDE is restarted
+    And getting the probe result of cluster 'spark1' with ETag 'etag1'
+    Then the probe result should be new API supported with role 'READER'
+    And the cluster 'spark1' should be probed 1 times
+
+  Scenario: The stale probe result is served and refreshed in background
+    Given the cluster 'spark1' with ETag 'etag1' probed as new API supported with role 'OWNER'
+    When the probe results persisted are 2 hours old
+    And the cluster 'spark1' probe result changes to new API supported with role 'READER'
+    And getting the probe result of cluster 'spark1' with ETag 'etag1'
+    Then the probe result should be new API supported with role 'OWNER'
+    And the cluster 'spark1' should be probed 2 times
+    When getting the probe result of cluster 'spark1' with ETag 'etag1'
+    Then the probe result should be new API supported with role 'READER'
+    And the cluster 'spark1' should be probed 2 times
+
+  Scenario: The probe result of a transient failure is not cached
+    Given the cluster 'spark1' probe fails transiently
+    When getting the probe result of cluster 'spark1' with ETag 'etag1'
+    Then the probe result should be new API not supported
+    When the cluster 'spark1' probe recovers
+    And the cluster 'spark1' probe result changes to new API supported with role 'OWNER'
+    And getting the probe result of cluster 'spark1' with ETag 'etag1'
+    Then the probe result should be new API supported with role 'OWNER'
+    And the cluster 'spark1' should be probed 2 times
@@ -0,0 +1,29 @@
+Feature: Serverless Spark job state watching
+
+  Scenario: Due jobs are refreshed by the job list pages until all are found
+    Given the Serverless Spark job list page 'first' has jobs '46c07889-3590-48f8-b2bc-7f52622b5a0b' in state 'Running' with next page 'https://mock/batchJobs?$skiptoken=2'
+    And the Serverless Spark job list page 'https://mock/batchJobs?$skiptoken=2' has jobs '5b1e3c1a-7a56-4d9b-9d43-3c3e1a9b3f21' in state 'Running' with next page 'https://mock/batchJobs?$skiptoken=3'
+    When watch the Serverless Spark jobs '46c07889-3590-48f8-b2bc-7f52622b5a0b, 5b1e3c1a-7a56-4d9b-9d43-3c3e1a9b3f21' for one tick
+    Then the watched Serverless Spark job '46c07889-3590-48f8-b2bc-7f52622b5a0b' should get a snapshot in state 'Running'
+    And the watched Serverless Spark job '5b1e3c1a-7a56-4d9b-9d43-3c3e1a9b3f21' should get a snapshot in state 'Running'
+    And the Serverless Spark job list page 'first' should be requested 1 time
+    And the Serverless Spark job list page 'https://mock/batchJobs?$skiptoken=2' should be requested 1 time
+    And the Serverless Spark job list page 'https://mock/batchJobs?$skiptoken=3' should be requested 0 times
+    And the Serverless Spark job 'any' detail should be requested 0 times
+
+  Scenario: A job listed without running details is got by its own request
+    Given the Serverless Spark job list first page has job '46c07889-3590-48f8-b2bc-7f52622b5a0b' without running details
+    And the Serverless Spark job '46c07889-3590-48f8-b2bc-7f52622b5a0b' detail is in state 'Ended'
+    And the Serverless Spark job '5b1e3c1a-7a56-4d9b-9d43-3c3e1a9b3f21' detail is in state 'Running'
+    When watch the Serverless Spark jobs '46c07889-3590-48f8-b2bc-7f52622b5a0b, 5b1e3c1a-7a56-4d9b-9d43-3c3e1a9b3f21' for one tick
+    Then the watched Serverless Spark job '46c07889-3590-48f8-b2bc-7f52622b5a0b' should get a snapshot in state 'Ended'
+    And the watching of Serverless Spark job '46c07889-3590-48f8-b2bc-7f52622b5a0b' should be completed
+    And the watched Serverless Spark job '5b1e3c1a-7a56-4d9b-9d43-3c3e1a9b3f21' should get a snapshot in state 'Running'
+    And the Serverless Spark job '46c07889-3590-48f8-b2bc-7f52622b5a0b' detail should be requested 1 time
+    And the Serverless Spark job '5b1e3c1a-7a56-4d9b-9d43-3c3e1a9b3f21' detail should be requested 1 time
+
+  Scenario: A single due job is got by its own request without listing
+    Given the Serverless Spark job '46c07889-3590-48f8-b2bc-7f52622b5a0b' detail is in state 'Running'
+    When watch the Serverless Spark jobs '46c07889-3590-48f8-b2bc-7f52622b5a0b' for one tick
+    Then the watched Serverless Spark job '46c07889-3590-48f8-b2bc-7f52622b5a0b' should get a snapshot in state 'Running'
+    And the Serverless Spark job list page 'first' should be requested 0 times
@@ -0,0 +1,38 @@
+Feature: Livy polling backoff
+
+  Scenario: The delay doubles from the initial delay
+    Given a polling backoff from 30 ms up to 1000 ms
+    Then the next delays without progress should be 30, 60, 120, 240, 480, 960 ms
+
+  Scenario: The delay is capped
+    Given a polling backoff from 30 ms up to 1000 ms
+    When polling 6 times without progress
+    Then the last delay should be 960 ms
+    And the next delays without progress should be 1000, 1000, 1000 ms
+
+  Scenario: The cap is never below the initial delay
+    Given a polling backoff from 100 ms up to 50 ms
+    Then the next delays without progress should be 100, 100 ms
+
+  Scenario: Unknown progress keeps doubling the delay
+    Given a polling backoff from 30 ms up to 1000 ms
+    Then the next delays with unknown progress should be 30, 60, 120, 240 ms
+
+  Scenario: Moving progress resets the delay to the estimated remaining time
+    Given a polling backoff from 30 ms up to 1000 ms
+    When polling 8 times without progress
+    Then the last delay should be 1000 ms
+    When polling with progress 0.5, 0.9
+    Then the last delay should be 30 ms
+    And the next delays without progress should be 60, 120, 240 ms
+
+  Scenario: Stalled progress falls back to doubling the delay
+    Given a polling backoff from 30 ms up to 1000 ms
+    When polling with progress 0.5, 0.5
+    Then the last delay should be 60 ms
+    And the next delays with unknown progress should be 120, 240 ms
+
+  Scenario: Completed progress does not shorten the delay
+    Given a polling backoff from 30 ms up to 1000 ms
+    When polling with progress 0.5, 1.0
+    Then the last delay should be 60 ms
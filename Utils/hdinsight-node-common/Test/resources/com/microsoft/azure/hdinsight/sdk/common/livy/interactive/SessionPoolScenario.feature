@@ -0,0 +1,81 @@
+Feature: Livy session pool
+
+  Scenario: A session is started when the pool is empty
+    When 'alice' checks out the session 'console'
+    Then the session 'console' should have id 1
+    And 1 sessions should have been started
+    And the pool should have 0 idle sessions
+
+  Scenario: A released session is handed to the next checkout
+    Given the Livy service reports session 1 as 'idle'
+    When 'alice' checks out the session 'console'
+    And the session 'console' is released
+    Then the pool should have 1 idle sessions
+    When 'alice' checks out the session 'restarted console'
+    Then the session 'restarted console' should have id 1
+    And 1 sessions should have been started
+    And the pool should have 0 idle sessions
+
+  Scenario: A dead pooled session is killed and replaced
+    Given the Livy service reports session 1 as 'dead'
+    When 'alice' checks out the session 'console'
+    And the session 'console' is released
+    And 'alice' checks out the session 'restarted console'
+    Then the session 'restarted console' should have id 2
+    And 2 sessions should have been started
+    And the session 1 should be killed
+
+  Scenario: Sessions are not shared between owners
+    Given the Livy service reports session 1 as 'idle'
+    When 'alice' checks out the session 'console'
+    And the session 'console' is released
+    And 'bob' checks out the session 'other console'
+    Then the session 'other console' should have id 2
+    And 2 sessions should have been started
+    And the pool should have 1 idle sessions
+
+  Scenario: Idle sessions expire
+    Given the Livy service reports session 1 as 'idle'
+    And the pooled sessions are idle for at most 10 ms
+    When 'alice' checks out the session 'console'
+    And the session 'console' is released
+    And the idle sessions are evicted after 50 ms
+    Then the pool should have 0 idle sessions
+    And the session 1 should be killed
+
+  Scenario: Checked out pre-warmed sessions are topped up
+    Given the Livy service reports session 1 as 'idle'
+    And the pool keeps 1 idle sessions warm
+    When 'alice' pre-warms the sessions like 'helper'
+    Then the pool should get 1 idle sessions in background
+    And 1 sessions should have been started
+    When 'alice' checks out the session 'helper'
+    Then the session 'helper' should have id 1
+    And the pool should have 0 idle sessions
+    When the idle sessions are evicted after 0 ms
+    Then the pool should get 1 idle sessions in background
+    And 2 sessions should have been started
+
+  Scenario: Pre-warmed sessions expire when they are not used
+    Given the Livy service reports session 1 as 'idle'
+    And the pool keeps 1 idle sessions warm
+    And the pooled sessions are idle for at most 100 ms
+    When 'alice' pre-warms the sessions like 'helper'
+    Then the pool should get 1 idle sessions in background
+    When the idle sessions are evicted after 200 ms
+    Then the pool should have 0 idle sessions
+    And the session 1 should be killed
+    And 1 sessions should have been started
+
+  Scenario: Closing the pool kills the idle and the released sessions
+    Given the Livy service reports session 1 as 'idle'
+    And the Livy service reports session 2 as 'idle'
+    When 'alice' checks out the session 'console'
+    And 'alice' checks out the session 'helper'
+    And the session 'console' is released
+    And the session pool is closed
+    Then the pool should have 0 idle sessions
+    And the session 1 should be killed
+    When the session 'helper' is released
+    Then the pool should have 0 idle sessions
+    And the session 2 should be killed
@@ -0,0 +1,55 @@
+Feature: Livy statement pipeline
+
+  Background:
+    Given a statement pipeline of a mocked Livy session
+
+  Scenario: Results are emitted in the submission order
+    Given the code 'val a = 1' runs as statement 0 with output 'a: Int = 1'
+    And the code 'val b = 2' runs as statement 1 with output 'b: Int = 2'
+    And the code 'a + b' runs as statement 2 with output 'res0: Int = 3'
+    When submitting the codes one by one
+      | val a = 1 |
+      | val b = 2 |
+      | a + b     |
+    Then the submission results should be
+      | ok: a: Int = 1    |
+      | ok: b: Int = 2    |
+      | ok: res0: Int = 3 |
+    And the done statements should be 0, 1, 2
+
+  Scenario: A failed statement cancels the statements behind it only
+    Given the code 'boom' runs as statement 0 and fails with 'not found: value boom'
+    And the code 'Thread.sleep(60000)' runs as statement 1 until cancelled
+    And the code 'val c = 3' runs as statement 2 with output 'c: Int = 3'
+    When submitting the codes one by one
+      | boom                |
+      | Thread.sleep(60000) |
+    Then the submission results should be
+      | failed    |
+      | cancelled |
+    And the code 'Thread.sleep(60000)' should not be left running as statement 1
+    When submitting the codes one by one
+      | val c = 3 |
+    Then the submission results should be
+      | ok: c: Int = 3 |
+
+  Scenario: A rejected post is propagated and cancels the statements behind it
+    Given posting the code 'val d = 4' is rejected
+    And the code 'val e = 5' runs as statement 0 with output 'e: Int = 5'
+    When submitting the codes one by one
+      | val d = 4 |
+      | val e = 5 |
+    Then the submission results should be
+      | error: BadRequestHttpErrorStatus |
+      | cancelled                        |
+
+  Scenario: Closing the pipeline cancels the statements not done
+    Given the code 'Thread.sleep(60000)' runs as statement 0 until cancelled
+    And the code 'val f = 6' runs as statement 1 until cancelled
+    When submitting the codes one by one
+      | Thread.sleep(60000) |
+      | val f = 6           |
+    And the statement pipeline is closed
+    Then the submission results should be
+      | cancelled |
+      | cancelled |
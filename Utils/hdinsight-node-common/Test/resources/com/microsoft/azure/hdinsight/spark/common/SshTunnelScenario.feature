@@ -0,0 +1,27 @@
+Feature: SSH Tunnel Testing
+  Background:
+    Given start an embedded SSH server with user 'spark' and password 'debug'
+    And start a local echo server as the remote debug target
+
+  Scenario: Multiple port forwards share one SSH connection
+    Given create an SSH tunnel to the embedded SSH server
+    When forward a local port to the echo server at '127.0.0.1' through the SSH tunnel
+    And forward a local port to the echo server at 'localhost' through the SSH tunnel
+    Then the SSH tunnel should have 2 port forwards
+    And the embedded SSH server should have 1 active sessions
+    And sending 'hello' through the forwarded port should get 'hello' back
+    And the forwarded port should count 5 bytes sent and 5 bytes received
+
+  Scenario: Port forwards are restored after the SSH connection is lost
+    Given create an SSH tunnel to the embedded SSH server
+    When forward a local port to the echo server at '127.0.0.1' through the SSH tunnel
+    And the embedded SSH server drops all sessions
+    And the SSH tunnel checks alive
+    Then sending 'again' through the forwarded port should get 'again' back
+
+  Scenario: A debug session failed to open releases the shared SSH tunnel
+    Given acquire an SSH tunnel from a manager with password 'wrong'
+    When opening a debug session over the SSH tunnel fails
+    Then the SSH tunnel should not be acquired
+    When the SSH tunnel manager checks tunnels
+    Then acquiring an SSH tunnel with password 'wrong' again should create a new one
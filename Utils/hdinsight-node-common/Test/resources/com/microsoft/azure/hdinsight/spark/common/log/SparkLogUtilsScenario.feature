@@ -0,0 +1,27 @@
+Feature: Spark log level classifying
+
+  Scenario: The log4j levels of the usual prefix columns are found without the regex
+    Then the prefix log4j level of the following lines should be
+      | 20/10/19 08:21:03 INFO SignalUtils: Registered signal handler for TERM        | INFO  |
+      | 20/10/19 08:21:06 WARN NativeCodeLoader: Unable to load native-hadoop library | WARN  |
+      | 20/10/19 08:21:20 ERROR TaskSetManager: Task 1 in stage 0.0 failed 4 times    | ERROR |
+      | 2020-10-19 08:21:21,307 TRACE [main] org.apache.hadoop.ipc.Client: closed     | TRACE |
+      | [INFO] Livy batch session 12 state changed to dead                            | INFO  |
+      | FATAL: the driver exited unexpectedly                                         | FATAL |
+      | Caused by: java.lang.NumberFormatException: For input string: "ERROR"         |       |
+      | at org.apache.spark.scheduler.Task.run(Task.scala:109)                        |       |
+      | 20/10/19 08:21:20 Failed with ERROR                                           |       |
+
+  Scenario: The classifying of the recorded Spark driver log is the same as the regex matching
+    Given read the recorded Spark driver log 'spark-driver-sample.log'
+    Then the log4j levels of all log lines should be the same as the regex matching
+    And the message types of the log lines starting with the following should be
+      | SLF4J: Class path contains multiple SLF4J bindings.          | Log     |
+      | 20/10/19 08:21:06 WARN NativeCodeLoader                      | Warning |
+      | 	at java.lang.NumberFormatException.forInputString          | Warning |
+      | 20/10/19 08:21:20 ERROR TaskSetManager                       | Error   |
+      | org.apache.spark.SparkException: Job aborted                 | Error   |
+      | Caused by: java.lang.NumberFormatException                   | Error   |
+      | 20/10/19 08:21:21 DEBUG ShutdownHookManager                  | Log     |
+      | [INFO] Livy batch session 12                                 | Info    |
+      | FATAL: the driver exited unexpectedly                        | Error   |
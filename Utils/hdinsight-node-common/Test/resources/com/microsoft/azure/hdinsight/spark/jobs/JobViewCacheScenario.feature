@@ -0,0 +1,39 @@
+Feature: JobViewCache refreshing, pinning and weighing the Job Views
+
+  Background:
+    Given a Job View cache of max weight 100
+
+  Scenario: The views of the same application are cached separately
+    When get the Job View 'stages' of application 'app1'
+    And get the Job View 'tasks' of application 'app1'
+    And get the Job View 'stages' of application 'app1'
+    Then the Job View 'stages' of application 'app1' should be loaded 1 time
+    And the Job View 'tasks' of application 'app1' should be loaded 1 time
+    And the Job View 'stages' statistics should be 1 hit, 1 miss and 0 evictions
+
+  Scenario: The view of a running application is refreshed after the interval
+    When get the Job View 'stages' of application 'app1'
+    And the Job View refresh interval passed
+    And get the Job View 'stages' of application 'app1'
+    Then the Job View 'stages' of application 'app1' should be loaded 2 times
+    And the Job View got should be from the load 2
+
+  Scenario: The view of a finished application is pinned without refreshing
+    Given the Job View application 'app1' is finished
+    When get the Job View 'stages' of application 'app1'
+    And the Job View refresh interval passed
+    And get the Job View 'stages' of application 'app1'
+    Then the Job View 'stages' of application 'app1' should be loaded 1 time
+    And the Job View got should be from the load 1
+    And the Job View 'stages' statistics should be 1 hit, 1 miss and 0 evictions
+
+  Scenario: The views are weighed by the list items rather than counted
+    Given the Job View application 'app1' has 200 items in each list view
+    And the Job View application 'app2' has 2 items in each list view
+    When get the Job View 'tasks' of application 'app1'
+    And get the Job View 'tasks' of application 'app2'
+    And get the Job View 'tasks' of application 'app1'
+    And get the Job View 'tasks' of application 'app2'
+    Then the Job View 'tasks' of application 'app1' should be loaded 2 times
+    And the Job View 'tasks' of application 'app2' should be loaded 1 time
+    And the Job View 'tasks' statistics should be 1 hit, 3 misses and 2 evictions
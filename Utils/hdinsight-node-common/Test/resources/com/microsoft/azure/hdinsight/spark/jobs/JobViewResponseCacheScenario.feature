@@ -0,0 +1,34 @@
+Feature: JobViewResponseCache paging, filtering and conditional requests
+
+  Background:
+    Given a Job View list of 10 stages, the ones with ids divisible by 3 are FAILED
+
+  Scenario: The whole list is sent without paging queries
+    When request the Job View stage list with queries ''
+    Then the Job View response status should be 200
+    And the Job View response should have stage ids '0,1,2,3,4,5,6,7,8,9'
+    And the Job View response total count should be 10
+    And the Job View response should have an ETag
+
+  Scenario: The list is paged by offset and limit
+    When request the Job View stage list with queries 'offset=4&limit=3'
+    Then the Job View response status should be 200
+    And the Job View response should have stage ids '4,5,6'
+    And the Job View response total count should be 10
+
+  Scenario: The list is filtered by the field query before paging
+    When request the Job View stage list with queries 'status=failed&offset=1&limit=2'
+    Then the Job View response status should be 200
+    And the Job View response should have stage ids '3,6'
+    And the Job View response total count should be 4
+
+  Scenario: A repeat request with the ETag gets Not Modified
+    When request the Job View stage list with queries 'offset=0&limit=5'
+    And request the Job View stage list with queries 'offset=0&limit=5' with the last ETag
+    Then the Job View response status should be 304
+
+  Scenario: The ETag matches the content rather than the list object refreshed
+    When request the Job View stage list with queries 'status=FAILED'
+    And the Job View stage list is refreshed with the same content
+    And request the Job View stage list with queries 'status=FAILED' with the last ETag
+    Then the Job View response status should be 304
@@ -50,10 +50,10 @@ public class ClusterManagerEx implements ILogger {
     private List<IClusterDetail> additionalClusterDetails = new ArrayList<>();
     private List<IClusterDetail> emulatorClusterDetails = new ArrayList<>();
 
-    private boolean isListClusterSuccess = false;
+    private volatile boolean isListClusterSuccess = false;
     private boolean isListAdditionalClusterSuccess = false;
     private boolean isListEmulatorClusterSuccess = false;
-    private boolean isSelectedSubscriptionExist = false;
+    private volatile boolean isSelectedSubscriptionExist = false;
 
     private ClusterManagerEx() {
     }
@@ -166,9 +166,15 @@ public class ClusterManagerEx implements ILogger {
                 clusterDetail instanceof EmulatorClusterDetail;
     }
 
-    synchronized Observable<List<ClusterDetail>> getSubscriptionHDInsightClustersOfType(List<SubscriptionDetail> list) {
+    // The subscriptions are listed concurrently, without holding the lock of the manager
+    Observable<List<ClusterDetail>> getSubscriptionHDInsightClustersOfType(List<SubscriptionDetail> list) {
         setSelectedSubscriptionExist(list.stream().anyMatch(SubscriptionDetail::isSelected));
-        return ClusterManager.getInstance().getHDInsightClustersWithSpecificType(list, OSTYPE)
+        return ClusterManager.getInstance().getHDInsightClustersOfSubscriptions(list, OSTYPE)
+                // Publish the partial results as each subscription completes
+                .doOnNext(subscriptionClusters ->
+                        publishSubscriptionClusters(subscriptionClusters.getLeft(), subscriptionClusters.getRight()))
+                .flatMap(subscriptionClusters -> Observable.from(subscriptionClusters.getRight()))
+                .toList()
                 .doOnNext(clusters -> isListClusterSuccess = true)
                 .doOnError(err -> {
                     log().warn("Error Refreshing HDInsight clusters. " + ExceptionUtils.getStackTrace(err));
@@ -176,6 +182,28 @@ public class ClusterManagerEx implements ILogger {
                 });
     }
 
+    /**
+     * Replace the cached clusters of the subscription with the listed ones
+     *
+     * @param subscription the subscription listed
+     * @param clusters the clusters of the subscription
+     */
+    synchronized void publishSubscriptionClusters(@NotNull SubscriptionDetail subscription,
+                                                  @NotNull List<ClusterDetail> clusters) {
+        ImmutableSortedSet<IClusterDetail> mergedClusters =
+                new ImmutableSortedSet.Builder<IClusterDetail>(ComparableCluster::compareTo)
+                        .addAll(getCachedClusters().stream()
+                                        .filter(cluster -> !(cluster instanceof ClusterDetail)
+                                                || !StringUtils.equalsIgnoreCase(
+                                                        cluster.getSubscription().getSubscriptionId(),
+                                                        subscription.getSubscriptionId()))
+                                        .iterator())
+                        .addAll(clusters)
+                        .build();
+
+        setCachedClusters(mergedClusters.asList());
+    }
+
     public List<IClusterDetail> getAdditionalClusterDetails() {
         return additionalClusterDetails;
     }
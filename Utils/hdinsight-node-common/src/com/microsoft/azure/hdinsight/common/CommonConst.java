@@ -45,6 +45,8 @@ public class CommonConst {
     public static final String HDINSIGHT_ADDITIONAL_CLUSTERS = "com.microsoft.azure.hdinsight.AdditionalClusters";
     public static final String HDINSIGHT_ADDITIONAL_MFA_CLUSTERS = "com.microsoft.azure.hdinsight.AdditionalMfaClusters";
     public static final String HDINSIGHT_LIVY_LINK_CLUSTERS = "com.microsoft.azure.hdinsight.LivyLinkClusters";
+    public static final String HDINSIGHT_CLUSTER_PROBE_RESULTS = "com.microsoft.azure.hdinsight.ClusterProbeResults";
+    public static final String LIVY_MIN_IDLE_SESSIONS = "com.microsoft.azure.hdinsight.LivyMinIdleSessions";
     public static final String SQL_BIG_DATA_LIVY_LINK_CLUSTERS = "com.microsoft.azure.sqlbigdata.SqlBigDataLivyLinkClusters";
     public static final String EMULATOR_CLUSTERS = "com.microsoft.azure.hdinsight.EmulatorClusters";
     public static final String CACHED_SPARK_SDK_PATHS = "com.microsoft.azure.hdinsight.cachedSparkSDKpath";
@@ -13,8 +13,10 @@ import com.microsoft.azure.hdinsight.sdk.common.AuthType;
 import com.microsoft.azure.hdinsight.spark.common.SparkBatchSubmission;
 import com.microsoft.azuretools.authmanage.models.SubscriptionDetail;
 import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
 import com.microsoft.tooling.msservices.components.DefaultLoader;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import rx.Observable;
 import rx.schedulers.Schedulers;
 
@@ -62,7 +64,22 @@ public class ClusterManager implements ILogger {
      * @param subscriptions
      * @return detailed cluster info list with specific cluster type
      */
-    public synchronized Observable<List<ClusterDetail>> getHDInsightClustersWithSpecificType(
+    public Observable<List<ClusterDetail>> getHDInsightClustersWithSpecificType(
+            List<SubscriptionDetail> subscriptions,
+            String osType) {
+        return getHDInsightClustersOfSubscriptions(subscriptions, osType)
+                .flatMap(subscriptionClusters -> Observable.from(subscriptionClusters.getRight()))
+                .toList();
+    }
+
+    /**
+     * get hdinsight detailed cluster info list with specific cluster type: Spark and RServer, of each subscription
+     * as soon as it's listed. The subscriptions are listed concurrently.
+     *
+     * @param subscriptions
+     * @return the subscription with its detailed cluster info list, emitted in the listing completed order
+     */
+    public Observable<Pair<SubscriptionDetail, List<ClusterDetail>>> getHDInsightClustersOfSubscriptions(
             List<SubscriptionDetail> subscriptions,
             String osType) {
         return Observable.from(subscriptions)
@@ -83,29 +100,25 @@ public class ClusterManager implements ILogger {
                                                 && StringUtils.equalsIgnoreCase(rawOsType, osType);
                                 })
                                 .flatMap(clusterRawInfo -> {
-                                    ClusterOperationNewAPIImpl probeClusterNewApiOperation = new ClusterOperationNewAPIImpl(subscriptionDetail);
                                     if (isHDInsightNewSDKEnabled()) {
-                                        return isProbeNewApiSucceed(probeClusterNewApiOperation, clusterRawInfo)
-                                                // Run the time-consuming probe job concurrently in IO thread
-                                                .subscribeOn(Schedulers.io())
-                                                .map(isProbeSucceed -> isProbeSucceed
-                                                        ? (isMfaEspCluster(clusterRawInfo)
-                                                            ? new MfaClusterDetail(subscriptionDetail, clusterRawInfo, probeClusterNewApiOperation)
-                                                            : new ClusterDetail(subscriptionDetail, clusterRawInfo, probeClusterNewApiOperation))
-                                                        : new ClusterDetail(subscriptionDetail, clusterRawInfo, new ClusterOperationImpl()));
+                                        // The probe result of the unchanged cluster is served from the cache
+                                        return ClusterProbeResultCache.getInstance()
+                                                .getOrProbe(clusterRawInfo, () -> probeCluster(subscriptionDetail, clusterRawInfo))
+                                                .map(probeResult -> createClusterDetail(subscriptionDetail, clusterRawInfo, probeResult));
                                     } else {
                                         return Observable.just(new ClusterDetail(subscriptionDetail, clusterRawInfo, new ClusterOperationImpl()));
                                     }
                                 })
-                )
-                .doOnNext(clusterDetail -> {
-                    String debugMsg = String.format("Thread: %s. Sub: %s. Cluster: %s",
-                            Thread.currentThread().getName(),
-                            clusterDetail.getSubscription().getSubscriptionName(),
-                            clusterDetail.getName());
-                    log().info(debugMsg);
-                })
-                .toList();
+                                .doOnNext(clusterDetail -> {
+                                    String debugMsg = String.format("Thread: %s. Sub: %s. Cluster: %s",
+                                            Thread.currentThread().getName(),
+                                            clusterDetail.getSubscription().getSubscriptionName(),
+                                            clusterDetail.getName());
+                                    log().info(debugMsg);
+                                })
+                                .toList()
+                                .map(clusters -> Pair.of(subscriptionDetail, clusters))
+                );
     }
 
     public boolean isHDInsightNewSDKEnabled() {
@@ -113,6 +126,45 @@ public class ClusterManager implements ILogger {
                 && Boolean.valueOf(DefaultLoader.getIdeHelper().getApplicationProperty(CommonConst.ENABLE_HDINSIGHT_NEW_SDK));
     }
 
+    private Observable<ClusterProbeResultCache.ProbeResult> probeCluster(
+            @NotNull SubscriptionDetail subscriptionDetail,
+            @NotNull ClusterRawInfo clusterRawInfo) {
+        ClusterOperationNewAPIImpl probeClusterNewApiOperation = new ClusterOperationNewAPIImpl(subscriptionDetail);
+
+        return isProbeNewApiSucceed(probeClusterNewApiOperation, clusterRawInfo)
+                // Run the time-consuming probe job concurrently in IO thread
+                .subscribeOn(Schedulers.io())
+                .map(isProbeSucceed -> {
+                    if (!isProbeSucceed) {
+                        return new ClusterProbeResultCache.ProbeResult(
+                                clusterRawInfo, false, false, null, !probeClusterNewApiOperation.isProbeFailureTransient());
+                    }
+
+                    Boolean isMfaEsp = probeMfaEspCluster(clusterRawInfo);
+                    return new ClusterProbeResultCache.ProbeResult(clusterRawInfo,
+                                                                   true,
+                                                                   Boolean.TRUE.equals(isMfaEsp),
+                                                                   probeClusterNewApiOperation.getRoleType(),
+                                                                   isMfaEsp != null);
+                });
+    }
+
+    @NotNull
+    private ClusterDetail createClusterDetail(@NotNull SubscriptionDetail subscriptionDetail,
+                                              @NotNull ClusterRawInfo clusterRawInfo,
+                                              @NotNull ClusterProbeResultCache.ProbeResult probeResult) {
+        if (!probeResult.isNewApiSupported() || probeResult.getRoleType() == null) {
+            return new ClusterDetail(subscriptionDetail, clusterRawInfo, new ClusterOperationImpl());
+        }
+
+        ClusterOperationNewAPIImpl clusterNewApiOperation = new ClusterOperationNewAPIImpl(subscriptionDetail);
+        clusterNewApiOperation.setRoleType(probeResult.getRoleType());
+
+        return probeResult.isMfaEsp()
+                ? new MfaClusterDetail(subscriptionDetail, clusterRawInfo, clusterNewApiOperation)
+                : new ClusterDetail(subscriptionDetail, clusterRawInfo, clusterNewApiOperation);
+    }
+
     private Observable<Boolean> isProbeNewApiSucceed(
             @NotNull ClusterOperationNewAPIImpl clusterOperation,
             @NotNull ClusterRawInfo clusterRawInfo) {
@@ -120,6 +172,14 @@ public class ClusterManager implements ILogger {
     }
 
     public boolean isMfaEspCluster(ClusterRawInfo rawInfo) {
+        return Boolean.TRUE.equals(probeMfaEspCluster(rawInfo));
+    }
+
+    /**
+     * @return null if the authentication type can't be probed for now
+     */
+    @Nullable
+    public Boolean probeMfaEspCluster(ClusterRawInfo rawInfo) {
         // A way is to check `idbrokernode` type role in `computerProfile`
         Optional<List<Role>> rolesOption = Optional.ofNullable(rawInfo.getProperties())
                 .map(ClusterProperties::getComputeProfile)
@@ -136,7 +196,7 @@ public class ClusterManager implements ILogger {
         } catch (IOException ex) {
             log().warn("Can't probe HDInsight cluster authentication type: " + rawInfo.getId(), ex);
 
-            return false;
+            return null;
         }
     }
 }
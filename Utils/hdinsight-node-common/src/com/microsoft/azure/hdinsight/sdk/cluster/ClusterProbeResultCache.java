@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.sdk.cluster;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import com.microsoft.azure.hdinsight.common.CommonConst;
+import com.microsoft.azure.hdinsight.common.logger.ILogger;
+import com.microsoft.azure.hdinsight.sdk.cluster.HDInsightNewAPI.HDInsightUserRoleType;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import com.microsoft.tooling.msservices.components.DefaultLoader;
+import org.apache.commons.lang3.StringUtils;
+import rx.Observable;
+import rx.functions.Func0;
+import rx.schedulers.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The persisted cluster probe results, such as if the new HDInsight API is supported, keyed by the cluster resource
+ * ID and ETag. A cluster changed gets a new ETag, so it's probed again. The results of unchanged clusters are served
+ * from the cache, and refreshed in background once they are older than {@link #REFRESH_AFTER_MS} for the role
+ * assignment changes which don't change the ETag. Only the definitive results are cached, a result concluded from
+ * a transient failure, such as a network error, is served once and probed again next time.
+ */
+public class ClusterProbeResultCache implements ILogger {
+    public static final long REFRESH_AFTER_MS = TimeUnit.HOURS.toMillis(1);
+    // The results of the deleted clusters are dropped after
+    public static final long EXPIRE_AFTER_MS = TimeUnit.DAYS.toMillis(30);
+
+    @NotNull
+    private final Map<String, ProbeResult> results = new ConcurrentHashMap<>();
+    @NotNull
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private volatile boolean isLoaded = false;
+
+    public static class ProbeResult {
+        private String clusterId;
+        private String etag;
+        private boolean isNewApiSupported;
+        private boolean isMfaEsp;
+        @Nullable
+        private HDInsightUserRoleType roleType;
+        private long probedTime;
+        // Not persisted, only the definitive results are
+        private transient boolean isDefinitive = true;
+
+        // For Gson deserialization
+        ProbeResult() {
+        }
+
+        /**
+         * @param clusterRawInfo the cluster probed
+         * @param isNewApiSupported if probing the new HDInsight API succeeded
+         * @param isMfaEsp if the cluster is an MFA/ESP cluster, only probed with the new API supported
+         * @param roleType the user role type, only probed with the new API supported
+         */
+        public ProbeResult(@NotNull ClusterRawInfo clusterRawInfo,
+                           boolean isNewApiSupported,
+                           boolean isMfaEsp,
+                           @Nullable HDInsightUserRoleType roleType) {
+            this(clusterRawInfo, isNewApiSupported, isMfaEsp, roleType, true);
+        }
+
+        /**
+         * @param isDefinitive false if the result is concluded from a transient failure, not to be cached
+         */
+        public ProbeResult(@NotNull ClusterRawInfo clusterRawInfo,
+                           boolean isNewApiSupported,
+                           boolean isMfaEsp,
+                           @Nullable HDInsightUserRoleType roleType,
+                           boolean isDefinitive) {
+            this.isDefinitive = isDefinitive;
+            this.clusterId = clusterRawInfo.getId();
+            this.etag = clusterRawInfo.getEtag();
+            this.isNewApiSupported = isNewApiSupported;
+            this.isMfaEsp = isMfaEsp;
+            this.roleType = roleType;
+            this.probedTime = System.currentTimeMillis();
+        }
+
+        public boolean isNewApiSupported() {
+            return isNewApiSupported;
+        }
+
+        public boolean isMfaEsp() {
+            return isMfaEsp;
+        }
+
+        @Nullable
+        public HDInsightUserRoleType getRoleType() {
+            return roleType;
+        }
+
+        public long getProbedTime() {
+            return probedTime;
+        }
+
+        public boolean isDefinitive() {
+            return isDefinitive;
+        }
+    }
+
+    private static class LazyHolder {
+        static final ClusterProbeResultCache INSTANCE = new ClusterProbeResultCache();
+    }
+
+    public static ClusterProbeResultCache getInstance() {
+        return LazyHolder.INSTANCE;
+    }
+
+    ClusterProbeResultCache() {
+    }
+
+    /**
+     * Get the probe result of the cluster, served from the cache if the cluster is unchanged
+     *
+     * @param clusterRawInfo the cluster to probe
+     * @param probe the probe to run for the cluster not cached or changed, and to refresh the stale result
+     * @return the probe result observable
+     */
+    @NotNull
+    public Observable<ProbeResult> getOrProbe(@NotNull ClusterRawInfo clusterRawInfo,
+                                              @NotNull Func0<Observable<ProbeResult>> probe) {
+        ProbeResult cached = get(clusterRawInfo);
+        if (cached == null) {
+            return probe.call().doOnNext(this::put);
+        }
+
+        String key = getKey(clusterRawInfo.getId());
+        if (System.currentTimeMillis() - cached.probedTime > REFRESH_AFTER_MS && refreshing.add(key)) {
+            // The stale result is served, the refreshed one is for the next listing
+            probe.call()
+                    .subscribeOn(Schedulers.io())
+                    .doOnTerminate(() -> refreshing.remove(key))
+                    .subscribe(this::put,
+                               err -> log().warn("Failed to refresh the probe result of cluster " + key, err));
+        }
+
+        return Observable.just(cached);
+    }
+
+    @Nullable
+    public ProbeResult get(@NotNull ClusterRawInfo clusterRawInfo) {
+        load();
+
+        if (StringUtils.isBlank(clusterRawInfo.getId())) {
+            return null;
+        }
+
+        ProbeResult cached = results.get(getKey(clusterRawInfo.getId()));
+        if (cached == null
+                || !StringUtils.equals(cached.etag, clusterRawInfo.getEtag())
+                || (cached.isNewApiSupported && cached.roleType == null)) {
+            return null;
+        }
+
+        return cached;
+    }
+
+    public void put(@NotNull ProbeResult result) {
+        load();
+
+        if (StringUtils.isBlank(result.clusterId) || !result.isDefinitive) {
+            return;
+        }
+
+        results.put(getKey(result.clusterId), result);
+        save();
+    }
+
+    /*
+     * Helpers
+     */
+
+    @NotNull
+    private static String getKey(@NotNull String clusterId) {
+        return clusterId.toLowerCase();
+    }
+
+    private void load() {
+        if (isLoaded) {
+            return;
+        }
+
+        synchronized (this) {
+            if (isLoaded) {
+                return;
+            }
+
+            String json = DefaultLoader.getIdeHelper().getApplicationProperty(CommonConst.HDINSIGHT_CLUSTER_PROBE_RESULTS);
+            if (StringUtils.isNotBlank(json)) {
+                try {
+                    List<ProbeResult> saved = new Gson().fromJson(json, new TypeToken<ArrayList<ProbeResult>>() { }.getType());
+                    long expiredTime = System.currentTimeMillis() - EXPIRE_AFTER_MS;
+
+                    Optional.ofNullable(saved).orElse(Collections.emptyList()).stream()
+                            .filter(result -> StringUtils.isNotBlank(result.clusterId) && result.probedTime > expiredTime)
+                            .forEach(result -> results.put(getKey(result.clusterId), result));
+                } catch (JsonSyntaxException ex) {
+                    log().warn("Drop the broken cluster probe results cache", ex);
+                }
+            }
+
+            isLoaded = true;
+        }
+    }
+
+    private synchronized void save() {
+        String json = new Gson().toJson(new ArrayList<>(results.values()));
+        DefaultLoader.getIdeHelper().setApplicationProperty(CommonConst.HDINSIGHT_CLUSTER_PROBE_RESULTS, json);
+    }
+}
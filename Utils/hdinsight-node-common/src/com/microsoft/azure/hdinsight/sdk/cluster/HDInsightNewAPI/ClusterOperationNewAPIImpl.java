@@ -34,6 +34,8 @@ import java.util.*;
 public class ClusterOperationNewAPIImpl extends ClusterOperationImpl implements ILogger {
     private static final String VERSION = "2015-03-01-preview";
     private HDInsightUserRoleType roleType;
+    // If the last probe failed for the reason which may go away, such as the network or server errors
+    private volatile boolean isProbeFailureTransient = false;
     @NotNull
     private final SubscriptionDetail subscription;
     @NotNull
@@ -118,6 +120,8 @@ public class ClusterOperationNewAPIImpl extends ClusterOperationImpl implements
                         AppInsightsClient.createByType(AppInsightsClient.EventType.Telemetry, this.getClass().getSimpleName(), null, properties);
                         return Observable.just(true);
                     } else {
+                        isProbeFailureTransient = isTransientError(err);
+
                         if (err instanceof HttpErrorStatus) {
                             HDInsightNewApiUnavailableException ex = new HDInsightNewApiUnavailableException(err);
                             if (!(err instanceof NotFoundHttpErrorStatus
@@ -149,7 +153,8 @@ public class ClusterOperationNewAPIImpl extends ClusterOperationImpl implements
             return false;
         }
 
-        if (ClusterManager.getInstance().isMfaEspCluster(clusterRawInfo)) {
+        Boolean isMfaEsp = ClusterManager.getInstance().probeMfaEspCluster(clusterRawInfo);
+        if (Boolean.TRUE.equals(isMfaEsp)) {
             return true;
         }
 
@@ -158,7 +163,31 @@ public class ClusterOperationNewAPIImpl extends ClusterOperationImpl implements
             return true;
         }
 
-        return gw.getUsername() != null || gw.getPassword() != null;
+        if (gw.getUsername() != null || gw.getPassword() != null) {
+            return true;
+        }
+
+        // The credential may be absent for an MFA/ESP cluster not recognized for now
+        isProbeFailureTransient = isMfaEsp == null;
+        return false;
+    }
+
+    private static boolean isTransientError(Throwable err) {
+        if (!(err instanceof HttpErrorStatus)) {
+            // Such as the network errors
+            return true;
+        }
+
+        int statusCode = ((HttpErrorStatus) err).getStatusCode();
+        return statusCode >= 500 || statusCode == 408 || statusCode == 429;
+    }
+
+    /**
+     * @return true if the last {@link #isProbeGetConfigurationSucceed(ClusterRawInfo)} failed for the reason which may
+     *         go away, so the failure is not to be taken as the new API not supported for good
+     */
+    public boolean isProbeFailureTransient() {
+        return isProbeFailureTransient;
     }
 
     /**
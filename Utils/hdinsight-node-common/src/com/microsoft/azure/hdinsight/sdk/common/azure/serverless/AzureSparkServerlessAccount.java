@@ -30,6 +30,7 @@ import com.microsoft.azuretools.sdkmanage.AzureManager;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.StringEntity;
 import rx.Observable;
 
@@ -37,6 +38,7 @@ import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static com.microsoft.azure.hdinsight.sdk.rest.azure.datalake.analytics.job.models.ApiVersion.VERSION;
 
@@ -152,6 +154,25 @@ public class AzureSparkServerlessAccount implements IClusterDetail, ClusterConta
                      SparkBatchJobList.class);
     }
 
+    /**
+     * Get the next page of Cosmos Serverless Spark batch job list
+     * @param nextLink the next page link of the previous page
+     * @return the next page of Cosmos Serverless Spark batch job list
+     */
+    public Observable<SparkBatchJobList> getSparkBatchJobList(@NotNull String nextLink) {
+        return Observable.fromCallable(() -> new URIBuilder(nextLink))
+                .flatMap(builder -> {
+                    // The default parameters replace the query of the link, so pass its paging parameters explicitly
+                    List<NameValuePair> parameters = builder.getQueryParams().stream()
+                            .filter(pair -> !pair.getName().equalsIgnoreCase("api-version"))
+                            .collect(Collectors.toList());
+
+                    return getHttp()
+                            .withUuidUserAgent()
+                            .get(builder.removeQuery().toString(), parameters, null, SparkBatchJobList.class);
+                });
+    }
+
     /**
      * Prepare for creating Cosmos Serverless Spark batch job
      * @return the CreateSparkBatchJob object which contains parameters of the job
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.sdk.common.azure.serverless;
+
+import com.microsoft.azure.hdinsight.common.logger.ILogger;
+import com.microsoft.azure.hdinsight.sdk.rest.azure.serverless.spark.models.SchedulerState;
+import com.microsoft.azure.hdinsight.sdk.rest.azure.serverless.spark.models.SparkBatchJob;
+import com.microsoft.azure.hdinsight.sdk.rest.azure.serverless.spark.models.SparkBatchJobList;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import org.apache.commons.lang3.StringUtils;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.Subscription;
+import rx.schedulers.Schedulers;
+import rx.subscriptions.Subscriptions;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * The shared job state polling of a Cosmos Serverless Spark account. Each watched job is fetched once per tick and the
+ * snapshot is multicast to all observers of the job. Due jobs of the same tick are refreshed together by the job list
+ * request, and a job in steady running state is polled less and less frequently. The requests are sent on IO threads,
+ * so a slow response delays the next refreshing rather than the ticker.
+ */
+public class AzureSparkServerlessJobStateWatcher implements ILogger {
+    public static final long TICK_MS = 1000;
+    public static final long MAX_POLL_INTERVAL_MS = TimeUnit.SECONDS.toMillis(15);
+    public static final int STEADY_TICKS = 3;           // Unchanged snapshots to be treated as steady
+    public static final int BATCH_REFRESH_MIN_JOBS = 2;  // Due jobs to refresh with the job list request
+    public static final int LIST_PAGES_MAX = 5;          // Job list pages to look for the due jobs
+    public static final int RETRIES_MAX = 3;
+    public static final long RETRY_DELAY_MS = TimeUnit.SECONDS.toMillis(5);
+
+    private static final Map<String, AzureSparkServerlessJobStateWatcher> WATCHERS = new ConcurrentHashMap<>();
+
+    @NotNull
+    private final AzureSparkServerlessAccount account;
+    @NotNull
+    private final Scheduler tickScheduler;
+    private final Map<String, WatchedJob> watchedJobs = new ConcurrentHashMap<>();
+    private final Map<String, Observable<SparkBatchJob>> sharedStates = new ConcurrentHashMap<>();
+    private final AtomicBoolean isRefreshing = new AtomicBoolean(false);
+    @Nullable
+    private Subscription ticker = null;
+
+    private static class WatchedJob {
+        @NotNull
+        private final String jobUuid;
+        @NotNull
+        private final Subscriber<? super SparkBatchJob> subscriber;
+        private volatile long nextDueTime = 0;
+        private long pollInterval = TICK_MS;
+        private int unchangedTicks = 0;
+        private int failures = 0;
+        @Nullable
+        private String lastStates = null;
+
+        WatchedJob(@NotNull String jobUuid, @NotNull Subscriber<? super SparkBatchJob> subscriber) {
+            this.jobUuid = jobUuid;
+            this.subscriber = subscriber;
+        }
+    }
+
+    AzureSparkServerlessJobStateWatcher(@NotNull AzureSparkServerlessAccount account) {
+        this(account, Schedulers.io());
+    }
+
+    AzureSparkServerlessJobStateWatcher(@NotNull AzureSparkServerlessAccount account, @NotNull Scheduler tickScheduler) {
+        this.account = account;
+        this.tickScheduler = tickScheduler;
+    }
+
+    public static AzureSparkServerlessJobStateWatcher forAccount(@NotNull AzureSparkServerlessAccount account) {
+        return WATCHERS.computeIfAbsent(account.getUri().toString() + "#" + account.getName(),
+                                        key -> new AzureSparkServerlessJobStateWatcher(account));
+    }
+
+    /**
+     * Watch the job state snapshots, the latest snapshot is replayed to the new observer of the same job
+     *
+     * @param jobUuid the job UUID
+     * @return the job snapshots Observable, completed after the job is ended
+     */
+    @NotNull
+    public Observable<SparkBatchJob> watch(@NotNull String jobUuid) {
+        return sharedStates.computeIfAbsent(jobUuid, uuid -> Observable
+                .<SparkBatchJob>create(subscriber -> {
+                    register(new WatchedJob(uuid, subscriber));
+                    subscriber.add(Subscriptions.create(() -> unregister(uuid)));
+                })
+                .doOnTerminate(() -> sharedStates.remove(uuid))
+                .replay(1)
+                .refCount());
+    }
+
+    public static boolean isEnded(@NotNull SparkBatchJob job) {
+        return job.schedulerState() != null
+                && job.schedulerState().toString().equalsIgnoreCase(SchedulerState.ENDED.toString());
+    }
+
+    /*
+     * Helpers
+     */
+
+    private synchronized void register(@NotNull WatchedJob job) {
+        watchedJobs.put(job.jobUuid, job);
+
+        if (ticker == null) {
+            ticker = tickScheduler.createWorker().schedulePeriodically(this::tick, 0, TICK_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void unregister(@NotNull String jobUuid) {
+        watchedJobs.remove(jobUuid);
+        sharedStates.remove(jobUuid);
+
+        if (watchedJobs.isEmpty() && ticker != null) {
+            ticker.unsubscribe();
+            ticker = null;
+        }
+    }
+
+    private void tick() {
+        long now = System.currentTimeMillis();
+        List<WatchedJob> dueJobs = watchedJobs.values().stream()
+                .filter(job -> job.nextDueTime <= now && !job.subscriber.isUnsubscribed())
+                .collect(Collectors.toList());
+
+        // The requests run on IO threads instead of the ticker, the ticks are skipped until the refreshing is done
+        if (dueJobs.isEmpty() || !isRefreshing.compareAndSet(false, true)) {
+            return;
+        }
+
+        Observable<Map<String, SparkBatchJob>> listedJobs = dueJobs.size() >= BATCH_REFRESH_MIN_JOBS
+                ? Observable.fromCallable(() -> listJobs(dueJobs)).subscribeOn(Schedulers.io())
+                : Observable.just(Collections.<String, SparkBatchJob>emptyMap());
+
+        listedJobs
+                .flatMap(listed -> Observable.from(dueJobs)
+                        .flatMap(job -> refresh(job, listed.get(job.jobUuid.toLowerCase()))))
+                .doAfterTerminate(() -> isRefreshing.set(false))
+                .subscribe(job -> { },
+                           err -> log().warn("Failed to refresh Spark batch jobs of account " + account.getName(), err));
+    }
+
+    private Observable<WatchedJob> refresh(@NotNull WatchedJob job, @Nullable SparkBatchJob listed) {
+        // The job list may not contain the running details, get them from the job request then
+        if (listed != null && listed.properties() != null && listed.properties().responsePayload() != null) {
+            onSnapshot(job, listed);
+
+            return Observable.just(job);
+        }
+
+        return account.getSparkBatchJobRequest(job.jobUuid)
+                .subscribeOn(Schedulers.io())
+                .firstOrDefault(null)
+                .flatMap(snapshot -> snapshot == null || snapshot.schedulerState() == null
+                        ? Observable.<SparkBatchJob>error(new IOException("Failed to get scheduler state of the job."))
+                        : Observable.just(snapshot))
+                .map(snapshot -> {
+                    onSnapshot(job, snapshot);
+
+                    return job;
+                })
+                .onErrorReturn(err -> {
+                    onFailure(job, err);
+
+                    return job;
+                });
+    }
+
+    /**
+     * List the jobs by pages, until all due jobs are found or the page limit is reached. The list is sorted by the
+     * submit time in descending order, so the watched jobs, submitted recently, are usually in the first page.
+     */
+    private Map<String, SparkBatchJob> listJobs(@NotNull List<WatchedJob> dueJobs) {
+        Map<String, SparkBatchJob> listedJobs = new HashMap<>();
+        Set<String> missingJobs = dueJobs.stream()
+                .map(job -> job.jobUuid.toLowerCase())
+                .collect(Collectors.toSet());
+
+        try {
+            SparkBatchJobList jobList = account.getSparkBatchJobList().toBlocking().firstOrDefault(null);
+
+            for (int pages = 1; jobList != null; pages++) {
+                Optional.ofNullable(jobList.value())
+                        .orElse(Collections.emptyList())
+                        .stream()
+                        .filter(job -> job.id() != null && job.schedulerState() != null)
+                        .forEach(job -> {
+                            String id = job.id().toString().toLowerCase();
+
+                            listedJobs.putIfAbsent(id, job);
+                            missingJobs.remove(id);
+                        });
+
+                if (missingJobs.isEmpty() || StringUtils.isBlank(jobList.nextLink()) || pages >= LIST_PAGES_MAX) {
+                    break;
+                }
+
+                jobList = account.getSparkBatchJobList(jobList.nextLink()).toBlocking().firstOrDefault(null);
+            }
+        } catch (Exception ex) {
+            log().debug("Failed to list Spark batch jobs of account " + account.getName() + ": " + ex);
+        }
+
+        // The jobs not found are got by their own requests
+        return listedJobs;
+    }
+
+    private void onSnapshot(@NotNull WatchedJob job, @NotNull SparkBatchJob snapshot) {
+        job.failures = 0;
+
+        String states = snapshot.schedulerState() + "/" + Optional.ofNullable(snapshot.properties())
+                .map(properties -> properties.responsePayload())
+                .map(payload -> payload.getState())
+                .orElse("")
+                + "/" + StringUtils.isNotEmpty(Optional.ofNullable(snapshot.properties())
+                                                       .map(properties -> properties.livyServerAPI())
+                                                       .orElse(null));
+
+        // Back off adaptively while the job states keep unchanged, such as the long steady running
+        if (Objects.equals(states, job.lastStates)) {
+            job.unchangedTicks++;
+
+            if (job.unchangedTicks >= STEADY_TICKS) {
+                job.pollInterval = Math.min(job.pollInterval * 2, MAX_POLL_INTERVAL_MS);
+            }
+        } else {
+            job.unchangedTicks = 0;
+            job.pollInterval = TICK_MS;
+        }
+
+        job.lastStates = states;
+        job.nextDueTime = System.currentTimeMillis() + job.pollInterval;
+        job.subscriber.onNext(snapshot);
+
+        if (isEnded(snapshot)) {
+            job.subscriber.onCompleted();
+        }
+    }
+
+    private void onFailure(@NotNull WatchedJob job, @NotNull Throwable err) {
+        if (++job.failures > RETRIES_MAX) {
+            job.subscriber.onError(err);
+
+            return;
+        }
+
+        job.nextDueTime = System.currentTimeMillis() + RETRY_DELAY_MS;
+    }
+}
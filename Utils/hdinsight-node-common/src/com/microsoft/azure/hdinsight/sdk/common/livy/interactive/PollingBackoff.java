@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.sdk.common.livy.interactive;
+
+import rx.Observable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adaptive delay between two polls of a Livy resource: the first poll comes after a few tens of milliseconds so that
+ * short statements complete in about one round trip, then the delay doubles up to a cap. When the polled resource
+ * reports its progress, the delay follows the estimated remaining time instead.
+ *
+ * Not thread safe, create one instance per polling loop.
+ */
+public class PollingBackoff {
+    public static final long DEFAULT_INITIAL_DELAY_MS = 30;
+    public static final long DEFAULT_MAX_DELAY_MS = 1000;
+
+    private final long initialDelayMs;
+    private final long maxDelayMs;
+    private long nextDelayMs;
+    private double lastProgress = -1;
+    private long lastProgressTime;
+
+    public PollingBackoff() {
+        this(DEFAULT_INITIAL_DELAY_MS, DEFAULT_MAX_DELAY_MS);
+    }
+
+    public PollingBackoff(final long initialDelayMs, final long maxDelayMs) {
+        this.initialDelayMs = initialDelayMs;
+        this.maxDelayMs = Math.max(initialDelayMs, maxDelayMs);
+        this.nextDelayMs = initialDelayMs;
+    }
+
+    /**
+     * @return the delay before the next poll, doubling at each call
+     */
+    public long nextDelayMillis() {
+        final long delay = nextDelayMs;
+        nextDelayMs = Math.min(nextDelayMs * 2, maxDelayMs);
+        return delay;
+    }
+
+    /**
+     * @param progress progress between 0 and 1 reported by the last poll, negative if unknown
+     * @return the delay before the next poll, estimated from the progress rate when the progress moves
+     */
+    public long nextDelayMillis(final double progress) {
+        final long now = System.nanoTime();
+        final double previousProgress = lastProgress;
+        final long previousTime = lastProgressTime;
+        lastProgress = progress;
+        lastProgressTime = now;
+        if (progress < 0 || previousProgress < 0 || progress <= previousProgress || progress >= 1) {
+            return nextDelayMillis();
+        }
+
+        final double elapsedMs = TimeUnit.NANOSECONDS.toMillis(now - previousTime);
+        final long remainingMs = (long) ((1 - progress) * elapsedMs / (progress - previousProgress));
+        final long delay = Math.max(initialDelayMs, Math.min(remainingMs, maxDelayMs));
+        // fall back to backoff from the estimated delay if the progress stalls later
+        nextDelayMs = Math.min(delay * 2, maxDelayMs);
+        return delay;
+    }
+
+    /**
+     * Handler for <code>repeatWhen()</code>, delaying each repeat by {@link #nextDelayMillis()}.
+     */
+    public Observable<?> delayRepeats(final Observable<? extends Void> completions) {
+        return completions.flatMap(any -> Observable.timer(nextDelayMillis(), TimeUnit.MILLISECONDS));
+    }
+}
@@ -51,6 +51,7 @@ import static rx.exceptions.Exceptions.propagate;
 
 public abstract class Session implements AutoCloseable, Closeable, ILogger {
     private static final String REST_SEGMENT_SESSION = "sessions";
+    private static final long SESSION_POLL_MAX_DELAY_MS = 1000;
 
     // @NotNull annotation is removed since Not Null is by default,
     // refer to https://checkerframework.org/manual/#null-defaults
@@ -74,6 +75,9 @@ public abstract class Session implements AutoCloseable, Closeable, ILogger {
 
     private final List<String> artifactsToDeploy = new ArrayList<>(); // Artifacts to deploy
 
+    @Nullable
+    private StatementPipeline statementPipeline = null;  // Ordered statement queue, created on demand
+
     public static class CreateParameters {
         public static final String DRIVER_MEMORY = "driverMemory";
         public static final String DRIVER_MEMORY_DEFAULT_VALUE = "4G";
@@ -228,6 +232,20 @@ public abstract class Session implements AutoCloseable, Closeable, ILogger {
             return this;
         }
 
+        /**
+         * Key of sessions which are interchangeable in a {@link SessionPool}: same kind and options, the session name
+         * and the per deployment uploaded artifacts aside.
+         *
+         * @return the pool key of sessions created with these parameters
+         */
+        public String getPoolKey() {
+            final PostSessions postBody = build();
+            postBody.setName(null);
+            postBody.setJars(this.referencedJars.isEmpty() ? null : new ArrayList<>(this.referencedJars));
+
+            return postBody.convertToJson().orElse(this.kind.toString());
+        }
+
         /**
          * Build POST request body for Spark session.
          *
@@ -306,6 +324,9 @@ public abstract class Session implements AutoCloseable, Closeable, ILogger {
 
     final private PublishSubject<SparkLogLine> ctrlSubject;
 
+    @Nullable
+    final private String username;       // the Basic Authentication user, the owner of the session
+
     /*
      * Constructor
      */
@@ -329,6 +350,7 @@ public abstract class Session implements AutoCloseable, Closeable, ILogger {
         this.baseUrl = baseUrl;
         this.lastState = SessionState.NOT_STARTED;
         this.createParameters = createParameters;
+        this.username = username;
 
         if (username == null || password == null) {
             this.http = new HttpObservable();
@@ -350,6 +372,11 @@ public abstract class Session implements AutoCloseable, Closeable, ILogger {
         return baseUrl;
     }
 
+    @Nullable
+    public String getUsername() {
+        return username;
+    }
+
     public URI getUri() {
         return baseUrl.resolve(REST_SEGMENT_SESSION + "/" + getId());
     }
@@ -427,6 +454,14 @@ public abstract class Session implements AutoCloseable, Closeable, ILogger {
         return ctrlSubject;
     }
 
+    public synchronized StatementPipeline getStatementPipeline() {
+        if (statementPipeline == null) {
+            statementPipeline = new StatementPipeline(this);
+        }
+
+        return statementPipeline;
+    }
+
     /*
      * Overrides
      */
@@ -611,17 +646,19 @@ public abstract class Session implements AutoCloseable, Closeable, ILogger {
     }
 
     public Observable<Session> awaitReady(final @Nullable Scheduler scheduler) {
+        final PollingBackoff backoff = new PollingBackoff(PollingBackoff.DEFAULT_INITIAL_DELAY_MS, SESSION_POLL_MAX_DELAY_MS);
+
         return get()
                 .repeatWhen(ob -> scheduler != null ?
                                   // Use specified scheduler to delay
                                   ob.doOnNext(any -> {
                                       try {
-                                          sleep(1000);
+                                          sleep(backoff.nextDelayMillis());
                                       } catch (InterruptedException ignored) {
                                       }
                                   }) :
                                   // Use the default delay scheduler if scheduler not specified
-                                  ob.delay(1, TimeUnit.SECONDS),
+                                  backoff.delayRepeats(ob),
                             scheduler != null ? scheduler : Schedulers.trampoline())
                 .takeUntil(Session::isStatementRunnable)
                 .reduce(new ImmutablePair<>(this, getLastLogs()), (sesLogsPair, ses) -> {
@@ -0,0 +1,531 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.sdk.common.livy.interactive;
+
+import com.microsoft.azure.hdinsight.common.CommonConst;
+import com.microsoft.azure.hdinsight.common.logger.ILogger;
+import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.exceptions.SessionNotStartException;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import com.microsoft.tooling.msservices.components.DefaultLoader;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import rx.Observable;
+import rx.Scheduler;
+import rx.functions.Func0;
+import rx.functions.Func1;
+import rx.schedulers.Schedulers;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static rx.exceptions.Exceptions.propagate;
+
+/**
+ * Per cluster pool of running Livy interactive sessions, so that helper tasks and console restarts reuse a session
+ * instead of waiting for a new Yarn application each time.
+ *
+ * <ul>
+ * <li>sessions are interchangeable when their class, kind, owner and {@link Session.CreateParameters#getPoolKey()}
+ * match, so a session and its REPL state are only handed to the user who created it</li>
+ * <li>a checkout adopts an idle session into the caller's {@link Session} instance after a health check, or starts
+ * the caller's instance when there is none and the per key limit allows it</li>
+ * <li>callers waiting for a session are served in arrival order</li>
+ * <li>sessions idle for longer than the idle TTL are killed</li>
+ * <li>keys registered by {@link #prewarm(Func0)} keep a minimum number of idle sessions started in background, as
+ * long as they were used within the idle TTL, the minimum is read from
+ * {@link CommonConst#LIVY_MIN_IDLE_SESSIONS}</li>
+ * <li>{@link #closeAll()} kills the pooled sessions when the IDE exits</li>
+ * </ul>
+ */
+public class SessionPool implements ILogger {
+    public static final int DEFAULT_MAX_SESSIONS_PER_KEY = 2;
+    public static final long DEFAULT_IDLE_TTL_MS = TimeUnit.MINUTES.toMillis(20);
+    public static final long DEFAULT_CHECKOUT_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(10);
+    public static final int DEFAULT_MIN_IDLE_SESSIONS = 1;
+    private static final long EVICTION_INTERVAL_MS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final Map<String, SessionPool> POOLS = new ConcurrentHashMap<>();
+
+    private final URI baseUrl;
+    private final Map<String, KeyedSessions> sessionsByKey = new ConcurrentHashMap<>();
+    private final Map<Session, String> checkedOut = new ConcurrentHashMap<>();
+    private volatile int maxSessionsPerKey = DEFAULT_MAX_SESSIONS_PER_KEY;
+    private volatile long idleTtlMs = DEFAULT_IDLE_TTL_MS;
+    private volatile long checkoutTimeoutMs = DEFAULT_CHECKOUT_TIMEOUT_MS;
+    private volatile int minIdleSessions = 0;
+    private volatile boolean closed = false;
+    private final Scheduler.Worker evictionWorker = Schedulers.computation().createWorker();
+
+    /**
+     * The default way to start a new session: deploy its artifacts, create it and wait until it's ready.
+     */
+    public static final Func1<Session, Observable<Session>> DEFAULT_STARTER = session -> session
+            .deploy()
+            .flatMap(Session::create)
+            .flatMap(Session::awaitReady);
+
+    private static class PooledSession {
+        private final Session session;
+        private final long idleSince;
+
+        PooledSession(final Session session, final long idleSince) {
+            this.session = session;
+            this.idleSince = idleSince;
+        }
+    }
+
+    private static class KeyedSessions {
+        // fair lock, the condition queue then wakes up waiting borrowers in arrival order
+        private final ReentrantLock lock = new ReentrantLock(true);
+        private final Condition available = lock.newCondition();
+        private final Deque<PooledSession> idle = new ArrayDeque<>();
+        private int live = 0;   // idle, checked out and starting sessions
+        private int starting = 0;   // pre-warming sessions
+        private long lastUsed = System.currentTimeMillis();
+        // The way to pre-warm sessions, set by prewarm()
+        @Nullable
+        private Func0<? extends Session> factory;
+        private Func1<Session, Observable<Session>> starter = DEFAULT_STARTER;
+    }
+
+    SessionPool(final URI baseUrl) {
+        this.baseUrl = baseUrl;
+
+        evictionWorker.schedulePeriodically(
+                this::evictExpired, EVICTION_INTERVAL_MS, EVICTION_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Get the session pool of a Livy endpoint.
+     *
+     * @param livyBaseUrl the connect URL of Livy, the same as the one sessions are created with
+     * @return the shared pool of the endpoint
+     */
+    public static SessionPool forCluster(final URI livyBaseUrl) {
+        return POOLS.computeIfAbsent(livyBaseUrl.toString(), url -> {
+            final SessionPool pool = new SessionPool(livyBaseUrl);
+            pool.setMinIdleSessions(getConfiguredMinIdleSessions());
+
+            return pool;
+        });
+    }
+
+    private static int getConfiguredMinIdleSessions() {
+        try {
+            final String minIdle =
+                    DefaultLoader.getIdeHelper().getApplicationProperty(CommonConst.LIVY_MIN_IDLE_SESSIONS);
+
+            return StringUtils.isBlank(minIdle) ? DEFAULT_MIN_IDLE_SESSIONS : Integer.parseInt(minIdle.trim());
+        } catch (Exception ex) {
+            // Not set properly or no IDE helper in unit test
+            return DEFAULT_MIN_IDLE_SESSIONS;
+        }
+    }
+
+    /**
+     * Close the pools of all Livy endpoints, to be called when the IDE exits.
+     */
+    public static void closeAll() {
+        new ArrayList<>(POOLS.values()).forEach(SessionPool::close);
+    }
+
+    /*
+     * Getter / Setter
+     */
+
+    public URI getBaseUrl() {
+        return baseUrl;
+    }
+
+    public void setMaxSessionsPerKey(final int maxSessionsPerKey) {
+        this.maxSessionsPerKey = Math.max(1, maxSessionsPerKey);
+    }
+
+    public void setIdleTtl(final long idleTtl, final TimeUnit unit) {
+        this.idleTtlMs = unit.toMillis(idleTtl);
+    }
+
+    public void setCheckoutTimeout(final long timeout, final TimeUnit unit) {
+        this.checkoutTimeoutMs = unit.toMillis(timeout);
+    }
+
+    /**
+     * Set the number of idle sessions kept started for each key registered by {@link #prewarm(Func0)}, capped by the
+     * per key limit.
+     */
+    public void setMinIdleSessions(final int minIdleSessions) {
+        this.minIdleSessions = Math.max(0, minIdleSessions);
+        sessionsByKey.values().forEach(this::topUp);
+    }
+
+    public int getIdleCount() {
+        return sessionsByKey.values().stream().mapToInt(keyed -> {
+            keyed.lock.lock();
+            try {
+                return keyed.idle.size();
+            } finally {
+                keyed.lock.unlock();
+            }
+        }).sum();
+    }
+
+    /*
+     * Pool APIs
+     */
+
+    /**
+     * Check out a running session with the same options as <code>candidate</code>, see
+     * {@link #checkout(Session, Func1)}, new sessions are started with {@link #DEFAULT_STARTER}.
+     */
+    public Observable<Session> checkout(final Session candidate) {
+        return checkout(candidate, DEFAULT_STARTER);
+    }
+
+    /**
+     * Check out a running session with the same options as <code>candidate</code>. An idle healthy session is adopted
+     * into <code>candidate</code> (which then points to the server session), otherwise <code>candidate</code> is
+     * started by <code>starter</code> when the per key limit allows it, or the call waits for a session returned by
+     * another borrower. The waiting part blocks, subscribe on an IO scheduler.
+     *
+     * @param candidate the session instance to hand back, not created yet
+     * @param starter   the way to create and wait for a new session
+     * @return the candidate session, ready to run statements, to be given back by {@link #release(Session)}
+     */
+    public Observable<Session> checkout(final Session candidate, final Func1<Session, Observable<Session>> starter) {
+        return Observable.defer(() -> {
+            final String key = keyOf(candidate);
+            final KeyedSessions keyed = sessionsByKey.computeIfAbsent(key, k -> new KeyedSessions());
+            final PooledSession pooled;
+
+            keyed.lock.lock();
+            try {
+                keyed.lastUsed = System.currentTimeMillis();
+            } finally {
+                keyed.lock.unlock();
+            }
+
+            try {
+                pooled = reserve(keyed);
+            } catch (InterruptedException | TimeoutException ex) {
+                return Observable.error(ex);
+            }
+
+            if (pooled == null) {
+                // A slot is reserved to start the candidate
+                return starter.call(candidate)
+                              .last()
+                              .doOnNext(session -> checkedOut.put(session, key))
+                              .doOnError(err -> discardSlot(keyed));
+            }
+
+            return adopt(candidate, pooled.session)
+                    .doOnNext(session -> checkedOut.put(session, key))
+                    .onErrorResumeNext(err -> {
+                        log().debug("Drop unhealthy pooled session " + pooled.session.getId() + ": " + err);
+                        discard(keyed, pooled.session);
+
+                        return checkout(candidate, starter);
+                    });
+        });
+    }
+
+    /**
+     * Keep the minimum number of idle sessions started for the key of the sessions <code>sessionFactory</code> creates,
+     * see {@link #prewarm(Func0, Func1)}, the sessions are started with {@link #DEFAULT_STARTER}.
+     */
+    public void prewarm(final Func0<? extends Session> sessionFactory) {
+        prewarm(sessionFactory, DEFAULT_STARTER);
+    }
+
+    /**
+     * Keep the minimum number of idle sessions started for the key of the sessions <code>sessionFactory</code> creates,
+     * so that the next checkout doesn't wait for a new session. The missing sessions are started in background now,
+     * and again by the idle session eviction once they are checked out or dropped, until the key is not used for the
+     * idle TTL.
+     *
+     * @param sessionFactory the way to create a session instance to start, not created yet
+     * @param starter        the way to create and wait for a new session
+     */
+    public void prewarm(final Func0<? extends Session> sessionFactory,
+                        final Func1<Session, Observable<Session>> starter) {
+        if (closed) {
+            return;
+        }
+
+        final String key = keyOf(sessionFactory.call());
+        final KeyedSessions keyed = sessionsByKey.computeIfAbsent(key, k -> new KeyedSessions());
+
+        keyed.lock.lock();
+        try {
+            keyed.factory = sessionFactory;
+            keyed.starter = starter;
+            keyed.lastUsed = System.currentTimeMillis();
+        } finally {
+            keyed.lock.unlock();
+        }
+
+        topUp(keyed);
+    }
+
+    /**
+     * Give back a session checked out from this pool. The session's control subject is completed, as the borrower
+     * is done with it, and a stopped session is dropped.
+     */
+    public void release(final Session session) {
+        final String key = checkedOut.remove(session);
+        session.getCtrlSubject().onCompleted();
+
+        if (key == null) {
+            // Not from the pool
+            session.close();
+            return;
+        }
+
+        final KeyedSessions keyed = sessionsByKey.get(key);
+        if (keyed == null || session.isStop() || closed) {
+            discard(keyed, session);
+        } else {
+            giveBack(keyed, session);
+        }
+    }
+
+    /**
+     * Kill a checked out session instead of giving it back, e.g. when its state is unknown after an error.
+     */
+    public void invalidate(final Session session) {
+        final String key = checkedOut.remove(session);
+        discard(key == null ? null : sessionsByKey.get(key), session);
+    }
+
+    /**
+     * Stop the idle session eviction and kill all idle sessions, checked out sessions are killed when they are
+     * released. The next {@link #forCluster(URI)} call of the endpoint creates a new pool.
+     */
+    public void close() {
+        closed = true;
+        POOLS.remove(baseUrl.toString(), this);
+        evictionWorker.unsubscribe();
+        clear();
+    }
+
+    /**
+     * Kill all idle sessions, checked out sessions are killed when they are released.
+     */
+    public void clear() {
+        for (final KeyedSessions keyed : sessionsByKey.values()) {
+            final List<PooledSession> toKill;
+            keyed.lock.lock();
+            try {
+                toKill = new ArrayList<>(keyed.idle);
+                keyed.idle.clear();
+                keyed.live -= toKill.size();
+                keyed.available.signalAll();
+            } finally {
+                keyed.lock.unlock();
+            }
+
+            toKill.forEach(pooled -> kill(pooled.session));
+        }
+    }
+
+    /*
+     * Helpers
+     */
+
+    private static String keyOf(final Session session) {
+        return session.getClass().getName() + "/" + session.getKind() + "/"
+                + StringUtils.defaultString(session.getUsername()) + "/" + session.getCreateParameters().getPoolKey();
+    }
+
+    /**
+     * Wait in arrival order for an idle session or a free slot.
+     *
+     * @return the idle session to adopt, or null if a slot was reserved to start a new one
+     */
+    @Nullable
+    private PooledSession reserve(final KeyedSessions keyed) throws InterruptedException, TimeoutException {
+        long remainingNanos = TimeUnit.MILLISECONDS.toNanos(checkoutTimeoutMs);
+
+        keyed.lock.lockInterruptibly();
+        try {
+            while (true) {
+                // The most recently used session is the least likely to be reclaimed by the cluster
+                final PooledSession pooled = keyed.idle.pollLast();
+                if (pooled != null) {
+                    return pooled;
+                }
+
+                if (keyed.live < maxSessionsPerKey) {
+                    keyed.live++;
+                    return null;
+                }
+
+                if (remainingNanos <= 0) {
+                    throw new TimeoutException("No Livy session available in " + baseUrl + " after "
+                            + TimeUnit.MILLISECONDS.toSeconds(checkoutTimeoutMs) + " seconds");
+                }
+
+                remainingNanos = keyed.available.awaitNanos(remainingNanos);
+            }
+        } finally {
+            keyed.lock.unlock();
+        }
+    }
+
+    private Observable<Session> adopt(final Session candidate, final Session pooled) {
+        candidate.setId(pooled.getId());
+
+        return candidate.get()
+                        .map(session -> {
+                            if (!session.isStatementRunnable()) {
+                                throw propagate(new SessionNotStartException(
+                                        "Pooled session " + session.getId() + " is " + session.getLastState()));
+                            }
+
+                            return session;
+                        });
+    }
+
+    private void giveBack(final KeyedSessions keyed, final Session session) {
+        keyed.lock.lock();
+        try {
+            keyed.idle.addLast(new PooledSession(session, System.currentTimeMillis()));
+            keyed.available.signal();
+        } finally {
+            keyed.lock.unlock();
+        }
+    }
+
+    private void discard(@Nullable final KeyedSessions keyed, final Session session) {
+        if (keyed != null) {
+            discardSlot(keyed);
+        }
+
+        kill(session);
+    }
+
+    private void discardSlot(final KeyedSessions keyed) {
+        keyed.lock.lock();
+        try {
+            keyed.live--;
+            keyed.available.signal();
+        } finally {
+            keyed.lock.unlock();
+        }
+    }
+
+    /**
+     * Start the missing idle sessions of a pre-warmed key in background, within the per key limit.
+     */
+    private void topUp(final KeyedSessions keyed) {
+        final int toStart;
+        final Func0<? extends Session> factory;
+        final Func1<Session, Observable<Session>> starter;
+
+        keyed.lock.lock();
+        try {
+            factory = keyed.factory;
+            starter = keyed.starter;
+            toStart = closed || factory == null || !isRecentlyUsed(keyed, System.currentTimeMillis())
+                      ? 0
+                      : Math.min(getMinIdleSessions(keyed) - keyed.idle.size() - keyed.starting,
+                                 maxSessionsPerKey - keyed.live);
+            if (toStart > 0) {
+                keyed.live += toStart;
+                keyed.starting += toStart;
+            }
+        } finally {
+            keyed.lock.unlock();
+        }
+
+        for (int i = 0; i < toStart; i++) {
+            Observable.defer(() -> starter.call(factory.call()))
+                      .last()
+                      .subscribeOn(Schedulers.io())
+                      .subscribe(session -> {
+                          endStarting(keyed);
+
+                          if (closed) {
+                              discard(keyed, session);
+                          } else {
+                              giveBack(keyed, session);
+                          }
+                      }, err -> {
+                          endStarting(keyed);
+                          discardSlot(keyed);
+                          log().warn("Pre-warm pooled session failed. " + ExceptionUtils.getStackTrace(err));
+                      });
+        }
+    }
+
+    private void endStarting(final KeyedSessions keyed) {
+        keyed.lock.lock();
+        try {
+            keyed.starting--;
+        } finally {
+            keyed.lock.unlock();
+        }
+    }
+
+    // Called with the key lock held
+    private boolean isRecentlyUsed(final KeyedSessions keyed, final long now) {
+        return now - keyed.lastUsed <= idleTtlMs;
+    }
+
+    // Called with the key lock held
+    private int getMinIdleSessions(final KeyedSessions keyed) {
+        return keyed.factory == null ? 0 : Math.min(minIdleSessions, maxSessionsPerKey);
+    }
+
+    private void kill(final Session session) {
+        session.kill()
+               .subscribeOn(Schedulers.io())
+               .subscribe(killed -> { },
+                          err -> log().warn("Kill pooled session failed. " + ExceptionUtils.getStackTrace(err)));
+    }
+
+    void evictExpired() {
+        final long now = System.currentTimeMillis();
+
+        for (final KeyedSessions keyed : sessionsByKey.values()) {
+            final List<Session> expired = new ArrayList<>();
+
+            keyed.lock.lock();
+            try {
+                // The pre-warmed sessions of a key in use are kept, the oldest idle sessions are checked first
+                final int minIdle = isRecentlyUsed(keyed, now) ? getMinIdleSessions(keyed) : 0;
+                final Iterator<PooledSession> iterator = keyed.idle.iterator();
+                while (iterator.hasNext() && keyed.idle.size() > minIdle) {
+                    final PooledSession pooled = iterator.next();
+                    if (now - pooled.idleSince > idleTtlMs) {
+                        iterator.remove();
+                        keyed.live--;
+                        expired.add(pooled.session);
+                    }
+                }
+
+                if (!expired.isEmpty()) {
+                    keyed.available.signalAll();
+                }
+            } finally {
+                keyed.lock.unlock();
+            }
+
+            expired.forEach(this::kill);
+            topUp(keyed);
+        }
+    }
+}
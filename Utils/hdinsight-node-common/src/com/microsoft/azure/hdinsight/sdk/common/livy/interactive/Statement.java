@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 public class Statement implements ILogger {
@@ -41,6 +42,8 @@ public class Statement implements ILogger {
     @Nullable
     private StatementState lastState;   // Last statement state gotten
 
+    private double lastProgress = -1;   // Last statement progress gotten, negative if unknown
+
     public Statement(@NotNull Session session, int id) {
         this(session, null);
 
@@ -70,6 +73,10 @@ public class Statement implements ILogger {
         this.lastState = lastState;
     }
 
+    public double getLastProgress() {
+        return lastProgress;
+    }
+
     @NotNull
     public URI getUri() throws StatementNotStartException, SessionNotStartException {
         return URI.create(getSession().getUri().toString() + "/" + REST_SEGMENT_STATEMENTS + "/" + String.valueOf(getId()));
@@ -116,17 +123,44 @@ public class Statement implements ILogger {
      */
 
     public Observable<StatementOutput> run() {
-        return runStatementRequest()
-                .map(this::updateWithResponse)
-                .flatMap(statement -> statement.get()                    // Get statement result
-                        .repeatWhen(ob -> ob.delay(1, TimeUnit.SECONDS)) // The unmet state won't trigger retries,
-                                                                         // which is handled by repeatWhen()
-                        .takeUntil(Statement::isDone)
-                        .filter(Statement::isDone)
-                )
+        return submit()
+                .flatMap(Statement::awaitDone)
                 .map(Statement::getOutput);
     }
 
+    /**
+     * To post the statement codes into the session's statement queue, without waiting for the result.
+     *
+     * @return the statement Observable with ID set
+     */
+    public Observable<Statement> submit() {
+        return runStatementRequest()
+                .map(this::updateWithResponse);
+    }
+
+    /**
+     * To wait for a submitted statement done.
+     *
+     * @return the done statement Observable
+     */
+    public Observable<Statement> awaitDone() {
+        if (isDone()) {
+            // Short statements may already be done in the POST response
+            return Observable.just(this);
+        }
+
+        final PollingBackoff backoff = new PollingBackoff();
+
+        return get()                                                     // Get statement result
+                .repeatWhen(ob -> ob.flatMap(any -> Observable.timer(
+                        backoff.nextDelayMillis(getLastProgress()), TimeUnit.MILLISECONDS)))
+                                                                         // The unmet state won't trigger retries,
+                                                                         // which is handled by repeatWhen() with
+                                                                         // a delay adapted to the progress
+                .takeUntil(Statement::isDone)
+                .filter(Statement::isDone);
+    }
+
     public boolean isDoneWithError()
     {
         return getLastState() == StatementState.ERROR || getLastState() == StatementState.CANCELLED;
@@ -143,6 +177,7 @@ public class Statement implements ILogger {
     private Statement updateWithResponse(com.microsoft.azure.hdinsight.sdk.rest.livy.interactive.Statement statementResp) {
         this.setId(statementResp.getId());
         this.setLastState(statementResp.getState());
+        this.lastProgress = statementResp.getProgress();
         this.setOutput(statementResp.getOutput());
 
         return this;
@@ -198,6 +233,17 @@ public class Statement implements ILogger {
     }
 
     public Observable<Statement> cancel() {
-        throw new UnsupportedOperationException();
+        URI uri;
+
+        try {
+            uri = URI.create(getUri().toString() + "/cancel");
+        } catch (StatementNotStartException | SessionNotStartException e) {
+            return Observable.error(e);
+        }
+
+        return getHttp()
+                .setUserAgent(getUserAgent())
+                .post(uri.toString(), null, null, null, Map.class)
+                .flatMap(resp -> get());
     }
 }
@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.sdk.common.livy.interactive;
+
+import com.microsoft.azure.hdinsight.common.logger.ILogger;
+import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.exceptions.StatementCancelledException;
+import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.exceptions.StatementExecutionError;
+import com.microsoft.azure.hdinsight.sdk.rest.livy.interactive.StatementOutput;
+import com.microsoft.azure.hdinsight.sdk.rest.livy.interactive.StatementState;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import rx.Observable;
+import rx.Subscription;
+import rx.schedulers.Schedulers;
+import rx.subjects.AsyncSubject;
+import rx.subjects.PublishSubject;
+import rx.subjects.ReplaySubject;
+import rx.subjects.SerializedSubject;
+import rx.subjects.Subject;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The ordered statement queue of a Livy interactive session. Codes are posted into the session's server side statement
+ * queue as soon as they are submitted, without waiting for the previous statements done, and the results are emitted
+ * in the submission order as soon as each statement is done.
+ *
+ * A failed statement cancels all the statements submitted behind it. An unexpected failure of the pipeline itself,
+ * e.g. a bug in a result handler, stops the pipeline and is propagated to every statement not done.
+ */
+public class StatementPipeline implements ILogger {
+    private static final int DONE_STATEMENTS_REPLAY_SIZE = 16;
+
+    @NotNull
+    private final Session session;
+
+    // Codes to post, in the submission order
+    private final Subject<PipelinedCode, PipelinedCode> codesToPost = new SerializedSubject<>(PublishSubject.create());
+
+    // Posted statements not done yet, in the server order
+    private final Deque<PipelinedCode> posted = new ConcurrentLinkedDeque<>();
+
+    // Submitted codes whose results are not terminated yet, failed all together if the pipeline stops
+    private final Queue<PipelinedCode> pending = new ConcurrentLinkedQueue<>();
+
+    // All done statements with outputs, in the server order. The latest ones are replayed, so that the output
+    // streams subscribing after the first statements are done don't miss them
+    private final Subject<Statement, Statement> doneStatements =
+            new SerializedSubject<>(ReplaySubject.createWithSize(DONE_STATEMENTS_REPLAY_SIZE));
+
+    // Increased by each failure, the codes submitted before a failure are cancelled
+    private final AtomicInteger failureGeneration = new AtomicInteger(0);
+
+    private final Subscription pipelineSubscription;
+
+    private volatile boolean isClosed = false;
+
+    private static class PipelinedCode {
+        private final String code;
+        private final int generation;
+        private final AsyncSubject<Statement> result = AsyncSubject.create();
+        @Nullable
+        private Statement statement = null;
+
+        PipelinedCode(final String code, final int generation) {
+            this.code = code;
+            this.generation = generation;
+        }
+
+        boolean isTerminated() {
+            return result.hasCompleted() || result.hasThrowable();
+        }
+    }
+
+    public StatementPipeline(@NotNull final Session session) {
+        this.session = session;
+
+        this.pipelineSubscription = codesToPost
+                .onBackpressureBuffer()
+                .observeOn(Schedulers.io())
+                .concatMap(this::post)
+                .onBackpressureBuffer()
+                .concatMap(this::awaitDone)
+                .subscribe(this::onDone, this::onPipelineError);
+
+        // The pipeline is done with the session
+        session.getCtrlSubject().subscribe(any -> { }, err -> close(), this::close);
+    }
+
+    /*
+     * Getter / Setter
+     */
+
+    @NotNull
+    public Session getSession() {
+        return session;
+    }
+
+    /**
+     * Get all done statements with outputs, in the server order, to stream the results of every submission.
+     */
+    public Observable<Statement> getDoneStatements() {
+        return doneStatements.asObservable();
+    }
+
+    /*
+     * Observable APIs
+     */
+
+    /**
+     * To submit codes into the pipeline, each code piece is run as one statement.
+     *
+     * @param codes code pieces to run in order
+     * @return the statements Observable, emits each statement once it's done successfully, or an error of
+     *         {@link StatementExecutionError} for a failed statement and {@link StatementCancelledException} for a
+     *         cancelled one
+     */
+    public Observable<Statement> submit(final String... codes) {
+        return submit(Arrays.asList(codes));
+    }
+
+    public Observable<Statement> submit(final List<String> codes) {
+        final int generation = failureGeneration.get();
+        final List<PipelinedCode> pipelinedCodes = new ArrayList<>();
+
+        pending.removeIf(PipelinedCode::isTerminated);
+
+        for (final String code : codes) {
+            final PipelinedCode pipelinedCode = new PipelinedCode(code, generation);
+            pipelinedCodes.add(pipelinedCode);
+
+            if (isClosed) {
+                pipelinedCode.result.onError(new StatementCancelledException(
+                        "The statement pipeline of session " + session.getName() + " is closed"));
+            } else {
+                pending.add(pipelinedCode);
+                codesToPost.onNext(pipelinedCode);
+            }
+        }
+
+        return Observable.from(pipelinedCodes)
+                .concatMap(pipelinedCode -> pipelinedCode.result);
+    }
+
+    /**
+     * To cancel all statements not done, the statements submitted later are not impacted.
+     */
+    public void cancelAll() {
+        failureGeneration.incrementAndGet();
+
+        for (final PipelinedCode pipelinedCode : posted) {
+            cancel(pipelinedCode);
+        }
+    }
+
+    public void close() {
+        if (isClosed) {
+            return;
+        }
+
+        isClosed = true;
+
+        pipelineSubscription.unsubscribe();
+
+        // The posted ones and the ones queued to post, terminated results ignore the error
+        failPending(new StatementCancelledException(
+                "The statement pipeline of session " + session.getName() + " is closed"));
+
+        posted.clear();
+        doneStatements.onCompleted();
+    }
+
+    /*
+     * Helpers
+     */
+
+    private boolean isCancelled(final PipelinedCode pipelinedCode) {
+        return pipelinedCode.generation < failureGeneration.get();
+    }
+
+    private Observable<PipelinedCode> post(final PipelinedCode pipelinedCode) {
+        if (isCancelled(pipelinedCode)) {
+            pipelinedCode.result.onError(new StatementCancelledException(
+                    "Statement is cancelled since a previous statement failed"));
+
+            return Observable.empty();
+        }
+
+        final Statement statement = new Statement(
+                session, new ByteArrayInputStream(pipelinedCode.code.getBytes(StandardCharsets.UTF_8)));
+
+        return statement.submit()
+                .map(submitted -> {
+                    pipelinedCode.statement = submitted;
+                    posted.addLast(pipelinedCode);
+
+                    // The failure may happen during posting
+                    if (isCancelled(pipelinedCode)) {
+                        cancel(pipelinedCode);
+                    }
+
+                    return pipelinedCode;
+                })
+                .onErrorResumeNext(err -> {
+                    fail(pipelinedCode, err);
+
+                    return Observable.empty();
+                });
+    }
+
+    private Observable<PipelinedCode> awaitDone(final PipelinedCode pipelinedCode) {
+        final Statement statement = pipelinedCode.statement;
+        if (statement == null) {
+            return Observable.empty();
+        }
+
+        return statement.awaitDone()
+                .map(done -> pipelinedCode)
+                .onErrorResumeNext(err -> {
+                    posted.remove(pipelinedCode);
+                    fail(pipelinedCode, err);
+
+                    return Observable.empty();
+                });
+    }
+
+    private void onDone(final PipelinedCode pipelinedCode) {
+        posted.remove(pipelinedCode);
+
+        final Statement statement = pipelinedCode.statement;
+        final StatementOutput output = statement == null ? null : statement.getOutput();
+
+        if (statement == null || output == null || statement.getLastState() == StatementState.CANCELLED) {
+            pipelinedCode.result.onError(new StatementCancelledException(
+                    "Statement is " + (statement == null ? "not posted" : statement.getLastState())));
+
+            return;
+        }
+
+        doneStatements.onNext(statement);
+
+        if (statement.isDoneWithSuccess() && "ok".equalsIgnoreCase(output.getStatus())) {
+            pipelinedCode.result.onNext(statement);
+            pipelinedCode.result.onCompleted();
+        } else {
+            fail(pipelinedCode, new StatementExecutionError(
+                    output.getEname(), output.getEvalue(), output.getTraceback()));
+        }
+    }
+
+    private void onPipelineError(final Throwable err) {
+        log().warn("The statement pipeline of session " + session.getName() + " stopped.", err);
+
+        isClosed = true;
+        cancelAll();
+        failPending(err);
+        posted.clear();
+        doneStatements.onError(err);
+    }
+
+    private void failPending(final Throwable err) {
+        PipelinedCode pipelinedCode;
+        while ((pipelinedCode = pending.poll()) != null) {
+            pipelinedCode.result.onError(err);
+        }
+    }
+
+    private void fail(final PipelinedCode pipelinedCode, final Throwable err) {
+        pipelinedCode.result.onError(err);
+
+        if (!isCancelled(pipelinedCode)) {
+            // Cancel everything behind the failed one
+            cancelAll();
+        }
+    }
+
+    private void cancel(final PipelinedCode pipelinedCode) {
+        final Statement statement = pipelinedCode.statement;
+        if (statement == null || statement.isDone()) {
+            return;
+        }
+
+        statement.cancel()
+                .subscribeOn(Schedulers.io())
+                .subscribe(cancelled -> { },
+                           err -> log().debug("Cancel statement failed: " + err));
+    }
+}
@@ -0,0 +1,16 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.sdk.common.livy.interactive.exceptions;
+
+public class StatementCancelledException extends LivyInteractiveException {
+    public StatementCancelledException(String message) {
+        super(message);
+    }
+
+    public StatementCancelledException(String message, Throwable throwable) {
+        super(message, throwable);
+    }
+}
@@ -16,6 +16,7 @@ import org.apache.http.HttpEntity;
 import org.apache.http.util.EntityUtils;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -91,6 +92,13 @@ public final class ObjectConvertUtils {
         return Optional.empty();
     }
 
+    /**
+     * Serialize the object as JSON into the output stream directly, without building the whole JSON string
+     */
+    public static <T> void writeObjectAsJson(@NotNull OutputStream out, @NotNull T obj) throws IOException {
+        objectMapper.writeValue(out, obj);
+    }
+
     public static <T> Optional<String> convertObjectToXmlString(@NotNull T obj) {
         try {
             return Optional.ofNullable(xmlMapper.writeValueAsString(obj));
@@ -9,6 +9,7 @@ import com.google.common.collect.ImmutableSet;
 import com.microsoft.azure.datalake.store.ADLStoreClient;
 import com.microsoft.azure.hdinsight.sdk.common.AzureHttpObservable;
 import com.microsoft.azure.hdinsight.sdk.common.azure.serverless.AzureSparkServerlessAccount;
+import com.microsoft.azure.hdinsight.sdk.common.azure.serverless.AzureSparkServerlessJobStateWatcher;
 import com.microsoft.azure.hdinsight.sdk.rest.azure.serverless.spark.models.CreateSparkBatchJobParameters;
 import com.microsoft.azure.hdinsight.sdk.rest.azure.serverless.spark.models.SchedulerState;
 import com.microsoft.azure.hdinsight.spark.common.log.SparkLogLine;
@@ -22,12 +23,14 @@ import org.apache.http.NameValuePair;
 import org.apache.http.message.BasicHeader;
 import org.apache.http.message.BasicNameValuePair;
 import rx.Observable;
+import rx.Subscription;
 
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import static com.microsoft.azure.hdinsight.common.MessageInfoType.Info;
@@ -150,25 +153,20 @@ public class CosmosServerlessSparkBatchJob extends SparkBatchJob {
                 });
     }
 
-    private Observable<com.microsoft.azure.hdinsight.sdk.rest.azure.serverless.spark.models.SparkBatchJob> getSparkBatchJobRequest() {
-        return getAccount().getSparkBatchJobRequest(getJobUuid());
+    /**
+     * Get the job state snapshots, shared by all job state consumers, such as the submission log, started and done
+     * awaiting, to fetch the job once per tick
+     *
+     * @return the job state snapshots Observable, the latest snapshot is replayed to a new subscriber
+     */
+    @NotNull
+    public Observable<com.microsoft.azure.hdinsight.sdk.rest.azure.serverless.spark.models.SparkBatchJob> getJobStates() {
+        return AzureSparkServerlessJobStateWatcher.forAccount(getAccount()).watch(getJobUuid());
     }
 
     @Override
     protected Observable<AbstractMap.SimpleImmutableEntry<String, String>> getJobDoneObservable() {
-        // Refer parent class "SparkBatchJob" for delay interval
-        final int GET_JOB_DONE_REPEAT_DELAY_MILLISECONDS = 1000;
-        return getSparkBatchJobRequest()
-                .flatMap(batchResp ->
-                        getJobSchedulerState(batchResp) == null
-                                ? Observable.error(new IOException("Failed to get scheduler state of the job."))
-                                : Observable.just(batchResp)
-                )
-                .retryWhen(err ->
-                        err.zipWith(Observable.range(1, getRetriesMax()), (n, i) -> i)
-                                .delay(getDelaySeconds(), TimeUnit.SECONDS)
-                )
-                .repeatWhen(ob -> ob.delay(GET_JOB_DONE_REPEAT_DELAY_MILLISECONDS, TimeUnit.MILLISECONDS))
+        return getJobStates()
                 .takeUntil(this::isJobEnded)
                 .filter(this::isJobEnded)
                 .map(batchResp -> new AbstractMap.SimpleImmutableEntry<>(
@@ -178,19 +176,13 @@ public class CosmosServerlessSparkBatchJob extends SparkBatchJob {
 
     @Override
     public Observable<String> awaitStarted() {
-        return getSparkBatchJobRequest()
-                .flatMap(batchResp ->
-                        getJobSchedulerState(batchResp) == null
-                                ? Observable.error(new IOException("Failed to get scheduler state of the job."))
-                                : Observable.just(batchResp)
-                )
-                .retryWhen(err ->
-                        err.zipWith(Observable.range(1, getRetriesMax()), (n, i) -> i)
-                                .delay(getDelaySeconds(), TimeUnit.SECONDS)
-                )
-                .repeatWhen(ob ->
-                        ob.doOnNext(ignore -> ctrlInfo("The Spark job is starting..."))
-                                .delay(getDelaySeconds(), TimeUnit.SECONDS))
+        return getJobStates()
+                .distinctUntilChanged(batchResp -> getJobSchedulerState(batchResp) + "/" + getJobState(batchResp))
+                .doOnNext(batchResp -> {
+                    if (!isJobEnded(batchResp) && !isJobRunning(batchResp)) {
+                        ctrlInfo("The Spark job is starting...");
+                    }
+                })
                 .takeUntil(batchResp -> isJobEnded(batchResp) || isJobRunning(batchResp))
                 .filter(batchResp -> isJobEnded(batchResp) || isJobRunning(batchResp))
                 .doOnNext(batchResp -> {
@@ -318,23 +310,12 @@ public class CosmosServerlessSparkBatchJob extends SparkBatchJob {
     @Override
     public Observable<SparkLogLine> getSubmissionLog() {
         final ImmutableSet<String> ignoredEmptyLines = ImmutableSet.of("stdout:", "stderr:", "yarn diagnostics:");
-        final int GET_LIVY_URL_REPEAT_DELAY_MILLISECONDS = 3000;
         final int MAX_LOG_LINES_PER_REQUEST = 128;
         final int GET_LOG_REPEAT_DELAY_MILLISECONDS = 1000;
         // We need to repeatly call getSparkBatchJobRequest() since "livyServerApi" field does not always exist in response but
         // only appeared for a while and before that we can't get the "livyServerApi" field.
         ctrlInfo("Trying to get livy URL...");
-        return getSparkBatchJobRequest()
-                .flatMap(batchResp ->
-                        getJobSchedulerState(batchResp) == null
-                                ? Observable.error(new IOException("Failed to get scheduler state of the job."))
-                                : Observable.just(batchResp)
-                )
-                .retryWhen(err ->
-                        err.zipWith(Observable.range(1, getRetriesMax()), (n, i) -> i)
-                                .delay(getDelaySeconds(), TimeUnit.SECONDS)
-                )
-                .repeatWhen(ob -> ob.delay(GET_LIVY_URL_REPEAT_DELAY_MILLISECONDS, TimeUnit.MILLISECONDS))
+        return getJobStates()
                 .takeUntil(batchResp -> isJobEnded(batchResp) || StringUtils.isNotEmpty(getLivyAPI(batchResp)))
                 .filter(batchResp -> isJobEnded(batchResp) || StringUtils.isNotEmpty(getLivyAPI(batchResp)))
                 .flatMap(job -> {
@@ -344,6 +325,9 @@ public class CosmosServerlessSparkBatchJob extends SparkBatchJob {
                         final String message = String.format("Job scheduler state: %s. Job running state: %s.", schedulerState, jobState);
                         return Observable.just(new SparkLogLine(TOOL, Info, message));
                     } else {
+                        final AtomicReference<com.microsoft.azure.hdinsight.sdk.rest.azure.serverless.spark.models.SparkBatchJob> latestJobState =
+                                new AtomicReference<>(job);
+
                         return Observable.just(job)
                                 .doOnNext(batchResp -> {
                                     ctrlInfo("Successfully get livy URL: " + batchResp.properties().livyServerAPI());
@@ -353,9 +337,13 @@ public class CosmosServerlessSparkBatchJob extends SparkBatchJob {
                                     setBatchId(0);
                                 })
                                 .map(batchResp -> batchResp.properties().livyServerAPI())
-                                // Get submission log
-                                .flatMap(livyUrl ->
-                                        Observable.defer(() -> getSubmissionLogRequest(livyUrl, getBatchId(), getLogStartIndex(), MAX_LOG_LINES_PER_REQUEST))
+                                // Get submission log, with the job states kept watching to read the latest snapshot
+                                // of each page, rather than watching again per page
+                                .flatMap(livyUrl -> Observable.using(
+                                        () -> getJobStates().subscribe(
+                                                latestJobState::set,
+                                                err -> log().debug("Failed to watch the job states: " + err)),
+                                        watching -> Observable.defer(() -> getSubmissionLogRequest(livyUrl, getBatchId(), getLogStartIndex(), MAX_LOG_LINES_PER_REQUEST))
                                                 .map(sparkJobLog -> Optional.ofNullable(sparkJobLog.getLog()).orElse(Collections.<String>emptyList()))
                                                 .doOnNext(logs -> setLogStartIndex(getLogStartIndex() + logs.size()))
                                                 .map(logs -> logs.stream()
@@ -365,12 +353,13 @@ public class CosmosServerlessSparkBatchJob extends SparkBatchJob {
                                                     if (logLines.size() > 0) {
                                                         return Observable.just(Triple.of(logLines, SparkBatchJobState.STARTING.toString(), SchedulerState.SCHEDULED.toString()));
                                                     } else {
-                                                        return getSparkBatchJobRequest()
+                                                        // The latest job state snapshot
+                                                        return Observable.fromCallable(latestJobState::get)
                                                                 .map(batchResp -> Triple.of(logLines, getJobState(batchResp), getJobSchedulerState(batchResp)));
                                                     }
                                                 })
                                                 .onErrorResumeNext(errors ->
-                                                        getSparkBatchJobRequest()
+                                                        Observable.fromCallable(latestJobState::get)
                                                                 .delay(getDelaySeconds(), TimeUnit.SECONDS)
                                                                 .map(batchResp -> Triple.of(new ArrayList<>(), getJobState(batchResp), getJobSchedulerState(batchResp)))
                                                 )
@@ -394,8 +383,8 @@ public class CosmosServerlessSparkBatchJob extends SparkBatchJob {
                                                         return Observable.from(logAndStatesTriple.getLeft())
                                                                 .map(line -> new SparkLogLine(LIVY, Log, line));
                                                     }
-                                                })
-                                );
+                                                }),
+                                        Subscription::unsubscribe));
                     }
                 });
     }
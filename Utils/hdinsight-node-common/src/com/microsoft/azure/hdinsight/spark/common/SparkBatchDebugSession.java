@@ -10,6 +10,7 @@ import com.jcraft.jsch.*;
 import com.microsoft.azure.hdinsight.common.logger.ILogger;
 import com.microsoft.azuretools.azurecommons.helpers.NotNull;
 import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.NotImplementedException;
 import org.apache.commons.lang3.StringUtils;
@@ -20,7 +21,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.UnknownServiceException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /*
@@ -30,14 +34,16 @@ public class SparkBatchDebugSession implements ILogger{
     @NotNull
     private final DebugUserInfo debugUserInfo;
     @NotNull
-    private Session portForwardingSession;
+    private final SshTunnel tunnel;
+    private final List<SshTunnel.PortForward> forwards = new ArrayList<>();
+    private boolean isClosed = false;
     private JSch jsch;
     private Subscription logSubscription;
     private SparkBatchRemoteDebugJobSshAuth auth;
     @Nullable
     private String whoami;
 
-    class DebugUserInfo implements UserInfo {
+    static class DebugUserInfo implements UserInfo, ILogger {
         @Nullable
         private String password;
 
@@ -83,12 +89,10 @@ public class SparkBatchDebugSession implements ILogger{
         }
     }
 
-    SparkBatchDebugSession(JSch jsch, @NotNull Session portForwardingSession) {
+    SparkBatchDebugSession(JSch jsch, @NotNull DebugUserInfo debugUserInfo, @NotNull SshTunnel tunnel) {
         this.jsch = jsch;
-        this.portForwardingSession = portForwardingSession;
-        this.debugUserInfo = new DebugUserInfo();
-
-        this.portForwardingSession.setUserInfo(this.debugUserInfo);
+        this.debugUserInfo = debugUserInfo;
+        this.tunnel = tunnel;
     }
 
     /**
@@ -119,13 +123,22 @@ public class SparkBatchDebugSession implements ILogger{
     }
 
     /**
-     * Getter of the port forwarding session instance
+     * Getter of the port forwarding session instance, shared with other debug sessions to the same cluster
      *
      * @return portForwardingSession instance
      */
     @NotNull
     public Session getPortForwardingSession() {
-        return portForwardingSession;
+        return tunnel.getSession();
+    }
+
+    /**
+     * Getter of the port forwards created by the debug session
+     *
+     * @return port forwards with the traffic statistics
+     */
+    public synchronized List<SshTunnel.PortForward> getPortForwards() {
+        return new ArrayList<>(forwards);
     }
 
     /**
@@ -154,13 +167,23 @@ public class SparkBatchDebugSession implements ILogger{
     }
 
     /**
-     * Verify the user certificate with trying to talk with SSH server
+     * Verify the user certificate with trying to talk with SSH server, the session is closed if the verification fails
      *
      * @return verified debug session
      * @throws JSchException
      * @throws IOException
      */
     public SparkBatchDebugSession verifyCertificate() throws JSchException, IOException {
+        try {
+            return doVerifyCertificate();
+        } catch (JSchException | IOException | RuntimeException ex) {
+            close();
+
+            throw ex;
+        }
+    }
+
+    private SparkBatchDebugSession doVerifyCertificate() throws JSchException, IOException {
         Session session = this.getPortForwardingSession();
 
         if (!session.isConnected()) {
@@ -212,28 +235,42 @@ public class SparkBatchDebugSession implements ILogger{
     }
 
     /**
-     * Close the SSH port forwarding session
+     * Close the port forwards created and release the shared SSH port forwarding session
      *
      * @return the current instance for chain calling
      */
-    public SparkBatchDebugSession close() {
+    public synchronized SparkBatchDebugSession close() {
         if (getLogSubscription() != null) {
             getLogSubscription().unsubscribe();
         }
 
-        this.getPortForwardingSession().disconnect();
+        if (isClosed) {
+            return this;
+        }
+
+        isClosed = true;
+        forwards.forEach(SshTunnel.PortForward::close);
+        forwards.clear();
+        SshTunnelManager.getInstance().release(tunnel);
 
         return this;
     }
 
     /**
-     * Open the SSH port forwarding session
+     * Open the SSH port forwarding session, or reuse the connected one to the same cluster.
+     * The session is closed if the connection fails, so the shared tunnel isn't kept acquired.
      *
      * @return the current instance for chain calling
      * @throws JSchException JSch operation exceptions
      */
     public SparkBatchDebugSession open() throws JSchException {
-        this.getPortForwardingSession().connect();
+        try {
+            tunnel.connect();
+        } catch (JSchException | RuntimeException ex) {
+            close();
+
+            throw ex;
+        }
 
         return this;
     }
@@ -246,9 +283,9 @@ public class SparkBatchDebugSession implements ILogger{
      * @return the current instance for chain calling
      * @throws JSchException JSch operation exceptions
      */
-    public SparkBatchDebugSession forwardToRemotePort(String remoteHost, int remotePort) throws JSchException {
-        // 0 means to select the local automatically
-        this.getPortForwardingSession().setPortForwardingL(0, remoteHost, remotePort);
+    public synchronized SparkBatchDebugSession forwardToRemotePort(String remoteHost, int remotePort)
+            throws JSchException {
+        forwards.add(tunnel.forward(remoteHost, remotePort));
 
         return this;
     }
@@ -265,60 +302,64 @@ public class SparkBatchDebugSession implements ILogger{
     public int getForwardedLocalPort(String remoteHost, int remotePort)
             throws JSchException,
                    UnknownServiceException {
+        // The forwarding may be prefixed with the bound address, such as 127.0.0.1:6534:10.0.0.4:6006
+        Pattern forwardingPattern = Pattern.compile(
+                "(?:[^:]+:)?(\\d+):" + Pattern.quote(remoteHost) + ":" + remotePort);
         String localPort = Arrays.stream(this.getPortForwardingSession().getPortForwardingL())
-                .filter((forwarding) -> forwarding.matches("\\d+:" + remoteHost + ":" + remotePort))
+                .map(forwardingPattern::matcher)
+                .filter(Matcher::matches)
                 .findFirst()
-                .map((forwarding) -> forwarding.split(":")[0])
+                .map((matcher) -> matcher.group(1))
                 .orElseThrow(() -> new UnknownServiceException(
                         "No local forwarded port found for " + remoteHost + ":" + remotePort));
 
         return Integer.parseInt(localPort);
     }
 
-    /**
-     * Create a SparkBatchDebugSession instance for specified host and user
-     *
-     * @param host The SSH host
-     * @param user The SSH user
-     * @return an SparkBatchDebugSession instance
-     * @throws JSchException JSch operation exceptions
-     */
-    private static SparkBatchDebugSession factory(String host, String user) throws JSchException {
-        JSch jsch = new JSch();
-        Session session = jsch.getSession(user, host);
-
-        java.util.Properties config = new java.util.Properties() {{
-            put("StrictHostKeyChecking", "no");
-            put("MaxAuthTries", "2");
-        }};
-
-        session.setConfig(config);
-
-        return new SparkBatchDebugSession(jsch, session);
-    }
-
     /*
-     * Create a Spark Batch Job Debug Session with SSH certification
+     * Create a Spark Batch Job Debug Session with SSH certification, the SSH connection is shared by the debug sessions
+     * to the same cluster with the same certification
      */
     static public SparkBatchDebugSession factoryByAuth(String connectionUrl,
                                                        @NotNull SparkBatchRemoteDebugJobSshAuth auth)
             throws SparkJobException, JSchException {
         String sshServer = getSshHost(connectionUrl);
-
-        SparkBatchDebugSession session = SparkBatchDebugSession.factory(sshServer, auth.getSshUserName());
+        String user = auth.getSshUserName();
+        JSch jsch = new JSch();
+        DebugUserInfo userInfo = new DebugUserInfo();
+        String tunnelKey;
 
         switch (auth.getSshAuthType()) {
             case UseKeyFile:
-                session.setPrivateKeyFile(auth.getSshKeyFile());
+                jsch.addIdentity(auth.getSshKeyFile().getPath());
+                tunnelKey = user + "@" + sshServer + "#key:" + auth.getSshKeyFile().getAbsolutePath();
                 break;
             case UsePassword:
-                session.setPassword(auth.getSshPassword());
+                userInfo.setPassword(auth.getSshPassword());
+                // Only a digest of the password is kept in the key, sessions with the same password share the tunnel
+                tunnelKey = user + "@" + sshServer + "#password:" + DigestUtils.sha256Hex(
+                        user + "@" + sshServer + ":" + StringUtils.defaultString(auth.getSshPassword()));
                 break;
             default:
                 throw new SparkBatchRemoteDebugJobSshAuth.UnknownSSHAuthTypeException(
                         "Unknown SSH authentication type: " + auth.getSshAuthType().name());
         }
 
+        SshTunnel tunnel = SshTunnelManager.getInstance().acquire(tunnelKey, () -> {
+            Session session = jsch.getSession(user, sshServer);
+
+            java.util.Properties config = new java.util.Properties() {{
+                put("StrictHostKeyChecking", "no");
+                put("MaxAuthTries", "2");
+            }};
+
+            session.setConfig(config);
+            session.setUserInfo(userInfo);
+
+            return session;
+        });
+
+        SparkBatchDebugSession session = new SparkBatchDebugSession(jsch, userInfo, tunnel);
         session.auth = auth;
 
         return session;
@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.spark.common;
+
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.ServerSocketFactory;
+import com.jcraft.jsch.Session;
+import com.microsoft.azure.hdinsight.common.logger.ILogger;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import org.apache.commons.io.input.ProxyInputStream;
+import org.apache.commons.io.output.ProxyOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * One authenticated SSH connection with many local port forwards multiplexed over it. The connection is kept alive by
+ * SSH keep-alive messages and reconnected with all forwards restored on the same local ports when it's lost.
+ */
+public class SshTunnel implements ILogger {
+    public static final int KEEP_ALIVE_INTERVAL_MS = (int) TimeUnit.SECONDS.toMillis(15);
+    public static final int KEEP_ALIVE_COUNT_MAX = 3;
+    public static final int CONNECT_TIMEOUT_MS = (int) TimeUnit.SECONDS.toMillis(30);
+    private static final String LOCAL_BIND_ADDRESS = "127.0.0.1";
+
+    /**
+     * The factory to create a configured and not connected SSH session
+     */
+    @FunctionalInterface
+    public interface SessionFactory {
+        Session create() throws JSchException;
+    }
+
+    @NotNull
+    private final String key;
+    @NotNull
+    private final SessionFactory sessionFactory;
+    @NotNull
+    private Session session;
+    private final Map<String, PortForward> forwards = new ConcurrentHashMap<>();
+    private boolean hasConnectedBefore = false;
+    // The reference counting has its own lock, so acquiring isn't blocked by a reconnection in progress
+    private final Object refLock = new Object();
+    private int refCount = 0;
+    private long idleSince = System.currentTimeMillis();
+
+    /*
+     * A local port forwarded to a remote host and port, with the traffic counted
+     */
+    public class PortForward {
+        @NotNull
+        private final String remoteHost;
+        private final int remotePort;
+        private int localPort = 0;
+        private int users = 0;
+        private final long createdTime = System.currentTimeMillis();
+        private final LongAdder bytesToRemote = new LongAdder();
+        private final LongAdder bytesFromRemote = new LongAdder();
+
+        PortForward(@NotNull String remoteHost, int remotePort) {
+            this.remoteHost = remoteHost;
+            this.remotePort = remotePort;
+        }
+
+        @NotNull
+        public String getRemoteHost() {
+            return remoteHost;
+        }
+
+        public int getRemotePort() {
+            return remotePort;
+        }
+
+        public int getLocalPort() {
+            return localPort;
+        }
+
+        public long getBytesToRemote() {
+            return bytesToRemote.sum();
+        }
+
+        public long getBytesFromRemote() {
+            return bytesFromRemote.sum();
+        }
+
+        /**
+         * Get the average throughput of both directions since the forward created
+         *
+         * @return bytes per second
+         */
+        public double getThroughput() {
+            long elapsedMs = Math.max(1, System.currentTimeMillis() - createdTime);
+
+            return (getBytesToRemote() + getBytesFromRemote()) * 1000.0 / elapsedMs;
+        }
+
+        /**
+         * Stop using the forward, the local port is released when there is no user
+         */
+        public void close() {
+            removeForward(this);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s:%d -> %s:%d (sent %d bytes, received %d bytes, %.1f bytes/s)",
+                                 LOCAL_BIND_ADDRESS, localPort, remoteHost, remotePort,
+                                 getBytesToRemote(), getBytesFromRemote(), getThroughput());
+        }
+
+        private void bind(@NotNull Session boundSession) throws JSchException {
+            // Port 0 means to select the local port automatically, the same one is reused after reconnection
+            this.localPort = boundSession.setPortForwardingL(
+                    LOCAL_BIND_ADDRESS, localPort, remoteHost, remotePort, new CountingServerSocketFactory(this));
+        }
+    }
+
+    private static class CountingServerSocketFactory implements ServerSocketFactory {
+        @NotNull
+        private final PortForward forward;
+
+        CountingServerSocketFactory(@NotNull PortForward forward) {
+            this.forward = forward;
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog, InetAddress bindAddr) throws IOException {
+            return new ServerSocket(port, backlog, bindAddr) {
+                @Override
+                public Socket accept() throws IOException {
+                    Socket socket = new CountingSocket(forward);
+                    implAccept(socket);
+
+                    return socket;
+                }
+            };
+        }
+    }
+
+    private static class CountingSocket extends Socket {
+        @NotNull
+        private final PortForward forward;
+
+        CountingSocket(@NotNull PortForward forward) {
+            this.forward = forward;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new ProxyInputStream(super.getInputStream()) {
+                @Override
+                protected void afterRead(int n) {
+                    if (n > 0) {
+                        forward.bytesToRemote.add(n);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public OutputStream getOutputStream() throws IOException {
+            return new ProxyOutputStream(super.getOutputStream()) {
+                @Override
+                protected void afterWrite(int n) {
+                    forward.bytesFromRemote.add(n);
+                }
+            };
+        }
+    }
+
+    SshTunnel(@NotNull String key, @NotNull SessionFactory sessionFactory) throws JSchException {
+        this.key = key;
+        this.sessionFactory = sessionFactory;
+        this.session = createSession();
+    }
+
+    @NotNull
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Get the current SSH session, which is replaced after reconnection
+     *
+     * @return the current SSH session
+     */
+    @NotNull
+    public synchronized Session getSession() {
+        return session;
+    }
+
+    public List<PortForward> getForwards() {
+        return new ArrayList<>(forwards.values());
+    }
+
+    /**
+     * Connect the SSH session if it isn't connected yet
+     *
+     * @return the connected SSH session
+     * @throws JSchException JSch operation exceptions
+     */
+    @NotNull
+    public synchronized Session connect() throws JSchException {
+        if (!session.isConnected()) {
+            reconnect();
+        }
+
+        return session;
+    }
+
+    /**
+     * Forward a local port to the remote host and port on demand, an existing forward is shared
+     *
+     * @param remoteHost the remote host in SSH server network
+     * @param remotePort the remote port of host
+     * @return the port forward, to be closed after using
+     * @throws JSchException JSch operation exceptions
+     */
+    @NotNull
+    public synchronized PortForward forward(@NotNull String remoteHost, int remotePort) throws JSchException {
+        PortForward forward = forwards.get(remoteHost + ":" + remotePort);
+
+        if (forward == null) {
+            connect();
+
+            forward = new PortForward(remoteHost, remotePort);
+            forward.bind(session);
+            forwards.put(remoteHost + ":" + remotePort, forward);
+
+            log().info("SSH tunnel " + key + " forwards " + forward);
+        }
+
+        forward.users++;
+
+        return forward;
+    }
+
+    /**
+     * Reconnect the lost connection, called periodically by {@link SshTunnelManager}
+     */
+    synchronized void checkAlive() {
+        if (!isAcquired() || session.isConnected()) {
+            return;
+        }
+
+        try {
+            log().info("SSH tunnel " + key + " is disconnected, reconnecting...");
+            reconnect();
+        } catch (JSchException ex) {
+            log().warn("Failed to reconnect SSH tunnel " + key + ": " + ex.getMessage());
+        }
+    }
+
+    void acquire() {
+        synchronized (refLock) {
+            refCount++;
+        }
+    }
+
+    void release() {
+        synchronized (refLock) {
+            if (--refCount <= 0) {
+                refCount = 0;
+                idleSince = System.currentTimeMillis();
+            }
+        }
+    }
+
+    boolean isAcquired() {
+        synchronized (refLock) {
+            return refCount > 0;
+        }
+    }
+
+    boolean isIdleLongerThan(long idleMs) {
+        synchronized (refLock) {
+            return refCount == 0 && System.currentTimeMillis() - idleSince > idleMs;
+        }
+    }
+
+    synchronized void disconnect() {
+        forwards.values().forEach(forward -> log().info("SSH tunnel " + key + " closes forward " + forward));
+        forwards.clear();
+        session.disconnect();
+    }
+
+    private synchronized void removeForward(@NotNull PortForward forward) {
+        if (--forward.users > 0) {
+            return;
+        }
+
+        forwards.remove(forward.getRemoteHost() + ":" + forward.getRemotePort());
+        log().info("SSH tunnel " + key + " closes forward " + forward);
+
+        if (session.isConnected()) {
+            try {
+                session.delPortForwardingL(LOCAL_BIND_ADDRESS, forward.getLocalPort());
+            } catch (JSchException ex) {
+                log().warn("Failed to delete the local port forwarding " + forward + ": " + ex.getMessage());
+            }
+        }
+    }
+
+    private Session createSession() throws JSchException {
+        Session newSession = sessionFactory.create();
+        newSession.setServerAliveInterval(KEEP_ALIVE_INTERVAL_MS);
+        newSession.setServerAliveCountMax(KEEP_ALIVE_COUNT_MAX);
+
+        return newSession;
+    }
+
+    private void reconnect() throws JSchException {
+        // A disconnected JSch session can't be connected again
+        Session newSession = hasConnectedBefore ? createSession() : session;
+        newSession.connect(CONNECT_TIMEOUT_MS);
+
+        if (newSession != session) {
+            session.disconnect();
+        }
+
+        session = newSession;
+        hasConnectedBefore = true;
+
+        for (PortForward forward : forwards.values()) {
+            forward.bind(session);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.spark.common;
+
+import com.jcraft.jsch.JSchException;
+import com.microsoft.azure.hdinsight.common.logger.ILogger;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import rx.Subscription;
+import rx.schedulers.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * The per cluster SSH tunnels shared by Spark remote debugging sessions, to avoid an SSH login for each debug job.
+ * Tunnels are checked periodically to reconnect the lost ones and to close the ones idle for a while.
+ */
+public class SshTunnelManager implements ILogger {
+    public static final long CHECK_INTERVAL_MS = TimeUnit.SECONDS.toMillis(10);
+    public static final long IDLE_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(5);
+
+    private final Map<String, SshTunnel> tunnels = new ConcurrentHashMap<>();
+    private final long idleTimeoutMs;
+    @NotNull
+    private final Subscription checkSubscription;
+
+    private static class LazyHolder {
+        static final SshTunnelManager INSTANCE = new SshTunnelManager(CHECK_INTERVAL_MS, IDLE_TIMEOUT_MS);
+    }
+
+    public static SshTunnelManager getInstance() {
+        return LazyHolder.INSTANCE;
+    }
+
+    SshTunnelManager(long checkIntervalMs, long idleTimeoutMs) {
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.checkSubscription = Schedulers.io().createWorker().schedulePeriodically(
+                this::checkTunnels, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Acquire the shared tunnel of the key, created by the session factory if there isn't one
+     *
+     * @param key the tunnel key, such as user, host and authentication identity
+     * @param sessionFactory the factory to create a configured and not connected SSH session
+     * @return the tunnel, to be released after using
+     * @throws JSchException JSch operation exceptions
+     */
+    @NotNull
+    public synchronized SshTunnel acquire(@NotNull String key, @NotNull SshTunnel.SessionFactory sessionFactory)
+            throws JSchException {
+        SshTunnel tunnel = tunnels.get(key);
+
+        if (tunnel == null) {
+            tunnel = new SshTunnel(key, sessionFactory);
+            tunnels.put(key, tunnel);
+        }
+
+        tunnel.acquire();
+
+        return tunnel;
+    }
+
+    /**
+     * Release the tunnel acquired, the connection is kept for the idle timeout to be reused
+     *
+     * @param tunnel the tunnel to release
+     */
+    public void release(@NotNull SshTunnel tunnel) {
+        tunnel.release();
+    }
+
+    /**
+     * Disconnect all tunnels
+     */
+    public synchronized void close() {
+        checkSubscription.unsubscribe();
+        tunnels.values().forEach(SshTunnel::disconnect);
+        tunnels.clear();
+    }
+
+    void checkTunnels() {
+        List<SshTunnel> idleTunnels = new ArrayList<>();
+        List<SshTunnel> aliveTunnels = new ArrayList<>();
+
+        // Only pick the tunnels under the lock, disconnecting and reconnecting may take up to the connect timeout
+        synchronized (this) {
+            tunnels.values().removeIf(tunnel -> {
+                if (tunnel.isIdleLongerThan(idleTimeoutMs)) {
+                    idleTunnels.add(tunnel);
+
+                    return true;
+                }
+
+                aliveTunnels.add(tunnel);
+
+                return false;
+            });
+        }
+
+        idleTunnels.forEach(tunnel -> {
+            log().info("Close idle SSH tunnel " + tunnel.getKey());
+            tunnel.disconnect();
+        });
+
+        aliveTunnels.forEach(SshTunnel::checkAlive);
+    }
+}
@@ -5,6 +5,9 @@
 
 package com.microsoft.azure.hdinsight.spark.common.log;
 
+import com.microsoft.azure.hdinsight.common.MessageInfoType;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
 import org.apache.log4j.Level;
 
 import java.util.Arrays;
@@ -29,35 +32,171 @@ public class SparkLogUtils {
             "\\b(?<level>"
                     + log4jAllLevels.stream().map(Level::toString).collect(Collectors.joining("|")) + ")\\b");
 
+    // The log4j level is in the first columns of the usual layouts, such as `%d{yy/MM/dd HH:mm:ss} %p %c{1}: %m%n`
+    // of Spark, or `%d{ISO8601} %p ...`, `[%p] ...` and `%p ...`
+    public static final int LOG4J_PREFIX_MAX_COLUMNS = 4;
+    public static final int LOG4J_PREFIX_MAX_LENGTH = 64;
+
+    private static final String[] log4jLevelNames = log4jAllLevels.stream().map(Level::toString).toArray(String[]::new);
+
     public static SparkLogLine mapTypedMessageByLog4jLevels(
             final SparkLogLine previous,
             final SparkLogLine current) {
         if (current.getMessageInfoType() == Log) {
             final String msg = current.getRawLog();
-            final Matcher matcher = log4jLevelRegex.matcher(msg);
+            final MessageInfoType type = mapMessageInfoTypeByLog4jLevels(previous.getMessageInfoType(), msg);
 
-            if (matcher.find()) {
-                final Level level = Level.toLevel(matcher.group("level"));
-                if (level.isGreaterOrEqual(Level.ERROR)) {
-                    return new SparkLogLine(current.getLogSource(), Error, msg);
-                }
+            // Reuse the current line if the type isn't changed
+            return type == current.getMessageInfoType() ? current : new SparkLogLine(current.getLogSource(), type, msg);
+        }
 
-                if (level == Level.WARN) {
-                    return new SparkLogLine(current.getLogSource(), Warning, msg);
-                }
+        return current;
+    }
 
-                if (level == Level.INFO) {
-                    return new SparkLogLine(current.getLogSource(), Info, msg);
-                }
+    /**
+     * Map the message type of a `Log` typed line by the log4j level keyword, without any line object allocated
+     *
+     * @param previous the type of the previous line, for the lines without level keyword, such as the stack traces
+     * @param line the raw log line
+     * @return the message type of the line
+     */
+    @NotNull
+    public static MessageInfoType mapMessageInfoTypeByLog4jLevels(@NotNull final MessageInfoType previous,
+                                                                  @NotNull final String line) {
+        final Level level = findLog4jLevel(line);
+
+        if (level == null) {
+            // No level keyword found, use the previous's level
+            return previous;
+        }
+
+        if (level.isGreaterOrEqual(Level.ERROR)) {
+            return Error;
+        }
+
+        if (level == Level.WARN) {
+            return Warning;
+        }
+
+        if (level == Level.INFO) {
+            return Info;
+        }
+
+        // Keep the current level
+        return Log;
+    }
+
+    /**
+     * Find the log4j level keyword of a log line. The usual prefix columns are checked by characters comparing first,
+     * the whole line regex matching is only the fallback of the lines out of the usual layouts.
+     *
+     * @param line the raw log line
+     * @return the first log4j level keyword in the line, or null if not found
+     */
+    @Nullable
+    public static Level findLog4jLevel(@NotNull final String line) {
+        final Level prefixLevel = findLog4jLevelInPrefix(line);
+        if (prefixLevel != null) {
+            return prefixLevel;
+        }
 
-                // Keep the current level
-                return current;
+        final Matcher matcher = log4jLevelRegex.matcher(line);
+
+        return matcher.find() ? Level.toLevel(matcher.group("level")) : null;
+    }
+
+    /**
+     * Find the log4j level keyword only in the prefix columns of a log line, with no regex and no allocation
+     *
+     * @param line the raw log line
+     * @return the log4j level of the prefix columns, or null if the line is out of the usual layouts
+     */
+    @Nullable
+    static Level findLog4jLevelInPrefix(@NotNull final String line) {
+        final int end = Math.min(line.length(), LOG4J_PREFIX_MAX_LENGTH);
+        int pos = 0;
+
+        for (int column = 0; column < LOG4J_PREFIX_MAX_COLUMNS; column++) {
+            while (pos < end && Character.isWhitespace(line.charAt(pos))) {
+                pos++;
             }
 
-            // No level keyword found, use the previous's level
-            return new SparkLogLine(current.getLogSource(), previous.getMessageInfoType(), msg);
+            final int columnStart = pos;
+            while (pos < end && !Character.isWhitespace(line.charAt(pos))) {
+                pos++;
+            }
+
+            if (pos == columnStart) {
+                return null;
+            }
+
+            // Trim the level decorations, such as `[ERROR]` and `ERROR:`
+            int start = columnStart;
+            int stop = pos;
+            while (start < stop && !isWordChar(line.charAt(start))) {
+                start++;
+            }
+            while (stop > start && !isWordChar(line.charAt(stop - 1))) {
+                stop--;
+            }
+
+            final Level level = matchLevelName(line, start, stop);
+            if (level != null) {
+                return level;
+            }
+
+            if (!isPrefixColumn(line, start, stop)) {
+                // The message text begins, leave the rest to the regex matching
+                return null;
+            }
         }
 
-        return current;
+        return null;
+    }
+
+    /*
+     * Helpers
+     */
+
+    @Nullable
+    private static Level matchLevelName(@NotNull final String line, final int start, final int stop) {
+        final int length = stop - start;
+
+        for (int i = 0; i < log4jLevelNames.length; i++) {
+            final String name = log4jLevelNames[i];
+
+            if (name.length() == length && line.regionMatches(start, name, 0, length)) {
+                return log4jAllLevels.get(i);
+            }
+        }
+
+        return null;
+    }
+
+    // The date and time prefix columns, which have digits but no word long enough to be a level keyword, such as
+    // `20/10/19`, `12:34:56,789` and `2020-10-19T12:34:56`
+    private static boolean isPrefixColumn(@NotNull final String line, final int start, final int stop) {
+        boolean hasDigit = false;
+        int letters = 0;
+
+        for (int i = start; i < stop; i++) {
+            final char ch = line.charAt(i);
+
+            if (Character.isLetter(ch)) {
+                if (++letters >= 4) {
+                    return false;
+                }
+            } else {
+                letters = 0;
+                hasDigit |= Character.isDigit(ch);
+            }
+        }
+
+        return hasDigit;
+    }
+
+    // The same word characters as the regex `\b` boundary
+    private static boolean isWordChar(final char ch) {
+        return Character.isLetterOrDigit(ch) || ch == '_';
     }
 }
@@ -27,6 +27,7 @@ import com.microsoft.azure.hdinsight.sdk.cluster.MfaEspCluster;
 import com.microsoft.azure.hdinsight.sdk.common.AuthenticationException;
 import com.microsoft.azure.hdinsight.sdk.common.HDIException;
 import com.microsoft.azure.hdinsight.sdk.common.HttpObservable;
+import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.SessionPool;
 import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.SparkSession;
 import com.microsoft.azure.hdinsight.sdk.io.spark.ClusterFileBase64BufferedOutputStream;
 import com.microsoft.azure.hdinsight.sdk.rest.yarn.rm.App;
@@ -638,18 +639,25 @@ public class JobUtils {
 
         final String username = selectedClusterDetail.getHttpUserName();
         final String password = selectedClusterDetail.getHttpPassword();
-        final String sessionName = "Helper session to upload " + destUri.toString();
+        // The helper session is pooled and reused by the following uploads, so its name is a generic one
+        final String sessionName = "Helper session to upload files";
 
         final URI livyUri = selectedClusterDetail instanceof LivyCluster ?
                             URI.create(((LivyCluster) selectedClusterDetail).getLivyConnectionUrl()) :
                             URI.create(selectedClusterDetail.getConnectionUrl());
+        final SessionPool sessionPool = SessionPool.forCluster(livyUri);
 
-        ctrlInfo(legacyLogSubject, newLogSubject, "Create Spark helper interactive session...");
+        ctrlInfo(legacyLogSubject, newLogSubject, "Get Spark helper interactive session...");
 
         try {
             return Observable.using(() -> new SparkSession(sessionName, livyUri, username, password),
-                                    SparkSession::create,
-                                    SparkSession::close)
+                                    sessionPool::checkout,
+                                    helperSession -> {
+                                        sessionPool.release(helperSession);
+                                        // Keep a helper session warm for the following uploads
+                                        sessionPool.prewarm(() -> new SparkSession(
+                                                sessionName, livyUri, username, password));
+                                    })
                              .map(sparkSession -> {
                                  sparkSession.getCtrlSubject()
                                              .subscribe(logLine -> ctrlInfo(legacyLogSubject, newLogSubject,
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.spark.jobs;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.AbstractCache.SimpleStatsCounter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalListener;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The freshness aware cache of all Job Views, keyed by the application and the view. The views of running
+ * applications are refreshed asynchronously after written, the stale value is served during refreshing. The views of
+ * finished applications are immutable, they are pinned without refreshing. Both are bounded by the total weight of
+ * views, such as the list items, rather than the count of applications, since a task list can be huge.
+ */
+class JobViewCache {
+    @NotNull
+    private final LoadingCache<ViewKey<?>, LoadedView<?>> live;
+    @NotNull
+    private final Cache<ViewKey<?>, Object> pinned;
+
+    /**
+     * The check if the view won't change anymore
+     */
+    @FunctionalInterface
+    interface ImmutableCheck<V> {
+        /**
+         * @param key the application key
+         * @param view the view loaded
+         * @param loadedTime the time in milliseconds when the view was loaded
+         * @return true if the view won't change anymore, such as it's loaded after the application finished
+         */
+        boolean test(@NotNull ApplicationKey key, @NotNull V view, long loadedTime);
+    }
+
+    @FunctionalInterface
+    interface ViewLoader<V> {
+        @NotNull
+        V load(@NotNull ApplicationKey key) throws Exception;
+    }
+
+    @FunctionalInterface
+    interface ViewWeigher<V> {
+        int weigh(@NotNull V view);
+    }
+
+    /**
+     * One kind of Job View, such as the stage list of an application, with its own statistics
+     *
+     * @param <V> the view type
+     */
+    static class View<V> {
+        @NotNull
+        private final String name;
+        @NotNull
+        private final ViewWeigher<V> weigher;
+        @NotNull
+        private final ImmutableCheck<V> isImmutable;
+        @NotNull
+        private final ViewLoader<V> loader;
+        @NotNull
+        private final SimpleStatsCounter statsCounter = new SimpleStatsCounter();
+
+        /**
+         * @param name the view name
+         * @param weigher the view weigher, such as the list size
+         * @param isImmutable to check if the view won't change anymore, to be pinned
+         * @param loader the view loader
+         */
+        View(@NotNull String name,
+             @NotNull ViewWeigher<V> weigher,
+             @NotNull ImmutableCheck<V> isImmutable,
+             @NotNull ViewLoader<V> loader) {
+            this.name = name;
+            this.weigher = weigher;
+            this.isImmutable = isImmutable;
+            this.loader = loader;
+        }
+
+        @NotNull
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Get the statistics of hits, load time and evictions of both live and pinned views
+         */
+        @NotNull
+        public CacheStats stats() {
+            return statsCounter.snapshot();
+        }
+
+        @SuppressWarnings("unchecked")
+        private int weigh(@NotNull Object view) {
+            return weigher.weigh((V) view);
+        }
+    }
+
+    private static class ViewKey<V> {
+        @NotNull
+        private final ApplicationKey appKey;
+        @NotNull
+        private final View<V> view;
+
+        ViewKey(@NotNull ApplicationKey appKey, @NotNull View<V> view) {
+            this.appKey = appKey;
+            this.view = view;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(appKey, view.name);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ViewKey)) {
+                return false;
+            }
+
+            ViewKey<?> that = (ViewKey<?>) obj;
+            return view == that.view && appKey.equals(that.appKey);
+        }
+    }
+
+    private static class LoadedView<V> {
+        @NotNull
+        private final V view;
+        private final long loadedTime = System.currentTimeMillis();
+
+        LoadedView(@NotNull V view) {
+            this.view = view;
+        }
+    }
+
+    /**
+     * @param maxWeight the maximum weight of live and pinned views respectively
+     * @param refreshAfterWriteMs the interval to refresh a running application's view
+     * @param reloadExecutor the executor of asynchronous reloading
+     */
+    JobViewCache(long maxWeight, long refreshAfterWriteMs, @NotNull Executor reloadExecutor) {
+        this(maxWeight, refreshAfterWriteMs, reloadExecutor, Ticker.systemTicker());
+    }
+
+    JobViewCache(long maxWeight, long refreshAfterWriteMs, @NotNull Executor reloadExecutor, @NotNull Ticker ticker) {
+        // Replacing by refreshing or moving into the pinned views is not an eviction
+        RemovalListener<ViewKey<?>, Object> evictionCounter = notification -> {
+            if (notification.wasEvicted() && notification.getKey() != null) {
+                notification.getKey().view.statsCounter.recordEviction();
+            }
+        };
+
+        this.live = CacheBuilder.newBuilder()
+                .maximumWeight(maxWeight)
+                .<ViewKey<?>, LoadedView<?>>weigher((key, loaded) -> key.view.weigh(loaded.view))
+                .refreshAfterWrite(refreshAfterWriteMs, TimeUnit.MILLISECONDS)
+                .ticker(ticker)
+                .removalListener(evictionCounter)
+                .build(CacheLoader.asyncReloading(new CacheLoader<ViewKey<?>, LoadedView<?>>() {
+                    @Override
+                    public LoadedView<?> load(@NotNull ViewKey<?> key) throws Exception {
+                        return loadView(key);
+                    }
+                }, reloadExecutor));
+        this.pinned = CacheBuilder.newBuilder()
+                .maximumWeight(maxWeight)
+                .<ViewKey<?>, Object>weigher((key, view) -> key.view.weigh(view))
+                .removalListener(evictionCounter)
+                .build();
+    }
+
+    @NotNull
+    private static <V> LoadedView<V> loadView(@NotNull ViewKey<V> key) throws Exception {
+        long start = System.nanoTime();
+        try {
+            LoadedView<V> loaded = new LoadedView<>(key.view.loader.load(key.appKey));
+            key.view.statsCounter.recordLoadSuccess(System.nanoTime() - start);
+
+            return loaded;
+        } catch (Exception ex) {
+            key.view.statsCounter.recordLoadException(System.nanoTime() - start);
+
+            throw ex;
+        }
+    }
+
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public <V> V get(@NotNull ApplicationKey appKey, @NotNull View<V> view) throws ExecutionException {
+        ViewKey<V> key = new ViewKey<>(appKey, view);
+        V pinnedView = (V) pinned.getIfPresent(key);
+        if (pinnedView != null) {
+            view.statsCounter.recordHits(1);
+
+            return pinnedView;
+        }
+
+        LoadedView<V> loaded = (LoadedView<V>) live.getIfPresent(key);
+        if (loaded != null) {
+            view.statsCounter.recordHits(1);
+        } else {
+            view.statsCounter.recordMisses(1);
+            loaded = (LoadedView<V>) live.get(key);
+        }
+
+        if (view.isImmutable.test(appKey, loaded.view, loaded.loadedTime)) {
+            // No more refreshing for the finished application
+            pinned.put(key, loaded.view);
+            live.invalidate(key);
+        }
+
+        return loaded.view;
+    }
+
+    public void invalidate(@NotNull ApplicationKey appKey, @NotNull View<?> view) {
+        ViewKey<?> key = new ViewKey<>(appKey, view);
+        live.invalidate(key);
+        pinned.invalidate(key);
+    }
+
+    public long size() {
+        return live.size() + pinned.size();
+    }
+}
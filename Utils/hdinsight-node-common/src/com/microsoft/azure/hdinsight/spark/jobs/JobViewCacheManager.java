@@ -5,10 +5,8 @@
 
 package com.microsoft.azure.hdinsight.spark.jobs;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
-import com.microsoft.azure.hdinsight.common.JobViewManager;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.microsoft.azure.hdinsight.sdk.cluster.IClusterDetail;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.Application;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.event.JobStartEventLog;
@@ -19,118 +17,130 @@ import com.microsoft.azure.hdinsight.sdk.rest.spark.task.Task;
 import com.microsoft.azure.hdinsight.sdk.rest.yarn.rm.App;
 import com.microsoft.azure.hdinsight.sdk.rest.yarn.rm.ApplicationMasterLogs;
 import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import org.apache.commons.lang3.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
-
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Job View cache of applications. The views of running applications are refreshed asynchronously after written,
+ * and the views of finished applications are pinned as immutable. All views share one cache bounded by the total
+ * weight, which is the list size for list views, rather than the count of applications, since a task list can be huge.
+ */
 public class JobViewCacheManager {
-    private static final LoadingCache<ApplicationKey, List<Job>> sparkJobLocalCache = CacheBuilder.newBuilder()
-            .maximumSize(100)
-            .initialCapacity(20)
-            .build(new CacheLoader<ApplicationKey, List<Job>>() {
-                @Override
-                public List<Job> load(ApplicationKey key) throws Exception {
-                    return SparkRestUtil.getLastAttemptJobsFromApp(key);
-                }
-            });
-
-    private static final LoadingCache<ApplicationKey, List<Stage>> sparkStageLocalCache = CacheBuilder.newBuilder()
-            .maximumSize(100)
-            .initialCapacity(20)
-            .build(new CacheLoader<ApplicationKey, List<Stage>>() {
-                @Override
-                public List<Stage> load(ApplicationKey key) throws Exception {
-                    return SparkRestUtil.getAllStageFromApp(key);
-                }
-            });
-
-    private static final LoadingCache<ApplicationKey, List<Executor>> sparkExecutorLocalCache = CacheBuilder.newBuilder()
-            .maximumSize(100)
-            .initialCapacity(20)
-            .build(new CacheLoader<ApplicationKey, List<Executor>>() {
-                @Override
-                public List<Executor> load(ApplicationKey key) throws Exception {
-                    return SparkRestUtil.getAllExecutorFromApp(key);
-                }
-            });
-
-    private static final LoadingCache<String, List<Application>> sparkApplicationsLocalCache = CacheBuilder.newBuilder()
-            .maximumSize(100)
-            .initialCapacity(20)
-            .build(new CacheLoader<String, List<Application>>() {
-                @Override
-                public List<Application> load(String key) throws Exception {
-                    return SparkRestUtil.getSparkApplications(JobViewManager.getCluster(key));
-                }
-            });
-
-    private static final LoadingCache<ApplicationKey, List<Task>> sparkTasksSummaryLocalCache = CacheBuilder.newBuilder()
-            .maximumSize(100)
-            .initialCapacity(20)
-            .build(new CacheLoader<ApplicationKey, List<Task>>() {
-                @Override
-                public List<Task> load(ApplicationKey key) throws Exception {
-                    List<Task> allTasks = new ArrayList<>();
-                    List<Stage> stages = sparkStageLocalCache.get(key);
-                    for (Stage stage: stages) {
-                        int stageId = stage.getStageId();
-                        int attemptedId = stage.getAttemptId();
-                        List<Task> tasks = SparkRestUtil.getSparkTasks(key, stageId, attemptedId);
-                        allTasks.addAll(tasks);
-                    }
-                    return allTasks;
-                }
-            });
-
-    private static final LoadingCache<ApplicationKey, ApplicationMasterLogs> yarnAppLogLocalCache = CacheBuilder.newBuilder()
-            .maximumSize(100)
-            .initialCapacity(20)
-            .build(new CacheLoader<ApplicationKey, ApplicationMasterLogs>() {
-                @Override
-                public ApplicationMasterLogs load(ApplicationKey key) throws Exception {
-                    return JobUtils.getYarnLogs(key);
-                }
-            });
-
-    private static final LoadingCache<ApplicationKey, App> yarnApplicationLocalCache = CacheBuilder.newBuilder()
-            .maximumSize(100)
-            .initialCapacity(20)
-            .build(new CacheLoader<ApplicationKey, App>() {
-                @Override
-                public App load(ApplicationKey key) throws Exception {
-                    return YarnRestUtil.getApp(key);
-                }
-            });
-
-    private static final LoadingCache<ApplicationKey, List<JobStartEventLog>> sparkJobStartEventLogCache = CacheBuilder.newBuilder()
-            .maximumSize(100)
-            .initialCapacity(20)
-            .build(new CacheLoader<ApplicationKey, List<JobStartEventLog>>() {
-                @Override
-                public List<JobStartEventLog> load(ApplicationKey key) throws Exception {
-                    return SparkRestUtil.getSparkEventLogs(key);
-                }
-            });
+    private static final long REFRESH_AFTER_WRITE_MS = TimeUnit.SECONDS.toMillis(10);
+    private static final long MAX_WEIGHT = 500_000;
+    // The application list of a cluster is cached with this pseudo application ID
+    private static final String ALL_APPLICATIONS = "*";
+    // The YARN logs are weighed as one list item per kilobyte
+    private static final int LOG_BYTES_PER_WEIGHT = 1024;
+
+    private static final ExecutorService reloadExecutor = Executors.newFixedThreadPool(
+            4, new ThreadFactoryBuilder().setNameFormat("job-view-cache-reload-%d").setDaemon(true).build());
+
+    private static final JobViewCache jobViewCache = new JobViewCache(MAX_WEIGHT, REFRESH_AFTER_WRITE_MS, reloadExecutor);
+
+    private static final JobViewCache.View<App> yarnAppView = new JobViewCache.View<>(
+            "yarnApp", app -> 1,
+            // The finished state is final
+            (key, app, loadedTime) -> app.isFinished(),
+            YarnRestUtil::getApp);
+
+    private static final JobViewCache.View<List<Application>> sparkApplicationsView = new JobViewCache.View<>(
+            "applications", apps -> Math.max(1, apps.size()),
+            // The application list of a cluster is always changing
+            (key, apps, loadedTime) -> false,
+            key -> SparkRestUtil.getSparkApplications(key.getClusterDetails()));
+
+    private static final JobViewCache.View<List<Job>> sparkJobView =
+            createListView("jobs", SparkRestUtil::getLastAttemptJobsFromApp);
+
+    private static final JobViewCache.View<List<Stage>> sparkStageView =
+            createListView("stages", SparkRestUtil::getAllStageFromApp);
+
+    private static final JobViewCache.View<List<Executor>> sparkExecutorView =
+            createListView("executors", SparkRestUtil::getAllExecutorFromApp);
+
+    private static final JobViewCache.View<List<Task>> sparkTasksSummaryView = createListView("tasks", key -> {
+        List<Task> allTasks = new ArrayList<>();
+        List<Stage> stages = getStages(key);
+        for (Stage stage: stages) {
+            int stageId = stage.getStageId();
+            int attemptedId = stage.getAttemptId();
+            List<Task> tasks = SparkRestUtil.getSparkTasks(key, stageId, attemptedId);
+            allTasks.addAll(tasks);
+        }
+        return allTasks;
+    });
+
+    private static final JobViewCache.View<ApplicationMasterLogs> yarnAppLogView = new JobViewCache.View<>(
+            "yarnLogs",
+            logs -> 1 + (StringUtils.length(logs.getStdout()) + StringUtils.length(logs.getStderr())
+                    + StringUtils.length(logs.getDirectoryInfo())) / LOG_BYTES_PER_WEIGHT,
+            (key, logs, loadedTime) -> isFinishedBefore(key, loadedTime),
+            JobUtils::getYarnLogs);
+
+    private static final JobViewCache.View<List<JobStartEventLog>> sparkJobStartEventLogView =
+            createListView("jobStartEventLogs", SparkRestUtil::getSparkEventLogs);
+
+    private static final List<JobViewCache.View<?>> views = Arrays.asList(
+            yarnAppView, sparkApplicationsView, sparkJobView, sparkStageView, sparkExecutorView,
+            sparkTasksSummaryView, yarnAppLogView, sparkJobStartEventLogView);
+
+    private static <T> JobViewCache.View<List<T>> createListView(@NotNull String name,
+                                                                 @NotNull JobViewCache.ViewLoader<List<T>> loader) {
+        return new JobViewCache.View<>(name, list -> Math.max(1, list.size()),
+                                       (key, list, loadedTime) -> isFinishedBefore(key, loadedTime), loader);
+    }
 
-    public static List<JobStartEventLog> getJobStartEventLogs(@NotNull ApplicationKey key) throws ExecutionException {
-        return sparkJobStartEventLogCache.get(key);
+    // The view loaded after the application finished is final
+    private static boolean isFinishedBefore(@NotNull ApplicationKey key, long loadedTime) {
+        try {
+            App app = getYarnApp(key);
+
+            return app.isFinished() && app.getFinishedTime() > 0 && app.getFinishedTime() < loadedTime;
+        } catch (Exception ignored) {
+            // Treat it as running to refresh later
+            return false;
+        }
+    }
+
+    /**
+     * Get the hit, load time and eviction statistics of each view
+     *
+     * @return the statistics by the view name
+     */
+    public static Map<String, CacheStats> getStats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        views.forEach(view -> stats.put(view.getName(), view.stats()));
+
+        return stats;
     }
 
+    public static List<JobStartEventLog> getJobStartEventLogs(@NotNull ApplicationKey key) throws ExecutionException {
+        return jobViewCache.get(key, sparkJobStartEventLogView);
+    }
     public static ApplicationMasterLogs getYarnLogs(@NotNull ApplicationKey key) throws ExecutionException {
-            return yarnAppLogLocalCache.get(key);
+        return jobViewCache.get(key, yarnAppLogView);
     }
 
     public static App getYarnApp(@NotNull ApplicationKey key) throws ExecutionException {
-        return yarnApplicationLocalCache.get(key);
+        return jobViewCache.get(key, yarnAppView);
     }
 
     public static List<Application> getSparkApplications(@NotNull IClusterDetail clusterDetail) throws ExecutionException {
-        return sparkApplicationsLocalCache.get(clusterDetail.getName());
+        return jobViewCache.get(new ApplicationKey(clusterDetail, ALL_APPLICATIONS), sparkApplicationsView);
     }
 
     public static Application getSingleSparkApplication(@NotNull ApplicationKey key) throws ExecutionException {
-        List<Application> apps = sparkApplicationsLocalCache.get(key.getClusterDetails().getName());
+        List<Application> apps = getSparkApplications(key.getClusterDetails());
         for(Application application : apps) {
             if (application.getId().equalsIgnoreCase(key.getAppId())) {
                 return application;
@@ -140,18 +150,18 @@ public class JobViewCacheManager {
     }
 
     public static List<Executor> getExecutors(@NotNull ApplicationKey key) throws ExecutionException {
-        return sparkExecutorLocalCache.get(key);
+        return jobViewCache.get(key, sparkExecutorView);
     }
 
     public static List<Job> getJob(@NotNull ApplicationKey key) throws ExecutionException {
-        return sparkJobLocalCache.get(key);
+        return jobViewCache.get(key, sparkJobView);
     }
 
     public static List<Task> getTasks(@NotNull ApplicationKey key) throws ExecutionException {
-        return sparkTasksSummaryLocalCache.get(key);
+        return jobViewCache.get(key, sparkTasksSummaryView);
     }
 
     public static List<Stage> getStages(@NotNull ApplicationKey key) throws ExecutionException {
-        return sparkStageLocalCache.get(key);
+        return jobViewCache.get(key, sparkStageView);
     }
 }
@@ -5,6 +5,7 @@
 
 package com.microsoft.azure.hdinsight.spark.jobs;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.microsoft.azuretools.azurecommons.helpers.StringHelper;
 import com.microsoft.tooling.msservices.components.DefaultLoader;
 import com.sun.net.httpserver.HttpExchange;
@@ -14,6 +15,8 @@ import com.sun.net.httpserver.HttpServer;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -47,6 +50,23 @@ public class JobViewHttpServer {
         return port;
     }
 
+    private static String getCacheStatsJson() throws IOException {
+        Map<String, Map<String, Object>> json = new LinkedHashMap<>();
+        JobViewCacheManager.getStats().forEach((view, stats) -> {
+            Map<String, Object> viewStats = new LinkedHashMap<>();
+            viewStats.put("hitCount", stats.hitCount());
+            viewStats.put("missCount", stats.missCount());
+            viewStats.put("hitRate", stats.hitRate());
+            viewStats.put("loadSuccessCount", stats.loadSuccessCount());
+            viewStats.put("loadExceptionCount", stats.loadExceptionCount());
+            viewStats.put("averageLoadPenaltyMs", TimeUnit.NANOSECONDS.toMillis((long) stats.averageLoadPenalty()));
+            viewStats.put("evictionCount", stats.evictionCount());
+            json.put(view, viewStats);
+        });
+
+        return new ObjectMapper().writeValueAsString(json);
+    }
+
     public synchronized static void initialize() {
         if (isEnabled) {
             return;
@@ -66,6 +86,11 @@ public class JobViewHttpServer {
                     httpExchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
                     JobUtils.setResponse(httpExchange, "Connect Successfully");
             });
+            // The Job View cache statistics, for troubleshooting the slow or stale views
+            server.createContext("/cache_stats", (httpExchange) -> {
+                    httpExchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
+                    JobUtils.setResponse(httpExchange, getCacheStatsJson());
+            });
             server.createContext("/applications", new SparkJobHttpHandler());
             server.createContext("/apps", new YarnJobHttpHandler());
             server.createContext("/actions", new ActionHttpHandler());
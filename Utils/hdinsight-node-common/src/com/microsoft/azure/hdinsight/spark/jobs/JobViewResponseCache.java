@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.spark.jobs;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.microsoft.azure.hdinsight.sdk.rest.ObjectConvertUtils;
+import com.microsoft.azure.hdinsight.spark.jobs.framework.JobRequestDetails;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import com.sun.net.httpserver.HttpExchange;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The Job View JSON responses cache. A view is serialized into gzipped bytes once per view content, rather than once
+ * per request, and the repeat requests are served with the cached bytes, or 304 Not Modified by the ETag.
+ *
+ * The list views support the server side paging by the query `offset` and `limit`, and the filtering by the field
+ * name queries, such as `status=FAILED` for stages.
+ */
+public class JobViewResponseCache {
+    public static final long MAX_CACHED_BYTES = 64 * 1024 * 1024;
+    public static final String OFFSET_QUERY_KEY = "offset";
+    public static final String LIMIT_QUERY_KEY = "limit";
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    private final Cache<String, CachedResponse> responses;
+
+    private static class CachedResponse {
+        // The upstream views serialized, the response is reused until any cached upstream view object is changed
+        @NotNull
+        private final List<WeakReference<Object>> sources;
+        @NotNull
+        private final byte[] gzipped;
+        @NotNull
+        private final String etag;
+        private final int totalCount;
+
+        CachedResponse(@NotNull Object[] sources, @NotNull byte[] gzipped, @NotNull String etag, int totalCount) {
+            this.sources = Arrays.stream(sources).map(WeakReference::new).collect(Collectors.toList());
+            this.gzipped = gzipped;
+            this.etag = etag;
+            this.totalCount = totalCount;
+        }
+
+        boolean isSerializedFrom(@NotNull Object[] upstreamViews) {
+            if (upstreamViews.length != sources.size()) {
+                return false;
+            }
+
+            for (int i = 0; i < upstreamViews.length; i++) {
+                if (sources.get(i).get() != upstreamViews[i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    private static class LazyHolder {
+        static final JobViewResponseCache INSTANCE = new JobViewResponseCache(MAX_CACHED_BYTES);
+    }
+
+    public static JobViewResponseCache getInstance() {
+        return LazyHolder.INSTANCE;
+    }
+
+    JobViewResponseCache(long maxCachedBytes) {
+        this.responses = CacheBuilder.newBuilder()
+                .maximumWeight(maxCachedBytes)
+                .<String, CachedResponse>weigher((key, response) -> response.gzipped.length)
+                .build();
+    }
+
+    /**
+     * Send the object view as JSON
+     *
+     * @param httpExchange the HTTP exchange to response
+     * @param viewKey the view key, such as the application key with the view name
+     * @param source the view object
+     * @throws IOException for serialization or sending failures
+     */
+    public void sendObject(@NotNull HttpExchange httpExchange,
+                           @NotNull String viewKey,
+                           @NotNull Object source) throws IOException {
+        send(httpExchange, getOrSerialize(viewKey, new Object[] { source }, () -> source, -1));
+    }
+
+    /**
+     * Send the view composed of the cached upstream views as JSON. The composed view is built per request, so the
+     * cached response is matched by the upstream views rather than the composed one.
+     *
+     * @param httpExchange the HTTP exchange to response
+     * @param viewKey the view key, such as the application key with the view name
+     * @param viewBuilder the builder of the composed view, called only when any upstream view is changed
+     * @param upstreamViews the view objects from {@link JobViewCacheManager} to compose the view
+     * @throws IOException for serialization or sending failures
+     */
+    public void sendComposedObject(@NotNull HttpExchange httpExchange,
+                                   @NotNull String viewKey,
+                                   @NotNull Supplier<Object> viewBuilder,
+                                   @NotNull Object... upstreamViews) throws IOException {
+        send(httpExchange, getOrSerialize(viewKey, upstreamViews, viewBuilder, -1));
+    }
+
+    /**
+     * Send the list view as JSON, with the paging and filtering of the request queries
+     *
+     * @param httpExchange the HTTP exchange to response
+     * @param request the request details with paging and filtering queries
+     * @param viewKey the view key, such as the application key with the view name
+     * @param source the whole list
+     * @param filterFields the field getters of the list item, by the field name supported in filtering queries
+     * @param <T> the list item type
+     * @throws IOException for serialization or sending failures
+     */
+    public <T> void sendList(@NotNull HttpExchange httpExchange,
+                             @NotNull JobRequestDetails request,
+                             @NotNull String viewKey,
+                             @NotNull List<T> source,
+                             @NotNull Map<String, Function<T, Object>> filterFields) throws IOException {
+        long offset = NumberUtils.toLong(request.getQueryValue(OFFSET_QUERY_KEY), 0);
+        long limit = NumberUtils.toLong(request.getQueryValue(LIMIT_QUERY_KEY), Long.MAX_VALUE);
+
+        // Filters sorted by field name to get the same key of the same filtering
+        Map<String, String> filters = new TreeMap<>();
+        filterFields.keySet().forEach(field -> {
+            String expected = request.getQueryValue(field);
+            if (expected != null) {
+                filters.put(field, expected);
+            }
+        });
+
+        String pagedViewKey = viewKey + "?" + filters.entrySet().stream()
+                .map(filter -> filter.getKey() + "=" + filter.getValue())
+                .collect(Collectors.joining("&")) + "&offset=" + offset + "&limit=" + limit;
+
+        Predicate<T> filter = item -> filters.entrySet().stream().allMatch(expected -> StringUtils.equalsIgnoreCase(
+                String.valueOf(filterFields.get(expected.getKey()).apply(item)), expected.getValue()));
+
+        if (filters.isEmpty() && offset == 0 && limit == Long.MAX_VALUE) {
+            send(httpExchange, getOrSerialize(pagedViewKey, new Object[] { source }, () -> source, source.size()));
+
+            return;
+        }
+
+        send(httpExchange, getOrSerialize(pagedViewKey, new Object[] { source }, () -> {
+            List<T> filtered = filters.isEmpty()
+                    ? source
+                    : source.stream().filter(filter).collect(Collectors.toList());
+
+            return new PagedList<>(filtered.size(), filtered.stream()
+                    .skip(Math.max(0, offset))
+                    .limit(Math.max(0, limit))
+                    .collect(Collectors.toList()));
+        }, -1));
+    }
+
+    /**
+     * Drop all cached responses
+     */
+    public void invalidateAll() {
+        responses.invalidateAll();
+    }
+
+    public static String getViewKey(@NotNull ApplicationKey key, @NotNull String viewName) {
+        return key.getClusterConnString().toLowerCase() + "/" + key.getAppId().toLowerCase() + "/" + viewName;
+    }
+
+    /*
+     * Helpers
+     */
+
+    // The filtered or paged list with the total count of the filtered items
+    private static class PagedList<T> {
+        private final int totalCount;
+        @NotNull
+        private final List<T> items;
+
+        PagedList(int totalCount, @NotNull List<T> items) {
+            this.totalCount = totalCount;
+            this.items = items;
+        }
+    }
+
+    @NotNull
+    private CachedResponse getOrSerialize(@NotNull String viewKey,
+                                          @NotNull Object[] upstreamViews,
+                                          @NotNull Supplier<Object> viewBuilder,
+                                          int totalCount) throws IOException {
+        // The key has the request paging and filtering, the upstream views tell whether the content is changed
+        CachedResponse cached = responses.getIfPresent(viewKey);
+        if (cached != null && cached.isSerializedFrom(upstreamViews)) {
+            return cached;
+        }
+
+        Object view = viewBuilder.get();
+        Object toSerialize = view instanceof PagedList ? ((PagedList<?>) view).items : view;
+        int count = view instanceof PagedList ? ((PagedList<?>) view).totalCount : totalCount;
+
+        CachedResponse response = serialize(upstreamViews, toSerialize, count);
+        responses.put(viewKey, response);
+
+        return response;
+    }
+
+    @NotNull
+    private CachedResponse serialize(@NotNull Object[] upstreamViews,
+                                     @NotNull Object view,
+                                     int totalCount) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IOException("No SHA-1 digest to generate ETag", ex);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        // Stream JSON into the gzip directly and digest the uncompressed bytes for the ETag of content
+        try (OutputStream out = new DigestOutputStream(new GZIPOutputStream(bytes), digest)) {
+            ObjectConvertUtils.writeObjectAsJson(out, view);
+        }
+
+        StringBuilder etag = new StringBuilder("\"");
+        for (byte b : digest.digest()) {
+            etag.append(String.format("%02x", b));
+        }
+        etag.append("\"");
+
+        return new CachedResponse(upstreamViews, bytes.toByteArray(), etag.toString(), totalCount);
+    }
+
+    private void send(@NotNull HttpExchange httpExchange, @NotNull CachedResponse response) throws IOException {
+        httpExchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        httpExchange.getResponseHeaders().set("ETag", response.etag);
+        httpExchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        if (response.totalCount >= 0) {
+            httpExchange.getResponseHeaders().set(TOTAL_COUNT_HEADER, String.valueOf(response.totalCount));
+        }
+
+        try {
+            if (StringUtils.contains(getRequestHeader(httpExchange, "If-None-Match"), response.etag)) {
+                httpExchange.sendResponseHeaders(304, -1);
+
+                return;
+            }
+
+            OutputStream body;
+            if (StringUtils.containsIgnoreCase(getRequestHeader(httpExchange, "Accept-Encoding"), "gzip")) {
+                httpExchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                httpExchange.sendResponseHeaders(200, response.gzipped.length);
+                body = httpExchange.getResponseBody();
+                body.write(response.gzipped);
+            } else {
+                // Chunked encoding for the uncompressed length unknown
+                httpExchange.sendResponseHeaders(200, 0);
+                body = httpExchange.getResponseBody();
+                IOUtils.copy(new GZIPInputStream(new ByteArrayInputStream(response.gzipped)), body);
+            }
+
+            body.flush();
+        } finally {
+            httpExchange.close();
+        }
+    }
+
+    @Nullable
+    private static String getRequestHeader(@NotNull HttpExchange httpExchange, @NotNull String name) {
+        return httpExchange.getRequestHeaders().getFirst(name);
+    }
+}
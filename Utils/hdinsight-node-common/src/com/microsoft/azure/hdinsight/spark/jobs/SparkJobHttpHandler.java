@@ -5,8 +5,7 @@
 
 package com.microsoft.azure.hdinsight.spark.jobs;
 
-import com.microsoft.azure.hdinsight.sdk.common.HDIException;
-import com.microsoft.azure.hdinsight.sdk.rest.ObjectConvertUtils;
+import com.google.common.collect.ImmutableMap;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.Application;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.YarnAppWithJobs;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.event.JobStartEventLog;
@@ -16,55 +15,76 @@ import com.microsoft.azure.hdinsight.sdk.rest.spark.stage.Stage;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.task.Task;
 import com.microsoft.azure.hdinsight.sdk.rest.yarn.rm.App;
 import com.microsoft.azure.hdinsight.spark.jobs.framework.JobRequestDetails;
-import com.microsoft.tooling.msservices.components.DefaultLoader;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
 
 public class SparkJobHttpHandler implements HttpHandler {
+    private static final Map<String, Function<Stage, Object>> STAGE_FILTER_FIELDS =
+            ImmutableMap.<String, Function<Stage, Object>>builder()
+                    .put("status", Stage::getStatus)
+                    .put("stageId", Stage::getStageId)
+                    .put("attemptId", Stage::getAttemptId)
+                    .build();
+
+    private static final Map<String, Function<Task, Object>> TASK_FILTER_FIELDS =
+            ImmutableMap.<String, Function<Task, Object>>builder()
+                    .put("executorId", Task::getExecutorId)
+                    .put("host", Task::getHost)
+                    .put("taskLocality", Task::getTaskLocality)
+                    .put("speculative", Task::getSpeculative)
+                    .build();
 
     @Override
     public void handle(HttpExchange httpExchange) throws IOException {
         httpExchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
         JobRequestDetails requestDetail = JobRequestDetails.getJobRequestDetail(httpExchange);
+        JobViewResponseCache responseCache = JobViewResponseCache.getInstance();
         try {
             String path = requestDetail.getRequestPath();
             if (path.equalsIgnoreCase("/applications/") && requestDetail.getAppId().equalsIgnoreCase("0")) {
-                try {
-                    List<Application> applications = SparkRestUtil.getSparkApplications(requestDetail.getCluster());
-                    Optional<String> responseString = ObjectConvertUtils.convertObjectToJsonString(applications);
-                    JobUtils.setResponse(httpExchange, responseString.orElseThrow(IOException::new));
-                } catch (HDIException e) {
-                    DefaultLoader.getUIHelper().logError("get applications list error", e);
-                }
+                // The cached application list, to reuse the serialized response until the list is refreshed
+                List<Application> applications = JobViewCacheManager.getSparkApplications(requestDetail.getCluster());
+                responseCache.sendObject(
+                        httpExchange, requestDetail.getCluster().getName() + "/applications", applications);
             } else if (path.contains("application_graph")) {
                 ApplicationKey key = new ApplicationKey(requestDetail.getCluster(), requestDetail.getAppId());
                 List<Job> jobs = JobViewCacheManager.getJob(key);
                 App app = JobViewCacheManager.getYarnApp(key);
                 List<JobStartEventLog> jobStartEventLogs = JobViewCacheManager.getJobStartEventLogs(key);
-                YarnAppWithJobs yarnAppWithJobs = new YarnAppWithJobs(app, jobs, jobStartEventLogs);
-                Optional<String> responseString = ObjectConvertUtils.convertObjectToJsonString(yarnAppWithJobs);
-                JobUtils.setResponse(httpExchange, responseString.orElseThrow(IOException::new));
+                responseCache.sendComposedObject(httpExchange,
+                                                 JobViewResponseCache.getViewKey(key, "application_graph"),
+                                                 () -> new YarnAppWithJobs(app, jobs, jobStartEventLogs),
+                                                 app, jobs, jobStartEventLogs);
             } else if (path.contains("stages_summary")) {
-                List<Stage> stages = JobViewCacheManager.getStages(new ApplicationKey(requestDetail.getCluster(), requestDetail.getAppId()));
-                Optional<String> responseString = ObjectConvertUtils.convertObjectToJsonString(stages);
-                JobUtils.setResponse(httpExchange, responseString.orElseThrow(IOException::new));
+                ApplicationKey key = new ApplicationKey(requestDetail.getCluster(), requestDetail.getAppId());
+                List<Stage> stages = JobViewCacheManager.getStages(key);
+                responseCache.sendList(httpExchange,
+                                       requestDetail,
+                                       JobViewResponseCache.getViewKey(key, "stages_summary"),
+                                       stages,
+                                       STAGE_FILTER_FIELDS);
             } else if (path.contains("executors_summary")) {
-                List<Executor> executors = JobViewCacheManager.getExecutors(new ApplicationKey(requestDetail.getCluster(), requestDetail.getAppId()));
-                Optional<String> responseString = ObjectConvertUtils.convertObjectToJsonString(executors);
-                JobUtils.setResponse(httpExchange, responseString.orElseThrow(IOException::new));
+                ApplicationKey key = new ApplicationKey(requestDetail.getCluster(), requestDetail.getAppId());
+                List<Executor> executors = JobViewCacheManager.getExecutors(key);
+                responseCache.sendObject(
+                        httpExchange, JobViewResponseCache.getViewKey(key, "executors_summary"), executors);
             } else if (path.contains("tasks_summary")) {
-                List<Task> tasks = JobViewCacheManager.getTasks(new ApplicationKey(requestDetail.getCluster(), requestDetail.getAppId()));
-                Optional<String> responseString = ObjectConvertUtils.convertObjectToJsonString(tasks);
-                JobUtils.setResponse(httpExchange, responseString.orElseThrow(IOException::new));
+                ApplicationKey key = new ApplicationKey(requestDetail.getCluster(), requestDetail.getAppId());
+                List<Task> tasks = JobViewCacheManager.getTasks(key);
+                responseCache.sendList(httpExchange,
+                                       requestDetail,
+                                       JobViewResponseCache.getViewKey(key, "tasks_summary"),
+                                       tasks,
+                                       TASK_FILTER_FIELDS);
             }
         } catch (ExecutionException e) {
             JobUtils.setResponse(httpExchange, e.getMessage(), 500);
         }
     }
 }
-
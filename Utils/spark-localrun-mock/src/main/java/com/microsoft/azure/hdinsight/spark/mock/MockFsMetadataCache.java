@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.spark.mock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * The in-memory metadata snapshot of mocked file system roots, to serve the file status and listing without the
+ * syscalls per file. A root is walked once at the first access, and kept up to date by the file system watching
+ * and the invalidation of writes through the mocked file system.
+ */
+class MockFsMetadataCache implements Closeable {
+    private final Map<Path, BasicFileAttributes> attributes = new ConcurrentHashMap<>();
+    private final Map<Path, Set<Path>> children = new ConcurrentHashMap<>();
+    private final Set<Path> roots = ConcurrentHashMap.newKeySet();
+    private final Map<WatchKey, Path> watchedDirs = new ConcurrentHashMap<>();
+    private final Map<Path, WatchKey> watchKeys = new ConcurrentHashMap<>();
+    private final WatchService watchService;
+
+    private static class LazyHolder {
+        static final MockFsMetadataCache INSTANCE = new MockFsMetadataCache();
+    }
+
+    static MockFsMetadataCache getInstance() {
+        return LazyHolder.INSTANCE;
+    }
+
+    private Logger log() {
+        return LoggerFactory.getLogger(this.getClass());
+    }
+
+    MockFsMetadataCache() {
+        WatchService service = null;
+
+        try {
+            service = FileSystems.getDefault().newWatchService();
+
+            Thread watcher = new Thread(this::watch, "mockfs-metadata-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+        } catch (IOException e) {
+            log().warn("Can't watch the mocked file system changes, only the writes through it are tracked", e);
+        }
+
+        this.watchService = service;
+    }
+
+    /**
+     * Get the cached file attributes
+     *
+     * @param root the mocked file system root containing the file
+     * @param file the absolute and normalized local file path
+     * @return the file attributes, or null if the file doesn't exist
+     * @throws IOException for the root walking failure
+     */
+    BasicFileAttributes getAttributes(Path root, Path file) throws IOException {
+        ensureSnapshot(root);
+
+        return attributes.get(file);
+    }
+
+    /**
+     * Get the cached directory children
+     *
+     * @param root the mocked file system root containing the directory
+     * @param dir the absolute and normalized local directory path
+     * @return the children paths, or null if the directory doesn't exist
+     * @throws IOException for the root walking failure
+     */
+    List<Path> list(Path root, Path dir) throws IOException {
+        ensureSnapshot(root);
+
+        Set<Path> entries = children.get(dir);
+
+        return entries == null ? null : new ArrayList<>(entries);
+    }
+
+    /**
+     * Refresh the cached metadata of a created, changed or deleted path
+     *
+     * @param file the absolute and normalized local path
+     */
+    synchronized void invalidate(Path file) {
+        if (roots.stream().noneMatch(file::startsWith)) {
+            return;
+        }
+
+        Path parent = file.getParent();
+        if (parent != null && !roots.contains(file) && !children.containsKey(parent)) {
+            // The parent is new too, walking the parent covers the file
+            invalidate(parent);
+
+            return;
+        }
+
+        BasicFileAttributes attrs = readAttributes(file);
+
+        if (attrs == null) {
+            removeTree(file);
+        } else if (attrs.isDirectory() && !children.containsKey(file)) {
+            walk(file);
+        } else {
+            if (!attrs.isDirectory() && children.containsKey(file)) {
+                removeTree(file);
+            }
+
+            attributes.put(file, attrs);
+            addToParent(file);
+        }
+
+        // The parent's modified time is changed
+        if (parent != null && children.containsKey(parent)) {
+            Optional.ofNullable(readAttributes(parent)).ifPresent(parentAttrs -> attributes.put(parent, parentAttrs));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    /*
+     * Helpers
+     */
+
+    private void ensureSnapshot(Path root) throws IOException {
+        if (roots.contains(root)) {
+            return;
+        }
+
+        synchronized (this) {
+            // The root not existing yet is checked again at the next access
+            if (roots.contains(root) || !Files.isDirectory(root)) {
+                return;
+            }
+
+            if (!children.containsKey(root)) {
+                long start = System.currentTimeMillis();
+                walk(root);
+
+                log().info("Mocked file system root " + root + " metadata with " + attributes.size() +
+                        " entries cached in " + (System.currentTimeMillis() - start) + "ms");
+            }
+
+            roots.add(root);
+        }
+    }
+
+    private void walk(Path start) {
+        try {
+            Files.walkFileTree(start, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+                    new SimpleFileVisitor<Path>() {
+                        @Override
+                        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                            attributes.put(dir, attrs);
+                            children.put(dir, ConcurrentHashMap.newKeySet());
+                            addToParent(dir);
+                            register(dir);
+
+                            return FileVisitResult.CONTINUE;
+                        }
+
+                        @Override
+                        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                            attributes.put(file, attrs);
+                            addToParent(file);
+
+                            return FileVisitResult.CONTINUE;
+                        }
+
+                        @Override
+                        public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                            // Ignore the files deleted during walking and the link loops
+                            return FileVisitResult.CONTINUE;
+                        }
+                    });
+        } catch (IOException e) {
+            log().warn("Failed to walk mocked file system directory " + start, e);
+        }
+    }
+
+    // Read all children of a directory again, for the lost watching events
+    private synchronized void rescan(Path dir) {
+        Set<Path> current = new HashSet<>();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path child : stream) {
+                current.add(child);
+                invalidate(child);
+            }
+        } catch (IOException e) {
+            log().debug("Failed to list mocked file system directory " + dir + ": " + e);
+        }
+
+        Optional.ofNullable(children.get(dir))
+                .map(HashSet::new)
+                .ifPresent(cached -> cached.stream()
+                        .filter(child -> !current.contains(child))
+                        .forEach(this::removeTree));
+    }
+
+    private void removeTree(Path path) {
+        attributes.remove(path);
+
+        Set<Path> removed = children.remove(path);
+        if (removed != null) {
+            removed.forEach(this::removeTree);
+        }
+
+        WatchKey key = watchKeys.remove(path);
+        if (key != null) {
+            watchedDirs.remove(key);
+            key.cancel();
+        }
+
+        Optional.ofNullable(path.getParent())
+                .map(children::get)
+                .ifPresent(siblings -> siblings.remove(path));
+    }
+
+    private void addToParent(Path path) {
+        Optional.ofNullable(path.getParent())
+                .map(children::get)
+                .ifPresent(siblings -> siblings.add(path));
+    }
+
+    private void register(Path dir) {
+        if (watchService == null || watchKeys.containsKey(dir)) {
+            return;
+        }
+
+        try {
+            WatchKey key = dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+            watchedDirs.put(key, dir);
+            watchKeys.put(dir, key);
+        } catch (IOException e) {
+            log().debug("Can't watch mocked file system directory " + dir + ": " + e);
+        }
+    }
+
+    private BasicFileAttributes readAttributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void watch() {
+        while (true) {
+            WatchKey key;
+
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            Path dir = watchedDirs.get(key);
+            if (dir != null) {
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW) {
+                        rescan(dir);
+                    } else {
+                        invalidate(dir.resolve((Path) event.context()));
+                    }
+                }
+            }
+
+            if (!key.reset()) {
+                watchedDirs.remove(key);
+                Optional.ofNullable(dir).ifPresent(watchKeys::remove);
+            }
+        }
+    }
+}
@@ -9,26 +9,53 @@ package com.microsoft.azure.hdinsight.spark.mock;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.*;
 import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.util.Progressable;
 import org.apache.hadoop.util.Shell;
 import org.apache.hadoop.util.StringUtils;
 
 import java.io.DataOutput;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
 import java.util.stream.Collectors;
 
 class MockRawLocalFileSystem extends RawLocalFileSystem {
+    // Serve the file status and listing from the in-memory metadata snapshot
+    static final String METADATA_CACHE_ENABLED_KEY = "fs.mockDfs.metadata.cache.enabled";
+    // Read files through the memory mapping
+    static final String MMAP_READ_ENABLED_KEY = "fs.mockDfs.mmap.read.enabled";
+
     private String authority;
     private String scheme = "wasb";
     private URI uri;
+    private boolean isMetadataCached = false;
+    private boolean isMmapRead = false;
 
     @Override
     public FileStatus getFileStatus(Path f) throws IOException {
         File path = pathToFile(f);
+        java.nio.file.Path cacheRoot = getCacheRoot(f, path);
+
+        if (cacheRoot != null) {
+            BasicFileAttributes attrs = MockFsMetadataCache.getInstance().getAttributes(cacheRoot, toNioPath(path));
+            if (attrs == null) {
+                throw new FileNotFoundException("File " + f + " does not exist");
+            }
+
+            return new RawLocalFileStatus(path, attrs, getDefaultBlockSize(f), makeQualified(f));
+        }
+
         if (path.exists()) {
             return new RawLocalFileStatus(pathToFile(f), getDefaultBlockSize(f), makeQualified(f));
         } else {
@@ -40,6 +67,11 @@ class MockRawLocalFileSystem extends RawLocalFileSystem {
     public FileStatus[] listStatus(Path f) throws IOException {
         File localf = pathToFile(f);
         FileStatus[] results;
+        java.nio.file.Path cacheRoot = getCacheRoot(f, localf);
+
+        if (cacheRoot != null) {
+            return listCachedStatus(f, localf, cacheRoot);
+        }
 
         if (!localf.exists()) {
             throw new FileNotFoundException("File " + f + " does not exist");
@@ -72,12 +104,162 @@ class MockRawLocalFileSystem extends RawLocalFileSystem {
         return Arrays.copyOf(results, j);
     }
 
+    private FileStatus[] listCachedStatus(Path f, File localf, java.nio.file.Path cacheRoot) throws IOException {
+        MockFsMetadataCache cache = MockFsMetadataCache.getInstance();
+        java.nio.file.Path dir = toNioPath(localf);
+        BasicFileAttributes attrs = cache.getAttributes(cacheRoot, dir);
+
+        if (attrs == null) {
+            throw new FileNotFoundException("File " + f + " does not exist");
+        }
+        if (!attrs.isDirectory()) {
+            return new FileStatus[] {
+                    new RawLocalFileStatus(localf, attrs, getDefaultBlockSize(f), makeQualified(f)) };
+        }
+
+        List<FileStatus> results = new ArrayList<>();
+        for (java.nio.file.Path child : Optional.ofNullable(cache.list(cacheRoot, dir)).orElse(Collections.emptyList())) {
+            BasicFileAttributes childAttrs = cache.getAttributes(cacheRoot, child);
+            if (childAttrs == null) {
+                // ignore the files deleted since the children list was got
+                continue;
+            }
+
+            // Assemble the path using the Path 3 arg constructor to make sure
+            // paths with colon are properly resolved on Linux
+            Path childPath = new Path(f, new Path(null, null, child.getFileName().toString()));
+            results.add(new RawLocalFileStatus(
+                    child.toFile(), childAttrs, getDefaultBlockSize(childPath), makeQualified(childPath)));
+        }
+
+        return results.toArray(new FileStatus[0]);
+    }
+
+    @Override
+    public FSDataInputStream open(Path f, int bufferSize) throws IOException {
+        if (!isMmapRead) {
+            return super.open(f, bufferSize);
+        }
+
+        File file = pathToFile(f);
+        if (!file.isFile()) {
+            throw new FileNotFoundException("File " + f + " does not exist or is a directory");
+        }
+
+        if (file.length() > Integer.MAX_VALUE) {
+            // Too large to be mapped into one buffer
+            return super.open(f, bufferSize);
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel closed, until the stream is closed
+            return new FSDataInputStream(new MappedFileInputStream(
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), statistics));
+        }
+    }
+
+    @Override
+    public FSDataOutputStream create(Path f, boolean overwrite, int bufferSize, short replication, long blockSize,
+                                     Progressable progress) throws IOException {
+        FSDataOutputStream out = super.create(f, overwrite, bufferSize, replication, blockSize, progress);
+        invalidate(f);
+
+        return invalidateOnClose(f, out);
+    }
+
+    @Override
+    public FSDataOutputStream append(Path f, int bufferSize, Progressable progress) throws IOException {
+        return invalidateOnClose(f, super.append(f, bufferSize, progress));
+    }
+
+    @Override
+    public boolean rename(Path src, Path dst) throws IOException {
+        try {
+            return super.rename(src, dst);
+        } finally {
+            invalidate(src);
+            invalidate(dst);
+        }
+    }
+
+    @Override
+    public boolean delete(Path p, boolean recursive) throws IOException {
+        try {
+            return super.delete(p, recursive);
+        } finally {
+            invalidate(p);
+        }
+    }
+
+    @Override
+    public boolean mkdirs(Path f) throws IOException {
+        try {
+            return super.mkdirs(f);
+        } finally {
+            invalidate(f);
+        }
+    }
+
+    @Override
+    public void setTimes(Path p, long mtime, long atime) throws IOException {
+        try {
+            super.setTimes(p, mtime, atime);
+        } finally {
+            invalidate(p);
+        }
+    }
+
+    // Refresh the cached metadata immediately for the writes through the mocked file system, rather than waiting for
+    // the asynchronous watching event
+    private void invalidate(Path f) {
+        File file = pathToFile(f);
+
+        if (getCacheRoot(f, file) != null) {
+            MockFsMetadataCache.getInstance().invalidate(toNioPath(file));
+        }
+    }
+
+    private FSDataOutputStream invalidateOnClose(Path f, FSDataOutputStream out) throws IOException {
+        if (!isMetadataCached) {
+            return out;
+        }
+
+        return new FSDataOutputStream(out, null, out.getPos()) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    invalidate(f);
+                }
+            }
+        };
+    }
+
+    private java.nio.file.Path getCacheRoot(Path f, File file) {
+        if (!isMetadataCached || isLocalScheme(f.toUri())) {
+            return null;
+        }
+
+        Path fsRoot = getFsRoot(f.toUri());
+        java.nio.file.Path root = toNioPath(new File(fsRoot.toUri().getPath()));
+
+        // The path out of the mocked root, such as with '..', isn't cached
+        return toNioPath(file).startsWith(root) ? root : null;
+    }
+
+    private static java.nio.file.Path toNioPath(File file) {
+        return file.toPath().toAbsolutePath().normalize();
+    }
+
     @Override
     public void initialize(URI uri, Configuration conf) throws IOException {
         super.initialize(uri, conf);
 
         this.authority = uri.getAuthority();
         this.scheme = uri.getScheme();
+        this.isMetadataCached = conf.getBoolean(METADATA_CACHE_ENABLED_KEY, false);
+        this.isMmapRead = conf.getBoolean(MMAP_READ_ENABLED_KEY, false);
 
         try {
             this.uri = new URI(scheme, authority, "/", null, null);
@@ -119,6 +301,11 @@ class MockRawLocalFileSystem extends RawLocalFileSystem {
             this.file = f;
         }
 
+        RawLocalFileStatus(File f, BasicFileAttributes attrs, long defaultBlockSize, Path p) {
+            super(attrs.size(), attrs.isDirectory(), 1, defaultBlockSize, attrs.lastModifiedTime().toMillis(), p);
+            this.file = f;
+        }
+
         @Override
         public FsPermission getPermission() {
             if (!isPermissionLoaded()) {
@@ -199,15 +386,182 @@ class MockRawLocalFileSystem extends RawLocalFileSystem {
         }
     }
 
+    /*
+     * The read-only input stream over the memory mapped file, the mapping is released when the stream is closed
+     */
+    static class MappedFileInputStream extends FSInputStream {
+        private final MappedByteBuffer buffer;
+        private final Statistics statistics;
+        private boolean closed = false;
+
+        MappedFileInputStream(MappedByteBuffer buffer, Statistics statistics) {
+            this.buffer = buffer;
+            this.statistics = statistics;
+        }
+
+        @Override
+        public synchronized void seek(long pos) throws IOException {
+            checkNotClosed();
+
+            if (pos < 0 || pos > buffer.limit()) {
+                throw new EOFException("Can't seek to " + pos + " out of the file length " + buffer.limit());
+            }
+
+            buffer.position((int) pos);
+        }
+
+        @Override
+        public synchronized long getPos() throws IOException {
+            checkNotClosed();
+
+            return buffer.position();
+        }
+
+        @Override
+        public boolean seekToNewSource(long targetPos) {
+            return false;
+        }
+
+        @Override
+        public synchronized int available() throws IOException {
+            checkNotClosed();
+
+            return buffer.remaining();
+        }
+
+        @Override
+        public synchronized int read() throws IOException {
+            checkNotClosed();
+
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            incrementBytesRead(1);
+
+            return buffer.get() & 0xFF;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) throws IOException {
+            checkNotClosed();
+
+            if (len == 0) {
+                return 0;
+            }
+
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            incrementBytesRead(n);
+
+            return n;
+        }
+
+        @Override
+        public synchronized int read(long position, byte[] b, int off, int len) throws IOException {
+            checkNotClosed();
+
+            if (position >= buffer.limit()) {
+                return -1;
+            }
+
+            // Positioned read doesn't change the current position
+            ByteBuffer view = buffer.duplicate();
+            view.position((int) position);
+
+            int n = Math.min(len, view.remaining());
+            view.get(b, off, n);
+            incrementBytesRead(n);
+
+            return n;
+        }
+
+        @Override
+        public synchronized long skip(long n) throws IOException {
+            checkNotClosed();
+
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+
+            return skipped;
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            super.close();
+
+            // Release the mapping now rather than at GC, a mapped file can't be deleted on Windows
+            unmap(buffer);
+        }
+
+        private void checkNotClosed() throws IOException {
+            // Accessing an unmapped buffer crashes the JVM
+            if (closed) {
+                throw new IOException("The memory mapped stream is closed");
+            }
+        }
+
+        private void incrementBytesRead(int n) {
+            if (statistics != null) {
+                statistics.incrementBytesRead(n);
+            }
+        }
+
+        static void unmap(MappedByteBuffer mapped) {
+            try {
+                try {
+                    // Java 9 and later
+                    Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                    Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                    Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                    theUnsafe.setAccessible(true);
+                    invokeCleaner.invoke(theUnsafe.get(null), mapped);
+                } catch (NoSuchMethodException ex) {
+                    // Java 8
+                    Method cleanerMethod = mapped.getClass().getMethod("cleaner");
+                    cleanerMethod.setAccessible(true);
+                    Object cleaner = cleanerMethod.invoke(mapped);
+
+                    if (cleaner != null) {
+                        cleaner.getClass().getMethod("clean").invoke(cleaner);
+                    }
+                }
+            } catch (ReflectiveOperationException | RuntimeException ignored) {
+                // Not supported by the JVM, the mapping is released by GC then
+            }
+        }
+    }
+
+    private static boolean isLocalScheme(URI originUri) {
+        return originUri.getScheme() != null &&
+                (originUri.getScheme().toLowerCase().equals("file") ||
+                 originUri.getScheme().toLowerCase().equals("mockfs"));
+    }
+
+    private Path getFsRoot(URI originUri) {
+        return Optional.ofNullable(Optional.ofNullable(originUri.getAuthority())
+                                           .orElse(this.authority))
+                .filter(auth -> !auth.isEmpty())
+                .map(auth -> new Path(new Path(System.getProperty("user.dir")).getParent().getParent().getParent(), auth))
+                .orElse(new Path(System.getProperty("user.dir")).getParent().getParent());
+    }
+
     @Override
     public File pathToFile(Path path) {
         Path realPath;
 
         URI originUri = path.toUri();
 
-        if (originUri.getScheme() != null &&
-                (originUri.getScheme().toLowerCase().equals("file") ||
-                 originUri.getScheme().toLowerCase().equals("mockfs"))) {
+        if (isLocalScheme(originUri)) {
             realPath = path;
         } else {
             if (!path.isAbsolute()) {
@@ -221,11 +575,7 @@ class MockRawLocalFileSystem extends RawLocalFileSystem {
                     .skip((Path.WINDOWS && Path.isWindowsAbsolutePath(path.toUri().getPath(), true)) ? 1 : 0)
                     .collect(Collectors.toList());
 
-            Path fsRoot = Optional.ofNullable(Optional.ofNullable(originUri.getAuthority())
-                                                      .orElse(this.authority))
-                    .filter(auth -> !auth.isEmpty())
-                    .map(auth -> new Path(new Path(System.getProperty("user.dir")).getParent().getParent().getParent(), auth))
-                    .orElse(new Path(System.getProperty("user.dir")).getParent().getParent());
+            Path fsRoot = getFsRoot(originUri);
 
             realPath = new Path(fsRoot,
                                 Optional.of(String.join(Path.SEPARATOR, components))
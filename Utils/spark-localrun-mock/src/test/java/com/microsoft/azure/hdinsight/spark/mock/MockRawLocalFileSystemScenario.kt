@@ -22,16 +22,27 @@
 
 package com.microsoft.azure.hdinsight.spark.mock
 
+import cucumber.api.java.After
+import cucumber.api.java.en.And
 import cucumber.api.java.en.Given
 import cucumber.api.java.en.Then
+import cucumber.api.java.en.When
 import org.apache.hadoop.conf.Configuration
 import org.apache.hadoop.fs.Path
 import org.assertj.core.api.Assertions.assertThat
 import java.io.File
+import java.io.IOException
+import java.net.URI
+import java.nio.file.Files
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
 import kotlin.test.assertNotNull
 
 class MockRawLocalFileSystemScenario {
     private var workDir = ""
+    private var cachedFs: MockRawLocalFileSystem? = null
+    private var tempRoot: File? = null
+    private val originUserDir = System.getProperty("user.dir")
 
     @Given("^set mocked file system local working directory to '(.*)'")
     fun setWorkingDirectory(workDir: String) {
@@ -39,6 +50,23 @@ class MockRawLocalFileSystemScenario {
         System.setProperty("user.dir", workDir)
     }
 
+    @Given("^set mocked file system local working directory to a temporary directory$")
+    fun setTempWorkingDirectory() {
+        val root = Files.createTempDirectory("mockfs").toFile()
+        tempRoot = root
+
+        // The mocked file system root is two levels above the working directory
+        setWorkingDirectory(File(root, "__default__/user/current").apply { mkdirs() }.path)
+    }
+
+    @After
+    fun cleanUp() {
+        tempRoot?.let {
+            System.setProperty("user.dir", originUserDir)
+            it.deleteRecursively()
+        }
+    }
+
     @Then("^convert mocked file system path '(.*)' to File should be '(.*)'")
     fun verifyPathToFile(path: String, expected: String) {
         assertThat(MockRawLocalFileSystem().pathToFile(Path(path)).toURI())
@@ -51,4 +79,56 @@ class MockRawLocalFileSystemScenario {
         fs.conf = Configuration()
         assertNotNull(fs.getFileStatus(Path(path)))
     }
-}
\ No newline at end of file
+
+    @And("^initialize mocked file system with metadata cache and memory mapped reading$")
+    fun initializeCachedFs() {
+        cachedFs = MockRawLocalFileSystem().apply {
+            initialize(URI.create("wasb:///"), Configuration().apply {
+                setBoolean(MockRawLocalFileSystem.METADATA_CACHE_ENABLED_KEY, true)
+                setBoolean(MockRawLocalFileSystem.MMAP_READ_ENABLED_KEY, true)
+            })
+        }
+    }
+
+    @Then("^listing mocked directory '(.*)' should get '(.*)'$")
+    fun verifyListStatus(path: String, expectNames: String) {
+        val names = cachedFs!!.listStatus(Path(path)).map { it.path.name }.sorted()
+
+        assertEquals(expectNames.split(",").map { it.trim() }.sorted(), names)
+    }
+
+    @Then("^mocked file '(.*)' should have length (\\d+)$")
+    fun verifyFileLength(path: String, length: Long) {
+        assertEquals(length, cachedFs!!.getFileStatus(Path(path)).len)
+    }
+
+    @Then("^mocked file '(.*)' should not exist$")
+    fun verifyFileNotExist(path: String) {
+        assertFailsWith<java.io.FileNotFoundException> { cachedFs!!.getFileStatus(Path(path)) }
+    }
+
+    @Then("^reading mocked file '(.*)' should get '(.*)'$")
+    fun verifyFileContent(path: String, expect: String) {
+        val content = cachedFs!!.open(Path(path)).use { it.readBytes() }
+
+        assertEquals(expect, String(content))
+    }
+
+    @Then("^reading mocked file '(.*)' after the stream closed should fail$")
+    fun verifyReadAfterClose(path: String) {
+        val input = cachedFs!!.open(Path(path))
+        input.close()
+
+        assertFailsWith<IOException> { input.read() }
+    }
+
+    @When("^write '(.*)' into mocked file '(.*)'$")
+    fun writeFile(content: String, path: String) {
+        cachedFs!!.create(Path(path), true).use { it.write(content.toByteArray()) }
+    }
+
+    @And("^delete mocked file '(.*)'$")
+    fun deleteFile(path: String) {
+        cachedFs!!.delete(Path(path), true)
+    }
+}
@@ -26,3 +26,21 @@ Feature: Mock File System Unit Test
   Scenario: Resources file exists
     Given set mocked file system local working directory to 'src/test/resources/data/__default__/user/current'
     Then mocked file 'my_words.txt' should exists
+
+  Scenario: Metadata cached file status and listing
+    Given set mocked file system local working directory to 'src/test/resources/data/__default__/user/current'
+    And initialize mocked file system with metadata cache and memory mapped reading
+    Then mocked file 'my_words.txt' should have length 21
+    Then listing mocked directory '/' should get 'people.json, user, word_count_input.txt'
+    Then reading mocked file 'my_words.txt' should get 'My word is not a word'
+    Then reading mocked file 'my_words.txt' after the stream closed should fail
+
+  Scenario: Metadata cache refreshed by writes through mocked file system
+    Given set mocked file system local working directory to a temporary directory
+    And initialize mocked file system with metadata cache and memory mapped reading
+    Then mocked file 'cache_test/new.txt' should not exist
+    When write 'abc' into mocked file 'cache_test/new.txt'
+    Then mocked file 'cache_test/new.txt' should have length 3
+    Then listing mocked directory 'cache_test' should get 'new.txt'
+    And delete mocked file 'cache_test'
+    Then mocked file 'cache_test/new.txt' should not exist
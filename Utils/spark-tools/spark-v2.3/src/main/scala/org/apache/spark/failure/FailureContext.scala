@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.apache.spark.failure
+
+import java.io._
+import java.nio.charset.StandardCharsets
+import java.util.Properties
+import java.util.zip.{ZipEntry, ZipFile, ZipOutputStream}
+
+import org.apache.commons.io.output.CloseShieldOutputStream
+import org.apache.spark.Partition
+import org.apache.spark.serializer.SerializerInstance
+import org.json4s.jackson.Serialization.{read, write}
+
+import scala.reflect.ClassTag
+
+case class BroadcastEntry(
+  id: Long,
+  entry: String
+)
+
+case class ShuffleDepsEntry(
+  id: Int,
+  shuffleData: Array[ShuffleData],
+  mapStatusEntry: String
+)
+
+// The small JSON manifest of the zipped failure context, the objects are saved as the serialized zip entries
+case class FailureContextManifest(
+  binaryTaskBcId: Long,
+  taskId: String,
+  name: String,
+  stageId: Int,
+  stageAttemptId: Int,
+  partitionEntry: String,
+  hosts: Array[String],
+  outputId: Int,
+  localProperties: Properties,
+  bcs: Array[BroadcastEntry],
+  shuffleDeps: Array[ShuffleDepsEntry],
+  isResult: Boolean,
+  version: String = FailureContextManifest.version
+)
+
+object FailureContextManifest {
+  val version = "0.2"
+  val entry = "manifest.json"
+}
+
+/**
+ * The saved failure task context for local replaying, the pieces are loaded only when they are asked for
+ */
+trait FailureContext extends Closeable {
+  def binaryTaskBcId: Long
+  def stageId: Int
+  def stageAttemptId: Int
+  def hosts: Array[String]
+  def localProperties: Properties
+  def isResult: Boolean
+
+  def broadcastIds: Seq[Long]
+  def broadcastValue(id: Long): Any
+  def partition: Partition
+
+  // Shuffle ID -> the saved shuffle blocks
+  def shuffleDeps: Seq[(Int, Array[ShuffleData])]
+  def mapStatuses(shuffleId: Int): Array[Byte]
+
+  // The saved shuffle block or index file
+  def savedFile(name: String): File
+
+  override def close(): Unit = {}
+}
+
+object FailureContext {
+  private val ZIP_MAGIC = Array[Byte]('P', 'K', 3, 4)
+
+  /**
+   * Open the failure context file, both the zipped and the legacy JSON formats are supported
+   */
+  def open(contextFile: File, serializer: SerializerInstance): FailureContext = {
+    if (isZipped(contextFile)) {
+      new ZippedFailureContext(contextFile, serializer)
+    } else {
+      implicit val formats = org.json4s.DefaultFormats
+
+      val reader = new InputStreamReader(new FileInputStream(contextFile), StandardCharsets.UTF_8)
+      val failureTask = try read[FailureTask](reader) finally reader.close()
+
+      new JsonFailureContext(failureTask, serializer)
+    }
+  }
+
+  private def isZipped(contextFile: File): Boolean = {
+    val in = new DataInputStream(new FileInputStream(contextFile))
+    val header = new Array[Byte](ZIP_MAGIC.length)
+
+    try {
+      in.readFully(header)
+      header.sameElements(ZIP_MAGIC)
+    } catch {
+      case _: EOFException => false
+    } finally {
+      in.close()
+    }
+  }
+}
+
+/**
+ * The legacy failure context with all objects base64 encoded in one JSON document
+ */
+class JsonFailureContext(failureTask: FailureTask, serializer: SerializerInstance) extends FailureContext {
+  override def binaryTaskBcId: Long = failureTask.binaryTaskBcId
+  override def stageId: Int = failureTask.stageId
+  override def stageAttemptId: Int = failureTask.stageAttemptId
+  override def hosts: Array[String] = failureTask.hosts
+  override def localProperties: Properties = failureTask.localProperties
+  override def isResult: Boolean = failureTask.isResult
+
+  override def broadcastIds: Seq[Long] = failureTask.bcs.map(_.id)
+
+  override def broadcastValue(id: Long): Any =
+    TaskRecovery.decodeObj[Any](serializer, failureTask.bcs.find(_.id == id).get.value)
+
+  override def partition: Partition = TaskRecovery.decodeObj[Partition](serializer, failureTask.partitionEnc)
+
+  override def shuffleDeps: Seq[(Int, Array[ShuffleData])] = failureTask.shuffleDeps
+    .groupBy(_.id)
+    .mapValues(_.flatMap(_.shuffleData))
+    .toSeq
+
+  override def mapStatuses(shuffleId: Int): Array[Byte] =
+    java.util.Base64.getDecoder.decode(failureTask.shuffleDeps.find(_.id == shuffleId).get.mapStatusEnc)
+
+  override def savedFile(name: String): File = new File(name)
+}
+
+/**
+ * The zipped failure context, the entries are read from the zip file randomly when they are needed
+ */
+class ZippedFailureContext(contextFile: File, serializer: SerializerInstance) extends FailureContext {
+  private val zip = new ZipFile(contextFile)
+
+  val manifest: FailureContextManifest = readEntry(FailureContextManifest.entry) { in =>
+    implicit val formats = org.json4s.DefaultFormats
+
+    read[FailureContextManifest](new InputStreamReader(in, StandardCharsets.UTF_8))
+  }
+
+  override def binaryTaskBcId: Long = manifest.binaryTaskBcId
+  override def stageId: Int = manifest.stageId
+  override def stageAttemptId: Int = manifest.stageAttemptId
+  override def hosts: Array[String] = manifest.hosts
+  override def localProperties: Properties = manifest.localProperties
+  override def isResult: Boolean = manifest.isResult
+
+  override def broadcastIds: Seq[Long] = manifest.bcs.map(_.id)
+
+  override def broadcastValue(id: Long): Any = readObject[Any](manifest.bcs.find(_.id == id).get.entry)
+
+  override def partition: Partition = readObject[Partition](manifest.partitionEntry)
+
+  override def shuffleDeps: Seq[(Int, Array[ShuffleData])] = manifest.shuffleDeps.map(dep => dep.id -> dep.shuffleData)
+
+  override def mapStatuses(shuffleId: Int): Array[Byte] = readEntry(
+    manifest.shuffleDeps.find(_.id == shuffleId).get.mapStatusEntry) { in =>
+    org.apache.commons.io.IOUtils.toByteArray(in)
+  }
+
+  // The shuffle files are saved beside the context file
+  override def savedFile(name: String): File = new File(contextFile.getAbsoluteFile.getParentFile, name)
+
+  override def close(): Unit = zip.close()
+
+  private def readObject[T: ClassTag](entryName: String): T = readEntry(entryName) { in =>
+    serializer.deserializeStream(in).readObject[T]()
+  }
+
+  private def readEntry[T](entryName: String)(reader: InputStream => T): T = {
+    val entry = Option(zip.getEntry(entryName)).getOrElse(
+      throw new FileNotFoundException(s"No entry $entryName in failure context $contextFile"))
+    val in = new BufferedInputStream(zip.getInputStream(entry))
+
+    try reader(in) finally in.close()
+  }
+}
+
+/**
+ * Write the zipped failure context by streaming, the objects are serialized into the compressed entries directly
+ * without the intermediate copies
+ */
+class FailureContextWriter(out: OutputStream, serializer: SerializerInstance) extends Closeable {
+  private val zipOut = new ZipOutputStream(new BufferedOutputStream(out))
+
+  def putObject[T: ClassTag](entryName: String, obj: T): String = putEntry(entryName) { entryOut =>
+    val objOut = serializer.serializeStream(entryOut)
+
+    objOut.writeObject[T](obj)
+    objOut.close()
+  }
+
+  def putBytes(entryName: String, bytes: Array[Byte]): String = putEntry(entryName) { entryOut =>
+    entryOut.write(bytes)
+  }
+
+  def putManifest(manifest: FailureContextManifest): String = putEntry(FailureContextManifest.entry) { entryOut =>
+    implicit val formats = org.json4s.DefaultFormats
+
+    entryOut.write(write(manifest).getBytes(StandardCharsets.UTF_8))
+  }
+
+  override def close(): Unit = zipOut.close()
+
+  private def putEntry(entryName: String)(writer: OutputStream => Unit): String = synchronized {
+    zipOut.putNextEntry(new ZipEntry(entryName))
+
+    // The entry writer mustn't close the whole zip stream
+    writer(new CloseShieldOutputStream(zipOut))
+    zipOut.closeEntry()
+
+    entryName
+  }
+}
@@ -24,11 +24,10 @@ package org.apache.spark.failure
 
 import java.io._
 import java.nio.ByteBuffer
-import java.nio.file.{Files, Paths, StandardCopyOption}
+import java.nio.file.{Files, StandardCopyOption}
 import java.util.Base64
 
 import com.google.common.io.ByteStreams
-import org.apache.hadoop.fs.Path
 import org.apache.spark.broadcast.Broadcast
 import org.apache.spark.executor.TaskMetrics
 import org.apache.spark.internal.Logging
@@ -40,29 +39,31 @@ import org.apache.spark._
 
 import scala.reflect.ClassTag
 
-class TaskRecovery(sc: SparkContext, failureTask: FailureTask) extends Logging {
+class TaskRecovery(sc: SparkContext, failureContext: FailureContext) extends Logging {
   import TaskRecovery._
 
+  def this(sc: SparkContext, failureTask: FailureTask) =
+    this(sc, new JsonFailureContext(failureTask, SparkEnv.get.closureSerializer.newInstance()))
+
   private val serializer = SparkEnv.get.closureSerializer.newInstance()
-  private val fs = org.apache.hadoop.fs.FileSystem.get(sc.hadoopConfiguration)
-  private val bcMap: Map[Long, Broadcast[Any]] = failureTask.bcs
-    .sortBy(_.id)
-    .map(bc => {
-      val newBc = sc.broadcast(decodeObj[Any](serializer, bc.value))
 
-      bc.id -> newBc
-    }) toMap
+  // Broadcast again in the ID order to get the same IDs referred by the task binary, each value is loaded just before
+  // its broadcasting to avoid holding all of them in memory at once
+  private val bcMap: Map[Long, Broadcast[Any]] = failureContext.broadcastIds
+    .sorted
+    .map(id => id -> sc.broadcast(failureContext.broadcastValue(id)))
+    .toMap
 
-  private val taskBinary = bcMap(failureTask.binaryTaskBcId).asInstanceOf[Broadcast[Array[Byte]]]
+  private val taskBinary = bcMap(failureContext.binaryTaskBcId).asInstanceOf[Broadcast[Array[Byte]]]
 
-  private val part = decodeObj[Partition](serializer, failureTask.partitionEnc)
-  private val locs = failureTask.hosts.map(HostTaskLocation).toSeq
+  private lazy val part = failureContext.partition
+  private val locs = failureContext.hosts.map(HostTaskLocation).toSeq
   private val metrics = TaskMetrics.registered
 
-
-  val recoveredTask: Task[_ <: MapStatus] = if (failureTask.isResult) {
-    failureTask.shuffleDeps.foreach(shuffleDep => {
-      shuffleDep.shuffleData.foreach { shuffleData => {
+  // Only the result task reads the shuffle blocks and map statuses of parent stages
+  lazy val recoveredTask: Task[_ <: MapStatus] = if (failureContext.isResult) {
+    failureContext.shuffleDeps.foreach { case (shuffleDepId, shuffleDataArray) =>
+      shuffleDataArray.foreach { shuffleData => {
         val blockId = BlockId(shuffleData.name)
         val SHUFFLE = "shuffle_([0-9]+)_([0-9]+)_([0-9]+)".r
 
@@ -72,7 +73,7 @@ class TaskRecovery(sc: SparkContext, failureTask: FailureTask) extends Logging {
 
             val idxFile = SparkEnv.get.blockManager.diskBlockManager.getFile(shuffleIndexId)
             Files.copy(
-              Paths.get(idxFile.getName),
+              failureContext.savedFile(idxFile.getName).toPath,
               idxFile.toPath,
               StandardCopyOption.REPLACE_EXISTING)
 
@@ -80,9 +81,9 @@ class TaskRecovery(sc: SparkContext, failureTask: FailureTask) extends Logging {
               case fileSegMgtBuf: FileSegmentManagedBuffer =>
                 val segFile = fileSegMgtBuf.getFile
 
-                val shuffleSavedFile = new Path(shuffleData.path)
+                val shuffleSavedFile = failureContext.savedFile(shuffleData.path)
 
-                val in = fs.open(shuffleSavedFile)
+                val in = new BufferedInputStream(new FileInputStream(shuffleSavedFile))
 
                 importShuffleToLocal(
                   fileSegMgtBuf.getOffset,
@@ -102,8 +103,7 @@ class TaskRecovery(sc: SparkContext, failureTask: FailureTask) extends Logging {
 
         }}
 
-        val recoveryMapStatus = MapOutputTracker.deserializeMapStatuses(
-          Base64.getDecoder.decode(shuffleDep.mapStatusEnc))
+        val recoveryMapStatus = MapOutputTracker.deserializeMapStatuses(failureContext.mapStatuses(shuffleDepId))
           .map(loc => loc.getClass.getDeclaredFields
             .find(_.getName.endsWith("$$loc"))
             .map(locationField => {
@@ -117,35 +117,35 @@ class TaskRecovery(sc: SparkContext, failureTask: FailureTask) extends Logging {
         SparkEnv.get.mapOutputTracker match {
           case trackerMaster: MapOutputTrackerMaster =>
             // Register shuffle firstly
-            trackerMaster.registerShuffle(shuffleDep.id, recoveryMapStatus.size)
+            trackerMaster.registerShuffle(shuffleDepId, recoveryMapStatus.size)
 
             recoveryMapStatus.view.zipWithIndex.foreach { case (mapStatus, index) =>
               trackerMaster.registerMapOutput(
-                shuffleDep.id,
+                shuffleDepId,
                 index,
                 mapStatus)
             }
         }
-    })
+    }
 
     new ResultTask(
-      failureTask.stageId,
-      failureTask.stageAttemptId,
+      failureContext.stageId,
+      failureContext.stageAttemptId,
       taskBinary,
       part,
       locs,
       0,
-      failureTask.localProperties,
+      failureContext.localProperties,
       serializer.serialize(metrics).array()
     )
   } else {
     new ShuffleMapTask(
-      failureTask.stageId,
-      failureTask.stageAttemptId,
+      failureContext.stageId,
+      failureContext.stageAttemptId,
       taskBinary,
       part,
       locs,
-      failureTask.localProperties,
+      failureContext.localProperties,
       serializer.serialize(metrics).array()
     )
   }
@@ -153,10 +153,10 @@ class TaskRecovery(sc: SparkContext, failureTask: FailureTask) extends Logging {
   def rerun(): Unit = {
     val rerunTaskSet = new TaskSet(
       Array(recoveredTask),
-      failureTask.stageId,
-      failureTask.stageAttemptId,
+      failureContext.stageId,
+      failureContext.stageAttemptId,
       0,
-      failureTask.localProperties
+      failureContext.localProperties
     )
     sc.taskScheduler.submitTasks(rerunTaskSet)
   }
@@ -183,8 +183,11 @@ object TaskRecovery {
     dataOut.close()
   }
 
-  def rerun(sc: SparkContext, failureTask: FailureTask): Unit = {
-    val recoveryTask = new TaskRecovery(sc, failureTask)
+  def rerun(sc: SparkContext, failureTask: FailureTask): Unit =
+    rerun(sc, new JsonFailureContext(failureTask, SparkEnv.get.closureSerializer.newInstance()))
+
+  def rerun(sc: SparkContext, failureContext: FailureContext): Unit = {
+    val recoveryTask = new TaskRecovery(sc, failureContext)
     recoveryTask.rerun()
 
     while (sc.taskScheduler.rootPool.schedulableQueue.size() != 0) {
@@ -25,23 +25,23 @@ package org.apache.spark.scheduler
 import java.io._
 import java.net.URI
 import java.text.SimpleDateFormat
-import java.util.{Base64, Date}
+import java.util.Date
 
 import org.apache.commons.io.IOUtils
 import org.apache.commons.lang3.StringUtils
 import org.apache.hadoop.fs.{FileUtil, Path}
 import org.apache.spark._
 import org.apache.spark.broadcast.Broadcast
-import org.apache.spark.failure.{BroadcastValue, FailureTask, ShuffleData, ShuffleDeps}
+import org.apache.spark.failure._
 import org.apache.spark.network.buffer.ManagedBuffer
 import org.apache.spark.rdd.RDD
 import org.apache.spark.storage._
 import org.apache.spark.util.{Clock, SystemClock, Utils}
-import org.json4s.jackson.Serialization.write
 
 import scala.collection.mutable
+import scala.collection.parallel.ForkJoinTaskSupport
+import scala.concurrent.forkjoin.ForkJoinPool
 import scala.language.postfixOps
-import scala.reflect.ClassTag
 import scala.util.control.NonFatal
 
 private[spark]
@@ -82,17 +82,7 @@ class DAGWithFailureSaveScheduler(
   private val minSizeForBroadcast =
     sc.conf.getSizeAsBytes("spark.shuffle.mapOutput.minSizeForBroadcast", "512k").toInt
   private val serializer = SparkEnv.get.closureSerializer.newInstance()
-
-  def getEncodedByteArray(buffer: Array[Byte]): String =
-    Base64.getEncoder.encode(buffer)
-      .map(_.toChar)
-      .mkString
-
-  def encodeObject[T: ClassTag](obj: T): String = {
-    val objBytes = serializer.serialize[T](obj).array()
-
-    getEncodedByteArray(objBytes)
-  }
+  private val saveParallelism = sc.conf.getInt("spark.failure.save.parallelism", 8)
 
   def writeIndexFile(outputStream: OutputStream, lengths: Array[Long]): Unit = {
     val out = new DataOutputStream(new BufferedOutputStream(outputStream))
@@ -127,6 +117,41 @@ class DAGWithFailureSaveScheduler(
     }
   }
 
+  // Copy the shuffle partition data into a file, with the index file prepared for recovering
+  def saveShuffleBlock(blockMgrId: BlockManagerId,
+                       blockId: BlockId,
+                       blockSize: Long,
+                       getFailureSavingPath: String => Path): Option[ShuffleData] = {
+    getShuffleBuffer(blockMgrId, blockId)._2.map { buffer =>
+      val shuffleFile = getFailureSavingPath(blockId.toString())
+      val shuffleIn = buffer.createInputStream()
+
+      logInfo(s"Generate shuffle files: $shuffleFile")
+      val shuffleOut = fs.create(shuffleFile, true)
+
+      try {
+        IOUtils.copyLarge(shuffleIn, shuffleOut)
+      } finally {
+        buffer.release()
+        shuffleIn.close()
+        shuffleOut.close()
+      }
+
+      val SHUFFLE = "shuffle_([0-9]+)_([0-9]+)_([0-9]+)".r
+      blockId.toString() match {
+        case SHUFFLE(shuffleId, mapId, reduceId) =>
+          val shuffleIndexId = ShuffleIndexBlockId(shuffleId.toInt, mapId.toInt, 0)
+          val idxFile = driverBlockManager.diskBlockManager.getFile(shuffleIndexId).getName
+          val idxFileOutput = fs.create(getFailureSavingPath(idxFile), true)
+
+          writeIndexFile(idxFileOutput, Array.fill(reduceId.toInt)(0.toLong) :+ blockSize)
+          idxFileOutput.close()
+      }
+
+      ShuffleData(blockId.toString, blockId.toString, blockMgrId.toString())
+    }
+  }
+
   def saveFailureTask(task: Task[_], stageId: Int, taskId: String, attemptId: Int, timestamp: String): Path = {
     def getFailureSavingPath(fileName: String = null): Path = {
       val appFolderName = sc.applicationId + sc.applicationAttemptId.map(attemptId => s"_attempt_${attemptId}_").getOrElse("_") + timestamp
@@ -151,95 +176,76 @@ class DAGWithFailureSaveScheduler(
     partitionField.setAccessible(true)
     val partition = partitionField.get(task).asInstanceOf[Partition]
 
-    // Find the failed stage
+    // Find the shuffle blocks of the failed partition in parent stages
     val failedStage = stageIdToStage(stageId)
-    val shuffleMgrBlockIds = failedStage.parents.map {
-      case shuffleStage: ShuffleMapStage => (
-        shuffleStage.shuffleDep.shuffleId,
-        mapOutputTracker.getMapSizesByExecutorId(shuffleStage.shuffleDep.shuffleId, partition.index)
-      )
-    }
+    val shuffleBlocks = failedStage.parents.collect {
+      case shuffleStage: ShuffleMapStage =>
+        val shuffleId = shuffleStage.shuffleDep.shuffleId
 
+        mapOutputTracker.getMapSizesByExecutorId(shuffleId, partition.index)
+          .flatMap { case (blockMgrId, blockIds) =>
+            logInfo(blockMgrId.toString())
 
-    val shuffleDeps = shuffleMgrBlockIds.flatMap { case (shuffleId, mgrBlockIds) =>
-      mgrBlockIds
-        .map { case (blockMgrId, blockIds) =>
-          logInfo(blockMgrId.toString())
+            blockIds
+              .filter(_._2 > 0)
+              .map { case (blockId, blockSize) => (shuffleId, blockMgrId, blockId, blockSize) }
+          }
+    }.flatten
+
+    // Copy the shuffle blocks in parallel, since most of them are fetched from remote executors
+    val copyingBlocks = shuffleBlocks.par
+    val copyingPool = new ForkJoinPool(math.max(1, saveParallelism))
+    copyingBlocks.tasksupport = new ForkJoinTaskSupport(copyingPool)
+
+    val savedShuffleData = try {
+      copyingBlocks.flatMap { case (shuffleId, blockMgrId, blockId, blockSize) =>
+        saveShuffleBlock(blockMgrId, blockId, blockSize, getFailureSavingPath(_))
+          .map(shuffleData => shuffleId -> shuffleData)
+      }.seq
+    } finally {
+      copyingPool.shutdown()
+    }
 
+    // Stream the failure context objects into the zip entries
+    val failureContextFile = getFailureSavingPath("failure_save.ftd")
+    val contextWriter = new FailureContextWriter(fs.create(failureContextFile, true), serializer)
+
+    try {
+      val shuffleDeps = savedShuffleData
+        .groupBy(_._1)
+        .map { case (shuffleId, shuffleDataOfId) =>
           val mapStatus = mapOutputTracker.shuffleStatuses.get(shuffleId).head
             .serializedMapStatus(SparkEnv.get.broadcastManager, sc.isLocal, minSizeForBroadcast)
 
-          ShuffleDeps(
+          ShuffleDepsEntry(
             shuffleId,
-            blockIds
-              .filter(_._2 > 0)
-              .map { case (blockId, blockSize) =>
-                getShuffleBuffer(blockMgrId, blockId)._2 match {
-                  case Some(buffer: ManagedBuffer) =>
-                    // Copy the shuffle partition data into a file
-                    val shuffleFile = getFailureSavingPath(blockId.toString())
-                    val shuffleIn = buffer.createInputStream()
-
-                    logInfo(s"Generate shuffle files: $shuffleFile")
-                    val shuffleOut = fs.create(shuffleFile, true)
-
-                    IOUtils.copy(shuffleIn, shuffleOut)
-
-                    buffer.release()
-                    shuffleIn.close()
-                    shuffleOut.close()
-
-                    // Need to prepare the index file for recovering
-                    val SHUFFLE = "shuffle_([0-9]+)_([0-9]+)_([0-9]+)".r
-                    blockId.toString() match {
-                      case SHUFFLE(shuffleId, mapId, reduceId) =>
-                        val shuffleIndexId = ShuffleIndexBlockId(shuffleId.toInt, mapId.toInt, 0)
-                        val idxFile = driverBlockManager.diskBlockManager.getFile(shuffleIndexId).getName
-                        val idxFileOutput = fs.create(getFailureSavingPath(idxFile), true)
-
-                        writeIndexFile(idxFileOutput, Array.fill(reduceId.toInt)(0.toLong) :+ blockSize)
-                        idxFileOutput.close()
-                    }
-
-                    ShuffleData(blockId.toString, blockId.toString, blockMgrId.toString())
-                }
-              } toArray,
-            getEncodedByteArray(mapStatus))
-        }
-    } filter(_.shuffleData.nonEmpty) toArray
-
-    // Get broadcast values
-    val bcs = sc.bcIdMap.map { case (id, bc) =>
-      BroadcastValue(id, encodeObject(bc.value))
-    } toArray
-
-    implicit val formats = org.json4s.DefaultFormats
-
-    val taskName = s"task ${taskId} in stage ${task.stageId}"
-    val failureTask = FailureTask(
-      taskBinaryBcId,
-      taskId,
-      taskName,
-      stageId,
-      attemptId,
-      encodeObject(partition),
-      Array(),
-      -1,
-      task.localProperties,
-      task.metrics,
-      bcs,
-      shuffleDeps,
-      task.isInstanceOf[ResultTask[Any, Any]]
-    )
-
-    // Serialize to JSON
-    val json = write(failureTask)
-    val failureContextFile = getFailureSavingPath("failure_save.ftd")
-    val out = fs.create(failureContextFile, true)
-    val writer = new PrintWriter(out)
-
-    writer.write(json)
-    writer.close()
+            shuffleDataOfId.map(_._2).toArray,
+            contextWriter.putBytes(s"shuffles/$shuffleId/mapStatus.bin", mapStatus))
+        } toArray
+
+      // Save broadcast values
+      val bcs = sc.bcIdMap.map { case (id, bc) =>
+        BroadcastEntry(id, contextWriter.putObject[Any](s"broadcasts/$id.bin", bc.value))
+      } toArray
+
+      val taskName = s"task ${taskId} in stage ${task.stageId}"
+      contextWriter.putManifest(FailureContextManifest(
+        taskBinaryBcId,
+        taskId,
+        taskName,
+        stageId,
+        attemptId,
+        contextWriter.putObject[Partition]("partition.bin", partition),
+        Array(),
+        -1,
+        task.localProperties,
+        bcs,
+        shuffleDeps,
+        task.isInstanceOf[ResultTask[Any, Any]]
+      ))
+    } finally {
+      contextWriter.close()
+    }
 
     logInfo(s"The working directory is ${fs.getWorkingDirectory.toUri}")
     logInfo("Failure task has been saved into " + failureContextFile.getParent)
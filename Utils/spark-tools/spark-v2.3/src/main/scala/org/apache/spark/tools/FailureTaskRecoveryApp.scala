@@ -22,9 +22,10 @@
 
 package org.apache.spark.tools
 
-import org.apache.spark.failure.{FailureTask, TaskRecovery}
-import org.apache.spark.{SparkConf, SparkContext}
-import org.json4s.jackson.Serialization.read
+import java.io.File
+
+import org.apache.spark.failure.{FailureContext, TaskRecovery}
+import org.apache.spark.{SparkConf, SparkContext, SparkEnv}
 
 object FailureTaskRecoveryApp {
   def main(args: Array[String]): Unit = {
@@ -32,17 +33,16 @@ object FailureTaskRecoveryApp {
 
     val sc = new SparkContext(sparkconf)
 
-    implicit val formats = org.json4s.DefaultFormats
-
     val failureTaskContextFile = sparkconf.get("spark.failure.task.context")
 
-    val source = scala.io.Source.fromFile(failureTaskContextFile)
-    val json = source.mkString
-    source.close()
-
-    val failureTask = read[FailureTask](json)
+    val failureContext = FailureContext.open(
+      new File(failureTaskContextFile), SparkEnv.get.closureSerializer.newInstance())
 
-    TaskRecovery.rerun(sc, failureTask)
+    try {
+      TaskRecovery.rerun(sc, failureContext)
+    } finally {
+      failureContext.close()
+    }
   }
 
 }
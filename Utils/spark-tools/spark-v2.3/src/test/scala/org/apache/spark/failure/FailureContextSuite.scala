@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.apache.spark.failure
+
+import java.io.{File, FileOutputStream, OutputStreamWriter}
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+import java.util.{Base64, Properties}
+
+import org.apache.spark.{Partition, SparkConf, SparkFunSuite}
+import org.apache.spark.serializer.{JavaSerializer, SerializerInstance}
+import org.json4s.jackson.Serialization.write
+import org.scalatest.MustMatchers._
+
+case class SavedPartition(index: Int) extends Partition
+
+class FailureContextSuite extends SparkFunSuite {
+  val serializer: SerializerInstance = new JavaSerializer(new SparkConf).newInstance()
+
+  val localProperties: Properties = {
+    val properties = new Properties()
+    properties.setProperty("spark.job.description", "failure context test")
+    properties
+  }
+
+  val shuffleData = Array(ShuffleData("shuffle_0_0_0.data", "/tmp/blockmgr/shuffle_0_0_0.data", "host1"))
+
+  test("Zipped failure context should be read back as written") {
+    withContextFile { contextFile =>
+      val writer = new FailureContextWriter(new FileOutputStream(contextFile), serializer)
+      val partitionEntry = writer.putObject[Partition]("partition", SavedPartition(3))
+      val bcEntry = writer.putObject[Any]("broadcast_1", Seq(1, 2, 3))
+      val mapStatusEntry = writer.putBytes("map_status_0", Array[Byte](1, 2, 3))
+      writer.putManifest(FailureContextManifest(
+        binaryTaskBcId = 7,
+        taskId = "1",
+        name = "result task",
+        stageId = 2,
+        stageAttemptId = 0,
+        partitionEntry = partitionEntry,
+        hosts = Array("host1"),
+        outputId = 0,
+        localProperties = localProperties,
+        bcs = Array(BroadcastEntry(1, bcEntry)),
+        shuffleDeps = Array(ShuffleDepsEntry(0, shuffleData, mapStatusEntry)),
+        isResult = true))
+      writer.close()
+
+      val context = FailureContext.open(contextFile, serializer)
+
+      try {
+        context mustBe a[ZippedFailureContext]
+        checkContext(context)
+        context.savedFile("shuffle_0_0_0.data") mustBe new File(contextFile.getAbsoluteFile.getParentFile,
+                                                              "shuffle_0_0_0.data")
+      } finally {
+        context.close()
+      }
+    }
+  }
+
+  test("Legacy JSON failure context should be detected and read") {
+    withContextFile { contextFile =>
+      implicit val formats = org.json4s.DefaultFormats
+
+      val failureTask = FailureTask(
+        binaryTaskBcId = 7,
+        taskId = "1",
+        name = "result task",
+        stageId = 2,
+        stageAttemptId = 0,
+        partitionEnc = encode[Partition](SavedPartition(3)),
+        hosts = Array("host1"),
+        outputId = 0,
+        localProperties = localProperties,
+        metrics = null,
+        bcs = Array(BroadcastValue(1, encode[Any](Seq(1, 2, 3)))),
+        shuffleDeps = Array(ShuffleDeps(0, shuffleData, Base64.getEncoder.encodeToString(Array[Byte](1, 2, 3)))),
+        isResult = true)
+
+      val out = new OutputStreamWriter(new FileOutputStream(contextFile), StandardCharsets.UTF_8)
+      try write(failureTask, out) finally out.close()
+
+      val context = FailureContext.open(contextFile, serializer)
+
+      try {
+        context mustBe a[JsonFailureContext]
+        checkContext(context)
+      } finally {
+        context.close()
+      }
+    }
+  }
+
+  test("Empty failure context file should be treated as the legacy JSON format") {
+    withContextFile { contextFile =>
+      an[Exception] must be thrownBy FailureContext.open(contextFile, serializer)
+    }
+  }
+
+  private def checkContext(context: FailureContext): Unit = {
+    context.binaryTaskBcId mustBe 7
+    context.stageId mustBe 2
+    context.stageAttemptId mustBe 0
+    context.hosts mustBe Array("host1")
+    context.localProperties.getProperty("spark.job.description") mustBe "failure context test"
+    context.isResult mustBe true
+    context.partition.index mustBe 3
+    context.broadcastIds mustBe Seq(1L)
+    context.broadcastValue(1) mustBe Seq(1, 2, 3)
+    context.shuffleDeps.map(_._1) mustBe Seq(0)
+    context.shuffleDeps.head._2.map(_.name) mustBe Array("shuffle_0_0_0.data")
+    context.mapStatuses(0) mustBe Array[Byte](1, 2, 3)
+  }
+
+  private def encode[T: scala.reflect.ClassTag](obj: T): String = {
+    val buffer: ByteBuffer = serializer.serialize[T](obj)
+    val bytes = new Array[Byte](buffer.remaining())
+    buffer.get(bytes)
+
+    Base64.getEncoder.encodeToString(bytes)
+  }
+
+  private def withContextFile(test: File => Unit): Unit = {
+    val contextFile = File.createTempFile("failure_save", ".ftd")
+
+    try test(contextFile) finally contextFile.delete()
+  }
+}